@@ -30,7 +30,7 @@ import java.io.InputStream;
  * @since 4.0
  */
 @FunctionalInterface
-interface InputStreamSupplier {
+public interface InputStreamSupplier {
 
   /**
    * Returns a new open {@link InputStream} at the beginning of the content.
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.app.loader.tools;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Builds the index of nested jars that is read by the loader when a nested jar is
+ * opened. For each nested jar the index contains the sorted entry name hashes and
+ * central directory offsets so that the central directory doesn't have to be
+ * scanned at startup. The loader ignores indexed jars whose size or CRC doesn't
+ * match, so a stale index is never harmful.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public final class NestedZipIndex {
+
+  /**
+   * Location of the index.
+   */
+  public static final String LOCATION = "META-INF/infra-nested.idx";
+
+  private static final int MAGIC = 0x4E5A4958;
+
+  private static final int VERSION = 1;
+
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+
+  private static final int ZIP64_LOCATOR_SIZE = 20;
+
+  private static final int CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+
+  private static final int CENTRAL_DIRECTORY_FILE_NAME_OFFSET = 46;
+
+  private static final String META_INF = "META-INF/";
+
+  private static final String SIGNATURE_SUFFIX = ".DSA";
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final List<Content> contents = new ArrayList<>();
+
+  /**
+   * Add a nested jar to the index. The content is streamed rather than held in
+   * memory: a first pass computes the size and CRC and keeps the trailing end of
+   * central directory record, a second pass is only needed to read the central
+   * directory when it doesn't fit in that trailing window.
+   *
+   * @param name the name of the nested jar entry
+   * @param content supplies the content of the nested jar
+   * @return {@code true} if the jar was indexed or {@code false} if it cannot be
+   * indexed (for example a zip64 archive)
+   * @throws IOException on I/O error
+   */
+  public boolean add(String name, InputStreamSupplier content) throws IOException {
+    Content indexed = index(name, content);
+    if (indexed != null) {
+      this.contents.add(indexed);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Add a nested jar to the index.
+   *
+   * @param name the name of the nested jar entry
+   * @param bytes the content of the nested jar
+   * @return {@code true} if the jar was indexed or {@code false} if it cannot be
+   * indexed (for example a zip64 archive)
+   * @throws IOException on I/O error
+   */
+  public boolean add(String name, byte[] bytes) throws IOException {
+    return add(name, () -> new ByteArrayInputStream(bytes));
+  }
+
+  /**
+   * Return if the index has no entries.
+   *
+   * @return if the index is empty
+   */
+  public boolean isEmpty() {
+    return this.contents.isEmpty();
+  }
+
+  /**
+   * Write the index to the given output stream.
+   *
+   * @param outputStream the destination, not closed by this method
+   * @throws IOException on I/O error
+   */
+  public void writeTo(OutputStream outputStream) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(this.contents.size());
+    for (Content content : this.contents) {
+      content.writeTo(out);
+    }
+    out.flush();
+    bytes.writeTo(outputStream);
+  }
+
+  @Nullable
+  private static Content index(String name, InputStreamSupplier content) throws IOException {
+    Tail tail = Tail.read(content);
+    ByteBuffer data = ByteBuffer.wrap(tail.bytes()).order(ByteOrder.LITTLE_ENDIAN);
+    int eocdPos = findEndOfCentralDirectory(data);
+    if (eocdPos == -1 || isZip64(data, eocdPos)) {
+      return null;
+    }
+    long size = tail.size();
+    long tailPos = size - data.limit();
+    int numberOfEntries = Short.toUnsignedInt(data.getShort(eocdPos + 10));
+    long sizeOfCentralDirectory = Integer.toUnsignedLong(data.getInt(eocdPos + 12));
+    long offsetToCentralDirectory = Integer.toUnsignedLong(data.getInt(eocdPos + 16));
+    int commentLength = Short.toUnsignedInt(data.getShort(eocdPos + 20));
+    long zipContentOffset = (size - END_OF_CENTRAL_DIRECTORY_SIZE - commentLength - sizeOfCentralDirectory)
+            - offsetToCentralDirectory;
+    if (zipContentOffset < 0 || sizeOfCentralDirectory > Integer.MAX_VALUE) {
+      return null;
+    }
+    byte[] centralDirectory = readCentralDirectory(content, tail,
+            zipContentOffset + offsetToCentralDirectory - tailPos, (int) sizeOfCentralDirectory);
+    if (centralDirectory == null) {
+      return null;
+    }
+    ByteBuffer records = ByteBuffer.wrap(centralDirectory).order(ByteOrder.LITTLE_ENDIAN);
+    int[] nameHashes = new int[numberOfEntries];
+    int[] offsets = new int[numberOfEntries];
+    boolean hasJarSignatureFile = false;
+    int pos = 0;
+    for (int i = 0; i < numberOfEntries; i++) {
+      if (pos + CENTRAL_DIRECTORY_FILE_NAME_OFFSET > centralDirectory.length
+              || records.getInt(pos) != CENTRAL_DIRECTORY_SIGNATURE) {
+        return null;
+      }
+      int nameLength = Short.toUnsignedInt(records.getShort(pos + 28));
+      int extraLength = Short.toUnsignedInt(records.getShort(pos + 30));
+      int entryCommentLength = Short.toUnsignedInt(records.getShort(pos + 32));
+      if (pos + CENTRAL_DIRECTORY_FILE_NAME_OFFSET + nameLength > centralDirectory.length) {
+        return null;
+      }
+      String entryName = new String(centralDirectory, pos + CENTRAL_DIRECTORY_FILE_NAME_OFFSET, nameLength,
+              StandardCharsets.UTF_8);
+      if (!hasJarSignatureFile && nameLength > SIGNATURE_SUFFIX.length()) {
+        hasJarSignatureFile = entryName.startsWith(META_INF) && entryName.endsWith(SIGNATURE_SUFFIX);
+      }
+      nameHashes[i] = hash(entryName);
+      offsets[i] = pos;
+      pos += CENTRAL_DIRECTORY_FILE_NAME_OFFSET + nameLength + extraLength + entryCommentLength;
+    }
+    return new Content(name, size, tail.crc32(), zipContentOffset, offsetToCentralDirectory,
+            tailPos + eocdPos + END_OF_CENTRAL_DIRECTORY_SIZE, commentLength, hasJarSignatureFile,
+            nameHashes, offsets);
+  }
+
+  /**
+   * Read the central directory, from the tail when it starts within it or otherwise
+   * by streaming the content again up to the central directory.
+   */
+  @Nullable
+  private static byte[] readCentralDirectory(InputStreamSupplier content, Tail tail,
+          long posInTail, int length) throws IOException {
+    if (posInTail >= 0) {
+      if (posInTail + length > tail.bytes().length) {
+        return null;
+      }
+      return Arrays.copyOfRange(tail.bytes(), (int) posInTail, (int) posInTail + length);
+    }
+    try (InputStream inputStream = content.openStream()) {
+      inputStream.skipNBytes(tail.size() - tail.bytes().length + posInTail);
+      byte[] bytes = inputStream.readNBytes(length);
+      return (bytes.length != length) ? null : bytes;
+    }
+  }
+
+  private static int findEndOfCentralDirectory(ByteBuffer data) {
+    int start = data.limit() - END_OF_CENTRAL_DIRECTORY_SIZE;
+    int end = Math.max(0, start - 0xFFFF);
+    for (int pos = start; pos >= end; pos--) {
+      if (data.getInt(pos) == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+        return pos;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isZip64(ByteBuffer data, int eocdPos) {
+    int locatorPos = eocdPos - ZIP64_LOCATOR_SIZE;
+    if (locatorPos >= 0 && data.getInt(locatorPos) == ZIP64_LOCATOR_SIGNATURE) {
+      return true;
+    }
+    return data.getShort(eocdPos + 10) == (short) 0xFFFF || data.getInt(eocdPos + 16) == 0xFFFFFFFF;
+  }
+
+  /**
+   * Hash an entry name in the same way as the loader, which always hashes the name as
+   * if it ended with '/'.
+   */
+  static int hash(String name) {
+    int hash = name.hashCode();
+    if (!name.endsWith("/")) {
+      hash = 31 * hash + '/';
+    }
+    return hash;
+  }
+
+  /**
+   * The size and CRC of a nested jar together with its trailing bytes, large enough
+   * to hold the end of central directory record, its comment and a zip64 locator.
+   */
+  private record Tail(long size, int crc32, byte[] bytes) {
+
+    private static final int SIZE = ZIP64_LOCATOR_SIZE + END_OF_CENTRAL_DIRECTORY_SIZE + 0xFFFF;
+
+    static Tail read(InputStreamSupplier content) throws IOException {
+      CRC32 crc = new CRC32();
+      byte[] window = new byte[SIZE];
+      byte[] buffer = new byte[BUFFER_SIZE];
+      long size = 0;
+      try (InputStream inputStream = content.openStream()) {
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+          crc.update(buffer, 0, read);
+          int windowPos = (int) (size % SIZE);
+          int first = Math.min(read, SIZE - windowPos);
+          System.arraycopy(buffer, 0, window, windowPos, first);
+          System.arraycopy(buffer, first, window, 0, read - first);
+          size += read;
+        }
+      }
+      byte[] bytes;
+      if (size <= SIZE) {
+        bytes = Arrays.copyOf(window, (int) size);
+      }
+      else {
+        int windowPos = (int) (size % SIZE);
+        bytes = new byte[SIZE];
+        System.arraycopy(window, windowPos, bytes, 0, SIZE - windowPos);
+        System.arraycopy(window, 0, bytes, SIZE - windowPos, windowPos);
+      }
+      return new Tail(size, (int) crc.getValue(), bytes);
+    }
+
+  }
+
+  private record Content(String name, long size, int crc32, long zipContentOffset, long centralDirectoryPos,
+          long commentPos, long commentLength, boolean hasJarSignatureFile, int[] nameHashes, int[] offsets) {
+
+    void writeTo(DataOutputStream out) throws IOException {
+      int size = this.nameHashes.length;
+      Integer[] order = new Integer[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = i;
+      }
+      Arrays.sort(order, (a, b) -> Integer.compare(this.nameHashes[a], this.nameHashes[b]));
+      int[] lookupIndexes = new int[size];
+      for (int i = 0; i < size; i++) {
+        lookupIndexes[order[i]] = i;
+      }
+      out.writeUTF(this.name);
+      out.writeLong(this.size);
+      out.writeInt(this.crc32);
+      out.writeLong(this.zipContentOffset);
+      out.writeLong(this.centralDirectoryPos);
+      out.writeLong(this.commentPos);
+      out.writeLong(this.commentLength);
+      out.writeBoolean(this.hasJarSignatureFile);
+      out.writeInt(size);
+      for (Integer index : order) {
+        out.writeInt(this.nameHashes[index]);
+      }
+      for (Integer index : order) {
+        out.writeInt(this.offsets[index]);
+      }
+      for (int lookupIndex : lookupIndexes) {
+        out.writeInt(lookupIndex);
+      }
+    }
+
+  }
+
+}
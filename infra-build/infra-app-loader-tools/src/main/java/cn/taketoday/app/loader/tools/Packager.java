@@ -558,9 +558,21 @@ public abstract class Packager {
         }
       }
       writeClasspathIndexIfNecessary(writtenLibraries.keySet(), getLayout(), writer);
+      writeNestedZipIndexIfNecessary(writtenLibraries, writer);
       return writtenLibraries;
     }
 
+    private void writeNestedZipIndexIfNecessary(Map<String, Library> libraries, AbstractJarWriter writer)
+            throws IOException {
+      NestedZipIndex index = new NestedZipIndex();
+      for (Entry<String, Library> entry : libraries.entrySet()) {
+        index.add(entry.getKey(), entry.getValue()::openStream);
+      }
+      if (!index.isEmpty()) {
+        writer.writeEntry(NestedZipIndex.LOCATION, index::writeTo);
+      }
+    }
+
     private void writeClasspathIndexIfNecessary(Collection<String> paths, Layout layout, AbstractJarWriter writer)
             throws IOException {
       if (layout.getClasspathIndexFileLocation() != null) {
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.app.loader.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link NestedZipIndex}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class NestedZipIndexTests {
+
+  @Test
+  void isEmptyWhenNothingAdded() {
+    assertThat(new NestedZipIndex().isEmpty()).isTrue();
+  }
+
+  @Test
+  void addWhenNotZipReturnsFalse() throws IOException {
+    NestedZipIndex index = new NestedZipIndex();
+    assertThat(index.add("lib/bad.jar", new byte[] { 1, 2, 3 })).isFalse();
+    assertThat(index.isEmpty()).isTrue();
+  }
+
+  @Test
+  void writeToWritesSortedLookups() throws IOException {
+    byte[] zip = createZip("a/", "a/b.txt", "META-INF/MANIFEST.MF", "c.class");
+    NestedZipIndex index = new NestedZipIndex();
+    assertThat(index.add("lib/test.jar", () -> new ByteArrayInputStream(zip))).isTrue();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.writeTo(out);
+
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    assertThat(in.readInt()).isEqualTo(0x4E5A4958);
+    assertThat(in.readInt()).isEqualTo(1);
+    assertThat(in.readInt()).isEqualTo(1);
+    assertThat(in.readUTF()).isEqualTo("lib/test.jar");
+    assertThat(in.readLong()).isEqualTo(zip.length);
+    CRC32 crc = new CRC32();
+    crc.update(zip);
+    assertThat(in.readInt()).isEqualTo((int) crc.getValue());
+    assertThat(in.readLong()).isZero();
+    long centralDirectoryPos = in.readLong();
+    long commentPos = in.readLong();
+    assertThat(commentPos).isEqualTo(zip.length);
+    assertThat(in.readLong()).isZero();
+    assertThat(in.readBoolean()).isFalse();
+    int size = in.readInt();
+    assertThat(size).isEqualTo(4);
+    int[] hashes = readInts(in, size);
+    int[] offsets = readInts(in, size);
+    int[] lookupIndexes = readInts(in, size);
+    assertThat(hashes).isSorted();
+    assertThat(hashes).contains(NestedZipIndex.hash("a/"), NestedZipIndex.hash("c.class"));
+    assertThat(NestedZipIndex.hash("a")).isEqualTo(NestedZipIndex.hash("a/"));
+    ByteBuffer buffer = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+    for (int offset : offsets) {
+      assertThat(buffer.getInt((int) (centralDirectoryPos + offset))).isEqualTo(0x02014b50);
+    }
+    assertThat(offsets[lookupIndexes[0]]).isZero();
+  }
+
+  @Test
+  void addWhenSignedSetsSignatureFlag() throws IOException {
+    byte[] zip = createZip("META-INF/MANIFEST.MF", "META-INF/SIGN.DSA");
+    NestedZipIndex index = new NestedZipIndex();
+    index.add("lib/signed.jar", zip);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.writeTo(out);
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    in.skipNBytes(12);
+    in.readUTF();
+    in.skipNBytes(8 + 4 + 8 * 4);
+    assertThat(in.readBoolean()).isTrue();
+  }
+
+  @Test
+  void addWhenCentralDirectoryLargerThanTailReadsItAgain() throws IOException {
+    String[] names = new String[3000];
+    for (int i = 0; i < names.length; i++) {
+      names[i] = "cn/taketoday/example/generated/Entry%05d.class".formatted(i);
+    }
+    byte[] zip = createZip(names);
+    NestedZipIndex index = new NestedZipIndex();
+    assertThat(index.add("lib/large.jar", () -> new ByteArrayInputStream(zip))).isTrue();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    index.writeTo(out);
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    in.skipNBytes(12);
+    in.readUTF();
+    assertThat(in.readLong()).isEqualTo(zip.length);
+    CRC32 crc = new CRC32();
+    crc.update(zip);
+    assertThat(in.readInt()).isEqualTo((int) crc.getValue());
+    in.skipNBytes(8);
+    long centralDirectoryPos = in.readLong();
+    assertThat(zip.length - centralDirectoryPos).isGreaterThan(0xFFFF + 42);
+    in.skipNBytes(8 + 8 + 1);
+    int size = in.readInt();
+    assertThat(size).isEqualTo(names.length);
+    in.skipNBytes(4L * size);
+    ByteBuffer buffer = ByteBuffer.wrap(zip).order(ByteOrder.LITTLE_ENDIAN);
+    for (int offset : readInts(in, size)) {
+      assertThat(buffer.getInt((int) (centralDirectoryPos + offset))).isEqualTo(0x02014b50);
+    }
+  }
+
+  private static int[] readInts(DataInputStream in, int size) throws IOException {
+    int[] result = new int[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = in.readInt();
+    }
+    return result;
+  }
+
+  private static byte[] createZip(String... names) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+      for (String name : names) {
+        out.putNextEntry(new ZipEntry(name));
+        if (!name.endsWith("/")) {
+          out.write(name.getBytes());
+        }
+        out.closeEntry();
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.app.loader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.taketoday.app.loader.log.DebugLogger;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Loads and links the classes of a recorded class list on a few background threads
+ * while the main thread bootstraps the application.
+ * <p>
+ * The class list is read from the {@value #DEFAULT_LOCATION} resource or, when set,
+ * from the file named by the {@value #LOCATION_PROPERTY} system property. Each line
+ * holds a class name, either in binary ({@code com.example.Foo}) or internal
+ * ({@code com/example/Foo}) form, so lists recorded with
+ * {@code -XX:DumpLoadedClassList} can be used directly. Only the first token of a
+ * line is used, comment ({@code #}) and directive ({@code @}) lines are skipped.
+ * <p>
+ * Classes are never initialized, a class that can't be found or linked is skipped.
+ * Set {@value #LOCATION_PROPERTY} to {@code false} to disable preloading and
+ * {@value #THREADS_PROPERTY} to change the number of threads, an invalid number
+ * fails the launch.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+final class ClassPreloader {
+
+  static final String LOCATION_PROPERTY = "loader.preload";
+
+  static final String THREADS_PROPERTY = "loader.preload.threads";
+
+  static final String DEFAULT_LOCATION = "META-INF/preload-classes.lst";
+
+  private static final DebugLogger debug = DebugLogger.get(ClassPreloader.class);
+
+  private static final AtomicInteger threadCount = new AtomicInteger();
+
+  private final ClassLoader classLoader;
+
+  private final List<String> classNames;
+
+  private final AtomicInteger cursor = new AtomicInteger();
+
+  private final AtomicInteger loaded = new AtomicInteger();
+
+  private final CountDownLatch done;
+
+  private final int threads;
+
+  ClassPreloader(ClassLoader classLoader, List<String> classNames, int threads) {
+    this.classLoader = classLoader;
+    this.classNames = classNames;
+    this.threads = Math.max(1, Math.min(threads, classNames.size()));
+    this.done = new CountDownLatch(this.threads);
+  }
+
+  /**
+   * Start preloading classes if a class list is available.
+   *
+   * @param classLoader the class loader used to load the classes
+   * @return the started preloader or {@code null}
+   * @throws IllegalArgumentException if {@value #THREADS_PROPERTY} is not a positive number
+   */
+  @Nullable
+  static ClassPreloader startIfPossible(ClassLoader classLoader) {
+    String location = System.getProperty(LOCATION_PROPERTY);
+    if ("false".equalsIgnoreCase(location)) {
+      return null;
+    }
+    int threads = getThreads(System.getProperty(THREADS_PROPERTY));
+    try {
+      List<String> classNames = readClassList(classLoader, location);
+      if (classNames.isEmpty()) {
+        return null;
+      }
+      ClassPreloader preloader = new ClassPreloader(classLoader, classNames, threads);
+      preloader.start();
+      return preloader;
+    }
+    catch (IOException | RuntimeException ex) {
+      debug.log("Unable to preload classes from '%s': %s", location, ex);
+      return null;
+    }
+  }
+
+  private static List<String> readClassList(ClassLoader classLoader, @Nullable String location) throws IOException {
+    if (location != null && !location.isEmpty()) {
+      try (InputStream inputStream = Files.newInputStream(Path.of(location))) {
+        return readClassList(inputStream);
+      }
+    }
+    try (InputStream inputStream = classLoader.getResourceAsStream(DEFAULT_LOCATION)) {
+      return (inputStream != null) ? readClassList(inputStream) : List.of();
+    }
+  }
+
+  static List<String> readClassList(InputStream inputStream) throws IOException {
+    Set<String> classNames = new LinkedHashSet<>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    String line;
+    while ((line = reader.readLine()) != null) {
+      String className = getClassName(line.trim());
+      if (className != null) {
+        classNames.add(className);
+      }
+    }
+    return new ArrayList<>(classNames);
+  }
+
+  @Nullable
+  private static String getClassName(String line) {
+    if (line.isEmpty() || line.charAt(0) == '#' || line.charAt(0) == '@') {
+      return null;
+    }
+    int end = 0;
+    while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+      end++;
+    }
+    String className = line.substring(0, end).replace('/', '.');
+    if (className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.")
+            || className.contains("$$Lambda") || className.contains(".0x")) {
+      // Already shared by the JDK or hidden classes that can't be loaded by name
+      return null;
+    }
+    return className;
+  }
+
+  static int getThreads(@Nullable String value) {
+    if (value == null) {
+      return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+    try {
+      int threads = Integer.parseInt(value.trim());
+      if (threads > 0) {
+        return threads;
+      }
+    }
+    catch (NumberFormatException ignored) {
+    }
+    throw new IllegalArgumentException("Invalid '%s' value '%s', must be a positive number"
+            .formatted(THREADS_PROPERTY, value));
+  }
+
+  void start() {
+    debug.log("Preloading %s classes using %s threads", this.classNames.size(), this.threads);
+    long start = System.nanoTime();
+    for (int i = 0; i < this.threads; i++) {
+      Thread thread = new Thread(() -> preload(start), "class-preloader-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  private void preload(long start) {
+    try {
+      int index;
+      while ((index = this.cursor.getAndIncrement()) < this.classNames.size()) {
+        if (preload(this.classNames.get(index))) {
+          this.loaded.incrementAndGet();
+        }
+      }
+    }
+    finally {
+      this.done.countDown();
+      if (this.done.getCount() == 0) {
+        debug.log("Preloaded %s of %s classes in %sms", this.loaded.get(), this.classNames.size(),
+                (System.nanoTime() - start) / 1_000_000);
+      }
+    }
+  }
+
+  private boolean preload(String className) {
+    try {
+      Class<?> type = Class.forName(className, false, this.classLoader);
+      // Reflecting on the declared fields links (and so verifies) the class
+      // without running its static initializer
+      type.getDeclaredFields();
+      return true;
+    }
+    catch (ClassNotFoundException | LinkageError | SecurityException ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Wait for all classes to be preloaded.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  void await() throws InterruptedException {
+    this.done.await();
+  }
+
+  int getLoadedCount() {
+    return this.loaded.get();
+  }
+
+}
@@ -99,6 +99,13 @@ public class LaunchedClassLoader extends JarUrlClassLoader {
   }
 
   private Class<?> loadClassInLaunchedClassLoader(String name) throws ClassNotFoundException {
+    synchronized(getClassLoadingLock(name)) {
+      Class<?> loadedClass = findLoadedClass(name);
+      return (loadedClass != null) ? loadedClass : defineClassInLaunchedClassLoader(name);
+    }
+  }
+
+  private Class<?> defineClassInLaunchedClassLoader(String name) throws ClassNotFoundException {
     try {
       String internalName = name.replace('.', '/') + ".class";
       try (InputStream inputStream = getParent().getResourceAsStream(internalName);
@@ -54,6 +54,9 @@ public abstract class Launcher {
       ClassLoader classLoader = createClassLoader(getClassPathUrls());
       String jarMode = System.getProperty("jarmode");
       String mainClassName = hasLength(jarMode) ? JAR_MODE_RUNNER_CLASS_NAME : getMainClass();
+      if (!hasLength(jarMode)) {
+        ClassPreloader.startIfPossible(classLoader);
+      }
       launch(classLoader, mainClassName, args);
     }
     catch (UncheckedIOException ex) {
@@ -43,6 +43,11 @@ import cn.taketoday.app.loader.jar.NestedJarFile;
  */
 public abstract class JarUrlClassLoader extends URLClassLoader {
 
+  static {
+    // Subclasses can only be parallel capable if all of their super classes are
+    ClassLoader.registerAsParallelCapable();
+  }
+
   private final URL[] urls;
 
   private final boolean hasJarUrls;
@@ -19,12 +19,14 @@ package cn.taketoday.app.loader.zip;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Locale;
 import java.util.function.Supplier;
 
 import cn.taketoday.app.loader.log.DebugLogger;
@@ -32,6 +34,10 @@ import cn.taketoday.app.loader.log.DebugLogger;
 /**
  * Reference counted {@link DataBlock} implementation backed by a {@link FileChannel} with
  * support for slicing.
+ * <p>
+ * Unless disabled with the {@value #MEMORY_MAPPED_PROPERTY} system property, files up
+ * to 2GB are memory mapped when opened, so that reads don't need a lock nor a system
+ * call. Slices, such as nested jars, share the mapping of their outer file.
  *
  * @author Phillip Webb
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
@@ -39,6 +45,14 @@ import cn.taketoday.app.loader.log.DebugLogger;
  */
 class FileChannelDataBlock implements CloseableDataBlock {
 
+  /**
+   * System property to disable memory mapping of files: {@value}.
+   */
+  static final String MEMORY_MAPPED_PROPERTY = "loader.zip.mmap";
+
+  private static final boolean memoryMapped = !"false".equalsIgnoreCase(System.getProperty(MEMORY_MAPPED_PROPERTY))
+          && !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
   private static final DebugLogger debug = DebugLogger.get(FileChannelDataBlock.class);
 
   static Tracker tracker;
@@ -165,6 +179,8 @@ class FileChannelDataBlock implements CloseableDataBlock {
 
     private final Path path;
 
+    private final boolean mapped;
+
     private int referenceCount;
 
     private FileChannel fileChannel;
@@ -175,16 +191,28 @@ class FileChannelDataBlock implements CloseableDataBlock {
 
     private int bufferSize;
 
+    private volatile MappedByteBuffer mappedBuffer;
+
     private final Object lock = new Object();
 
     ManagedFileChannel(Path path) {
+      this(path, memoryMapped);
+    }
+
+    ManagedFileChannel(Path path, boolean mapped) {
       if (!Files.isRegularFile(path)) {
         throw new IllegalArgumentException(path + " must be a regular file");
       }
       this.path = path;
+      this.mapped = mapped;
     }
 
     int read(ByteBuffer dst, long position) throws IOException {
+      MappedByteBuffer mappedBuffer = this.mappedBuffer;
+      if (mappedBuffer != null) {
+        // the mapping stays valid after close, until garbage collected
+        return read(mappedBuffer, dst, position);
+      }
       synchronized(this.lock) {
         if (position < this.bufferPosition || position >= this.bufferPosition + this.bufferSize) {
           fillBuffer(position);
@@ -200,6 +228,17 @@ class FileChannelDataBlock implements CloseableDataBlock {
       }
     }
 
+    private static int read(MappedByteBuffer mappedBuffer, ByteBuffer dst, long position) {
+      int capacity = mappedBuffer.capacity();
+      if (position >= capacity) {
+        return -1;
+      }
+      int length = (int) Math.min(capacity - position, dst.remaining());
+      dst.put(dst.position(), mappedBuffer, (int) position, length);
+      dst.position(dst.position() + length);
+      return length;
+    }
+
     private void fillBuffer(long position) throws IOException {
       for (int i = 0; i < 10; i++) {
         boolean interrupted = (i != 0) ? Thread.interrupted() : false;
@@ -237,6 +276,9 @@ class FileChannelDataBlock implements CloseableDataBlock {
           debug.log("Opening '%s'", this.path);
           this.fileChannel = FileChannel.open(this.path, StandardOpenOption.READ);
           this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+          if (this.mapped) {
+            map();
+          }
           if (tracker != null) {
             tracker.openedFileChannel(this.path, this.fileChannel);
           }
@@ -257,6 +299,7 @@ class FileChannelDataBlock implements CloseableDataBlock {
           this.buffer = null;
           this.bufferPosition = -1;
           this.bufferSize = 0;
+          this.mappedBuffer = null;
           this.fileChannel.close();
           if (tracker != null) {
             tracker.closedFileChannel(this.path, this.fileChannel);
@@ -267,6 +310,20 @@ class FileChannelDataBlock implements CloseableDataBlock {
       }
     }
 
+    private void map() {
+      try {
+        long size = this.fileChannel.size();
+        if (size > 0 && size <= Integer.MAX_VALUE) {
+          this.mappedBuffer = this.fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+          debug.log("Mapped '%s' into memory", this.path);
+        }
+      }
+      catch (IOException | UnsupportedOperationException ex) {
+        // Not mappable, use buffered reads
+        debug.log("Unable to map '%s' into memory: %s", this.path, ex);
+      }
+    }
+
     <E extends Exception> void ensureOpen(Supplier<E> exceptionSupplier) throws E {
       synchronized(this.lock) {
         if (this.referenceCount == 0 || !this.fileChannel.isOpen()) {
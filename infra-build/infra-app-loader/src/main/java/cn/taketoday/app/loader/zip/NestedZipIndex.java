@@ -0,0 +1,176 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.app.loader.zip;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipEntry;
+
+import cn.taketoday.app.loader.log.DebugLogger;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Precomputed lookup tables of the nested zips of a container zip, written at build
+ * time as the {@value #LOCATION} entry. Nested zips found in the index don't need
+ * their central directory to be scanned and hashed when they're opened.
+ * <p>
+ * An indexed nested zip is only used if its size and CRC still match the entry in
+ * the container zip, otherwise it is loaded as usual.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+final class NestedZipIndex {
+
+  /**
+   * Location of the index in the container zip.
+   */
+  static final String LOCATION = "META-INF/infra-nested.idx";
+
+  static final int MAGIC = 0x4E5A4958;
+
+  static final int VERSION = 1;
+
+  private static final DebugLogger debug = DebugLogger.get(NestedZipIndex.class);
+
+  private static final NestedZipIndex NONE = new NestedZipIndex(Map.of());
+
+  private final Map<String, Content> contents;
+
+  private NestedZipIndex(Map<String, Content> contents) {
+    this.contents = contents;
+  }
+
+  /**
+   * Find the indexed content of a nested zip.
+   *
+   * @param name the name of the nested entry
+   * @param size the uncompressed size of the nested entry
+   * @param crc32 the CRC of the nested entry
+   * @return the content or {@code null} if the nested zip is not indexed or has changed
+   */
+  @Nullable
+  Content find(String name, long size, int crc32) {
+    Content content = this.contents.get(name);
+    if (content != null && content.size() == size && content.crc32() == crc32) {
+      return content;
+    }
+    return null;
+  }
+
+  int size() {
+    return this.contents.size();
+  }
+
+  /**
+   * Load the index of the given container zip.
+   *
+   * @param zip the container zip
+   * @return the index, empty if the zip has no valid index
+   */
+  static NestedZipIndex get(ZipContent zip) {
+    ZipContent.Entry entry = zip.getEntry(LOCATION);
+    if (entry == null) {
+      return NONE;
+    }
+    Inflater inflater = (entry.getCompressionMethod() == ZipEntry.DEFLATED) ? new Inflater(true) : null;
+    try (CloseableDataBlock block = entry.openContent()) {
+      InputStream in = block.asInputStream();
+      if (inflater != null) {
+        in = new InflaterInputStream(in, inflater, 512);
+      }
+      NestedZipIndex index = load(new DataInputStream(new BufferedInputStream(in)));
+      debug.log("Loaded index of %s nested zips from '%s'", index.size(), zip);
+      return index;
+    }
+    catch (IOException | RuntimeException ex) {
+      debug.log("Ignoring invalid nested zip index of '%s': %s", zip, ex);
+      return NONE;
+    }
+    finally {
+      if (inflater != null) {
+        inflater.end();
+      }
+    }
+  }
+
+  static NestedZipIndex load(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a nested zip index");
+    }
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported nested zip index version " + version);
+    }
+    int count = in.readInt();
+    Map<String, Content> contents = new HashMap<>(Math.max(16, (int) (count / 0.75f) + 1));
+    for (int i = 0; i < count; i++) {
+      String name = in.readUTF();
+      long size = in.readLong();
+      int crc32 = in.readInt();
+      long zipContentOffset = in.readLong();
+      long centralDirectoryPos = in.readLong();
+      long commentPos = in.readLong();
+      long commentLength = in.readLong();
+      boolean hasJarSignatureFile = in.readBoolean();
+      int entries = in.readInt();
+      int[] nameHashLookups = readInts(in, entries);
+      int[] relativeCentralDirectoryOffsetLookups = readInts(in, entries);
+      int[] lookupIndexes = readInts(in, entries);
+      contents.put(name, new Content(size, crc32, zipContentOffset, centralDirectoryPos, commentPos,
+              commentLength, hasJarSignatureFile, nameHashLookups, relativeCentralDirectoryOffsetLookups, lookupIndexes));
+    }
+    return new NestedZipIndex(contents);
+  }
+
+  private static int[] readInts(DataInputStream in, int length) throws IOException {
+    int[] result = new int[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = in.readInt();
+    }
+    return result;
+  }
+
+  /**
+   * The precomputed content of a nested zip, the arrays are in the form used by
+   * {@link ZipContent} and must not be modified.
+   *
+   * @param size the size of the nested zip
+   * @param crc32 the CRC of the nested zip
+   * @param zipContentOffset the offset of the zip content within the nested data
+   * @param centralDirectoryPos the position of the central directory, relative to the zip content
+   * @param commentPos the position of the zip comment
+   * @param commentLength the length of the zip comment
+   * @param hasJarSignatureFile if the nested zip contains a jar signature file
+   * @param nameHashLookups the entry name hashes in ascending order
+   * @param relativeCentralDirectoryOffsetLookups the central directory offsets, in hash order
+   * @param lookupIndexes the lookup index of each entry, in central directory order
+   */
+  record Content(long size, int crc32, long zipContentOffset, long centralDirectoryPos, long commentPos,
+          long commentLength, boolean hasJarSignatureFile, int[] nameHashLookups,
+          int[] relativeCentralDirectoryOffsetLookups, int[] lookupIndexes) {
+
+  }
+
+}
@@ -571,7 +571,7 @@ public final class ZipContent implements Closeable {
           throw new IOException("Nested entry '%s' not found in container zip '%s'"
                   .formatted(source.nestedEntryName(), source.path()));
         }
-        return (!entry.isDirectory()) ? loadNestedZip(source, entry) : loadNestedDirectory(source, zip, entry);
+        return (!entry.isDirectory()) ? loadNestedZip(source, zip, entry) : loadNestedDirectory(source, zip, entry);
       }
     }
 
@@ -580,15 +580,37 @@ public final class ZipContent implements Closeable {
       return openAndLoad(source, Kind.ZIP, new FileChannelDataBlock(source.path()));
     }
 
-    private static ZipContent loadNestedZip(Source source, Entry entry) throws IOException {
+    private static ZipContent loadNestedZip(Source source, ZipContent zip, Entry entry) throws IOException {
       if (entry.centralRecord.compressionMethod() != ZipEntry.STORED) {
         throw new IOException("Nested entry '%s' in container zip '%s' must not be compressed"
                 .formatted(source.nestedEntryName(), source.path()));
       }
+      NestedZipIndex.Content indexed = zip.getInfo(NestedZipIndex.class, NestedZipIndex::get)
+              .find(source.nestedEntryName(), Integer.toUnsignedLong(entry.centralRecord.uncompressedSize()),
+                      entry.centralRecord.crc32());
+      if (indexed != null) {
+        debug.log("Loading indexed nested zip entry '%s' from '%s'", source.nestedEntryName(), source.path());
+        return openAndLoadIndexed(source, entry.getContent(), indexed);
+      }
       debug.log("Loading nested zip entry '%s' from '%s'", source.nestedEntryName(), source.path());
       return openAndLoad(source, Kind.NESTED_ZIP, entry.getContent());
     }
 
+    private static ZipContent openAndLoadIndexed(Source source, FileChannelDataBlock data,
+            NestedZipIndex.Content indexed) throws IOException {
+      try {
+        data.open();
+        return new ZipContent(source, Kind.NESTED_ZIP, data.slice(indexed.zipContentOffset()),
+                indexed.centralDirectoryPos(), indexed.commentPos(), indexed.commentLength(),
+                indexed.lookupIndexes(), indexed.nameHashLookups(), indexed.relativeCentralDirectoryOffsetLookups(),
+                NameOffsetLookups.NONE, indexed.hasJarSignatureFile());
+      }
+      catch (IOException | RuntimeException ex) {
+        data.close();
+        throw ex;
+      }
+    }
+
     private static ZipContent openAndLoad(Source source, Kind kind, FileChannelDataBlock data) throws IOException {
       try {
         data.open();
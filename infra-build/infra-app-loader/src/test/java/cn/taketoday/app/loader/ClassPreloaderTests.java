@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.app.loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import cn.taketoday.app.loader.zip.AssertFileChannelDataBlocksClosed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link ClassPreloader}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+@AssertFileChannelDataBlocksClosed
+class ClassPreloaderTests {
+
+  static final AtomicBoolean preloadedInitialized = new AtomicBoolean();
+
+  @Test
+  void readClassListSupportsDumpLoadedClassListFormat() throws IOException {
+    String content = """
+            # NOTE: Do not modify this file.
+            java/lang/Object id: 0
+            cn/taketoday/app/loader/Archive id: 1
+            cn.taketoday.app.loader.Launcher
+            @lambda-proxy cn/taketoday/app/loader/Archive test
+            com/example/Foo$$Lambda/0x0000001 id: 2
+
+            cn/taketoday/app/loader/Archive id: 3
+            """;
+    List<String> classNames = ClassPreloader.readClassList(
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    assertThat(classNames).containsExactly("cn.taketoday.app.loader.Archive", "cn.taketoday.app.loader.Launcher");
+  }
+
+  @Test
+  void preloadLoadsClassesWithoutInitializing() throws Exception {
+    try (LaunchedClassLoader classLoader = new LaunchedClassLoader(false, new URL[] {},
+            getClass().getClassLoader())) {
+      List<String> classNames = List.of(Preloaded.class.getName(), "com.example.Missing");
+      ClassPreloader preloader = new ClassPreloader(classLoader, classNames, 2);
+      preloader.start();
+      preloader.await();
+      assertThat(preloader.getLoadedCount()).isOne();
+      assertThat(preloadedInitialized).isFalse();
+    }
+  }
+
+  @Test
+  void threads() {
+    assertThat(ClassPreloader.getThreads(null)).isBetween(1, 4);
+    assertThat(ClassPreloader.getThreads(" 3 ")).isEqualTo(3);
+  }
+
+  @Test
+  void invalidThreadsFailsFast() {
+    assertThatIllegalArgumentException().isThrownBy(() -> ClassPreloader.getThreads("two"))
+            .withMessage("Invalid 'loader.preload.threads' value 'two', must be a positive number");
+    assertThatIllegalArgumentException().isThrownBy(() -> ClassPreloader.getThreads("0"));
+  }
+
+  static class Preloaded {
+
+    static {
+      preloadedInitialized.set(true);
+    }
+
+  }
+
+}
@@ -20,6 +20,14 @@ package cn.taketoday.app.loader;
 import org.junit.jupiter.api.Test;
 
 import java.net.URL;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import cn.taketoday.app.loader.jarmode.JarMode;
 import cn.taketoday.app.loader.zip.AssertFileChannelDataBlocksClosed;
@@ -47,4 +55,31 @@ class LaunchedClassLoaderTests {
     }
   }
 
+  @Test
+  void isRegisteredAsParallelCapable() throws Exception {
+    try (LaunchedClassLoader classLoader = new LaunchedClassLoader(false, new URL[] {},
+            getClass().getClassLoader())) {
+      assertThat(classLoader.isRegisteredAsParallelCapable()).isTrue();
+    }
+  }
+
+  @Test
+  void loadClassWhenJarModeClassLoadedConcurrentlyDefinesOnce() throws Exception {
+    try (LaunchedClassLoader classLoader = new LaunchedClassLoader(false, new URL[] {},
+            getClass().getClassLoader())) {
+      List<Callable<Class<?>>> tasks = Collections.nCopies(8, () -> classLoader.loadClass(JarMode.class.getName()));
+      ExecutorService executor = Executors.newFixedThreadPool(8);
+      try {
+        Set<Class<?>> classes = new HashSet<>();
+        for (Future<Class<?>> future : executor.invokeAll(tasks)) {
+          classes.add(future.get());
+        }
+        assertThat(classes).hasSize(1);
+      }
+      finally {
+        executor.shutdown();
+      }
+    }
+  }
+
 }
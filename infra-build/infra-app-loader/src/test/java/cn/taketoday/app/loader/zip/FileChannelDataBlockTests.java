@@ -28,7 +28,9 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 
+import cn.taketoday.app.loader.zip.FileChannelDataBlock.ManagedFileChannel;
 import cn.taketoday.app.loader.zip.FileChannelDataBlock.Tracker;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -113,6 +115,40 @@ class FileChannelDataBlockTests {
     }
   }
 
+  @Test
+  void readWhenMemoryMappedReadsFile() throws IOException {
+    ManagedFileChannel channel = new ManagedFileChannel(this.tempFile.toPath(), true);
+    try (FileChannelDataBlock block = new FileChannelDataBlock(channel, 0, CONTENT.length)) {
+      block.open();
+      ByteBuffer buffer = ByteBuffer.allocate(CONTENT.length);
+      assertThat(block.read(buffer, 2)).isEqualTo(4);
+      assertThat(buffer.array()).containsExactly(0x02, 0x03, 0x04, 0x05, 0x0, 0x0);
+      assertThat(block.read(ByteBuffer.allocate(1), 6)).isEqualTo(-1);
+      FileChannelDataBlock slice = block.slice(1, 3);
+      buffer = ByteBuffer.allocate(CONTENT.length);
+      assertThat(slice.read(buffer, 0)).isEqualTo(3);
+      assertThat(buffer.array()).containsExactly(0x01, 0x02, 0x03, 0x0, 0x0, 0x0);
+    }
+  }
+
+  @Test
+  void readWhenMemoryMappedAndBufferedReadSameContent() throws IOException {
+    byte[] content = new byte[ManagedFileChannel.BUFFER_SIZE * 3 + 7];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    Files.write(this.tempFile.toPath(), content);
+    for (boolean mapped : new boolean[] { true, false }) {
+      ManagedFileChannel channel = new ManagedFileChannel(this.tempFile.toPath(), mapped);
+      try (FileChannelDataBlock block = new FileChannelDataBlock(channel, 0, content.length)) {
+        block.open();
+        ByteBuffer buffer = ByteBuffer.allocate(content.length - 5);
+        block.readFully(buffer, 5);
+        assertThat(buffer.array()).containsExactly(Arrays.copyOfRange(content, 5, content.length));
+      }
+    }
+  }
+
   @Test
   void readWhenPosIsNegativeThrowsException() throws IOException {
     try (FileChannelDataBlock block = createAndOpenBlock()) {
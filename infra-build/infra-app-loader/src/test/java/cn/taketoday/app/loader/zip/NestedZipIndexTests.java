@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.app.loader.zip;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import cn.taketoday.app.loader.testsupport.TestJar;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * Tests for {@link NestedZipIndex}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+@AssertFileChannelDataBlocksClosed
+class NestedZipIndexTests {
+
+  @TempDir
+  File tempDir;
+
+  @Test
+  void loadAndFind() throws IOException {
+    NestedZipIndex index = NestedZipIndex.load(input(NestedZipIndex.MAGIC, NestedZipIndex.VERSION));
+    assertThat(index.size()).isOne();
+    NestedZipIndex.Content content = index.find("lib/test.jar", 100, 42);
+    assertThat(content).isNotNull();
+    assertThat(content.zipContentOffset()).isEqualTo(2);
+    assertThat(content.centralDirectoryPos()).isEqualTo(60);
+    assertThat(content.hasJarSignatureFile()).isTrue();
+    assertThat(content.nameHashLookups()).containsExactly(1, 2);
+    assertThat(content.relativeCentralDirectoryOffsetLookups()).containsExactly(20, 0);
+    assertThat(content.lookupIndexes()).containsExactly(1, 0);
+  }
+
+  @Test
+  void findWhenChangedReturnsNull() throws IOException {
+    NestedZipIndex index = NestedZipIndex.load(input(NestedZipIndex.MAGIC, NestedZipIndex.VERSION));
+    assertThat(index.find("lib/test.jar", 101, 42)).isNull();
+    assertThat(index.find("lib/test.jar", 100, 43)).isNull();
+    assertThat(index.find("lib/other.jar", 100, 42)).isNull();
+  }
+
+  @Test
+  void loadWhenInvalidThrowsException() {
+    assertThatIOException().isThrownBy(() -> NestedZipIndex.load(input(0, NestedZipIndex.VERSION)));
+    assertThatIOException().isThrownBy(() -> NestedZipIndex.load(input(NestedZipIndex.MAGIC, 99)));
+  }
+
+  @Test
+  void getWhenNoIndexReturnsEmpty() throws IOException {
+    File file = new File(this.tempDir, "test.jar");
+    TestJar.create(file);
+    try (ZipContent zip = ZipContent.open(file.toPath())) {
+      assertThat(NestedZipIndex.get(zip).size()).isZero();
+    }
+  }
+
+  private static DataInputStream input(int magic, int version) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeInt(magic);
+    out.writeInt(version);
+    out.writeInt(1);
+    out.writeUTF("lib/test.jar");
+    out.writeLong(100);
+    out.writeInt(42);
+    out.writeLong(2);
+    out.writeLong(60);
+    out.writeLong(98);
+    out.writeLong(0);
+    out.writeBoolean(true);
+    out.writeInt(2);
+    out.writeInt(1);
+    out.writeInt(2);
+    out.writeInt(20);
+    out.writeInt(0);
+    out.writeInt(1);
+    out.writeInt(0);
+    return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+  }
+
+}
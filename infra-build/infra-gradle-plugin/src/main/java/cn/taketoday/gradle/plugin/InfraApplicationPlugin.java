@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.function.Consumer;
 
 import cn.taketoday.gradle.dsl.InfraApplicationExtension;
+import cn.taketoday.gradle.tasks.cds.InfraCdsArchive;
 import cn.taketoday.gradle.tasks.bundling.InfraBuildImage;
 import cn.taketoday.gradle.tasks.bundling.InfraJar;
 import cn.taketoday.gradle.tasks.bundling.InfraWar;
@@ -70,6 +71,11 @@ public class InfraApplicationPlugin implements Plugin<Project> {
    */
   public static final String INFRA_BUILD_IMAGE_TASK_NAME = "infraBuildImage";
 
+  /**
+   * The name of the default {@link InfraCdsArchive} task.
+   */
+  public static final String INFRA_CDS_ARCHIVE_TASK_NAME = "infraCdsArchive";
+
   static final String INFRA_RUN_TASK_NAME = "infraRun";
 
   static final String INFRA_TEST_RUN_TASK_NAME = "infraTestRun";
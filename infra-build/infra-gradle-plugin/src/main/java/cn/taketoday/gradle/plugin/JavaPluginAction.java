@@ -48,6 +48,7 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 
 import cn.taketoday.gradle.dsl.InfraApplicationExtension;
+import cn.taketoday.gradle.tasks.cds.InfraCdsArchive;
 import cn.taketoday.gradle.tasks.bundling.InfraBuildImage;
 import cn.taketoday.gradle.tasks.bundling.InfraJar;
 import cn.taketoday.gradle.tasks.run.InfraRun;
@@ -89,6 +90,7 @@ final class JavaPluginAction implements PluginApplicationAction {
     TaskProvider<ResolveMainClassName> resolveMainClassName = configureResolveMainClassNameTask(project);
     TaskProvider<InfraJar> infraJar = configureInfraJarTask(project, resolveMainClassName);
     configureInfraBuildImageTask(project, infraJar);
+    configureInfraCdsArchiveTask(project, infraJar);
     configureArtifactPublication(infraJar);
     configureInfraRunTask(project, resolveMainClassName);
     TaskProvider<ResolveMainClassName> resolveMainTestClassName = configureResolveMainTestClassNameTask(project);
@@ -190,6 +192,18 @@ final class JavaPluginAction implements PluginApplicationAction {
     });
   }
 
+  private void configureInfraCdsArchiveTask(Project project, TaskProvider<InfraJar> infraJar) {
+    project.getTasks().register(InfraApplicationPlugin.INFRA_CDS_ARCHIVE_TASK_NAME, InfraCdsArchive.class, (cdsArchive) -> {
+      cdsArchive.setDescription("Creates a Class Data Sharing archive of the application using the output of the infraJar task");
+      cdsArchive.setGroup(BasePlugin.BUILD_GROUP);
+      cdsArchive.getArchiveFile().set(infraJar.flatMap(InfraJar::getArchiveFile));
+      cdsArchive.getDestinationDirectory().convention(project.getLayout().getBuildDirectory().dir("cds"));
+      JavaToolchainSpec toolchain = javaPluginExtension(project).getToolchain();
+      JavaToolchainService toolchainService = project.getExtensions().getByType(JavaToolchainService.class);
+      cdsArchive.getJavaLauncher().convention(toolchainService.launcherFor(toolchain));
+    });
+  }
+
   private void configureArtifactPublication(TaskProvider<InfraJar> infraJar) {
     this.singlePublishedArtifact.addJarCandidate(infraJar);
   }
@@ -60,6 +60,7 @@ import cn.taketoday.app.loader.tools.Layer;
 import cn.taketoday.app.loader.tools.LayersIndex;
 import cn.taketoday.app.loader.tools.LibraryCoordinates;
 import cn.taketoday.app.loader.tools.NativeImageArgFile;
+import cn.taketoday.app.loader.tools.NestedZipIndex;
 import cn.taketoday.app.loader.tools.ReachabilityMetadataProperties;
 import cn.taketoday.lang.Assert;
 import cn.taketoday.util.StreamUtils;
@@ -301,6 +302,7 @@ class InfraZipCopyAction implements CopyAction {
       writeLoaderEntriesIfNecessary(null);
       writeJarToolsIfNecessary();
       writeClassPathIndexIfNecessary();
+      writeNestedZipIndexIfNecessary();
       writeNativeImageArgFileIfNecessary();
       // We must write the layer index last
       writeLayersIndexIfNecessary();
@@ -359,6 +361,16 @@ class InfraZipCopyAction implements CopyAction {
       }
     }
 
+    private void writeNestedZipIndexIfNecessary() throws IOException {
+      NestedZipIndex index = new NestedZipIndex();
+      for (Map.Entry<String, FileCopyDetails> entry : this.writtenLibraries.entrySet()) {
+        index.add(entry.getKey(), entry.getValue()::open);
+      }
+      if (!index.isEmpty()) {
+        writeEntry(NestedZipIndex.LOCATION, index::writeTo, true);
+      }
+    }
+
     private void writeNativeImageArgFileIfNecessary() throws IOException {
       Set<String> excludes = new LinkedHashSet<>();
       for (Map.Entry<String, FileCopyDetails> entry : this.writtenLibraries.entrySet()) {
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.gradle.tasks.cds;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.jvm.toolchain.JavaLauncher;
+import org.gradle.process.ExecOperations;
+import org.gradle.work.DisableCachingByDefault;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+
+/**
+ * Creates a dynamic Class Data Sharing archive of an executable jar.
+ * <p>
+ * The jar is first extracted with the {@code layertools} jar mode into a plain
+ * application jar and a {@code lib} directory, then the application is started
+ * once as a training run with {@code -XX:ArchiveClassesAtExit}. The application
+ * exits as soon as its context is refreshed. The output directory can be used as is
+ * with {@code java -XX:SharedArchiveFile=application.jsa -jar <name>.jar}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+@DisableCachingByDefault(because = "Not worth caching")
+public abstract class InfraCdsArchive extends DefaultTask {
+
+  public InfraCdsArchive() {
+    getArchiveName().convention("application.jsa");
+  }
+
+  @Inject
+  protected abstract ExecOperations getExecOperations();
+
+  @Inject
+  protected abstract FileSystemOperations getFileSystemOperations();
+
+  /**
+   * Returns the property for the executable jar to create the archive for.
+   *
+   * @return the executable jar
+   */
+  @InputFile
+  @PathSensitive(PathSensitivity.NONE)
+  public abstract RegularFileProperty getArchiveFile();
+
+  /**
+   * Returns the property for the directory the application is extracted to,
+   * along with the created CDS archive.
+   *
+   * @return the destination directory
+   */
+  @OutputDirectory
+  public abstract DirectoryProperty getDestinationDirectory();
+
+  /**
+   * Returns the property for the file name of the CDS archive. Defaults to
+   * {@code application.jsa}.
+   *
+   * @return the CDS archive name
+   */
+  @Input
+  public abstract Property<String> getArchiveName();
+
+  /**
+   * Returns the JVM arguments of the training run, for example the profiles
+   * to activate.
+   *
+   * @return the JVM arguments
+   */
+  @Input
+  public abstract ListProperty<String> getJvmArguments();
+
+  /**
+   * Returns the property for the launcher of the JVM. The archive can only be
+   * used with the same JVM it was created with.
+   *
+   * @return the java launcher
+   */
+  @Nested
+  @Optional
+  public abstract Property<JavaLauncher> getJavaLauncher();
+
+  @TaskAction
+  void createArchive() {
+    File destination = getDestinationDirectory().get().getAsFile();
+    File[] previous = destination.listFiles();
+    if (previous != null) {
+      getFileSystemOperations().delete(spec -> spec.delete((Object[]) previous));
+    }
+    File archiveFile = getArchiveFile().get().getAsFile();
+    String java = getJavaExecutable();
+
+    getExecOperations().exec(spec -> spec.commandLine(java, "-Djarmode=layertools", "-jar",
+            archiveFile.getAbsolutePath(), "extract", "--cds", "--destination", destination.getAbsolutePath()));
+
+    List<String> command = getTrainingRunCommand(java, archiveFile);
+    getExecOperations().exec(spec -> {
+      spec.setWorkingDir(destination);
+      spec.commandLine(command);
+    });
+  }
+
+  List<String> getTrainingRunCommand(String java, File archiveFile) {
+    List<String> command = new ArrayList<>();
+    command.add(java);
+    command.add("-XX:ArchiveClassesAtExit=" + getArchiveName().get());
+    command.add("-Dapp.cds.training-run=true");
+    command.addAll(getJvmArguments().get());
+    command.add("-jar");
+    // relative paths: the archive is bound to the class path of the training run
+    command.add(getApplicationJarName(archiveFile));
+    return command;
+  }
+
+  private String getJavaExecutable() {
+    JavaLauncher launcher = getJavaLauncher().getOrNull();
+    if (launcher != null) {
+      return launcher.getExecutablePath().getAsFile().getAbsolutePath();
+    }
+    File bin = new File(System.getProperty("java.home"), "bin");
+    File java = new File(bin, "java.exe");
+    return (java.exists() ? java : new File(bin, "java")).getAbsolutePath();
+  }
+
+  private static String getApplicationJarName(File archiveFile) {
+    String name = archiveFile.getName();
+    return name.substring(0, name.lastIndexOf('.')) + ".jar";
+  }
+
+}
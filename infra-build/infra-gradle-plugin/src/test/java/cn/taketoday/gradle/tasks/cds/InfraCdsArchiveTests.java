@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+package cn.taketoday.gradle.tasks.cds;
+
+import org.gradle.api.Project;
+import org.gradle.api.plugins.JavaPlugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+
+import cn.taketoday.gradle.junit.GradleProjectBuilder;
+import cn.taketoday.gradle.plugin.InfraApplicationPlugin;
+import cn.taketoday.test.classpath.ClassPathExclusions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link InfraCdsArchive}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+@ClassPathExclusions("kotlin-daemon-client-*.jar")
+class InfraCdsArchiveTests {
+
+  @TempDir
+  File temp;
+
+  @Test
+  void archiveNameDefaultsToApplicationJsa() {
+    InfraCdsArchive task = createTask(createProject());
+    assertThat(task.getArchiveName().get()).isEqualTo("application.jsa");
+  }
+
+  @Test
+  void trainingRunCommandUsesRelativeApplicationJar() {
+    InfraCdsArchive task = createTask(createProject());
+    task.getJvmArguments().add("-Dapp.profiles.active=cds");
+    assertThat(task.getTrainingRunCommand("java", new File(this.temp, "build/libs/demo-1.0.jar")))
+            .containsExactly("java", "-XX:ArchiveClassesAtExit=application.jsa", "-Dapp.cds.training-run=true",
+                    "-Dapp.profiles.active=cds", "-jar", "demo-1.0.jar");
+  }
+
+  @Test
+  void customArchiveName() {
+    InfraCdsArchive task = createTask(createProject());
+    task.getArchiveName().set("app.jsa");
+    assertThat(task.getTrainingRunCommand("java", new File("demo.jar")))
+            .contains("-XX:ArchiveClassesAtExit=app.jsa");
+  }
+
+  @Test
+  void pluginRegistersTaskForInfraJar() {
+    Project project = createProject();
+    project.getPlugins().apply(JavaPlugin.class);
+    project.getPlugins().apply(InfraApplicationPlugin.class);
+    InfraCdsArchive task = (InfraCdsArchive) project.getTasks()
+            .getByName(InfraApplicationPlugin.INFRA_CDS_ARCHIVE_TASK_NAME);
+    assertThat(task.getArchiveFile().get().getAsFile().getName()).endsWith(".jar");
+    assertThat(task.getDestinationDirectory().get().getAsFile())
+            .isEqualTo(new File(project.getLayout().getBuildDirectory().get().getAsFile(), "cds"));
+  }
+
+  private Project createProject() {
+    return GradleProjectBuilder.builder().withProjectDir(this.temp).withName("demo").build();
+  }
+
+  private InfraCdsArchive createTask(Project project) {
+    return project.getTasks().create("testCdsArchive", InfraCdsArchive.class);
+  }
+
+}
@@ -21,16 +21,28 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.attribute.BasicFileAttributeView;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import cn.taketoday.lang.Assert;
 import cn.taketoday.util.StreamUtils;
+import cn.taketoday.util.StringUtils;
 
 /**
  * The {@code 'extract'} tools command.
@@ -43,6 +55,13 @@ class ExtractCommand extends Command {
 
   static final Option DESTINATION_OPTION = Option.of("destination", "string", "The destination to extract files to");
 
+  static final Option CDS_OPTION = Option.flag("cds",
+          "Extract the application jar and its libraries, a layout suited for Class Data Sharing");
+
+  static final String LIB_DIRECTORY = "lib";
+
+  private static final String LOADER_LOCATION = "cn/taketoday/app/loader/";
+
   private final Context context;
 
   private final Layers layers;
@@ -52,7 +71,7 @@ class ExtractCommand extends Command {
   }
 
   ExtractCommand(Context context, Layers layers) {
-    super("extract", "Extracts layers from the jar for image creation", Options.of(DESTINATION_OPTION),
+    super("extract", "Extracts layers from the jar for image creation", Options.of(DESTINATION_OPTION, CDS_OPTION),
             Parameters.of("[<layer>...]"));
     this.context = context;
     this.layers = layers;
@@ -63,6 +82,11 @@ class ExtractCommand extends Command {
     try {
       File destination = options.containsKey(DESTINATION_OPTION) ? new File(options.get(DESTINATION_OPTION))
                                                                  : this.context.getWorkingDir();
+      if (options.containsKey(CDS_OPTION)) {
+        Assert.state(parameters.isEmpty(), "Layers cannot be selected when extracting for CDS");
+        extractForCds(destination);
+        return;
+      }
       for (String layer : this.layers) {
         if (parameters.isEmpty() || parameters.contains(layer)) {
           mkDirs(new File(destination, layer));
@@ -76,7 +100,7 @@ class ExtractCommand extends Command {
           if (!entry.isDirectory()) {
             String layer = this.layers.getLayer(entry);
             if (parameters.isEmpty() || parameters.contains(layer)) {
-              write(zip, entry, new File(destination, layer));
+              write(zip, entry, new File(destination, layer), entry.getName());
             }
           }
           entry = zip.getNextEntry();
@@ -88,9 +112,140 @@ class ExtractCommand extends Command {
     }
   }
 
-  private void write(ZipInputStream zip, ZipEntry entry, File destination) throws IOException {
+  /**
+   * Extract the archive as a plain jar with a {@code Class-Path} manifest
+   * entry and its libraries in a {@code lib} directory next to it. That's the
+   * layout the JVM expects for Class Data Sharing, which does not support
+   * classes loaded from nested jars, and it keeps the classpath stable between
+   * the training run and the production runs.
+   */
+  private void extractForCds(File destination) throws IOException {
+    File archiveFile = this.context.getArchiveFile();
+    try (JarFile jarFile = new JarFile(archiveFile)) {
+      Manifest manifest = jarFile.getManifest();
+      Assert.state(manifest != null, () -> "File '" + archiveFile + "' has no manifest");
+      Attributes attributes = manifest.getMainAttributes();
+      String startClass = attributes.getValue("Start-Class");
+      Assert.state(startClass != null, () -> "File '" + archiveFile
+              + "' is not compatible with CDS extraction; no 'Start-Class' manifest attribute");
+      String classesLocation = getLocation(attributes, "Infra-App-Classes", "APP-INF/classes/");
+      String libLocation = getLocation(attributes, "Infra-App-Lib", "APP-INF/lib/");
+      String rootLocation = classesLocation.substring(0, classesLocation.indexOf('/') + 1);
+
+      File libDirectory = new File(destination, LIB_DIRECTORY);
+      mkDirs(libDirectory);
+      List<String> libraries = getLibraries(jarFile, attributes, rootLocation, libLocation);
+      List<String> classPath = new ArrayList<>(libraries.size());
+      for (String library : libraries) {
+        ZipEntry entry = jarFile.getEntry(library);
+        String fileName = StringUtils.getFilename(library);
+        try (InputStream in = jarFile.getInputStream(entry)) {
+          write(in, entry, libDirectory, fileName);
+        }
+        classPath.add(LIB_DIRECTORY + "/" + fileName.replace(" ", "%20"));
+      }
+
+      Manifest applicationManifest = new Manifest();
+      Attributes applicationAttributes = applicationManifest.getMainAttributes();
+      for (Map.Entry<Object, Object> attribute : attributes.entrySet()) {
+        String name = attribute.getKey().toString();
+        if (!name.equals("Start-Class") && !name.startsWith("Infra-App-")) {
+          applicationAttributes.put(attribute.getKey(), attribute.getValue());
+        }
+      }
+      applicationAttributes.put(Attributes.Name.MAIN_CLASS, startClass);
+      applicationAttributes.put(Attributes.Name.CLASS_PATH, String.join(" ", classPath));
+
+      File applicationJar = new File(destination, getApplicationJarName(archiveFile));
+      mkParentDirs(applicationJar);
+      try (JarOutputStream out = new JarOutputStream(new FileOutputStream(applicationJar), applicationManifest)) {
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+          JarEntry entry = entries.nextElement();
+          String name = getApplicationEntryName(entry.getName(), rootLocation, classesLocation);
+          if (name != null) {
+            JarEntry target = new JarEntry(name);
+            target.setTime(entry.getTime());
+            out.putNextEntry(target);
+            if (!entry.isDirectory()) {
+              try (InputStream in = jarFile.getInputStream(entry)) {
+                StreamUtils.copy(in, out);
+              }
+            }
+            out.closeEntry();
+          }
+        }
+      }
+    }
+  }
+
+  private static String getLocation(Attributes attributes, String name, String defaultLocation) {
+    String location = attributes.getValue(name);
+    if (!StringUtils.hasText(location)) {
+      return defaultLocation;
+    }
+    return location.endsWith("/") ? location : location + "/";
+  }
+
+  /**
+   * Libraries in classpath index order, followed by any library missing from the index.
+   */
+  private static List<String> getLibraries(JarFile jarFile, Attributes attributes,
+          String rootLocation, String libLocation) throws IOException {
+    Set<String> libraries = new LinkedHashSet<>();
+    String indexLocation = attributes.getValue("Infra-App-Classpath-Index");
+    ZipEntry indexEntry = (indexLocation != null) ? jarFile.getEntry(indexLocation) : null;
+    if (indexEntry != null) {
+      String index = StreamUtils.copyToString(jarFile.getInputStream(indexEntry), StandardCharsets.UTF_8);
+      for (String line : index.split("\n")) {
+        line = line.replace("\r", "");
+        if (line.startsWith("- \"") && line.endsWith("\"")) {
+          String library = line.substring(3, line.length() - 1);
+          if (jarFile.getEntry(library) != null) {
+            libraries.add(library);
+          }
+        }
+      }
+    }
+    String providedLibLocation = rootLocation + "lib-provided/";
+    Enumeration<JarEntry> entries = jarFile.entries();
+    while (entries.hasMoreElements()) {
+      JarEntry entry = entries.nextElement();
+      String name = entry.getName();
+      if (!entry.isDirectory() && (name.startsWith(libLocation) || name.startsWith(providedLibLocation))) {
+        libraries.add(name);
+      }
+    }
+    return new ArrayList<>(libraries);
+  }
+
+  /**
+   * Returns the name of the entry in the application jar or {@code null} if the
+   * entry is not part of it.
+   */
+  private static String getApplicationEntryName(String name, String rootLocation, String classesLocation) {
+    if (name.startsWith(classesLocation)) {
+      return name.length() > classesLocation.length() ? name.substring(classesLocation.length()) : null;
+    }
+    if (name.startsWith(rootLocation) || name.startsWith(LOADER_LOCATION)
+            || name.equals(JarFile.MANIFEST_NAME) || name.equals("META-INF/")) {
+      return null;
+    }
+    if (LOADER_LOCATION.startsWith(name)) {
+      // parent directories of the loader
+      return null;
+    }
+    return name;
+  }
+
+  private static String getApplicationJarName(File archiveFile) {
+    String name = archiveFile.getName();
+    return name.substring(0, name.lastIndexOf('.')) + ".jar";
+  }
+
+  private void write(InputStream in, ZipEntry entry, File destination, String path) throws IOException {
     String canonicalOutputPath = destination.getCanonicalPath() + File.separator;
-    File file = new File(destination, entry.getName());
+    File file = new File(destination, path);
     String canonicalEntryPath = file.getCanonicalPath();
     Assert.state(canonicalEntryPath.startsWith(canonicalOutputPath),
             () -> "Entry '" + entry.getName() + "' would be written to '" + canonicalEntryPath
@@ -98,7 +253,7 @@ class ExtractCommand extends Command {
                     + "'. Verify the contents of your archive.");
     mkParentDirs(file);
     try (OutputStream out = new FileOutputStream(file)) {
-      StreamUtils.copy(zip, out);
+      StreamUtils.copy(in, out);
     }
     try {
       Files.getFileAttributeView(file.toPath(), BasicFileAttributeView.class)
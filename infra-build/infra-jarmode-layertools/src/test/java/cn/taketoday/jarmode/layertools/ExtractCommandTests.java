@@ -39,8 +39,11 @@ import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -173,6 +176,59 @@ class ExtractCommandTests {
             .withMessageContaining("Entry 'e/../../e.jar' would be written");
   }
 
+  @Test
+  void runWithCdsOptionExtractsApplicationJarAndLibraries() throws Exception {
+    this.jarFile = createCdsJarFile("test.war");
+    given(this.context.getArchiveFile()).willReturn(this.jarFile);
+    given(this.context.getWorkingDir()).willReturn(this.extract);
+    this.command.run(Collections.singletonMap(ExtractCommand.CDS_OPTION, null), Collections.emptyList());
+
+    assertThat(this.extract.list()).containsOnly("test.jar", "lib");
+    assertThat(new File(this.extract, "lib").list()).containsOnly("a.jar", "b.jar");
+    assertThat(new File(this.extract, "lib/a.jar")).exists().satisfies(this::timeAttributes);
+    try (JarFile application = new JarFile(new File(this.extract, "test.jar"))) {
+      Attributes attributes = application.getManifest().getMainAttributes();
+      assertThat(attributes.getValue("Main-Class")).isEqualTo("com.example.DemoApplication");
+      assertThat(attributes.getValue("Class-Path")).isEqualTo("lib/b.jar lib/a.jar");
+      assertThat(attributes.getValue("Start-Class")).isNull();
+      assertThat(attributes.getValue("Infra-App-Lib")).isNull();
+      assertThat(application.stream().map(ZipEntry::getName))
+              .contains("com/example/DemoApplication.class", "META-INF/services/test")
+              .noneMatch((name) -> name.startsWith("APP-INF") || name.startsWith("cn/taketoday/app/loader"));
+    }
+  }
+
+  @Test
+  void runWithCdsOptionAndLayerParamsFails() {
+    given(this.context.getWorkingDir()).willReturn(this.extract);
+    assertThatIllegalStateException()
+            .isThrownBy(() -> this.command.run(Collections.singletonMap(ExtractCommand.CDS_OPTION, null), List.of("a")))
+            .withMessageContaining("Layers cannot be selected");
+  }
+
+  private File createCdsJarFile(String name) throws Exception {
+    File file = new File(this.temp, name);
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file))) {
+      out.putNextEntry(entry("META-INF/MANIFEST.MF"));
+      out.write(getFile("test-manifest.MF").getBytes());
+      out.closeEntry();
+      out.putNextEntry(entry("META-INF/services/test"));
+      out.closeEntry();
+      out.putNextEntry(entry("cn/taketoday/app/loader/JarLauncher.class"));
+      out.closeEntry();
+      out.putNextEntry(entry("APP-INF/classes/com/example/DemoApplication.class"));
+      out.closeEntry();
+      out.putNextEntry(entry("APP-INF/lib/a.jar"));
+      out.closeEntry();
+      out.putNextEntry(entry("APP-INF/lib/b.jar"));
+      out.closeEntry();
+      out.putNextEntry(entry("APP-INF/classpath.idx"));
+      out.write("- \"APP-INF/lib/b.jar\"\n- \"APP-INF/lib/a.jar\"\n".getBytes());
+      out.closeEntry();
+    }
+    return file;
+  }
+
   private File createJarFile(String name) throws Exception {
     return createJarFile(name, (out) -> {
     });
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.infra.maven;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Component;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.toolchain.ToolchainManager;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.FileSystemUtils;
+
+/**
+ * Create a dynamic Class Data Sharing archive of the executable jar. The jar is
+ * extracted with the {@code layertools} jar mode into a plain application jar and
+ * a {@code lib} directory, then the application is started once as a training run
+ * with {@code -XX:ArchiveClassesAtExit}, that exits as soon as its context is
+ * refreshed. Bind it after the {@code repackage} goal.
+ * <p>
+ * The output directory can be used as is with
+ * {@code java -XX:SharedArchiveFile=application.jsa -jar <name>.jar}, with the
+ * same JVM the archive was created with.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+@Mojo(name = "cds-archive", defaultPhase = LifecyclePhase.PACKAGE, requiresProject = true, threadSafe = true)
+public class CdsArchiveMojo extends AbstractMojo {
+
+  /**
+   * The Maven session.
+   */
+  @Parameter(defaultValue = "${session}", readonly = true, required = true)
+  private MavenSession session;
+
+  /**
+   * The toolchain manager to use to locate a custom JDK.
+   */
+  @Component
+  private ToolchainManager toolchainManager;
+
+  /**
+   * The executable jar to create the archive for.
+   */
+  @Parameter(defaultValue = "${project.build.directory}/${project.build.finalName}.jar", required = true)
+  private File archiveFile;
+
+  /**
+   * Directory the application is extracted to, along with the created CDS archive.
+   */
+  @Parameter(defaultValue = "${project.build.directory}/cds", required = true)
+  private File outputDirectory;
+
+  /**
+   * The file name of the CDS archive.
+   */
+  @Parameter(defaultValue = "application.jsa", required = true)
+  private String archiveName;
+
+  /**
+   * JVM arguments of the training run, for example the profiles to activate.
+   */
+  @Parameter
+  private List<String> jvmArguments;
+
+  /**
+   * Skip the execution.
+   */
+  @Parameter(property = "infra.cds-archive.skip", defaultValue = "false")
+  private boolean skip;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (this.skip) {
+      getLog().debug("skipping cds-archive as per configuration.");
+      return;
+    }
+    if (!this.archiveFile.isFile()) {
+      throw new MojoExecutionException("Executable jar " + this.archiveFile
+              + " not found, make sure the repackage goal runs before cds-archive");
+    }
+    FileSystemUtils.deleteRecursively(this.outputDirectory);
+    if (!this.outputDirectory.mkdirs()) {
+      throw new MojoExecutionException("Unable to create " + this.outputDirectory);
+    }
+
+    JavaProcessExecutor processExecutor = new JavaProcessExecutor(this.session, this.toolchainManager);
+    getLog().info("Extracting " + this.archiveFile + " to " + this.outputDirectory);
+    processExecutor.run(this.outputDirectory, List.of("-Djarmode=layertools", "-jar",
+            this.archiveFile.getAbsolutePath(), "extract", "--cds", "--destination",
+            this.outputDirectory.getAbsolutePath()), Collections.emptyMap());
+
+    getLog().info("Creating CDS archive " + new File(this.outputDirectory, this.archiveName));
+    processExecutor.run(this.outputDirectory,
+            getTrainingRunArguments(this.archiveFile, this.archiveName, this.jvmArguments), Collections.emptyMap());
+  }
+
+  static List<String> getTrainingRunArguments(File archiveFile, String archiveName, @Nullable List<String> jvmArguments) {
+    List<String> args = new ArrayList<>();
+    args.add("-XX:ArchiveClassesAtExit=" + archiveName);
+    args.add("-Dapp.cds.training-run=true");
+    if (jvmArguments != null) {
+      args.addAll(jvmArguments);
+    }
+    args.add("-jar");
+    // relative paths: the archive is bound to the class path of the training run
+    args.add(getApplicationJarName(archiveFile));
+    return args;
+  }
+
+  static String getApplicationJarName(File archiveFile) {
+    String name = archiveFile.getName();
+    return name.substring(0, name.lastIndexOf('.')) + ".jar";
+  }
+
+}
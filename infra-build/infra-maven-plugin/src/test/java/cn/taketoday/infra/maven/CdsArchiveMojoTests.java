@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+package cn.taketoday.infra.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link CdsArchiveMojo}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class CdsArchiveMojoTests {
+
+  @TempDir
+  File temp;
+
+  @Test
+  void applicationJarNameIsThePlainJarOfTheArchive() {
+    assertThat(CdsArchiveMojo.getApplicationJarName(new File("target/demo-1.0.jar"))).isEqualTo("demo-1.0.jar");
+    assertThat(CdsArchiveMojo.getApplicationJarName(new File("target/demo-1.0.war"))).isEqualTo("demo-1.0.jar");
+  }
+
+  @Test
+  void trainingRunArguments() {
+    List<String> args = CdsArchiveMojo.getTrainingRunArguments(new File("target/demo.jar"), "app.jsa", null);
+    assertThat(args).containsExactly("-XX:ArchiveClassesAtExit=app.jsa",
+            "-Dapp.cds.training-run=true", "-jar", "demo.jar");
+  }
+
+  @Test
+  void trainingRunArgumentsWithJvmArguments() {
+    List<String> args = CdsArchiveMojo.getTrainingRunArguments(new File("target/demo.jar"),
+            "application.jsa", List.of("-Dapp.profiles.active=cds", "-Xmx512m"));
+    assertThat(args).containsExactly("-XX:ArchiveClassesAtExit=application.jsa", "-Dapp.cds.training-run=true",
+            "-Dapp.profiles.active=cds", "-Xmx512m", "-jar", "demo.jar");
+  }
+
+  @Test
+  void missingArchiveFileFails() throws Exception {
+    CdsArchiveMojo mojo = new CdsArchiveMojo();
+    setField(mojo, "archiveFile", new File(this.temp, "missing.jar"));
+    assertThatExceptionOfType(MojoExecutionException.class).isThrownBy(mojo::execute)
+            .withMessageContaining("make sure the repackage goal runs before cds-archive");
+  }
+
+  @Test
+  void skipDoesNotRequireArchiveFile() throws Exception {
+    CdsArchiveMojo mojo = new CdsArchiveMojo();
+    setField(mojo, "skip", true);
+    setField(mojo, "archiveFile", new File(this.temp, "missing.jar"));
+    mojo.execute();
+  }
+
+  private static void setField(CdsArchiveMojo mojo, String name, Object value) throws Exception {
+    Field field = CdsArchiveMojo.class.getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(mojo, value);
+  }
+
+}
@@ -32,10 +32,14 @@ import org.aspectj.weaver.tools.PointcutParser;
 import org.aspectj.weaver.tools.PointcutPrimitive;
 import org.aspectj.weaver.tools.ShadowMatch;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import cn.taketoday.aop.ClassFilter;
 import cn.taketoday.aop.IntroductionAwareMethodMatcher;
@@ -45,6 +49,7 @@ import cn.taketoday.aop.framework.autoproxy.ProxyCreationContext;
 import cn.taketoday.aop.interceptor.ExposeInvocationInterceptor;
 import cn.taketoday.aop.support.AbstractExpressionPointcut;
 import cn.taketoday.aop.support.AopUtils;
+import cn.taketoday.aop.support.annotation.AnnotationIndexedPointcut;
 import cn.taketoday.beans.factory.BeanFactory;
 import cn.taketoday.beans.factory.BeanFactoryAware;
 import cn.taketoday.beans.factory.BeanFactoryUtils;
@@ -82,7 +87,7 @@ import cn.taketoday.util.StringUtils;
  */
 @SuppressWarnings("serial")
 public class AspectJExpressionPointcut extends AbstractExpressionPointcut
-        implements ClassFilter, IntroductionAwareMethodMatcher, BeanFactoryAware {
+        implements ClassFilter, IntroductionAwareMethodMatcher, AnnotationIndexedPointcut, BeanFactoryAware {
 
   private static final Set<PointcutPrimitive> SUPPORTED_PRIMITIVES = Set.of(
           PointcutPrimitive.EXECUTION,
@@ -99,6 +104,9 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 
   private static final Logger log = LoggerFactory.getLogger(AspectJExpressionPointcut.class);
 
+  private static final Pattern ANNOTATION_DESIGNATOR =
+          Pattern.compile("@(?:annotation|within)\\(\\s*([\\w.$]+)\\s*\\)");
+
   @Nullable
   private Class<?> pointcutDeclarationScope;
 
@@ -115,6 +123,11 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
   @Nullable
   private transient PointcutExpression pointcutExpression;
 
+  @Nullable
+  private transient Set<Class<? extends Annotation>> annotationTypes;
+
+  private transient boolean annotationTypesResolved;
+
   /**
    * Create a new default AspectJExpressionPointcut.
    */
@@ -151,6 +164,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
    */
   public void setParameterNames(String... names) {
     this.pointcutParameterNames = names;
+    this.annotationTypesResolved = false;
   }
 
   /**
@@ -158,6 +172,12 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
    */
   public void setParameterTypes(Class<?>... types) {
     this.pointcutParameterTypes = types;
+    this.annotationTypesResolved = false;
+  }
+
+  @Override
+  protected void onSetExpression(@Nullable String expression) throws IllegalArgumentException {
+    this.annotationTypesResolved = false;
   }
 
   @Override
@@ -254,6 +274,65 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
     return result;
   }
 
+  /**
+   * Determine the annotation types from the expression: a disjunction of
+   * {@code @annotation} and {@code @within} designators, or a conjunction
+   * containing such a designator. Any other expression is not restricted.
+   */
+  @Nullable
+  @Override
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    if (!this.annotationTypesResolved) {
+      String expression = getExpression();
+      this.annotationTypes = expression != null ? resolveAnnotationTypes(replaceBooleanOperators(expression)) : null;
+      this.annotationTypesResolved = true;
+    }
+    return this.annotationTypes;
+  }
+
+  @Nullable
+  private Set<Class<? extends Annotation>> resolveAnnotationTypes(String expression) {
+    // no grouping analysis: mixed operators and negation are not restricted
+    if (expression.contains("!") || (expression.contains("||") && expression.contains("&&"))) {
+      return null;
+    }
+    for (String conjunct : StringUtils.delimitedListToStringArray(expression, "&&")) {
+      LinkedHashSet<Class<? extends Annotation>> types = new LinkedHashSet<>();
+      for (String term : StringUtils.delimitedListToStringArray(conjunct, "||")) {
+        Matcher matcher = ANNOTATION_DESIGNATOR.matcher(term.trim());
+        Class<?> type = matcher.matches() ? resolveAnnotationType(matcher.group(1)) : null;
+        if (type == null || !type.isAnnotation()) {
+          types = null;
+          break;
+        }
+        types.add(type.asSubclass(Annotation.class));
+      }
+      if (types != null) {
+        return types;
+      }
+    }
+    return null;
+  }
+
+  @Nullable
+  private Class<?> resolveAnnotationType(String name) {
+    for (int i = 0; i < this.pointcutParameterNames.length; i++) {
+      if (this.pointcutParameterNames[i].equals(name)) {
+        return this.pointcutParameterTypes[i];
+      }
+    }
+    if (name.indexOf('.') == -1) {
+      // unqualified names are resolved by AspectJ against the declaration scope
+      return null;
+    }
+    try {
+      return ClassUtils.forName(name, determinePointcutClassLoader());
+    }
+    catch (ClassNotFoundException | LinkageError ex) {
+      return null;
+    }
+  }
+
   /**
    * Return the underlying AspectJ pointcut expression.
    */
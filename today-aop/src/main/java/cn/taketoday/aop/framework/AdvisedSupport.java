@@ -112,6 +112,14 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
   @Nullable
   private transient ConcurrentHashMap<MethodCacheKey, MethodInterceptor[]> methodCache;
 
+  /**
+   * Cache with Method and target class as key and fused interceptor chain as value.
+   *
+   * @since 5.0
+   */
+  @Nullable
+  private transient volatile ConcurrentHashMap<FusedChainCacheKey, FusedInterceptorChain> fusedChainCache;
+
   /**
    * Cache with shared interceptors which are not method-specific.
    *
@@ -535,11 +543,50 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
     return cached;
   }
 
+  /**
+   * Determine the {@link FusedInterceptorChain} for the given method,
+   * based on this configuration.
+   * <p>Proxies call this instead of {@link #getInterceptors}, the fused
+   * chain carries the interceptors, so a call costs one cache lookup
+   * either way.
+   *
+   * @param method the proxied method
+   * @param targetClass the target class
+   * @return the fused chain, cached per method and target class
+   * @see #isFusedInterceptorChains()
+   * @since 5.0
+   */
+  FusedInterceptorChain getFusedInterceptorChain(Method method, @Nullable Class<?> targetClass) {
+    ConcurrentHashMap<FusedChainCacheKey, FusedInterceptorChain> fusedChainCache = this.fusedChainCache;
+    if (fusedChainCache == null) {
+      synchronized(this) {
+        fusedChainCache = this.fusedChainCache;
+        if (fusedChainCache == null) {
+          fusedChainCache = new ConcurrentHashMap<>();
+          this.fusedChainCache = fusedChainCache;
+        }
+      }
+    }
+
+    // a non-static TargetSource may hand out targets of several classes
+    var cacheKey = new FusedChainCacheKey(method, targetClass);
+    FusedInterceptorChain chain = fusedChainCache.get(cacheKey);
+    if (chain == null) {
+      chain = new FusedInterceptorChain(method, targetClass, getInterceptors(method, targetClass));
+      FusedInterceptorChain existing = fusedChainCache.putIfAbsent(cacheKey, chain);
+      if (existing != null) {
+        chain = existing;
+      }
+    }
+    return chain;
+  }
+
   /**
    * Invoked when advice has changed.
    */
   protected void adviceChanged() {
     this.methodCache = null;
+    this.fusedChainCache = null;
     this.cachedInterceptors = null;
     this.proxyMetadataCache = null;
 
@@ -611,6 +658,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
   void reduceToAdvisorKey() {
     this.advisors = this.advisorKey;
     this.methodCache = null;
+    this.fusedChainCache = null;
     this.cachedInterceptors = null;
     this.proxyMetadataCache = null;
   }
@@ -689,6 +737,13 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
     }
   }
 
+  /**
+   * Key of a fused chain: the generated join-point is specific to the target class.
+   */
+  private record FusedChainCacheKey(Method method, @Nullable Class<?> targetClass) {
+
+  }
+
   /**
    * Stub for an Advisor instance that is just needed for key purposes,
    * allowing for efficient equals and hashCode comparisons against the
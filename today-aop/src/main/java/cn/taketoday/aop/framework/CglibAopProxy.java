@@ -618,7 +618,10 @@ class CglibAopProxy implements AopProxy, Serializable {
         // Get as late as possible to minimize the time we "own" the target, in case it comes from a pool...
         target = targetSource.getTarget();
         Class<?> targetClass = target != null ? target.getClass() : null;
-        var chain = advised.getInterceptors(method, targetClass);
+        FusedInterceptorChain fused = advised.isFusedInterceptorChains()
+                ? advised.getFusedInterceptorChain(method, targetClass) : null;
+        // A fused chain carries its interceptors: look the chain up only once.
+        var chain = fused != null ? fused.interceptors : advised.getInterceptors(method, targetClass);
         // Check whether we only have one InvokerInterceptor: that is,
         // no real advice, but just reflective invocation of the target.
         if (chain.length == 0 && isMethodProxyCompatible(method)) {
@@ -629,6 +632,18 @@ class CglibAopProxy implements AopProxy, Serializable {
           Object[] argsToUse = ClassUtils.adaptArgumentsIfNecessary(method, args);
           retVal = invokeMethod(target, method, argsToUse, methodProxy);
         }
+        else if (fused != null && fused.isFused()) {
+          // Only before and after-returning advice: apply it in a single pass.
+          try {
+            retVal = fused.proceed(proxy, target, args);
+          }
+          catch (RuntimeException ex) {
+            throw ex;
+          }
+          catch (Exception ex) {
+            throw translateException(method, ex);
+          }
+        }
         else {
           // We need to create a CglibMethodInvocation...
           retVal = new CglibMethodInvocation(proxy, target, method, targetClass, methodProxy, args, chain)
@@ -730,17 +745,23 @@ class CglibAopProxy implements AopProxy, Serializable {
         throw ex;
       }
       catch (Exception ex) {
-        if (ReflectionUtils.declaresException(getMethod(), ex.getClass())) {
-          throw ex;
-        }
-        else {
-          throw new UndeclaredThrowableException(ex);
-        }
+        throw translateException(getMethod(), ex);
       }
     }
 
   }
 
+  /**
+   * Rethrow checked exceptions declared by the given method as-is, and wrap
+   * any other in an {@link UndeclaredThrowableException}.
+   */
+  static Exception translateException(Method method, Exception ex) {
+    if (ReflectionUtils.declaresException(method, ex.getClass())) {
+      return ex;
+    }
+    return new UndeclaredThrowableException(ex);
+  }
+
   static boolean isMethodProxyCompatible(Method method) {
     return Modifier.isPublic(method.getModifiers())
             && method.getDeclaringClass() != Object.class
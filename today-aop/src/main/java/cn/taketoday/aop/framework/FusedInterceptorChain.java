@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.aop.framework;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+
+import cn.taketoday.aop.AfterReturningAdvice;
+import cn.taketoday.aop.MethodBeforeAdvice;
+import cn.taketoday.aop.framework.adapter.AfterReturningAdviceInterceptor;
+import cn.taketoday.aop.framework.adapter.MethodBeforeAdviceInterceptor;
+import cn.taketoday.aop.support.AopUtils;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.reflect.MethodInvoker;
+import cn.taketoday.util.ClassUtils;
+
+import static cn.taketoday.aop.InterceptorChainFactory.EMPTY_INTERCEPTOR;
+
+/**
+ * Interceptor chain of a single proxied method, resolved once and
+ * cached by {@link AdvisedSupport} when
+ * {@link ProxyConfig#isFusedInterceptorChains() fused interceptor chains}
+ * are enabled.
+ *
+ * <p>The join-point is invoked through a {@link MethodInvoker} generated
+ * for the method and target class, so no reflective call is made. When
+ * the chain is empty the target is invoked directly, without allocating a
+ * {@link org.aopalliance.intercept.MethodInvocation}. When it only consists
+ * of framework {@link MethodBeforeAdviceInterceptor before} and
+ * {@link AfterReturningAdviceInterceptor after-returning} interceptors,
+ * the advice is applied in one pass around the join-point: before advice
+ * in chain order, after-returning advice in reverse order, exactly as the
+ * nested interceptors would.
+ *
+ * <p>The scope is deliberately narrow. Around advice such as
+ * {@code TransactionInterceptor}, {@code CacheInterceptor} or retry
+ * interceptors cannot be fused: they call
+ * {@link org.aopalliance.intercept.MethodInvocation#proceed()} themselves,
+ * so such chains fall back to the generic chain, with the generated
+ * join-point. No per-method invocation class is generated, and any
+ * non-empty chain still allocates one invocation object per call, just
+ * like the generic chain. A proxy with fused chains enabled looks up the
+ * fused chain <em>instead of</em> the interceptor array, so the per-call
+ * lookup cost stays the same.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see AdvisedSupport#getFusedInterceptorChain(Method, Class)
+ * @since 5.0
+ */
+final class FusedInterceptorChain {
+
+  private static final Logger log = LoggerFactory.getLogger(FusedInterceptorChain.class);
+
+  final Method method;
+
+  @Nullable
+  final Class<?> targetClass;
+
+  final MethodInterceptor[] interceptors;
+
+  @Nullable
+  private final MethodInvoker joinPoint;
+
+  /** Before advice in chain order, or {@code null} if the chain cannot be fused */
+  @Nullable
+  private final MethodBeforeAdvice[] beforeAdvices;
+
+  /** After-returning advice in reverse chain order */
+  @Nullable
+  private final AfterReturningAdvice[] afterReturningAdvices;
+
+  FusedInterceptorChain(Method method, @Nullable Class<?> targetClass, MethodInterceptor[] interceptors) {
+    this.method = method;
+    this.targetClass = targetClass;
+    this.interceptors = interceptors;
+    this.joinPoint = createJoinPoint(method, targetClass);
+
+    ArrayList<MethodBeforeAdvice> beforeAdvices = new ArrayList<>();
+    ArrayList<AfterReturningAdvice> afterReturningAdvices = new ArrayList<>();
+    boolean fused = true;
+    for (MethodInterceptor interceptor : interceptors) {
+      // exact type check: subclasses may override invoke()
+      if (interceptor.getClass() == MethodBeforeAdviceInterceptor.class) {
+        beforeAdvices.add(((MethodBeforeAdviceInterceptor) interceptor).getAdvice());
+      }
+      else if (interceptor.getClass() == AfterReturningAdviceInterceptor.class) {
+        afterReturningAdvices.add(0, ((AfterReturningAdviceInterceptor) interceptor).getAdvice());
+      }
+      else {
+        fused = false;
+        break;
+      }
+    }
+
+    if (fused) {
+      this.beforeAdvices = beforeAdvices.toArray(new MethodBeforeAdvice[0]);
+      this.afterReturningAdvices = afterReturningAdvices.toArray(new AfterReturningAdvice[0]);
+    }
+    else {
+      this.beforeAdvices = null;
+      this.afterReturningAdvices = null;
+    }
+  }
+
+  /**
+   * Return whether this chain is applied without walking the interceptors,
+   * that is, it is empty or only consists of before and after-returning advice.
+   */
+  boolean isFused() {
+    return beforeAdvices != null;
+  }
+
+  /**
+   * Return whether the join-point is invoked through a generated invoker.
+   */
+  boolean isJoinPointGenerated() {
+    return joinPoint != null;
+  }
+
+  /**
+   * Proceed to the join-point through this chain.
+   *
+   * @param proxy the proxy the call was made on
+   * @param target the target object, may be {@code null}
+   * @param args the arguments of the call
+   * @return the return value of the invocation
+   * @throws Throwable if thrown by an interceptor or the join-point
+   */
+  @Nullable
+  Object proceed(Object proxy, @Nullable Object target, Object[] args) throws Throwable {
+    if (interceptors.length == 0) {
+      return invokeJoinPoint(target, ClassUtils.adaptArgumentsIfNecessary(method, args));
+    }
+
+    MethodBeforeAdvice[] beforeAdvices = this.beforeAdvices;
+    if (beforeAdvices == null) {
+      return new FusedMethodInvocation(proxy, target, args, interceptors).proceed();
+    }
+
+    // no interceptors: advice calling proceed() goes straight to the join-point
+    FusedMethodInvocation invocation = new FusedMethodInvocation(proxy, target, args, EMPTY_INTERCEPTOR);
+    for (MethodBeforeAdvice advice : beforeAdvices) {
+      advice.before(invocation);
+    }
+    Object retVal = invocation.proceed();
+    for (AfterReturningAdvice advice : afterReturningAdvices) {
+      advice.afterReturning(retVal, invocation);
+    }
+    return retVal;
+  }
+
+  @Nullable
+  private Object invokeJoinPoint(@Nullable Object target, Object[] args) throws Throwable {
+    MethodInvoker joinPoint = this.joinPoint;
+    if (joinPoint != null && target != null && target.getClass() == targetClass) {
+      return joinPoint.invoke(target, args);
+    }
+    return AopUtils.invokeJoinpointUsingReflection(target, method, args);
+  }
+
+  @Nullable
+  private static MethodInvoker createJoinPoint(Method method, @Nullable Class<?> targetClass) {
+    if (targetClass == null
+            || targetClass.isHidden()
+            || Proxy.isProxyClass(targetClass)
+            || Modifier.isPrivate(targetClass.getModifiers())
+            || !Modifier.isPublic(method.getModifiers())) {
+      return null;
+    }
+    try {
+      return MethodInvoker.forMethod(method, targetClass);
+    }
+    catch (RuntimeException ex) {
+      log.debug("Failed to generate join-point invoker for method: {}", method, ex);
+      return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "FusedInterceptorChain: %s; %d interceptors; fused=%s; generated join-point=%s"
+            .formatted(method, interceptors.length, isFused(), isJoinPointGenerated());
+  }
+
+  /**
+   * MethodInvocation that invokes the join-point of the enclosing chain.
+   */
+  private final class FusedMethodInvocation extends DefaultMethodInvocation {
+
+    FusedMethodInvocation(Object proxy, @Nullable Object target, Object[] args, MethodInterceptor[] interceptors) {
+      super(proxy, target, method, targetClass, args, interceptors);
+    }
+
+    @Override
+    protected Object invokeJoinPoint() throws Throwable {
+      return FusedInterceptorChain.this.invokeJoinPoint(target, args);
+    }
+
+  }
+
+}
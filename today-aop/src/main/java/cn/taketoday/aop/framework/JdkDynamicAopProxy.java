@@ -209,23 +209,31 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
       target = targetSource.getTarget();
       Class<?> targetClass = (target != null ? target.getClass() : null);
 
-      // Get the interception chain for this method.
-      MethodInterceptor[] chain = advised.getInterceptors(method, targetClass);
-
       Object retVal;
-      // Check whether we have any advice. If we don't, we can fallback on direct
-      // reflective invocation of the target, and avoid creating a MethodInvocation.
-      if (ObjectUtils.isEmpty(chain)) {
-        // We can skip creating a MethodInvocation: just invoke the target directly
-        // Note that the final invoker must be an InvokerInterceptor so we know it does
-        // nothing but a reflective operation on the target, and no hot swapping or fancy proxying.
-        Object[] argsToUse = ClassUtils.adaptArgumentsIfNecessary(method, args);
-        retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
+      if (advised.isFusedInterceptorChains()) {
+        // Proceed through the fused chain: generated join-point invoker,
+        // before and after-returning advice applied in a single pass.
+        retVal = advised.getFusedInterceptorChain(method, targetClass)
+                .proceed(proxy, target, args);
       }
       else {
-        // Proceed to the join-point through the interceptor chain.
-        retVal = new DefaultMethodInvocation(proxy, target, method, targetClass, args, chain)
-                .proceed();
+        // Get the interception chain for this method.
+        MethodInterceptor[] chain = advised.getInterceptors(method, targetClass);
+
+        // Check whether we have any advice. If we don't, we can fallback on direct
+        // reflective invocation of the target, and avoid creating a MethodInvocation.
+        if (ObjectUtils.isEmpty(chain)) {
+          // We can skip creating a MethodInvocation: just invoke the target directly
+          // Note that the final invoker must be an InvokerInterceptor so we know it does
+          // nothing but a reflective operation on the target, and no hot swapping or fancy proxying.
+          Object[] argsToUse = ClassUtils.adaptArgumentsIfNecessary(method, args);
+          retVal = AopUtils.invokeJoinpointUsingReflection(target, method, argsToUse);
+        }
+        else {
+          // Proceed to the join-point through the interceptor chain.
+          retVal = new DefaultMethodInvocation(proxy, target, method, targetClass, args, chain)
+                  .proceed();
+        }
       }
       // Massage return value if necessary
       Class<?> returnType;
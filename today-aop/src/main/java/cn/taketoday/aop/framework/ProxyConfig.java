@@ -44,6 +44,7 @@ public class ProxyConfig implements Serializable {
   private boolean frozen = false;
   private boolean optimize = false;
   private boolean proxyTargetClass = false;
+  private boolean fusedInterceptorChains = false;
 
   /**
    * Set whether to proxy the target class directly, instead of just proxying
@@ -89,6 +90,32 @@ public class ProxyConfig implements Serializable {
     return this.optimize;
   }
 
+  /**
+   * Set whether proxies should fuse chains made up only of before and
+   * after-returning advice into a single pass, and invoke the target
+   * method through a generated {@link cn.taketoday.reflect.MethodInvoker}
+   * instead of reflection. Default is "false".
+   * <p>Nothing else is fused. A chain containing any other
+   * {@code MethodInterceptor}, such as the {@code @Transactional},
+   * {@code @Cacheable} or {@code @Retryable} interceptors, still calls
+   * {@code proceed()} once per interceptor; only its final target call
+   * goes through the generated invoker.
+   *
+   * @since 5.0
+   */
+  public void setFusedInterceptorChains(boolean fusedInterceptorChains) {
+    this.fusedInterceptorChains = fusedInterceptorChains;
+  }
+
+  /**
+   * Return whether proxies invoke advised methods through fused interceptor chains.
+   *
+   * @since 5.0
+   */
+  public boolean isFusedInterceptorChains() {
+    return this.fusedInterceptorChains;
+  }
+
   /**
    * Set whether proxies created by this configuration should be prevented
    * from being cast to {@link Advised} to query proxy status.
@@ -157,6 +184,7 @@ public class ProxyConfig implements Serializable {
     this.optimize = other.optimize;
     this.exposeProxy = other.exposeProxy;
     this.proxyTargetClass = other.proxyTargetClass;
+    this.fusedInterceptorChains = other.fusedInterceptorChains;
   }
 
   @Override
@@ -166,6 +194,7 @@ public class ProxyConfig implements Serializable {
     sb.append("optimize=").append(this.optimize).append("; ");
     sb.append("opaque=").append(this.opaque).append("; ");
     sb.append("exposeProxy=").append(this.exposeProxy).append("; ");
+    sb.append("fusedInterceptorChains=").append(this.fusedInterceptorChains).append("; ");
     sb.append("frozen=").append(this.frozen);
     return sb.toString();
   }
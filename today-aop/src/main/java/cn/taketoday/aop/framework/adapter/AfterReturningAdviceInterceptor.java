@@ -54,6 +54,15 @@ public class AfterReturningAdviceInterceptor implements MethodInterceptor, After
     this.advice = advice;
   }
 
+  /**
+   * Return the wrapped AfterReturningAdvice.
+   *
+   * @since 5.0
+   */
+  public AfterReturningAdvice getAdvice() {
+    return this.advice;
+  }
+
   @Override
   @Nullable
   public Object invoke(MethodInvocation mi) throws Throwable {
@@ -54,6 +54,15 @@ public class MethodBeforeAdviceInterceptor implements MethodInterceptor, BeforeA
     this.advice = advice;
   }
 
+  /**
+   * Return the wrapped MethodBeforeAdvice.
+   *
+   * @since 5.0
+   */
+  public MethodBeforeAdvice getAdvice() {
+    return this.advice;
+  }
+
   @Override
   @Nullable
   public Object invoke(MethodInvocation mi) throws Throwable {
@@ -25,6 +25,8 @@ import java.util.List;
 import cn.taketoday.aop.Advisor;
 import cn.taketoday.aop.TargetSource;
 import cn.taketoday.aop.support.AopUtils;
+import cn.taketoday.aop.support.annotation.AnnotationIndex;
+import cn.taketoday.aop.support.annotation.AnnotationIndexedPointcut;
 import cn.taketoday.beans.factory.BeanFactory;
 import cn.taketoday.beans.factory.config.ConfigurableBeanFactory;
 import cn.taketoday.core.annotation.AnnotationAwareOrderComparator;
@@ -61,6 +63,22 @@ public abstract class AbstractAdvisorAutoProxyCreator extends AbstractAutoProxyC
   @Nullable
   private BeanFactoryAdvisorRetriever advisorRetriever;
 
+  @Nullable
+  private transient AnnotationIndex annotationIndex = new AnnotationIndex();
+
+  /**
+   * Set whether to pre-filter candidate Advisors through an {@link AnnotationIndex}
+   * of the bean class: an Advisor whose pointcut is driven by annotations, none of
+   * which is present on the bean class or its methods, is skipped without
+   * evaluating its pointcut against every method. Default is "true".
+   *
+   * @see AnnotationIndexedPointcut
+   * @since 5.0
+   */
+  public void setAnnotationIndexEnabled(boolean annotationIndexEnabled) {
+    this.annotationIndex = annotationIndexEnabled ? new AnnotationIndex() : null;
+  }
+
   @Override
   public void setBeanFactory(BeanFactory beanFactory) {
     super.setBeanFactory(beanFactory);
@@ -131,6 +149,11 @@ public abstract class AbstractAdvisorAutoProxyCreator extends AbstractAutoProxyC
   protected List<Advisor> findAdvisorsThatCanApply(
           List<Advisor> candidateAdvisors, Class<?> beanClass, String beanName) {
 
+    AnnotationIndex annotationIndex = this.annotationIndex;
+    if (annotationIndex != null) {
+      candidateAdvisors = annotationIndex.filterCandidates(candidateAdvisors, beanClass);
+    }
+
     ProxyCreationContext.setCurrentProxiedBeanName(beanName);
     try {
       return AopUtils.filterAdvisors(candidateAdvisors, beanClass);
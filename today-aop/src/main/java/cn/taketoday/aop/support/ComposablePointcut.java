@@ -19,11 +19,16 @@ package cn.taketoday.aop.support;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
+import java.util.HashSet;
+import java.util.Set;
 
 import cn.taketoday.aop.ClassFilter;
 import cn.taketoday.aop.MethodMatcher;
 import cn.taketoday.aop.Pointcut;
+import cn.taketoday.aop.support.annotation.AnnotationIndexedPointcut;
 import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
 
 /**
  * Convenient class for building up pointcuts.
@@ -43,7 +48,7 @@ import cn.taketoday.lang.Assert;
  * @see Pointcut
  * @since 3.0 2021/2/1 18:18
  */
-public class ComposablePointcut implements Pointcut, Serializable {
+public class ComposablePointcut implements AnnotationIndexedPointcut, Serializable {
 
   @Serial
   private static final long serialVersionUID = 1L;
@@ -52,6 +57,14 @@ public class ComposablePointcut implements Pointcut, Serializable {
 
   private MethodMatcher methodMatcher;
 
+  /**
+   * Annotation types the composed pointcuts are driven by, if known.
+   *
+   * @since 5.0
+   */
+  @Nullable
+  private Set<Class<? extends Annotation>> annotationTypes;
+
   /**
    * Create a default ComposablePointcut, with {@code ClassFilter.TRUE}
    * and {@code MethodMatcher.TRUE}.
@@ -70,6 +83,7 @@ public class ComposablePointcut implements Pointcut, Serializable {
     Assert.notNull(pointcut, "Pointcut is required");
     this.classFilter = pointcut.getClassFilter();
     this.methodMatcher = pointcut.getMethodMatcher();
+    this.annotationTypes = AnnotationIndexedPointcut.annotationTypesOf(pointcut);
   }
 
   /**
@@ -117,6 +131,7 @@ public class ComposablePointcut implements Pointcut, Serializable {
    */
   public ComposablePointcut union(ClassFilter other) {
     this.classFilter = ClassFilter.union(this.classFilter, other);
+    this.annotationTypes = null;
     return this;
   }
 
@@ -139,6 +154,7 @@ public class ComposablePointcut implements Pointcut, Serializable {
    */
   public ComposablePointcut union(MethodMatcher other) {
     this.methodMatcher = MethodMatcher.union(this.methodMatcher, other);
+    this.annotationTypes = null;
     return this;
   }
 
@@ -167,6 +183,15 @@ public class ComposablePointcut implements Pointcut, Serializable {
     this.methodMatcher = MethodMatcher.union(
             this.methodMatcher, this.classFilter, other.getMethodMatcher(), other.getClassFilter());
     this.classFilter = ClassFilter.union(this.classFilter, other.getClassFilter());
+    Set<Class<? extends Annotation>> otherTypes = AnnotationIndexedPointcut.annotationTypesOf(other);
+    if (this.annotationTypes != null && otherTypes != null) {
+      HashSet<Class<? extends Annotation>> union = new HashSet<>(this.annotationTypes);
+      union.addAll(otherTypes);
+      this.annotationTypes = union;
+    }
+    else {
+      this.annotationTypes = null;
+    }
     return this;
   }
 
@@ -179,6 +204,9 @@ public class ComposablePointcut implements Pointcut, Serializable {
   public ComposablePointcut intersection(Pointcut other) {
     this.classFilter = ClassFilter.intersection(this.classFilter, other.getClassFilter());
     this.methodMatcher = MethodMatcher.intersection(this.methodMatcher, other.getMethodMatcher());
+    if (this.annotationTypes == null) {
+      this.annotationTypes = AnnotationIndexedPointcut.annotationTypesOf(other);
+    }
     return this;
   }
 
@@ -192,6 +220,18 @@ public class ComposablePointcut implements Pointcut, Serializable {
     return this.methodMatcher;
   }
 
+  /**
+   * Return the annotation types of the composed pointcuts: known for a
+   * union of annotation-driven pointcuts, or an intersection with one.
+   *
+   * @since 5.0
+   */
+  @Nullable
+  @Override
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    return this.annotationTypes;
+  }
+
   @Override
   public boolean equals(Object other) {
     if (this == other) {
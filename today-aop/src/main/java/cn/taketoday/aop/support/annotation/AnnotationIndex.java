@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.aop.support.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import cn.taketoday.aop.Advisor;
+import cn.taketoday.aop.IntroductionAdvisor;
+import cn.taketoday.aop.PointcutAdvisor;
+import cn.taketoday.core.annotation.MergedAnnotation;
+import cn.taketoday.core.annotation.MergedAnnotations;
+import cn.taketoday.core.annotation.MergedAnnotations.SearchStrategy;
+import cn.taketoday.util.ClassUtils;
+import cn.taketoday.util.ConcurrentReferenceHashMap;
+import cn.taketoday.util.ReflectionUtils;
+
+/**
+ * Index of the annotation types carried by classes, built from
+ * {@link MergedAnnotations} once per class and used to pre-filter
+ * {@link AnnotationIndexedPointcut annotation-driven} advisors.
+ *
+ * <p>For each class the index records the annotation types present on the
+ * class, its superclasses and interfaces, and on any method declared in
+ * that hierarchy, including meta-annotations. An advisor whose pointcut is
+ * driven by annotations none of which is present cannot apply to the class,
+ * so evaluating its pointcut against every method can be skipped. Any other
+ * advisor is always considered a candidate.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see AnnotationIndexedPointcut
+ * @since 5.0
+ */
+public class AnnotationIndex {
+
+  private final ConcurrentReferenceHashMap<Class<?>, Set<Class<? extends Annotation>>> annotationTypes
+          = new ConcurrentReferenceHashMap<>(256);
+
+  /**
+   * Filter the given advisors down to those that may apply to the given class.
+   *
+   * @param candidateAdvisors the advisors to filter
+   * @param targetClass the class to test
+   * @return the advisors that may apply (may be the incoming List as-is)
+   */
+  public List<Advisor> filterCandidates(List<Advisor> candidateAdvisors, Class<?> targetClass) {
+    ArrayList<Advisor> candidates = null;
+    for (int i = 0; i < candidateAdvisors.size(); i++) {
+      Advisor advisor = candidateAdvisors.get(i);
+      if (isCandidate(advisor, targetClass)) {
+        if (candidates != null) {
+          candidates.add(advisor);
+        }
+      }
+      else if (candidates == null) {
+        candidates = new ArrayList<>(candidateAdvisors.subList(0, i));
+      }
+    }
+    return candidates != null ? candidates : candidateAdvisors;
+  }
+
+  /**
+   * Determine whether the given advisor may apply to the given class.
+   *
+   * @param advisor the advisor to check
+   * @param targetClass the class to test
+   * @return {@code false} if the advisor's pointcut is driven by annotations
+   * none of which is present on the class, {@code true} otherwise
+   */
+  public boolean isCandidate(Advisor advisor, Class<?> targetClass) {
+    if (advisor instanceof PointcutAdvisor pa && !(advisor instanceof IntroductionAdvisor)) {
+      Set<Class<? extends Annotation>> required = AnnotationIndexedPointcut.annotationTypesOf(pa.getPointcut());
+      if (required != null) {
+        return isCandidate(targetClass, required);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Determine whether the given class carries any of the given annotation types.
+   *
+   * @param targetClass the class to test
+   * @param annotationTypes the annotation types to look for
+   * @return whether one of the annotation types is present on the class,
+   * its hierarchy or its methods
+   */
+  public boolean isCandidate(Class<?> targetClass, Set<Class<? extends Annotation>> annotationTypes) {
+    Set<Class<? extends Annotation>> present = getAnnotationTypes(targetClass);
+    for (Class<? extends Annotation> annotationType : annotationTypes) {
+      if (present.contains(annotationType)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Return the annotation types present on the given class, its hierarchy
+   * or its methods, building the index entry if necessary.
+   *
+   * @param targetClass the class to introspect
+   * @return the annotation types, including meta-annotations
+   */
+  public Set<Class<? extends Annotation>> getAnnotationTypes(Class<?> targetClass) {
+    Set<Class<? extends Annotation>> types = annotationTypes.get(targetClass);
+    if (types == null) {
+      types = buildIndex(targetClass);
+      annotationTypes.put(targetClass, types);
+    }
+    return types;
+  }
+
+  /**
+   * Clear the index, for example after the application context has been refreshed.
+   */
+  public void clear() {
+    annotationTypes.clear();
+  }
+
+  private static Set<Class<? extends Annotation>> buildIndex(Class<?> targetClass) {
+    HashSet<Class<? extends Annotation>> types = new HashSet<>();
+    LinkedHashSet<Class<?>> classes = new LinkedHashSet<>();
+    if (!Proxy.isProxyClass(targetClass)) {
+      Class<?> userClass = ClassUtils.getUserClass(targetClass);
+      classes.add(userClass);
+      collect(MergedAnnotations.from(userClass, SearchStrategy.TYPE_HIERARCHY), types);
+    }
+    classes.addAll(ClassUtils.getAllInterfacesForClassAsSet(targetClass));
+
+    for (Class<?> clazz : classes) {
+      if (clazz.isInterface()) {
+        collect(MergedAnnotations.from(clazz), types);
+      }
+      for (Method method : ReflectionUtils.getAllDeclaredMethods(clazz)) {
+        collect(MergedAnnotations.from(method), types);
+      }
+    }
+    return types;
+  }
+
+  private static void collect(MergedAnnotations annotations, Set<Class<? extends Annotation>> types) {
+    for (MergedAnnotation<Annotation> annotation : annotations) {
+      types.add(annotation.getType());
+    }
+  }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.aop.support.annotation;
+
+import java.lang.annotation.Annotation;
+import java.util.Set;
+
+import cn.taketoday.aop.Pointcut;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * {@link Pointcut} that is driven by annotations: it can only match a class
+ * that carries one of its {@link #getAnnotationTypes() annotation types},
+ * on the class itself or on one of its methods.
+ *
+ * <p>Allows an {@link AnnotationIndex} to rule the pointcut out for a class
+ * up-front, without evaluating it against every method.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see AnnotationIndex
+ * @since 5.0
+ */
+public interface AnnotationIndexedPointcut extends Pointcut {
+
+  /**
+   * Return the annotation types this pointcut is driven by.
+   * <p>A class can only be matched if it carries at least one of them,
+   * directly or as meta-annotation, on the class, one of its methods,
+   * its superclasses or its interfaces.
+   *
+   * @return the annotation types, or {@code null} if this pointcut
+   * cannot be restricted to particular annotations
+   */
+  @Nullable
+  Set<Class<? extends Annotation>> getAnnotationTypes();
+
+  /**
+   * Determine the annotation types the given pointcut is driven by.
+   *
+   * @param pointcut the pointcut to introspect
+   * @return the annotation types, or {@code null} if unknown
+   */
+  @Nullable
+  static Set<Class<? extends Annotation>> annotationTypesOf(Pointcut pointcut) {
+    if (pointcut instanceof AnnotationIndexedPointcut indexed) {
+      return indexed.getAnnotationTypes();
+    }
+    return null;
+  }
+
+}
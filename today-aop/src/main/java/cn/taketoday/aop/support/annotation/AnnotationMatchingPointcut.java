@@ -21,10 +21,10 @@
 package cn.taketoday.aop.support.annotation;
 
 import java.lang.annotation.Annotation;
+import java.util.Set;
 
 import cn.taketoday.aop.ClassFilter;
 import cn.taketoday.aop.MethodMatcher;
-import cn.taketoday.aop.Pointcut;
 import cn.taketoday.core.annotation.AnnotationUtils;
 import cn.taketoday.lang.Assert;
 
@@ -40,10 +40,11 @@ import cn.taketoday.lang.Assert;
  * @see AnnotationMethodMatcher
  * @since 3.0
  */
-public class AnnotationMatchingPointcut implements Pointcut {
+public class AnnotationMatchingPointcut implements AnnotationIndexedPointcut {
 
   private final ClassFilter classFilter;
   private final MethodMatcher methodMatcher;
+  private final Set<Class<? extends Annotation>> annotationTypes;
 
   /**
    * Create a new AnnotationMatchingPointcut for the given annotation type.
@@ -65,6 +66,7 @@ public class AnnotationMatchingPointcut implements Pointcut {
   public AnnotationMatchingPointcut(Class<? extends Annotation> classAnnotationType, boolean checkInherited) {
     this.classFilter = new AnnotationClassFilter(classAnnotationType, checkInherited);
     this.methodMatcher = MethodMatcher.TRUE;
+    this.annotationTypes = Set.of(classAnnotationType);
   }
 
   /**
@@ -112,6 +114,8 @@ public class AnnotationMatchingPointcut implements Pointcut {
     else {
       this.methodMatcher = MethodMatcher.TRUE;
     }
+    // both must match if both are specified: either one restricts the candidates
+    this.annotationTypes = Set.of(classAnnotationType != null ? classAnnotationType : methodAnnotationType);
   }
 
   @Override
@@ -124,6 +128,11 @@ public class AnnotationMatchingPointcut implements Pointcut {
     return this.methodMatcher;
   }
 
+  @Override
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    return this.annotationTypes;
+  }
+
   @Override
   public boolean equals(Object other) {
     if (this == other) {
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.aop.framework;
+
+import org.junit.jupiter.api.Test;
+
+import cn.taketoday.aop.AfterReturningAdvice;
+import cn.taketoday.aop.MethodBeforeAdvice;
+import cn.taketoday.beans.testfixture.beans.ITestBean;
+import cn.taketoday.beans.testfixture.beans.TestBean;
+import cn.taketoday.util.StopWatch;
+
+/**
+ * Benchmarks for fused interceptor chains against the generic chain.
+ *
+ * NOTE: No assertions!
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class FusedInterceptorChainBenchmarkTests {
+
+  /** Increase this if you want meaningful results! */
+  private static final int INVOCATIONS = 100000;
+
+  @Test
+  void timeManyInvocations() {
+    StopWatch sw = new StopWatch();
+
+    for (boolean proxyTargetClass : new boolean[] { false, true }) {
+      String type = proxyTargetClass ? "CGLIB" : "JDK";
+      time(sw, type + " proxy without advice", createProxy(proxyTargetClass, false, false));
+      time(sw, type + " fused proxy without advice", createProxy(proxyTargetClass, true, false));
+      time(sw, type + " proxy with before/after-returning advice", createProxy(proxyTargetClass, false, true));
+      time(sw, type + " fused proxy with before/after-returning advice", createProxy(proxyTargetClass, true, true));
+    }
+
+    System.out.println(sw.prettyPrint());
+  }
+
+  private static void time(StopWatch sw, String name, ITestBean proxy) {
+    // warm up
+    for (int i = 0; i < INVOCATIONS; i++) {
+      proxy.getAge();
+    }
+    sw.start(INVOCATIONS + " invocations on " + name);
+    for (int i = 0; i < INVOCATIONS; i++) {
+      proxy.getAge();
+    }
+    sw.stop();
+  }
+
+  private static ITestBean createProxy(boolean proxyTargetClass, boolean fused, boolean advised) {
+    ProxyFactory pf = new ProxyFactory(new TestBean());
+    pf.setProxyTargetClass(proxyTargetClass);
+    pf.setFusedInterceptorChains(fused);
+    if (advised) {
+      pf.addAdvice((MethodBeforeAdvice) invocation -> { });
+      pf.addAdvice((AfterReturningAdvice) (returnValue, invocation) -> { });
+    }
+    return (ITestBean) pf.getProxy();
+  }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.aop.framework;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.taketoday.aop.AfterReturningAdvice;
+import cn.taketoday.aop.MethodBeforeAdvice;
+import cn.taketoday.beans.testfixture.beans.DerivedTestBean;
+import cn.taketoday.beans.testfixture.beans.ITestBean;
+import cn.taketoday.beans.testfixture.beans.TestBean;
+import cn.taketoday.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class FusedInterceptorChainTests {
+
+  private final List<String> events = new ArrayList<>();
+
+  private final Method getAge = ReflectionUtils.findMethod(ITestBean.class, "getAge");
+
+  @Test
+  void jdkProxyAppliesAdviceInChainOrder() {
+    assertThat(invokeAdvised(false, false)).isEqualTo(invokeAdvised(false, true));
+    assertThat(events).containsExactly("before1", "before2", "afterReturning2:18", "afterReturning1:18");
+  }
+
+  @Test
+  void cglibProxyAppliesAdviceInChainOrder() {
+    assertThat(invokeAdvised(true, false)).isEqualTo(invokeAdvised(true, true));
+    assertThat(events).containsExactly("before1", "before2", "afterReturning2:18", "afterReturning1:18");
+  }
+
+  @Test
+  void fusedChainUsesGeneratedJoinPoint() {
+    ProxyFactory pf = new ProxyFactory(new TestBean());
+    pf.addAdvice(before("before"));
+    pf.addAdvice(afterReturning("afterReturning"));
+
+    FusedInterceptorChain chain = pf.getFusedInterceptorChain(getAge, TestBean.class);
+    assertThat(chain.isFused()).isTrue();
+    assertThat(chain.isJoinPointGenerated()).isTrue();
+    assertThat(pf.getFusedInterceptorChain(getAge, TestBean.class)).isSameAs(chain);
+  }
+
+  @Test
+  void fusedChainCachedPerTargetClass() {
+    ProxyFactory pf = new ProxyFactory(new TestBean());
+    pf.addAdvice(before("before"));
+
+    FusedInterceptorChain chain = pf.getFusedInterceptorChain(getAge, TestBean.class);
+    FusedInterceptorChain derived = pf.getFusedInterceptorChain(getAge, DerivedTestBean.class);
+    assertThat(derived).isNotSameAs(chain);
+    assertThat(derived.targetClass).isEqualTo(DerivedTestBean.class);
+
+    // alternating target classes does not rebuild the chains
+    assertThat(pf.getFusedInterceptorChain(getAge, TestBean.class)).isSameAs(chain);
+    assertThat(pf.getFusedInterceptorChain(getAge, DerivedTestBean.class)).isSameAs(derived);
+  }
+
+  @Test
+  void unknownInterceptorFallsBackToGenericChain() {
+    TestBean target = new TestBean();
+    target.setAge(18);
+    ProxyFactory pf = new ProxyFactory(target);
+    pf.setFusedInterceptorChains(true);
+    pf.addAdvice(before("before"));
+    pf.addAdvice((MethodInterceptor) invocation -> {
+      events.add("around");
+      return (int) invocation.proceed() + 1;
+    });
+    pf.addAdvice(afterReturning("afterReturning"));
+
+    ITestBean proxy = (ITestBean) pf.getProxy();
+    assertThat(proxy.getAge()).isEqualTo(19);
+    assertThat(events).containsExactly("before", "around", "afterReturning:18");
+
+    FusedInterceptorChain chain = pf.getFusedInterceptorChain(getAge, TestBean.class);
+    assertThat(chain.isFused()).isFalse();
+    assertThat(chain.isJoinPointGenerated()).isTrue();
+  }
+
+  @Test
+  void cglibProxyFallsBackToGenericChainForAroundAdvice() {
+    TestBean target = new TestBean();
+    target.setAge(18);
+    ProxyFactory pf = new ProxyFactory(target);
+    pf.setProxyTargetClass(true);
+    pf.setFusedInterceptorChains(true);
+    pf.addAdvice((MethodInterceptor) invocation -> {
+      events.add("around");
+      return (int) invocation.proceed() + 1;
+    });
+    pf.addAdvice(afterReturning("afterReturning"));
+
+    TestBean proxy = (TestBean) pf.getProxy();
+    assertThat(proxy.getAge()).isEqualTo(19);
+    assertThat(events).containsExactly("around", "afterReturning:18");
+
+    FusedInterceptorChain chain = pf.getFusedInterceptorChain(getAge, TestBean.class);
+    assertThat(chain.isFused()).isFalse();
+    assertThat(chain.interceptors).isEqualTo(pf.getInterceptors(getAge, TestBean.class));
+  }
+
+  @Test
+  void emptyChainInvokesTargetDirectly() {
+    TestBean target = new TestBean();
+    ProxyFactory pf = new ProxyFactory(target);
+    pf.setFusedInterceptorChains(true);
+    ITestBean proxy = (ITestBean) pf.getProxy();
+
+    proxy.setAge(20);
+    assertThat(target.getAge()).isEqualTo(20);
+    assertThat(proxy.returnsThis()).isSameAs(proxy);
+    assertThat(pf.getFusedInterceptorChain(getAge, TestBean.class).isFused()).isTrue();
+  }
+
+  @Test
+  void checkedExceptionIsNotWrapped() {
+    ProxyFactory pf = new ProxyFactory(new TestBean());
+    pf.setFusedInterceptorChains(true);
+    pf.addAdvice(before("before"));
+    ITestBean proxy = (ITestBean) pf.getProxy();
+
+    assertThatIOException().isThrownBy(() -> proxy.exceptional(new IOException("failed")))
+            .withMessage("failed");
+    assertThat(events).containsExactly("before");
+  }
+
+  @Test
+  void adviceChangeRebuildsChain() {
+    TestBean target = new TestBean();
+    ProxyFactory pf = new ProxyFactory(target);
+    pf.setFusedInterceptorChains(true);
+    ITestBean proxy = (ITestBean) pf.getProxy();
+    proxy.getAge();
+    assertThat(events).isEmpty();
+
+    pf.addAdvice(before("before"));
+    proxy.getAge();
+    assertThat(events).containsExactly("before");
+  }
+
+  private int invokeAdvised(boolean proxyTargetClass, boolean fused) {
+    events.clear();
+    TestBean target = new TestBean();
+    target.setAge(18);
+    ProxyFactory pf = new ProxyFactory(target);
+    pf.setProxyTargetClass(proxyTargetClass);
+    pf.setFusedInterceptorChains(fused);
+    pf.addAdvice(before("before1"));
+    pf.addAdvice(afterReturning("afterReturning1"));
+    pf.addAdvice(before("before2"));
+    pf.addAdvice(afterReturning("afterReturning2"));
+
+    ITestBean proxy = (ITestBean) pf.getProxy();
+    return proxy.getAge();
+  }
+
+  private MethodBeforeAdvice before(String name) {
+    return invocation -> events.add(name);
+  }
+
+  private AfterReturningAdvice afterReturning(String name) {
+    return (returnValue, invocation) -> events.add(name + ":" + returnValue);
+  }
+
+}
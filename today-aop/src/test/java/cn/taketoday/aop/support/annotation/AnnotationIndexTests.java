@@ -0,0 +1,179 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.aop.support.annotation;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+import java.util.Set;
+
+import cn.taketoday.aop.Advisor;
+import cn.taketoday.aop.ClassFilter;
+import cn.taketoday.aop.aspectj.AspectJExpressionPointcut;
+import cn.taketoday.aop.support.ComposablePointcut;
+import cn.taketoday.aop.support.DefaultPointcutAdvisor;
+import cn.taketoday.aop.support.NameMatchMethodPointcut;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class AnnotationIndexTests {
+
+  private final AnnotationIndex index = new AnnotationIndex();
+
+  private final MethodInterceptor advice = invocation -> invocation.proceed();
+
+  @Test
+  void indexesClassMethodInterfaceAndMetaAnnotations() {
+    assertThat(index.getAnnotationTypes(AnnotatedClass.class)).contains(Marker.class);
+    assertThat(index.getAnnotationTypes(AnnotatedMethod.class)).contains(Marker.class);
+    assertThat(index.getAnnotationTypes(AnnotatedInterfaceMethod.class)).contains(Marker.class);
+    assertThat(index.getAnnotationTypes(SubclassOfAnnotated.class)).contains(Marker.class);
+    assertThat(index.getAnnotationTypes(MetaAnnotatedMethod.class)).contains(Composed.class, Marker.class);
+    assertThat(index.getAnnotationTypes(Plain.class)).doesNotContain(Marker.class);
+    assertThat(index.getAnnotationTypes(Plain.class)).isSameAs(index.getAnnotationTypes(Plain.class));
+  }
+
+  @Test
+  void filtersAdvisorsDrivenByAbsentAnnotations() {
+    Advisor classAdvisor = new DefaultPointcutAdvisor(new AnnotationMatchingPointcut(Marker.class, true), advice);
+    Advisor methodAdvisor = new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forMethodAnnotation(Marker.class), advice);
+    NameMatchMethodPointcut namePointcut = new NameMatchMethodPointcut();
+    namePointcut.setMappedName("*");
+    Advisor nameAdvisor = new DefaultPointcutAdvisor(namePointcut, advice);
+    List<Advisor> advisors = List.of(classAdvisor, methodAdvisor, nameAdvisor);
+
+    assertThat(index.filterCandidates(advisors, Plain.class)).containsExactly(nameAdvisor);
+    assertThat(index.filterCandidates(advisors, AnnotatedMethod.class)).isSameAs(advisors);
+    assertThat(index.isCandidate(methodAdvisor, MetaAnnotatedMethod.class)).isTrue();
+  }
+
+  @Test
+  void composablePointcutTracksAnnotationTypes() {
+    ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(Marker.class, true))
+            .union(AnnotationMatchingPointcut.forMethodAnnotation(Composed.class));
+    assertThat(pointcut.getAnnotationTypes()).containsExactlyInAnyOrder(Marker.class, Composed.class);
+
+    pointcut.intersection(ClassFilter.TRUE);
+    assertThat(pointcut.getAnnotationTypes()).containsExactlyInAnyOrder(Marker.class, Composed.class);
+
+    pointcut.union(ClassFilter.TRUE);
+    assertThat(pointcut.getAnnotationTypes()).isNull();
+
+    assertThat(new ComposablePointcut().getAnnotationTypes()).isNull();
+    assertThat(new ComposablePointcut().intersection(AnnotationMatchingPointcut.forMethodAnnotation(Marker.class))
+            .getAnnotationTypes()).containsExactly(Marker.class);
+  }
+
+  @Test
+  void aspectJExpressionAnnotationTypes() {
+    String marker = Marker.class.getName();
+    assertThat(expression("@annotation(" + marker + ")")).containsExactly(Marker.class);
+    assertThat(expression("execution(* *(..)) && @annotation(" + marker + ")")).containsExactly(Marker.class);
+    assertThat(expression("@within(" + marker + ") || @annotation(" + Composed.class.getName() + ")"))
+            .containsExactly(Marker.class, Composed.class);
+
+    assertThat(expression("execution(* *(..))")).isNull();
+    assertThat(expression("execution(* *(..)) || @annotation(" + marker + ")")).isNull();
+    assertThat(expression("!@annotation(" + marker + ")")).isNull();
+    assertThat(expression("@annotation(" + marker + ") || execution(* *(..)) && within(*)")).isNull();
+    assertThat(expression("@annotation(" + String.class.getName() + ")")).isNull();
+    assertThat(expression("@annotation(Marker)")).isNull();
+  }
+
+  @Test
+  void aspectJBoundAnnotationParameter() {
+    AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut(
+            AnnotationIndexTests.class, new String[] { "marker" }, new Class<?>[] { Marker.class });
+    pointcut.setExpression("@annotation(marker)");
+    assertThat(pointcut.getAnnotationTypes()).containsExactly(Marker.class);
+  }
+
+  private static Set<Class<? extends Annotation>> expression(String expression) {
+    AspectJExpressionPointcut pointcut = new AspectJExpressionPointcut();
+    pointcut.setExpression(expression);
+    return pointcut.getAnnotationTypes();
+  }
+
+  @Target({ ElementType.TYPE, ElementType.METHOD })
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface Marker {
+
+  }
+
+  @Marker
+  @Target({ ElementType.TYPE, ElementType.METHOD })
+  @Retention(RetentionPolicy.RUNTIME)
+  @interface Composed {
+
+  }
+
+  @Marker
+  static class AnnotatedClass {
+
+    public void handle() { }
+
+  }
+
+  static class AnnotatedMethod {
+
+    @Marker
+    public void handle() { }
+
+  }
+
+  interface AnnotatedInterface {
+
+    @Marker
+    void handle();
+
+  }
+
+  static class AnnotatedInterfaceMethod implements AnnotatedInterface {
+
+    @Override
+    public void handle() { }
+
+  }
+
+  static class SubclassOfAnnotated extends AnnotatedMethod {
+
+  }
+
+  static class MetaAnnotatedMethod {
+
+    @Composed
+    public void handle() { }
+
+  }
+
+  static class Plain {
+
+    public void handle() { }
+
+  }
+
+}
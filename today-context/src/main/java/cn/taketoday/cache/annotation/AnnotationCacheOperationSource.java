@@ -18,6 +18,7 @@
 package cn.taketoday.cache.annotation;
 
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -118,6 +119,28 @@ public class AnnotationCacheOperationSource extends AbstractFallbackCacheOperati
     return false;
   }
 
+  /**
+   * Return the cache annotation types understood by the
+   * configured {@link CacheAnnotationParser parsers}.
+   *
+   * @return the annotation types, or {@code null} if any parser
+   * does not expose its annotation types
+   * @see CacheAnnotationParser#getAnnotationTypes()
+   * @since 5.0
+   */
+  @Nullable
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    LinkedHashSet<Class<? extends Annotation>> annotationTypes = new LinkedHashSet<>();
+    for (CacheAnnotationParser parser : this.annotationParsers) {
+      Set<Class<? extends Annotation>> types = parser.getAnnotationTypes();
+      if (types == null) {
+        return null;
+      }
+      annotationTypes.addAll(types);
+    }
+    return annotationTypes;
+  }
+
   @Override
   @Nullable
   protected Collection<CacheOperation> findCacheOperations(Class<?> clazz) {
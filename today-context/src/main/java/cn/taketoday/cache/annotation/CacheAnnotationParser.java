@@ -20,8 +20,10 @@
 
 package cn.taketoday.cache.annotation;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Collection;
+import java.util.Set;
 
 import cn.taketoday.cache.interceptor.CacheOperation;
 import cn.taketoday.lang.Nullable;
@@ -60,6 +62,21 @@ public interface CacheAnnotationParser {
     return true;
   }
 
+  /**
+   * Return the annotation types understood by this parser, if known.
+   * <p>Allows cache pointcuts to be pre-filtered through an
+   * {@link cn.taketoday.aop.support.annotation.AnnotationIndex}.
+   *
+   * @return the annotation types, or {@code null} if this parser may
+   * derive cache operations from other sources. The default
+   * implementation returns {@code null}.
+   * @since 5.0
+   */
+  @Nullable
+  default Set<Class<? extends Annotation>> getAnnotationTypes() {
+    return null;
+  }
+
   /**
    * Parse the cache definition for the given class,
    * based on an annotation type understood by this parser.
@@ -59,6 +59,11 @@ public class DefaultCacheAnnotationParser implements CacheAnnotationParser, Seri
     return AnnotationUtils.isCandidateClass(targetClass, CACHE_OPERATION_ANNOTATIONS);
   }
 
+  @Override
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    return CACHE_OPERATION_ANNOTATIONS;
+  }
+
   @Override
   @Nullable
   public Collection<CacheOperation> parseCacheAnnotations(Class<?> type) {
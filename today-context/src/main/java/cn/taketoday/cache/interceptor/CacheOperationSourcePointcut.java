@@ -19,11 +19,15 @@ package cn.taketoday.cache.interceptor;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Set;
 
 import cn.taketoday.aop.ClassFilter;
 import cn.taketoday.aop.support.StaticMethodMatcherPointcut;
+import cn.taketoday.aop.support.annotation.AnnotationIndexedPointcut;
 import cn.taketoday.cache.CacheManager;
+import cn.taketoday.cache.annotation.AnnotationCacheOperationSource;
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.util.ObjectUtils;
 
@@ -36,7 +40,8 @@ import cn.taketoday.util.ObjectUtils;
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 4.0
  */
-class CacheOperationSourcePointcut extends StaticMethodMatcherPointcut implements Serializable {
+class CacheOperationSourcePointcut extends StaticMethodMatcherPointcut
+        implements AnnotationIndexedPointcut, Serializable {
 
   @Serial
   private static final long serialVersionUID = 1L;
@@ -58,6 +63,17 @@ class CacheOperationSourcePointcut extends StaticMethodMatcherPointcut implement
             this.cacheOperationSource.hasCacheOperations(method, targetClass));
   }
 
+  @Nullable
+  @Override
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    // subclasses may find operations beyond the annotations of the parsers
+    if (this.cacheOperationSource instanceof AnnotationCacheOperationSource source
+            && source.getClass() == AnnotationCacheOperationSource.class) {
+      return source.getAnnotationTypes();
+    }
+    return null;
+  }
+
   @Override
   public boolean equals(@Nullable Object other) {
     return (this == other || (other instanceof CacheOperationSourcePointcut that &&
@@ -23,6 +23,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Predicate;
 
 import cn.taketoday.beans.factory.BeanDefinitionStoreException;
@@ -30,6 +31,7 @@ import cn.taketoday.beans.factory.annotation.AnnotatedBeanDefinition;
 import cn.taketoday.beans.factory.annotation.Lookup;
 import cn.taketoday.beans.factory.support.BeanDefinitionRegistry;
 import cn.taketoday.bytecode.ClassReader;
+import cn.taketoday.context.index.CandidateComponentsCache;
 import cn.taketoday.context.index.CandidateComponentsIndex;
 import cn.taketoday.context.index.CandidateComponentsIndexLoader;
 import cn.taketoday.core.annotation.AnnotationUtils;
@@ -54,6 +56,7 @@ import cn.taketoday.stereotype.Indexed;
 import cn.taketoday.stereotype.Repository;
 import cn.taketoday.stereotype.Service;
 import cn.taketoday.util.ClassUtils;
+import cn.taketoday.util.StringUtils;
 
 /**
  * A component provider that scans for candidate components starting from a
@@ -99,6 +102,9 @@ public class ClassPathScanningCandidateComponentProvider extends ClassPathScanni
   @Nullable
   private CandidateComponentsIndex componentsIndex;
 
+  @Nullable
+  private CandidateComponentsCache componentsCache;
+
   private Predicate<AnnotationMetadata> candidateComponentPredicate = this::isCandidateComponent;
 
   public ClassPathScanningCandidateComponentProvider() { }
@@ -255,6 +261,19 @@ public class ClassPathScanningCandidateComponentProvider extends ClassPathScanni
   public void setResourceLoader(@Nullable ResourceLoader resourceLoader) {
     super.setResourceLoader(resourceLoader);
     this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(getResourceLoader().getClassLoader());
+    this.componentsCache = CandidateComponentsCache.loadCache(getResourceLoader().getClassLoader());
+  }
+
+  /**
+   * Set the {@link CandidateComponentsCache} to replay previous scanning results
+   * from, or {@code null} to always scan the classpath.
+   * <p>Default is the cache for the class loader of the resource loader, if
+   * {@value CandidateComponentsCache#ENABLED} is set.
+   *
+   * @see CandidateComponentsCache#loadCache(ClassLoader)
+   */
+  public void setComponentsCache(@Nullable CandidateComponentsCache componentsCache) {
+    this.componentsCache = componentsCache;
   }
 
   /**
@@ -295,11 +314,94 @@ public class ClassPathScanningCandidateComponentProvider extends ClassPathScanni
       scanCandidateComponentsFromIndex(
               componentsIndex, basePackage, new FilteredMetadataReaderConsumer(metadataReaderConsumer));
     }
+    else if (componentsCache != null) {
+      scanCandidateComponentsWithCache(
+              componentsCache, basePackage, new FilteredMetadataReaderConsumer(metadataReaderConsumer));
+    }
     else {
       scan(basePackage, new FilteredMetadataReaderConsumer(metadataReaderConsumer));
     }
   }
 
+  /**
+   * Replay the candidate types recorded by a previous full scan, or scan the
+   * class path and record the classes matching any include filter.
+   */
+  private void scanCandidateComponentsWithCache(CandidateComponentsCache cache,
+          String basePackage, MetadataReaderConsumer metadataReaderConsumer) throws IOException {
+    String cacheKey = getCacheKey(basePackage);
+    if (cacheKey == null) {
+      scan(basePackage, metadataReaderConsumer);
+      return;
+    }
+
+    Set<String> types = cache.getCandidateTypes(cacheKey);
+    if (types != null) {
+      MetadataReaderFactory metadataReaderFactory = getMetadataReaderFactory();
+      ArrayList<MetadataReader> metadataReaders = new ArrayList<>(types.size());
+      try {
+        for (String type : types) {
+          metadataReaders.add(metadataReaderFactory.getMetadataReader(type));
+        }
+      }
+      catch (IOException ex) {
+        log.debug("Stale candidate components cache for '{}', scanning class path", basePackage, ex);
+        metadataReaders = null;
+      }
+      if (metadataReaders != null) {
+        for (MetadataReader metadataReader : metadataReaders) {
+          metadataReaderConsumer.accept(metadataReader, metadataReaderFactory);
+        }
+        return;
+      }
+    }
+
+    LinkedHashSet<String> matched = new LinkedHashSet<>();
+    scan(basePackage, (metadataReader, factory) -> {
+      for (TypeFilter tf : includeFilters) {
+        if (tf.match(metadataReader, factory)) {
+          matched.add(metadataReader.getClassMetadata().getClassName());
+          break;
+        }
+      }
+      metadataReaderConsumer.accept(metadataReader, factory);
+    });
+    cache.putCandidateTypes(cacheKey, matched);
+  }
+
+  /**
+   * Build the key of the given scan in the {@link CandidateComponentsCache}.
+   * <p>Profiles are not part of the key: the cached types only went through
+   * the include filters, conditions are still evaluated on replay.
+   *
+   * @return the cache key, or {@code null} if an include filter cannot be
+   * described reliably across restarts
+   */
+  @Nullable
+  private String getCacheKey(String basePackage) {
+    StringBuilder key = new StringBuilder(getPatternLocation(basePackage));
+
+    TreeSet<String> filters = new TreeSet<>();
+    for (TypeFilter filter : includeFilters) {
+      if (filter.getClass() == AnnotationTypeFilter.class) {
+        AnnotationTypeFilter atf = (AnnotationTypeFilter) filter;
+        filters.add("@" + atf.getAnnotationType().getName()
+                + (atf.isConsiderMetaAnnotations() ? "+meta" : "")
+                + (atf.isConsiderInterfaces() ? "+interfaces" : ""));
+      }
+      else if (filter.getClass() == AssignableTypeFilter.class) {
+        filters.add(((AssignableTypeFilter) filter).getTargetType().getName());
+      }
+      else {
+        return null;
+      }
+    }
+    for (String filter : filters) {
+      key.append(';').append(filter);
+    }
+    return key.toString();
+  }
+
   /**
    * Determine if the component index can be used by this instance.
    *
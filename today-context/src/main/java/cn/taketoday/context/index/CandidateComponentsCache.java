@@ -0,0 +1,407 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.context.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import cn.taketoday.core.ApplicationTemp;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.lang.TodayStrategies;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.util.ConcurrentReferenceHashMap;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * Persistent cache of component scanning results, stored in the
+ * {@link ApplicationTemp application temp directory} and replayed on
+ * subsequent starts.
+ *
+ * <p>Each entry maps a scan key (package search path and include filters)
+ * to the names of all classes that matched one of the include
+ * filters during a full classpath scan. Replaying an entry still runs the exclude
+ * filters and conditions against every cached class, so only the resource
+ * traversal and the include filter evaluation are skipped.
+ *
+ * <p>The cache file is bound to a fingerprint of the classpath: JAR files
+ * contribute the CRC and size of every entry, directories contribute the
+ * relative path, size and last-modified time of every file. The JARs listed
+ * in the manifest {@code Class-Path} of a JAR, as in an extracted application
+ * layout, are part of the classpath as well. Any mismatch
+ * discards the whole file and falls back to a full scan.
+ *
+ * <p>Disabled unless the {@value #ENABLED} flag is set.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see CandidateComponentsIndexLoader
+ * @since 5.0
+ */
+public final class CandidateComponentsCache {
+
+  /**
+   * System property that instructs framework to cache component scanning results
+   * across application starts.
+   * <p>The default is "false". Caching only pays off when the classpath is large
+   * and stable between restarts, for example in a container image.
+   */
+  public static final String ENABLED = "today.index.cache";
+
+  /**
+   * The sub-directory of the {@link ApplicationTemp application temp directory}
+   * that holds the cache files.
+   */
+  public static final String CACHE_DIRECTORY = "candidate-components";
+
+  private static final String FINGERPRINT_KEY = "#fingerprint";
+
+  private static final boolean cacheEnabled = TodayStrategies.getFlag(ENABLED);
+
+  private static final Logger log = LoggerFactory.getLogger(CandidateComponentsCache.class);
+
+  private static final ConcurrentMap<ClassLoader, CandidateComponentsCache> cache =
+          new ConcurrentReferenceHashMap<>();
+
+  private final Path file;
+
+  private final String fingerprint;
+
+  private final ConcurrentHashMap<String, Set<String>> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Create a cache backed by the given file. Existing entries are only loaded
+   * if the file was written for the same fingerprint.
+   *
+   * @param file the cache file
+   * @param fingerprint the fingerprint of the current classpath
+   */
+  public CandidateComponentsCache(Path file, String fingerprint) {
+    Assert.notNull(file, "file is required");
+    Assert.notNull(fingerprint, "fingerprint is required");
+    this.file = file;
+    this.fingerprint = fingerprint;
+    loadEntries();
+  }
+
+  /**
+   * Return the candidate types recorded for the given scan key.
+   *
+   * @param key the scan key
+   * @return the recorded class names, or {@code null} if the scan has to be performed
+   */
+  @Nullable
+  public Set<String> getCandidateTypes(String key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Record the candidate types of a full scan and persist the cache file.
+   *
+   * @param key the scan key
+   * @param types the names of all classes that matched an include filter
+   */
+  public void putCandidateTypes(String key, Set<String> types) {
+    entries.put(key, Set.copyOf(types));
+    save();
+  }
+
+  /**
+   * Return the cache file.
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Return the fingerprint the cache entries are bound to.
+   */
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  private void loadEntries() {
+    if (Files.isRegularFile(file)) {
+      Properties properties = new Properties();
+      try (InputStream inputStream = Files.newInputStream(file)) {
+        properties.load(inputStream);
+      }
+      catch (IOException ex) {
+        log.debug("Unable to read candidate components cache '{}'", file, ex);
+        return;
+      }
+      if (!fingerprint.equals(properties.getProperty(FINGERPRINT_KEY))) {
+        log.debug("Classpath changed, discarding candidate components cache '{}'", file);
+        return;
+      }
+      for (String key : properties.stringPropertyNames()) {
+        if (!FINGERPRINT_KEY.equals(key)) {
+          entries.put(key, StringUtils.commaDelimitedListToSet(properties.getProperty(key)));
+        }
+      }
+      if (log.isDebugEnabled()) {
+        log.debug("Loaded {} candidate components cache entries from '{}'", entries.size(), file);
+      }
+    }
+  }
+
+  private synchronized void save() {
+    Properties properties = new Properties();
+    properties.setProperty(FINGERPRINT_KEY, fingerprint);
+    for (Map.Entry<String, Set<String>> entry : entries.entrySet()) {
+      properties.setProperty(entry.getKey(),
+              StringUtils.collectionToCommaDelimitedString(new TreeSet<>(entry.getValue())));
+    }
+
+    try {
+      Files.createDirectories(file.getParent());
+      Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try {
+        try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+          properties.store(outputStream, null);
+        }
+        try {
+          Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException ex) {
+          Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+      }
+      finally {
+        Files.deleteIfExists(tempFile);
+      }
+    }
+    catch (IOException ex) {
+      log.debug("Unable to write candidate components cache '{}'", file, ex);
+    }
+  }
+
+  /**
+   * Load the {@link CandidateComponentsCache} for the classpath of the given
+   * class loader. If caching is disabled or the cache directory is unavailable,
+   * return {@code null}.
+   *
+   * @param classLoader the ClassLoader to use (can be {@code null} to use the default)
+   * @return the cache to use or {@code null} if caching is not enabled
+   */
+  @Nullable
+  public static CandidateComponentsCache loadCache(@Nullable ClassLoader classLoader) {
+    if (!cacheEnabled) {
+      return null;
+    }
+    ClassLoader classLoaderToUse = classLoader;
+    if (classLoaderToUse == null) {
+      classLoaderToUse = CandidateComponentsCache.class.getClassLoader();
+    }
+    return cache.computeIfAbsent(classLoaderToUse, CandidateComponentsCache::doLoadCache);
+  }
+
+  @Nullable
+  private static CandidateComponentsCache doLoadCache(ClassLoader classLoader) {
+    List<Path> classpath = getClasspath(classLoader);
+    if (classpath.isEmpty()) {
+      return null;
+    }
+    try {
+      Path directory = ApplicationTemp.instance.getDir(CACHE_DIRECTORY);
+      // one file per classpath layout, the content fingerprint is validated on load
+      String name = HexFormat.of().formatHex(digest(classpath.toString().getBytes(StandardCharsets.UTF_8)), 0, 16);
+      return new CandidateComponentsCache(directory.resolve(name + ".properties"), fingerprint(classpath));
+    }
+    catch (IOException | UncheckedIOException ex) {
+      log.debug("Candidate components cache unavailable", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Compute the fingerprint of the given classpath.
+   *
+   * @param classpath the classpath entries
+   * @return the hex encoded fingerprint
+   * @throws IOException if a classpath entry cannot be read
+   */
+  public static String fingerprint(List<Path> classpath) throws IOException {
+    MessageDigest digest = newDigest();
+    for (Path entry : classpath) {
+      update(digest, entry.toString());
+      if (Files.isDirectory(entry)) {
+        ArrayList<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.walk(entry)) {
+          stream.filter(Files::isRegularFile).forEach(files::add);
+        }
+        files.sort(null);
+        for (Path file : files) {
+          BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+          update(digest, entry.relativize(file).toString());
+          update(digest, attributes.size());
+          update(digest, attributes.lastModifiedTime().toMillis());
+        }
+      }
+      else if (Files.isRegularFile(entry)) {
+        try (ZipFile zipFile = new ZipFile(entry.toFile())) {
+          Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+          while (zipEntries.hasMoreElements()) {
+            ZipEntry zipEntry = zipEntries.nextElement();
+            update(digest, zipEntry.getName());
+            update(digest, zipEntry.getCrc());
+            update(digest, zipEntry.getSize());
+          }
+        }
+        catch (IOException ex) {
+          // not a zip archive
+          update(digest, Files.size(entry));
+          update(digest, Files.getLastModifiedTime(entry).toMillis());
+        }
+      }
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  static List<Path> getClasspath(ClassLoader classLoader) {
+    LinkedHashSet<Path> entries = new LinkedHashSet<>();
+    addPaths(entries, System.getProperty("java.class.path"));
+    addPaths(entries, System.getProperty("jdk.module.path"));
+    for (ClassLoader current = classLoader; current != null; current = current.getParent()) {
+      if (current instanceof URLClassLoader urlClassLoader) {
+        for (URL url : urlClassLoader.getURLs()) {
+          if ("file".equals(url.getProtocol())) {
+            try {
+              addEntry(entries, Paths.get(url.toURI()).normalize());
+            }
+            catch (Exception ex) {
+              // skip malformed entry
+            }
+          }
+        }
+      }
+    }
+    return new ArrayList<>(entries);
+  }
+
+  private static void addPaths(Set<Path> entries, @Nullable String path) {
+    if (StringUtils.hasText(path)) {
+      for (String element : StringUtils.delimitedListToStringArray(path, File.pathSeparator)) {
+        if (StringUtils.hasText(element)) {
+          addEntry(entries, Paths.get(element).toAbsolutePath().normalize());
+        }
+      }
+    }
+  }
+
+  /**
+   * Add the entry and the entries of its manifest {@code Class-Path} if it is a JAR
+   */
+  private static void addEntry(Set<Path> entries, Path entry) {
+    if (entries.add(entry) && Files.isRegularFile(entry)) {
+      for (Path element : getManifestClassPath(entry)) {
+        addEntry(entries, element);
+      }
+    }
+  }
+
+  private static List<Path> getManifestClassPath(Path jar) {
+    String classPath;
+    try (JarFile jarFile = new JarFile(jar.toFile())) {
+      Manifest manifest = jarFile.getManifest();
+      if (manifest == null) {
+        return List.of();
+      }
+      classPath = manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH);
+    }
+    catch (IOException ex) {
+      // not a JAR file
+      return List.of();
+    }
+    if (!StringUtils.hasText(classPath)) {
+      return List.of();
+    }
+    // relative URLs, resolved against the JAR location
+    ArrayList<Path> paths = new ArrayList<>();
+    URI base = jar.toUri();
+    for (String element : StringUtils.tokenizeToStringArray(classPath, " ")) {
+      try {
+        URI uri = base.resolve(element);
+        if ("file".equals(uri.getScheme())) {
+          paths.add(Paths.get(uri).normalize());
+        }
+      }
+      catch (IllegalArgumentException ex) {
+        // skip malformed entry
+      }
+    }
+    return paths;
+  }
+
+  private static byte[] digest(byte[] bytes) {
+    return newDigest().digest(bytes);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    }
+    catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 not supported", ex);
+    }
+  }
+
+  private static void update(MessageDigest digest, String value) {
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte) 0);
+  }
+
+  private static void update(MessageDigest digest, long value) {
+    for (int i = 56; i >= 0; i -= 8) {
+      digest.update((byte) (value >>> i));
+    }
+  }
+
+}
@@ -105,6 +105,8 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
   private static final boolean exitOnRefresh =
           ON_REFRESH_VALUE.equalsIgnoreCase(TodayStrategies.getProperty(EXIT_PROPERTY_NAME));
 
+  private volatile boolean exitOnRefreshEnabled = exitOnRefresh;
+
   private volatile long timeoutPerShutdownPhase = 10000;
 
   private volatile boolean running;
@@ -138,6 +140,27 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
     this.timeoutPerShutdownPhase = timeoutPerShutdownPhase;
   }
 
+  /**
+   * Terminate the JVM once the context is refreshed, before any lifecycle
+   * bean is started, for this processor only.
+   * <p>Defaults to the {@value #EXIT_PROPERTY_NAME} property being set to
+   * {@value #ON_REFRESH_VALUE}.
+   *
+   * @since 5.0
+   */
+  public void setExitOnRefresh(boolean exitOnRefresh) {
+    this.exitOnRefreshEnabled = exitOnRefresh;
+  }
+
+  /**
+   * Whether the JVM is terminated once the context is refreshed.
+   *
+   * @since 5.0
+   */
+  public boolean isExitOnRefresh() {
+    return this.exitOnRefreshEnabled;
+  }
+
   @Override
   public void setBeanFactory(BeanFactory beanFactory) {
     if (!(beanFactory instanceof ConfigurableBeanFactory)) {
@@ -191,7 +214,7 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
     if (checkpointOnRefresh) {
       new CracDelegate().checkpointRestore();
     }
-    if (exitOnRefresh) {
+    if (this.exitOnRefreshEnabled) {
       Runtime.getRuntime().halt(0);
     }
 
@@ -72,8 +72,11 @@ import cn.taketoday.scheduling.config.ScheduledTask;
 import cn.taketoday.scheduling.config.ScheduledTaskHolder;
 import cn.taketoday.scheduling.config.ScheduledTaskRegistrar;
 import cn.taketoday.scheduling.config.TaskSchedulerRouter;
+import cn.taketoday.scheduling.lock.LockProvider;
+import cn.taketoday.scheduling.lock.LockingRunnable;
 import cn.taketoday.scheduling.support.CronTrigger;
 import cn.taketoday.scheduling.support.ScheduledMethodRunnable;
+import cn.taketoday.util.ClassUtils;
 import cn.taketoday.util.StringUtils;
 
 /**
@@ -148,6 +151,11 @@ public class ScheduledAnnotationBeanPostProcessor implements ScheduledTaskHolder
 
   private final IdentityHashMap<Object, List<Runnable>> reactiveSubscriptions = new IdentityHashMap<>(16);
 
+  @Nullable
+  private volatile LockProvider lockProvider;
+
+  private Duration defaultLockAtMostFor = Duration.ofMinutes(30);
+
   /**
    * Create a default {@code ScheduledAnnotationBeanPostProcessor}.
    */
@@ -188,6 +196,29 @@ public class ScheduledAnnotationBeanPostProcessor implements ScheduledTaskHolder
     this.scheduler = scheduler;
   }
 
+  /**
+   * Set the {@link LockProvider} used for {@link SchedulerLock @SchedulerLock}
+   * methods.
+   * <p>If not specified, a unique {@link LockProvider} bean is looked up on
+   * first execution of such a method.
+   *
+   * @since 5.0
+   */
+  public void setLockProvider(@Nullable LockProvider lockProvider) {
+    this.lockProvider = lockProvider;
+  }
+
+  /**
+   * Set the {@code lockAtMostFor} duration for {@link SchedulerLock @SchedulerLock}
+   * methods that don't specify one. Default is 30 minutes.
+   *
+   * @since 5.0
+   */
+  public void setDefaultLockAtMostFor(Duration defaultLockAtMostFor) {
+    Assert.notNull(defaultLockAtMostFor, "defaultLockAtMostFor is required");
+    this.defaultLockAtMostFor = defaultLockAtMostFor;
+  }
+
   @Override
   public void setEmbeddedValueResolver(StringValueResolver resolver) {
     this.embeddedValueResolver = resolver;
@@ -366,6 +397,10 @@ public class ScheduledAnnotationBeanPostProcessor implements ScheduledTaskHolder
    * @see ScheduledAnnotationReactiveSupport
    */
   private void processScheduledAsync(Scheduled scheduled, Method method, Object bean) {
+    if (AnnotatedElementUtils.hasAnnotation(method, SchedulerLock.class)) {
+      throw new IllegalStateException(("@SchedulerLock is not supported on reactive @Scheduled method '%s': " +
+              "the lock would be released once subscribed, not when the publisher completes").formatted(method.getName()));
+    }
     Runnable task;
     try {
       task = ScheduledAnnotationReactiveSupport.createSubscriptionRunnable(method, bean, scheduled,
@@ -391,6 +426,8 @@ public class ScheduledAnnotationBeanPostProcessor implements ScheduledTaskHolder
    */
   private void processScheduledTask(Scheduled scheduled, Runnable runnable, Method method, Object bean) {
     try {
+      runnable = applySchedulerLock(runnable, method);
+
       boolean processedSchedule = false;
       String errorMessage = "Exactly one of the 'cron', 'fixedDelay' or 'fixedRate' attributes is required";
 
@@ -514,6 +551,55 @@ public class ScheduledAnnotationBeanPostProcessor implements ScheduledTaskHolder
     }
   }
 
+  /**
+   * Wrap the given task in a {@link LockingRunnable} if the method is annotated
+   * with {@link SchedulerLock @SchedulerLock}.
+   */
+  private Runnable applySchedulerLock(Runnable runnable, Method method) {
+    SchedulerLock schedulerLock = AnnotatedElementUtils.findMergedAnnotation(method, SchedulerLock.class);
+    if (schedulerLock == null) {
+      return runnable;
+    }
+    String name = resolveEmbeddedValue(schedulerLock.name());
+    if (StringUtils.isBlank(name)) {
+      name = ClassUtils.getQualifiedMethodName(method);
+    }
+    Duration lockAtMostFor = toLockDuration(schedulerLock.lockAtMostFor(), "lockAtMostFor", this.defaultLockAtMostFor);
+    Duration lockAtLeastFor = toLockDuration(schedulerLock.lockAtLeastFor(), "lockAtLeastFor", Duration.ZERO);
+    return new LockingRunnable(runnable, this::obtainLockProvider, name, lockAtMostFor, lockAtLeastFor);
+  }
+
+  private Duration toLockDuration(String value, String attribute, Duration defaultValue) {
+    value = resolveEmbeddedValue(value);
+    if (StringUtils.isBlank(value)) {
+      return defaultValue;
+    }
+    try {
+      return toDuration(value.trim(), TimeUnit.MILLISECONDS);
+    }
+    catch (RuntimeException ex) {
+      throw new IllegalArgumentException(
+              "Invalid @SchedulerLock %s value \"%s\" - cannot parse into a duration".formatted(attribute, value), ex);
+    }
+  }
+
+  @Nullable
+  private String resolveEmbeddedValue(String value) {
+    return (this.embeddedValueResolver != null && StringUtils.isNotEmpty(value))
+            ? this.embeddedValueResolver.resolveStringValue(value) : value;
+  }
+
+  private LockProvider obtainLockProvider() {
+    LockProvider lockProvider = this.lockProvider;
+    if (lockProvider == null) {
+      Assert.state(this.beanFactory != null,
+              "No LockProvider set and no BeanFactory to look one up for @SchedulerLock methods");
+      lockProvider = this.beanFactory.getBean(LockProvider.class);
+      this.lockProvider = lockProvider;
+    }
+    return lockProvider;
+  }
+
   /**
    * Create a {@link Runnable} for the given bean instance,
    * calling the specified scheduled method.
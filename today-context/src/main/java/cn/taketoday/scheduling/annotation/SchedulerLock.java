@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Companion annotation for {@link Scheduled @Scheduled} methods that should run
+ * on a single node of a cluster at a time. Each execution first acquires the named
+ * lock from the {@link cn.taketoday.scheduling.lock.LockProvider} bean and is
+ * skipped if the lock is held elsewhere.
+ *
+ * <pre>{@code
+ * @Scheduled(cron = "0 0 2 * * *")
+ * @SchedulerLock(name = "nightlyReport", lockAtMostFor = "PT1H", lockAtLeastFor = "PT5M")
+ * public void nightlyReport() {
+ *   // ...
+ * }
+ * }</pre>
+ *
+ * <p>Durations are given as {@link java.time.Duration#parse ISO-8601} values or
+ * as milliseconds, and support <code>${...}</code> placeholders.
+ *
+ * <p>Not supported on reactive {@code @Scheduled} methods: their task returns
+ * once subscribed, so the lock would not cover the actual execution.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see ScheduledAnnotationBeanPostProcessor#setLockProvider
+ * @see cn.taketoday.scheduling.lock.LockingRunnable
+ * @since 5.0
+ */
+@Target({ ElementType.METHOD, ElementType.ANNOTATION_TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SchedulerLock {
+
+  /**
+   * The lock name, shared by all nodes. Defaults to the fully qualified name
+   * of the annotated method.
+   */
+  String name() default "";
+
+  /**
+   * How long the lock is held at most, should a node die while running the task.
+   * Should be clearly longer than the normal execution time. Defaults to the
+   * {@linkplain ScheduledAnnotationBeanPostProcessor#setDefaultLockAtMostFor
+   * post processor default}.
+   */
+  String lockAtMostFor() default "";
+
+  /**
+   * How long the lock is held at least, even if the task completes earlier.
+   * Prevents nodes with skewed clocks from running a short task twice.
+   * Defaults to zero.
+   */
+  String lockAtLeastFor() default "";
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.lock;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * {@link LockProvider} that keeps the locks in memory. Only useful for tests and
+ * single node deployments, as the locks are not shared between JVMs.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class InMemoryLockProvider implements LockProvider {
+
+  private final ConcurrentHashMap<String, LockRecord> locks = new ConcurrentHashMap<>();
+
+  private Clock clock = Clock.systemUTC();
+
+  /**
+   * Set the clock used to determine lock expiration.
+   */
+  public void setClock(Clock clock) {
+    Assert.notNull(clock, "Clock is required");
+    this.clock = clock;
+  }
+
+  @Nullable
+  @Override
+  public SimpleLock lock(LockConfiguration configuration) {
+    Instant now = this.clock.instant();
+    LockRecord lockRecord = new LockRecord(configuration.getLockAtMostUntil());
+    LockRecord current = this.locks.compute(configuration.getName(),
+            (name, existing) -> (existing == null || !existing.lockedUntil.isAfter(now)) ? lockRecord : existing);
+    if (current != lockRecord) {
+      return null;
+    }
+    return () -> unlock(configuration, lockRecord);
+  }
+
+  private void unlock(LockConfiguration configuration, LockRecord lockRecord) {
+    Instant unlockTime = configuration.getUnlockTime(this.clock.instant());
+    this.locks.computeIfPresent(configuration.getName(), (name, existing) -> {
+      if (existing != lockRecord) {
+        // expired and acquired by someone else meanwhile
+        return existing;
+      }
+      return unlockTime.isAfter(this.clock.instant()) ? new LockRecord(unlockTime) : null;
+    });
+  }
+
+  /**
+   * Return whether the lock with the given name is currently held.
+   *
+   * @param name the lock name
+   */
+  public boolean isLocked(String name) {
+    LockRecord lockRecord = this.locks.get(name);
+    return lockRecord != null && lockRecord.lockedUntil.isAfter(this.clock.instant());
+  }
+
+  private static final class LockRecord {
+
+    final Instant lockedUntil;
+
+    LockRecord(Instant lockedUntil) {
+      this.lockedUntil = lockedUntil;
+    }
+
+  }
+
+}
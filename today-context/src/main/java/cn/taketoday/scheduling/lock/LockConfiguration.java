@@ -0,0 +1,118 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.lock;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import cn.taketoday.lang.Assert;
+
+/**
+ * Describes a single attempt to acquire a scheduled task lock.
+ * <p>A lock is held until the task completes, but never longer than
+ * {@link #getLockAtMostFor() lockAtMostFor} so that a crashed node can't keep
+ * the lock forever. It is also held for at least
+ * {@link #getLockAtLeastFor() lockAtLeastFor}, which prevents other nodes with
+ * slightly skewed clocks from running a short task again in the same period.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see LockProvider
+ * @since 5.0
+ */
+public final class LockConfiguration {
+
+  private final Instant createdAt;
+
+  private final String name;
+
+  private final Duration lockAtMostFor;
+
+  private final Duration lockAtLeastFor;
+
+  /**
+   * Create a new {@code LockConfiguration}.
+   *
+   * @param createdAt the time the lock is requested
+   * @param name the name of the lock, unique per task
+   * @param lockAtMostFor how long the lock is held at most
+   * @param lockAtLeastFor how long the lock is held at least
+   */
+  public LockConfiguration(Instant createdAt, String name, Duration lockAtMostFor, Duration lockAtLeastFor) {
+    Assert.notNull(createdAt, "createdAt is required");
+    Assert.hasText(name, "Lock name must not be empty");
+    Assert.notNull(lockAtMostFor, "lockAtMostFor is required");
+    Assert.notNull(lockAtLeastFor, "lockAtLeastFor is required");
+    Assert.isTrue(!lockAtLeastFor.isNegative(), "lockAtLeastFor must not be negative");
+    Assert.isTrue(lockAtLeastFor.compareTo(lockAtMostFor) <= 0,
+            () -> "lockAtLeastFor (%s) must not be longer than lockAtMostFor (%s) for lock '%s'"
+                    .formatted(lockAtLeastFor, lockAtMostFor, name));
+    this.createdAt = createdAt;
+    this.name = name;
+    this.lockAtMostFor = lockAtMostFor;
+    this.lockAtLeastFor = lockAtLeastFor;
+  }
+
+  public Instant getCreatedAt() {
+    return this.createdAt;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public Duration getLockAtMostFor() {
+    return this.lockAtMostFor;
+  }
+
+  public Duration getLockAtLeastFor() {
+    return this.lockAtLeastFor;
+  }
+
+  /**
+   * Return the time the lock expires even if it was never released.
+   */
+  public Instant getLockAtMostUntil() {
+    return this.createdAt.plus(this.lockAtMostFor);
+  }
+
+  /**
+   * Return the time before which the lock must not be released.
+   */
+  public Instant getLockAtLeastUntil() {
+    return this.createdAt.plus(this.lockAtLeastFor);
+  }
+
+  /**
+   * Return the time the lock should be held until when it is released at the
+   * given time: the given time itself, or {@link #getLockAtLeastUntil()} if that
+   * is later.
+   *
+   * @param now the release time
+   */
+  public Instant getUnlockTime(Instant now) {
+    Instant lockAtLeastUntil = getLockAtLeastUntil();
+    return lockAtLeastUntil.isAfter(now) ? lockAtLeastUntil : now;
+  }
+
+  @Override
+  public String toString() {
+    return "LockConfiguration{name='%s', lockAtMostFor=%s, lockAtLeastFor=%s}"
+            .formatted(this.name, this.lockAtMostFor, this.lockAtLeastFor);
+  }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.lock;
+
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Strategy to acquire a lock that is shared by all nodes running the same
+ * scheduled tasks, so that a task runs on one node only.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see LockingRunnable
+ * @see InMemoryLockProvider
+ * @see cn.taketoday.scheduling.annotation.SchedulerLock
+ * @since 5.0
+ */
+@FunctionalInterface
+public interface LockProvider {
+
+  /**
+   * Try to acquire the lock described by the given configuration, without waiting.
+   *
+   * @param configuration the lock configuration
+   * @return the acquired lock, or {@code null} if the lock is held elsewhere
+   */
+  @Nullable
+  SimpleLock lock(LockConfiguration configuration);
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.lock;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Supplier;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.scheduling.SchedulingAwareRunnable;
+
+/**
+ * {@link Runnable} decorator that only runs the delegate if the named lock can
+ * be acquired from a {@link LockProvider}, skipping the execution otherwise.
+ * <p>The lock is released once the delegate returns. For tasks that merely start
+ * asynchronous work, {@code lockAtLeastFor} should cover the expected duration.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see cn.taketoday.scheduling.annotation.SchedulerLock
+ * @since 5.0
+ */
+public class LockingRunnable implements SchedulingAwareRunnable {
+
+  private static final Logger log = LoggerFactory.getLogger(LockingRunnable.class);
+
+  private final Runnable delegate;
+
+  private final Supplier<LockProvider> lockProvider;
+
+  private final String name;
+
+  private final Duration lockAtMostFor;
+
+  private final Duration lockAtLeastFor;
+
+  /**
+   * Create a new {@code LockingRunnable}.
+   *
+   * @param delegate the task to run
+   * @param lockProvider supplies the lock provider, called on every execution
+   * @param name the lock name
+   * @param lockAtMostFor how long the lock is held at most
+   * @param lockAtLeastFor how long the lock is held at least
+   */
+  public LockingRunnable(Runnable delegate, Supplier<LockProvider> lockProvider,
+          String name, Duration lockAtMostFor, Duration lockAtLeastFor) {
+    Assert.notNull(delegate, "Delegate Runnable is required");
+    Assert.notNull(lockProvider, "LockProvider supplier is required");
+    // validates the durations early
+    new LockConfiguration(Instant.EPOCH, name, lockAtMostFor, lockAtLeastFor);
+    this.delegate = delegate;
+    this.lockProvider = lockProvider;
+    this.name = name;
+    this.lockAtMostFor = lockAtMostFor;
+    this.lockAtLeastFor = lockAtLeastFor;
+  }
+
+  @Override
+  public void run() {
+    LockConfiguration configuration = new LockConfiguration(
+            Instant.now(), this.name, this.lockAtMostFor, this.lockAtLeastFor);
+    SimpleLock lock = this.lockProvider.get().lock(configuration);
+    if (lock == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("Not executing '{}', lock is held by another node", this.name);
+      }
+      return;
+    }
+    try {
+      this.delegate.run();
+    }
+    finally {
+      try {
+        lock.unlock();
+      }
+      catch (RuntimeException ex) {
+        log.warn("Failed to release lock '{}', it expires at {}", this.name,
+                configuration.getLockAtMostUntil(), ex);
+      }
+    }
+  }
+
+  public Runnable getDelegate() {
+    return this.delegate;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public Duration getLockAtMostFor() {
+    return this.lockAtMostFor;
+  }
+
+  public Duration getLockAtLeastFor() {
+    return this.lockAtLeastFor;
+  }
+
+  @Override
+  public boolean isLongLived() {
+    return this.delegate instanceof SchedulingAwareRunnable sar && sar.isLongLived();
+  }
+
+  @Nullable
+  @Override
+  public String getQualifier() {
+    return (this.delegate instanceof SchedulingAwareRunnable sar) ? sar.getQualifier() : null;
+  }
+
+  @Override
+  public String toString() {
+    return this.delegate.toString();
+  }
+
+}
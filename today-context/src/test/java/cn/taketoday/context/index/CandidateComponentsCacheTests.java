@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.context.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import cn.taketoday.beans.factory.config.BeanDefinition;
+import cn.taketoday.context.annotation.ClassPathScanningCandidateComponentProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CandidateComponentsCache}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class CandidateComponentsCacheTests {
+
+  private static final String BASE_PACKAGE = "example.scannable";
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void disabledByDefault() {
+    assertThat(CandidateComponentsCache.loadCache(null)).isNull();
+  }
+
+  @Test
+  void entriesArePersisted() {
+    Path file = tempDir.resolve("cache.properties");
+    CandidateComponentsCache cache = new CandidateComponentsCache(file, "fp");
+    assertThat(cache.getCandidateTypes("key")).isNull();
+    cache.putCandidateTypes("key", Set.of("a.B", "a.C"));
+
+    assertThat(new CandidateComponentsCache(file, "fp").getCandidateTypes("key"))
+            .containsExactlyInAnyOrder("a.B", "a.C");
+    assertThat(new CandidateComponentsCache(file, "other").getCandidateTypes("key")).isNull();
+  }
+
+  @Test
+  void fingerprintTracksDirectoryContent() throws Exception {
+    Path dir = Files.createDirectories(tempDir.resolve("classes"));
+    Path file = Files.writeString(dir.resolve("A.class"), "a");
+    String fingerprint = CandidateComponentsCache.fingerprint(List.of(dir));
+    assertThat(CandidateComponentsCache.fingerprint(List.of(dir))).isEqualTo(fingerprint);
+
+    Files.writeString(file, "ab");
+    assertThat(CandidateComponentsCache.fingerprint(List.of(dir))).isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  void fingerprintTracksJarContent() throws Exception {
+    Path jar = tempDir.resolve("lib.jar");
+    writeJar(jar, "a");
+    String fingerprint = CandidateComponentsCache.fingerprint(List.of(jar));
+
+    writeJar(jar, "b");
+    assertThat(CandidateComponentsCache.fingerprint(List.of(jar))).isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  void classpathFollowsManifestClassPath() throws Exception {
+    Path lib = Files.createDirectories(tempDir.resolve("lib"));
+    writeJar(lib.resolve("dependency.jar"), "a");
+    Path application = tempDir.resolve("application.jar");
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(Attributes.Name.CLASS_PATH, "lib/dependency.jar");
+    new JarOutputStream(Files.newOutputStream(application), manifest).close();
+
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] { application.toUri().toURL() }, null)) {
+      List<Path> classpath = CandidateComponentsCache.getClasspath(classLoader).stream()
+              .filter(entry -> entry.startsWith(tempDir))
+              .toList();
+      assertThat(classpath).containsExactly(application, lib.resolve("dependency.jar"));
+
+      String fingerprint = CandidateComponentsCache.fingerprint(classpath);
+      writeJar(lib.resolve("dependency.jar"), "b");
+      assertThat(CandidateComponentsCache.fingerprint(classpath)).isNotEqualTo(fingerprint);
+    }
+  }
+
+  @Test
+  void scanResultsAreReplayed() throws Exception {
+    Path file = tempDir.resolve("cache.properties");
+    Set<String> scanned = scan(new CandidateComponentsCache(file, "fp"));
+    assertThat(scanned).isNotEmpty().isEqualTo(scan(null));
+
+    Properties properties = load(file);
+    assertThat(properties.stringPropertyNames()).hasSize(2);
+    assertThat(scan(new CandidateComponentsCache(file, "fp"))).isEqualTo(scanned);
+  }
+
+  @Test
+  void staleEntryFallsBackToScan() throws Exception {
+    Path file = tempDir.resolve("cache.properties");
+    Set<String> scanned = scan(new CandidateComponentsCache(file, "fp"));
+
+    Properties properties = load(file);
+    for (String key : properties.stringPropertyNames()) {
+      if (!key.startsWith("#")) {
+        properties.setProperty(key, properties.getProperty(key) + ",example.scannable.Missing");
+      }
+    }
+    try (OutputStream outputStream = Files.newOutputStream(file)) {
+      properties.store(outputStream, null);
+    }
+
+    assertThat(scan(new CandidateComponentsCache(file, "fp"))).isEqualTo(scanned);
+    assertThat(load(file).toString()).doesNotContain("example.scannable.Missing");
+  }
+
+  private static Set<String> scan(CandidateComponentsCache cache) {
+    ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+    provider.setComponentsCache(cache);
+    return provider.findCandidateComponents(BASE_PACKAGE).stream()
+            .map(BeanDefinition::getBeanClassName)
+            .collect(Collectors.toSet());
+  }
+
+  private static Properties load(Path file) throws Exception {
+    Properties properties = new Properties();
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      properties.load(inputStream);
+    }
+    return properties;
+  }
+
+  private static void writeJar(Path jar, String content) throws Exception {
+    try (ZipOutputStream outputStream = new ZipOutputStream(Files.newOutputStream(jar))) {
+      outputStream.putNextEntry(new ZipEntry("A.class"));
+      outputStream.write(content.getBytes());
+      outputStream.closeEntry();
+    }
+  }
+
+}
@@ -41,6 +41,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import cn.taketoday.aop.framework.ProxyFactory;
 import cn.taketoday.aop.scope.ScopedProxyUtils;
@@ -61,12 +62,15 @@ import cn.taketoday.scheduling.config.IntervalTask;
 import cn.taketoday.scheduling.config.OneTimeTask;
 import cn.taketoday.scheduling.config.ScheduledTaskHolder;
 import cn.taketoday.scheduling.config.ScheduledTaskRegistrar;
+import cn.taketoday.scheduling.lock.InMemoryLockProvider;
+import cn.taketoday.scheduling.lock.LockingRunnable;
 import cn.taketoday.scheduling.support.CronTrigger;
 import cn.taketoday.scheduling.support.ScheduledMethodRunnable;
 import cn.taketoday.scheduling.support.SimpleTriggerContext;
 import cn.taketoday.stereotype.Component;
 import cn.taketoday.validation.annotation.Validated;
 import cn.taketoday.validation.beanvalidation.MethodValidationPostProcessor;
+import reactor.core.publisher.Mono;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -196,6 +200,58 @@ class ScheduledAnnotationBeanPostProcessorTests {
     });
   }
 
+  @Test
+  void schedulerLockWrapsTask() {
+    InMemoryLockProvider lockProvider = new InMemoryLockProvider();
+    context.registerBeanDefinition("postProcessor", new RootBeanDefinition(ScheduledAnnotationBeanPostProcessor.class));
+    context.registerBeanDefinition("target", new RootBeanDefinition(SchedulerLockTestBean.class));
+    context.getBeanFactory().registerSingleton("lockProvider", lockProvider);
+    context.refresh();
+
+    ScheduledTaskHolder postProcessor = context.getBean("postProcessor", ScheduledTaskHolder.class);
+    ScheduledTaskRegistrar registrar = (ScheduledTaskRegistrar)
+            new DirectFieldAccessor(postProcessor).getPropertyValue("registrar");
+    @SuppressWarnings("unchecked")
+    List<IntervalTask> fixedDelayTasks = (List<IntervalTask>)
+            new DirectFieldAccessor(registrar).getPropertyValue("fixedDelayTasks");
+    assertThat(fixedDelayTasks).hasSize(2);
+
+    LockingRunnable named = (LockingRunnable) fixedDelayTasks.stream()
+            .filter(task -> task.getRunnable().toString().endsWith(".named")).findFirst().orElseThrow().getRunnable();
+    assertThat(named.getName()).isEqualTo("report");
+    assertThat(named.getLockAtMostFor()).isEqualTo(Duration.ofMinutes(10));
+    assertThat(named.getLockAtLeastFor()).isEqualTo(Duration.ofSeconds(5));
+    assertThat(named.getDelegate()).isInstanceOf(ScheduledMethodRunnable.class);
+
+    named.run();
+    SchedulerLockTestBean target = context.getBean("target", SchedulerLockTestBean.class);
+    assertThat(target.invocations).hasValue(1);
+    assertThat(lockProvider.isLocked("report")).isTrue();
+    named.run();
+    assertThat(target.invocations).hasValue(1);
+
+    LockingRunnable unnamed = (LockingRunnable) fixedDelayTasks.stream()
+            .filter(task -> task.getRunnable().toString().endsWith(".unnamed")).findFirst().orElseThrow().getRunnable();
+    assertThat(unnamed.getName()).isEqualTo(SchedulerLockTestBean.class.getName() + ".unnamed");
+    assertThat(unnamed.getLockAtMostFor()).isEqualTo(Duration.ofMinutes(30));
+    assertThat(unnamed.getLockAtLeastFor()).isZero();
+  }
+
+  @Test
+  void schedulerLockWithInvalidDurations() {
+    context.registerBeanDefinition("postProcessor", new RootBeanDefinition(ScheduledAnnotationBeanPostProcessor.class));
+    context.registerBeanDefinition("target", new RootBeanDefinition(InvalidSchedulerLockTestBean.class));
+    assertThatExceptionOfType(BeanCreationException.class).isThrownBy(context::refresh);
+  }
+
+  @Test
+  void schedulerLockOnReactiveMethodRejected() {
+    context.registerBeanDefinition("postProcessor", new RootBeanDefinition(ScheduledAnnotationBeanPostProcessor.class));
+    context.registerBeanDefinition("target", new RootBeanDefinition(ReactiveSchedulerLockTestBean.class));
+    assertThatExceptionOfType(BeanCreationException.class).isThrownBy(context::refresh)
+            .withStackTraceContaining("@SchedulerLock is not supported on reactive @Scheduled method 'reactive'");
+  }
+
   @Test
   void severalFixedRatesWithRepeatedScheduledAnnotation() {
     BeanDefinition processorDefinition = new RootBeanDefinition(ScheduledAnnotationBeanPostProcessor.class);
@@ -751,6 +807,39 @@ class ScheduledAnnotationBeanPostProcessorTests {
     assertThatExceptionOfType(BeanCreationException.class).isThrownBy(context::refresh);
   }
 
+  static class SchedulerLockTestBean {
+
+    final AtomicInteger invocations = new AtomicInteger();
+
+    @Scheduled(fixedDelay = 5000)
+    @SchedulerLock(name = "report", lockAtMostFor = "PT10M", lockAtLeastFor = "5000")
+    void named() {
+      invocations.incrementAndGet();
+    }
+
+    @Scheduled(fixedDelay = 5000)
+    @SchedulerLock
+    void unnamed() {
+    }
+  }
+
+  static class ReactiveSchedulerLockTestBean {
+
+    @Scheduled(fixedDelay = 5000)
+    @SchedulerLock
+    Mono<Void> reactive() {
+      return Mono.empty();
+    }
+  }
+
+  static class InvalidSchedulerLockTestBean {
+
+    @Scheduled(fixedDelay = 5000)
+    @SchedulerLock(lockAtMostFor = "PT1S", lockAtLeastFor = "PT1M")
+    void invalid() {
+    }
+  }
+
   static class FixedDelay {
 
     @Scheduled(fixedDelay = 5_000)
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link InMemoryLockProvider}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class InMemoryLockProviderTests {
+
+  private final MutableClock clock = new MutableClock();
+
+  private final InMemoryLockProvider lockProvider = new InMemoryLockProvider();
+
+  InMemoryLockProviderTests() {
+    this.lockProvider.setClock(this.clock);
+  }
+
+  @Test
+  void lockIsExclusiveUntilUnlocked() {
+    SimpleLock lock = lockProvider.lock(configuration(Duration.ofMinutes(1), Duration.ZERO));
+    assertThat(lock).isNotNull();
+    assertThat(lockProvider.lock(configuration(Duration.ofMinutes(1), Duration.ZERO))).isNull();
+    assertThat(lockProvider.isLocked("task")).isTrue();
+
+    lock.unlock();
+    assertThat(lockProvider.isLocked("task")).isFalse();
+    assertThat(lockProvider.lock(configuration(Duration.ofMinutes(1), Duration.ZERO))).isNotNull();
+  }
+
+  @Test
+  void lockExpiresAfterLockAtMostFor() {
+    assertThat(lockProvider.lock(configuration(Duration.ofMinutes(1), Duration.ZERO))).isNotNull();
+    clock.advance(Duration.ofMinutes(1));
+    assertThat(lockProvider.lock(configuration(Duration.ofMinutes(1), Duration.ZERO))).isNotNull();
+  }
+
+  @Test
+  void unlockKeepsLockForLockAtLeastFor() {
+    SimpleLock lock = lockProvider.lock(configuration(Duration.ofMinutes(10), Duration.ofMinutes(1)));
+    assertThat(lock).isNotNull();
+    lock.unlock();
+    assertThat(lockProvider.isLocked("task")).isTrue();
+    assertThat(lockProvider.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNull();
+
+    clock.advance(Duration.ofMinutes(1));
+    assertThat(lockProvider.isLocked("task")).isFalse();
+    assertThat(lockProvider.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNotNull();
+  }
+
+  @Test
+  void unlockAfterExpiryDoesNotReleaseOtherOwner() {
+    SimpleLock expired = lockProvider.lock(configuration(Duration.ofMinutes(1), Duration.ZERO));
+    clock.advance(Duration.ofMinutes(2));
+    SimpleLock current = lockProvider.lock(configuration(Duration.ofMinutes(1), Duration.ZERO));
+    assertThat(current).isNotNull();
+    expired.unlock();
+    assertThat(lockProvider.isLocked("task")).isTrue();
+  }
+
+  @Test
+  void lockAtLeastForMustNotExceedLockAtMostFor() {
+    assertThatIllegalArgumentException().isThrownBy(() ->
+            configuration(Duration.ofMinutes(1), Duration.ofMinutes(2)));
+  }
+
+  private LockConfiguration configuration(Duration lockAtMostFor, Duration lockAtLeastFor) {
+    return new LockConfiguration(clock.instant(), "task", lockAtMostFor, lockAtLeastFor);
+  }
+
+  static class MutableClock extends Clock {
+
+    private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      this.instant = this.instant.plus(duration);
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return this.instant;
+    }
+
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.lock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.taketoday.scheduling.SchedulingAwareRunnable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link LockingRunnable}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class LockingRunnableTests {
+
+  private final InMemoryLockProvider lockProvider = new InMemoryLockProvider();
+
+  @Test
+  void runSkipsWhenLocked() {
+    AtomicInteger invocations = new AtomicInteger();
+    LockingRunnable runnable = new LockingRunnable(invocations::incrementAndGet, () -> lockProvider,
+            "task", Duration.ofMinutes(1), Duration.ZERO);
+    runnable.run();
+    assertThat(invocations).hasValue(1);
+
+    SimpleLock lock = lockProvider.lock(new LockConfiguration(
+            Instant.now(), "task", Duration.ofMinutes(1), Duration.ZERO));
+    assertThat(lock).isNotNull();
+    runnable.run();
+    assertThat(invocations).hasValue(1);
+    lock.unlock();
+    runnable.run();
+    assertThat(invocations).hasValue(2);
+  }
+
+  @Test
+  void runReleasesLockWhenTaskFails() {
+    LockingRunnable runnable = new LockingRunnable(() -> {
+      throw new IllegalStateException("failed");
+    }, () -> lockProvider, "task", Duration.ofMinutes(1), Duration.ZERO);
+    assertThatIllegalStateException().isThrownBy(runnable::run);
+    assertThat(lockProvider.isLocked("task")).isFalse();
+  }
+
+  @Test
+  void schedulingAwareAttributesAreDelegated() {
+    SchedulingAwareRunnable delegate = new SchedulingAwareRunnable() {
+
+      @Override
+      public void run() {
+      }
+
+      @Override
+      public boolean isLongLived() {
+        return true;
+      }
+
+      @Override
+      public String getQualifier() {
+        return "myScheduler";
+      }
+    };
+    LockingRunnable runnable = new LockingRunnable(delegate, () -> lockProvider,
+            "task", Duration.ofMinutes(1), Duration.ZERO);
+    assertThat(runnable.isLongLived()).isTrue();
+    assertThat(runnable.getQualifier()).isEqualTo("myScheduler");
+  }
+
+}
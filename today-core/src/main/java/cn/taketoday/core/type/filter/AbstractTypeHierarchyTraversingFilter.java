@@ -53,6 +53,15 @@ public abstract class AbstractTypeHierarchyTraversingFilter implements TypeFilte
     this.considerInterfaces = considerInterfaces;
   }
 
+  /**
+   * Return whether this instance also matches on interfaces.
+   *
+   * @since 5.0
+   */
+  public final boolean isConsiderInterfaces() {
+    return this.considerInterfaces;
+  }
+
   @Override
   public boolean match(MetadataReader metadataReader, MetadataReaderFactory factory) throws IOException {
     // This method optimizes avoiding unnecessary creation of ClassReaders
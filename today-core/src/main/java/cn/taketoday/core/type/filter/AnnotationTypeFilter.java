@@ -100,6 +100,15 @@ public class AnnotationTypeFilter extends AbstractTypeHierarchyTraversingFilter
     return this.annotationType;
   }
 
+  /**
+   * Return whether this instance also matches on meta-annotations.
+   *
+   * @since 5.0
+   */
+  public final boolean isConsiderMetaAnnotations() {
+    return this.considerMetaAnnotations;
+  }
+
   @Override
   protected boolean matchSelf(MetadataReader metadataReader) {
     AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
@@ -34,6 +34,8 @@ import cn.taketoday.core.env.Environment;
 import cn.taketoday.core.task.SimpleAsyncTaskExecutor;
 import cn.taketoday.core.task.TaskDecorator;
 import cn.taketoday.core.task.TaskExecutor;
+import cn.taketoday.core.task.support.CompositeTaskDecorator;
+import cn.taketoday.lang.Nullable;
 import cn.taketoday.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
 import cn.taketoday.scheduling.concurrent.ThreadPoolTaskExecutor;
 import cn.taketoday.scheduling.support.SimpleAsyncTaskExecutorBuilder;
@@ -41,9 +43,15 @@ import cn.taketoday.scheduling.support.SimpleAsyncTaskExecutorCustomizer;
 import cn.taketoday.scheduling.support.ThreadPoolTaskExecutorBuilder;
 import cn.taketoday.scheduling.support.ThreadPoolTaskExecutorCustomizer;
 import cn.taketoday.stereotype.Component;
+import cn.taketoday.util.ClassUtils;
+import cn.taketoday.web.RequestContextTaskDecorator;
 
 /**
  * {@link EnableAutoConfiguration Auto-configuration} for {@link TaskExecutor}.
+ * <p>
+ * When the web module is present, the executors propagate the request
+ * context of the submitting thread with a {@link RequestContextTaskDecorator},
+ * composed with the unique user {@link TaskDecorator}.
  *
  * @author Stephane Nicoll
  * @author Camille Vienot
@@ -60,6 +68,9 @@ public class TaskExecutionAutoConfiguration {
    */
   public static final String APPLICATION_TASK_EXECUTOR_BEAN_NAME = "applicationTaskExecutor";
 
+  private static final boolean requestContextPresent = ClassUtils.isPresent(
+          "cn.taketoday.web.RequestContextTaskDecorator", TaskExecutionAutoConfiguration.class.getClassLoader());
+
   @Lazy
   @Configuration(proxyBeanMethods = false)
   @ConditionalOnMissingBean(Executor.class)
@@ -97,7 +108,7 @@ public class TaskExecutionAutoConfiguration {
     builder = builder.awaitTerminationPeriod(shutdown.getAwaitTerminationPeriod());
     builder = builder.threadNamePrefix(properties.getThreadNamePrefix());
     builder = builder.customizers(customizers);
-    builder = builder.taskDecorator(taskDecorator.getIfUnique());
+    builder = builder.taskDecorator(taskDecorator(taskDecorator));
     return builder;
   }
 
@@ -109,7 +120,7 @@ public class TaskExecutionAutoConfiguration {
     SimpleAsyncTaskExecutorBuilder builder = new SimpleAsyncTaskExecutorBuilder();
     builder = builder.threadNamePrefix(properties.getThreadNamePrefix());
     builder = builder.customizers(customizers);
-    builder = builder.taskDecorator(taskDecorator.getIfUnique());
+    builder = builder.taskDecorator(taskDecorator(taskDecorator));
     var simple = properties.getSimple();
     builder = builder.concurrencyLimit(simple.getConcurrencyLimit());
 
@@ -124,4 +135,20 @@ public class TaskExecutionAutoConfiguration {
     return builder;
   }
 
+  /**
+   * The unique user decorator, wrapped with the request context decorator
+   * so that user decorators already see the request context
+   */
+  @Nullable
+  static TaskDecorator taskDecorator(ObjectProvider<TaskDecorator> taskDecorator) {
+    TaskDecorator decorator = taskDecorator.getIfUnique();
+    if (!requestContextPresent || decorator instanceof RequestContextTaskDecorator) {
+      return decorator;
+    }
+    if (decorator == null) {
+      return new RequestContextTaskDecorator();
+    }
+    return new CompositeTaskDecorator(List.of(decorator, new RequestContextTaskDecorator()));
+  }
+
 }
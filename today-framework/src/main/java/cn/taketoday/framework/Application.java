@@ -40,6 +40,7 @@ import java.util.stream.Stream;
 import cn.taketoday.aot.AotDetector;
 import cn.taketoday.beans.BeansException;
 import cn.taketoday.beans.CachedIntrospectionResults;
+import cn.taketoday.beans.factory.InitializationBeanPostProcessor;
 import cn.taketoday.beans.factory.config.BeanDefinition;
 import cn.taketoday.beans.factory.config.BeanFactoryPostProcessor;
 import cn.taketoday.beans.factory.config.ConfigurableBeanFactory;
@@ -62,6 +63,7 @@ import cn.taketoday.context.properties.bind.BindableRuntimeHintsRegistrar;
 import cn.taketoday.context.properties.bind.Binder;
 import cn.taketoday.context.properties.source.ConfigurationPropertySources;
 import cn.taketoday.context.support.AbstractApplicationContext;
+import cn.taketoday.context.support.DefaultLifecycleProcessor;
 import cn.taketoday.context.support.GenericApplicationContext;
 import cn.taketoday.core.ApplicationTemp;
 import cn.taketoday.core.Ordered;
@@ -157,6 +159,14 @@ public class Application {
 
   public static final String PROPERTIES_BINDER_PREFIX = "app.main";
 
+  /**
+   * Property name to run the application as a Class Data Sharing training
+   * run: {@value}.
+   *
+   * @see #setCdsTrainingRun(boolean)
+   */
+  public static final String CDS_TRAINING_RUN_PROPERTY = "app.cds.training-run";
+
   private static final String SYSTEM_PROPERTY_JAVA_AWT_HEADLESS = "java.awt.headless";
 
   static final ApplicationShutdownHook shutdownHook = new ApplicationShutdownHook();
@@ -225,6 +235,8 @@ public class Application {
 
   private boolean keepAlive;
 
+  private boolean cdsTrainingRun = TodayStrategies.getFlag(CDS_TRAINING_RUN_PROPERTY);
+
   /**
    * Create a new {@link Application} instance. The application context will load
    * beans from the specified primary sources (see {@link Application class-level}
@@ -580,6 +592,11 @@ public class Application {
       context.addApplicationListener(new KeepAlive());
     }
 
+    if (cdsTrainingRun) {
+      logger.info("Running as a CDS training run, the JVM exits once the application context is refreshed");
+      context.addBeanFactoryPostProcessor(new CdsTrainingRunPostProcessor());
+    }
+
     if (CollectionUtils.isNotEmpty(defaultProperties)) {
       context.addBeanFactoryPostProcessor(new PropertySourceOrderingBeanFactoryPostProcessor(context));
     }
@@ -1246,6 +1263,32 @@ public class Application {
     this.keepAlive = keepAlive;
   }
 
+  /**
+   * Whether this run is a Class Data Sharing training run.
+   *
+   * @return if the application exits after its context is refreshed
+   * @since 5.0
+   */
+  public boolean isCdsTrainingRun() {
+    return this.cdsTrainingRun;
+  }
+
+  /**
+   * Sets if this run is a Class Data Sharing training run. A training run
+   * refreshes the context, then exits the JVM with status {@code 0} before
+   * lifecycle beans are started, so that the application does not serve any
+   * traffic. Combined with {@code -XX:ArchiveClassesAtExit=app.jsa} it records a
+   * dynamic CDS archive, to be used later with {@code -XX:SharedArchiveFile=app.jsa}.
+   * <p>Defaults to the {@value #CDS_TRAINING_RUN_PROPERTY} flag.
+   *
+   * @param cdsTrainingRun if the application should exit after its context is refreshed
+   * @see DefaultLifecycleProcessor#setExitOnRefresh(boolean)
+   * @since 5.0
+   */
+  public void setCdsTrainingRun(boolean cdsTrainingRun) {
+    this.cdsTrainingRun = cdsTrainingRun;
+  }
+
   private RuntimeException handleRunFailure(@Nullable ConfigurableApplicationContext context,
           Throwable exception, @Nullable ApplicationStartupListeners listeners) {
     if (exception instanceof AbandonedRunException abandonedRunException) {
@@ -1683,6 +1726,40 @@ public class Application {
 
   }
 
+  /**
+   * Makes the lifecycle processor of this application's context terminate the
+   * JVM once the context is refreshed, after all singletons are created and
+   * before any lifecycle bean such as the web server starts. The classes loaded
+   * so far are recorded by {@code -XX:ArchiveClassesAtExit}.
+   */
+  static class CdsTrainingRunPostProcessor implements BeanFactoryPostProcessor, InitializationBeanPostProcessor {
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableBeanFactory beanFactory) throws BeansException {
+      if (beanFactory.containsLocalBean(AbstractApplicationContext.LIFECYCLE_PROCESSOR_BEAN_NAME)) {
+        beanFactory.addBeanPostProcessor(this);
+      }
+      else {
+        DefaultLifecycleProcessor lifecycleProcessor = new DefaultLifecycleProcessor();
+        lifecycleProcessor.setBeanFactory(beanFactory);
+        lifecycleProcessor.setExitOnRefresh(true);
+        beanFactory.registerSingleton(AbstractApplicationContext.LIFECYCLE_PROCESSOR_BEAN_NAME, lifecycleProcessor);
+      }
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+      if (AbstractApplicationContext.LIFECYCLE_PROCESSOR_BEAN_NAME.equals(beanName)) {
+        if (!(bean instanceof DefaultLifecycleProcessor lifecycleProcessor)) {
+          throw new IllegalStateException("CDS training run requires a DefaultLifecycleProcessor, found " + bean.getClass().getName());
+        }
+        lifecycleProcessor.setExitOnRefresh(true);
+      }
+      return bean;
+    }
+
+  }
+
   static class ApplicationRuntimeHints extends BindableRuntimeHintsRegistrar {
 
     ApplicationRuntimeHints() {
@@ -38,6 +38,7 @@ import cn.taketoday.core.task.SimpleAsyncTaskExecutor;
 import cn.taketoday.core.task.SyncTaskExecutor;
 import cn.taketoday.core.task.TaskDecorator;
 import cn.taketoday.core.task.TaskExecutor;
+import cn.taketoday.core.task.support.CompositeTaskDecorator;
 import cn.taketoday.framework.test.context.assertj.AssertableApplicationContext;
 import cn.taketoday.framework.test.context.runner.ApplicationContextRunner;
 import cn.taketoday.framework.test.context.runner.ContextConsumer;
@@ -48,6 +49,9 @@ import cn.taketoday.scheduling.annotation.EnableScheduling;
 import cn.taketoday.scheduling.concurrent.ThreadPoolTaskExecutor;
 import cn.taketoday.scheduling.support.SimpleAsyncTaskExecutorBuilder;
 import cn.taketoday.scheduling.support.ThreadPoolTaskExecutorBuilder;
+import cn.taketoday.web.RequestContext;
+import cn.taketoday.web.RequestContextHolder;
+import cn.taketoday.web.RequestContextTaskDecorator;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -130,7 +134,32 @@ class TaskExecutionAutoConfigurationTests {
     this.contextRunner.withUserConfiguration(TaskDecoratorConfig.class).run((context) -> {
       assertThat(context).hasSingleBean(ThreadPoolTaskExecutorBuilder.class);
       ThreadPoolTaskExecutor executor = context.getBean(ThreadPoolTaskExecutorBuilder.class).build();
-      assertThat(executor).extracting("taskDecorator").isSameAs(context.getBean(TaskDecorator.class));
+      assertRequestContextComposed(executor, context.getBean(TaskDecorator.class));
+    });
+  }
+
+  @Test
+  void requestContextPropagatedToTasks() {
+    this.contextRunner.run((context) -> {
+      ThreadPoolTaskExecutor executor = context.getBean(ThreadPoolTaskExecutorBuilder.class).build();
+      assertThat(executor).extracting("taskDecorator").isInstanceOf(RequestContextTaskDecorator.class);
+
+      executor.initialize();
+      try {
+        RequestContext request = mock(RequestContext.class);
+        AtomicReference<RequestContext> current = new AtomicReference<>();
+        RequestContextHolder.set(request);
+        try {
+          executor.submit(() -> current.set(RequestContextHolder.get())).get(30, TimeUnit.SECONDS);
+        }
+        finally {
+          RequestContextHolder.cleanup();
+        }
+        assertThat(current.get()).isSameAs(request);
+      }
+      finally {
+        executor.shutdown();
+      }
     });
   }
 
@@ -187,7 +216,7 @@ class TaskExecutionAutoConfigurationTests {
             .withUserConfiguration(TaskDecoratorConfig.class)
             .run((context) -> {
               SimpleAsyncTaskExecutor executor = context.getBean(SimpleAsyncTaskExecutor.class);
-              assertThat(executor).extracting("taskDecorator").isSameAs(context.getBean(TaskDecorator.class));
+              assertRequestContextComposed(executor, context.getBean(TaskDecorator.class));
             });
   }
 
@@ -269,6 +298,14 @@ class TaskExecutionAutoConfigurationTests {
     };
   }
 
+  private void assertRequestContextComposed(Object executor, TaskDecorator userDecorator) {
+    assertThat(executor).extracting("taskDecorator").isInstanceOf(CompositeTaskDecorator.class)
+            .extracting("taskDecorators").asList()
+            .first().isSameAs(userDecorator);
+    assertThat(executor).extracting("taskDecorator.taskDecorators").asList()
+            .last().isInstanceOf(RequestContextTaskDecorator.class);
+  }
+
   private String virtualThreadName(SimpleAsyncTaskExecutor taskExecutor) throws InterruptedException {
     AtomicReference<Thread> threadReference = new AtomicReference<>();
     CountDownLatch latch = new CountDownLatch(1);
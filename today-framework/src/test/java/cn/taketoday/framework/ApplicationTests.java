@@ -58,6 +58,8 @@ import cn.taketoday.beans.factory.support.BeanDefinitionOverrideException;
 import cn.taketoday.beans.factory.support.BeanDefinitionRegistry;
 import cn.taketoday.beans.factory.support.BeanNameGenerator;
 import cn.taketoday.beans.factory.support.DefaultBeanNameGenerator;
+import cn.taketoday.beans.factory.support.RootBeanDefinition;
+import cn.taketoday.beans.factory.support.StandardBeanFactory;
 import cn.taketoday.context.ApplicationContext;
 import cn.taketoday.context.ApplicationContextAware;
 import cn.taketoday.context.ApplicationContextException;
@@ -65,6 +67,7 @@ import cn.taketoday.context.ApplicationContextInitializer;
 import cn.taketoday.context.ApplicationEvent;
 import cn.taketoday.context.ApplicationListener;
 import cn.taketoday.context.ConfigurableApplicationContext;
+import cn.taketoday.context.LifecycleProcessor;
 import cn.taketoday.context.annotation.AnnotationConfigApplicationContext;
 import cn.taketoday.context.annotation.AnnotationConfigUtils;
 import cn.taketoday.context.annotation.Bean;
@@ -76,6 +79,7 @@ import cn.taketoday.context.event.ContextRefreshedEvent;
 import cn.taketoday.context.event.SimpleApplicationEventMulticaster;
 import cn.taketoday.context.event.SmartApplicationListener;
 import cn.taketoday.context.support.AbstractApplicationContext;
+import cn.taketoday.context.support.DefaultLifecycleProcessor;
 import cn.taketoday.context.support.StaticApplicationContext;
 import cn.taketoday.core.Ordered;
 import cn.taketoday.core.annotation.Order;
@@ -114,6 +118,7 @@ import cn.taketoday.web.server.reactive.context.AnnotationConfigReactiveWebServe
 import cn.taketoday.web.server.reactive.context.ReactiveWebApplicationContext;
 import cn.taketoday.web.server.reactive.support.ReactorNettyReactiveWebServerFactory;
 import cn.taketoday.http.server.reactive.HttpHandler;
+import cn.taketoday.lang.TodayStrategies;
 import cn.taketoday.mock.env.MockEnvironment;
 import cn.taketoday.test.context.support.TestPropertySourceUtils;
 import cn.taketoday.util.LinkedMultiValueMap;
@@ -1351,6 +1356,45 @@ class ApplicationTests {
                     .filteredOn((thread) -> thread.getName().equals("keep-alive")));
   }
 
+  @Test
+  void cdsTrainingRunIsDisabledByDefault() {
+    Application application = new Application(ExampleConfig.class);
+    assertThat(application.isCdsTrainingRun()).isFalse();
+    application.setCdsTrainingRun(true);
+    assertThat(application.isCdsTrainingRun()).isTrue();
+  }
+
+  @Test
+  void cdsTrainingRunExitsThroughLifecycleProcessorOfItsContext() {
+    Application application = new Application(CdsTrainingRunConfig.class);
+    application.setApplicationType(ApplicationType.NORMAL);
+    application.setCdsTrainingRun(true);
+    this.context = application.run();
+    assertThat(this.context.getBean(TrainingRunLifecycleProcessor.class).exitRequested).isTrue();
+    assertThat(TodayStrategies.getProperty(DefaultLifecycleProcessor.EXIT_PROPERTY_NAME)).isNull();
+  }
+
+  @Test
+  void cdsTrainingRunRegistersExitingLifecycleProcessor() {
+    StandardBeanFactory beanFactory = new StandardBeanFactory();
+    new Application.CdsTrainingRunPostProcessor().postProcessBeanFactory(beanFactory);
+    DefaultLifecycleProcessor lifecycleProcessor = beanFactory.getBean(
+            AbstractApplicationContext.LIFECYCLE_PROCESSOR_BEAN_NAME, DefaultLifecycleProcessor.class);
+    assertThat(lifecycleProcessor.isExitOnRefresh()).isTrue();
+  }
+
+  @Test
+  void cdsTrainingRunRejectsCustomLifecycleProcessor() {
+    StandardBeanFactory beanFactory = new StandardBeanFactory();
+    RootBeanDefinition definition = new RootBeanDefinition(LifecycleProcessor.class);
+    definition.setInstanceSupplier(() -> mock(LifecycleProcessor.class));
+    beanFactory.registerBeanDefinition(AbstractApplicationContext.LIFECYCLE_PROCESSOR_BEAN_NAME, definition);
+    new Application.CdsTrainingRunPostProcessor().postProcessBeanFactory(beanFactory);
+    assertThatExceptionOfType(BeanCreationException.class)
+            .isThrownBy(() -> beanFactory.getBean(AbstractApplicationContext.LIFECYCLE_PROCESSOR_BEAN_NAME))
+            .withMessageContaining("CDS training run requires a DefaultLifecycleProcessor");
+  }
+
   @Test
   void shouldReportFriendlyErrorIfAotInitializerNotFound() {
     Application application = new Application(TestApplication.class);
@@ -1530,6 +1574,32 @@ class ApplicationTests {
 
   }
 
+  @Configuration(proxyBeanMethods = false)
+  static class CdsTrainingRunConfig {
+
+    @Bean(AbstractApplicationContext.LIFECYCLE_PROCESSOR_BEAN_NAME)
+    static TrainingRunLifecycleProcessor lifecycleProcessor() {
+      return new TrainingRunLifecycleProcessor();
+    }
+
+  }
+
+  static class TrainingRunLifecycleProcessor extends DefaultLifecycleProcessor {
+
+    boolean exitRequested;
+
+    @Override
+    public void onRefresh() {
+      // record the exit rather than halting the test JVM
+      if (isExitOnRefresh()) {
+        this.exitRequested = true;
+        return;
+      }
+      super.onRefresh();
+    }
+
+  }
+
   @Configuration(proxyBeanMethods = false)
   static class OverrideConfig {
 
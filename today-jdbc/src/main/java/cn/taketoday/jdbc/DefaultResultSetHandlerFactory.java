@@ -17,6 +17,8 @@
 
 package cn.taketoday.jdbc;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.Map;
@@ -73,6 +75,11 @@ public class DefaultResultSetHandlerFactory<T> implements ResultSetHandlerFactor
       return new TypeHandlerResultSetHandler<>(typeHandler);
     }
 
+    Class<T> objectType = (Class<T>) metadata.getObjectType();
+    if (objectType.isRecord()) {
+      return createRecordHandler(meta, objectType);
+    }
+
     var accessors = new ObjectPropertySetter[columnCount];
     for (int i = 1; i <= columnCount; i++) {
       String colName = JdbcUtils.lookupColumnName(meta, i);
@@ -85,7 +92,53 @@ public class DefaultResultSetHandlerFactory<T> implements ResultSetHandlerFactor
       accessors[i - 1] = accessor;
     }
 
-    return new ObjectResultHandler<>(metadata, accessors, columnCount);
+    var handler = new ObjectResultHandler<T>(metadata, accessors, columnCount);
+    if (repositoryManager.isGeneratedRowMappers()) {
+      return RowMapperGenerator.forBean(objectType, accessors, handler);
+    }
+    return handler;
+  }
+
+  /**
+   * map columns to the record components, the record will be created
+   * with its canonical constructor
+   *
+   * @since 5.0
+   */
+  private ResultSetExtractor<T> createRecordHandler(ResultSetMetaData meta, Class<T> recordType) throws SQLException {
+    int columnCount = meta.getColumnCount();
+    RecordComponent[] components = recordType.getRecordComponents();
+    int[] componentColumns = new int[components.length];
+    var typeHandlers = new TypeHandler<?>[columnCount];
+    for (int i = 1; i <= columnCount; i++) {
+      String colName = JdbcUtils.lookupColumnName(meta, i);
+      BeanProperty beanProperty = metadata.getBeanProperty(colName, columnMappings);
+      int component = beanProperty != null ? indexOf(components, beanProperty.getName()) : -1;
+      if (component == -1) {
+        if (columnCount > 1 && metadata.throwOnMappingFailure) {
+          throw new PersistenceException("Could not map %s to any record component.".formatted(colName));
+        }
+        continue;
+      }
+      componentColumns[component] = i;
+      typeHandlers[i - 1] = repositoryManager.getTypeHandler(beanProperty);
+    }
+
+    Constructor<T> constructor = RecordResultHandler.canonicalConstructor(recordType);
+    var handler = new RecordResultHandler<>(constructor, componentColumns, typeHandlers);
+    if (repositoryManager.isGeneratedRowMappers()) {
+      return RowMapperGenerator.forRecord(constructor, componentColumns, typeHandlers, handler);
+    }
+    return handler;
+  }
+
+  private static int indexOf(RecordComponent[] components, String name) {
+    for (int i = 0; i < components.length; i++) {
+      if (components[i].getName().equals(name)) {
+        return i;
+      }
+    }
+    return -1;
   }
 
   @Nullable
@@ -114,10 +167,12 @@ public class DefaultResultSetHandlerFactory<T> implements ResultSetHandlerFactor
   private static final class HandlerKey {
     public final String stringKey;
     public final DefaultResultSetHandlerFactory factory;
+    public final boolean generated;
 
     private HandlerKey(String stringKey, DefaultResultSetHandlerFactory f) {
       this.stringKey = stringKey;
       this.factory = f;
+      this.generated = f.repositoryManager.isGeneratedRowMappers();
     }
 
     @Override
@@ -126,7 +181,8 @@ public class DefaultResultSetHandlerFactory<T> implements ResultSetHandlerFactor
         return true;
       }
       if (o instanceof HandlerKey key) {
-        return stringKey.equals(key.stringKey)
+        return generated == key.generated
+                && stringKey.equals(key.stringKey)
                 && factory.metadata.equals(key.factory.metadata);
       }
       return false;
@@ -136,6 +192,7 @@ public class DefaultResultSetHandlerFactory<T> implements ResultSetHandlerFactor
     public int hashCode() {
       int result = factory.metadata.hashCode();
       result = 31 * result + stringKey.hashCode();
+      result = 31 * result + Boolean.hashCode(generated);
       return result;
     }
 
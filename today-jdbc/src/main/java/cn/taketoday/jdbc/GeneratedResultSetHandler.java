@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import cn.taketoday.jdbc.core.ResultSetExtractor;
+import cn.taketoday.jdbc.type.TypeHandler;
+
+/**
+ * Base class of the row mappers generated by {@link RowMapperGenerator}.
+ * <p>
+ * A generated subclass reads the columns of a fixed label list with the
+ * primitive-typed {@link ResultSet} getters and writes them to the target
+ * fields, setters or record constructor without reflection. Columns that
+ * the generated code can not handle directly are delegated to the
+ * {@link ObjectPropertySetter} or {@link TypeHandler} of that column.
+ *
+ * @param <T> target type
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see RowMapperGenerator
+ * @since 5.0
+ */
+public abstract class GeneratedResultSetHandler<T> implements ResultSetExtractor<T> {
+
+  private final ObjectPropertySetter[] setters;
+
+  private final TypeHandler<?>[] typeHandlers;
+
+  private final ResultSetExtractor<T> fallback;
+
+  protected GeneratedResultSetHandler(ObjectPropertySetter[] setters,
+          TypeHandler<?>[] typeHandlers, ResultSetExtractor<T> fallback) {
+    this.setters = setters;
+    this.typeHandlers = typeHandlers;
+    this.fallback = fallback;
+  }
+
+  /**
+   * Set the column value to the target object with the reflective setter
+   *
+   * @param obj target object
+   * @param resultSet jdbc resultSet
+   * @param columnIndex column index, starting from 1
+   * @throws SQLException when data fetch failed
+   */
+  protected final void setTo(Object obj, ResultSet resultSet, int columnIndex) throws SQLException {
+    setters[columnIndex - 1].setTo(obj, resultSet, columnIndex);
+  }
+
+  /**
+   * Read the column value with its {@link TypeHandler}
+   *
+   * @param resultSet jdbc resultSet
+   * @param columnIndex column index, starting from 1
+   * @throws SQLException when data fetch failed
+   */
+  protected final Object getResult(ResultSet resultSet, int columnIndex) throws SQLException {
+    return typeHandlers[columnIndex - 1].getResult(resultSet, columnIndex);
+  }
+
+  /**
+   * Map current row reflectively, used when a primitive-typed getter
+   * failed, so that the {@link TypeHandler} and conversion fallbacks
+   * still apply
+   *
+   * @param resultSet jdbc resultSet
+   * @throws SQLException when data fetch failed
+   */
+  protected final T extractReflectively(ResultSet resultSet) throws SQLException {
+    return fallback.extractData(resultSet);
+  }
+
+}
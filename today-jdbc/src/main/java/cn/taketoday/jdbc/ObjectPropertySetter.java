@@ -96,6 +96,28 @@ public class ObjectPropertySetter {
     }
   }
 
+  /**
+   * @since 5.0
+   */
+  @Nullable
+  public PropertyPath getPropertyPath() {
+    return propertyPath;
+  }
+
+  /**
+   * @since 5.0
+   */
+  public BeanProperty getBeanProperty() {
+    return beanProperty;
+  }
+
+  /**
+   * @since 5.0
+   */
+  public TypeHandler<?> getTypeHandler() {
+    return typeHandler;
+  }
+
   /**
    * Get result from {@link ResultSet}.
    * <p>
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import cn.taketoday.beans.BeanUtils;
+import cn.taketoday.jdbc.core.ResultSetExtractor;
+import cn.taketoday.jdbc.type.TypeHandler;
+import cn.taketoday.util.ReflectionUtils;
+
+/**
+ * Reflective {@link ResultSetExtractor} for {@link Record} types,
+ * invoking the canonical constructor with the mapped column values.
+ *
+ * @param <T> record type
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+final class RecordResultHandler<T> implements ResultSetExtractor<T> {
+
+  private final Constructor<T> constructor;
+
+  /**
+   * column index of each record component, {@code 0} means not mapped
+   */
+  private final int[] componentColumns;
+
+  /**
+   * type handlers of each column
+   */
+  private final TypeHandler<?>[] typeHandlers;
+
+  RecordResultHandler(Constructor<T> constructor, int[] componentColumns, TypeHandler<?>[] typeHandlers) {
+    this.constructor = constructor;
+    this.componentColumns = componentColumns;
+    this.typeHandlers = typeHandlers;
+  }
+
+  @Override
+  public T extractData(ResultSet resultSet) throws SQLException {
+    int[] componentColumns = this.componentColumns;
+    Object[] args = new Object[componentColumns.length];
+    for (int i = 0; i < componentColumns.length; i++) {
+      int columnIndex = componentColumns[i];
+      if (columnIndex != 0) {
+        args[i] = typeHandlers[columnIndex - 1].getResult(resultSet, columnIndex);
+      }
+    }
+    // null primitive args will be replaced with default values
+    return BeanUtils.newInstance(constructor, args);
+  }
+
+  /**
+   * Find the canonical constructor of the given record type
+   */
+  static <T> Constructor<T> canonicalConstructor(Class<T> recordType) {
+    RecordComponent[] components = recordType.getRecordComponents();
+    Class<?>[] parameterTypes = new Class<?>[components.length];
+    for (int i = 0; i < components.length; i++) {
+      parameterTypes[i] = components[i].getType();
+    }
+    return ReflectionUtils.getConstructor(recordType, parameterTypes);
+  }
+
+}
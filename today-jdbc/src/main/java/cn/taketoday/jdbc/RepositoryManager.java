@@ -81,6 +81,8 @@ public class RepositoryManager extends JdbcAccessor implements QueryProducer, Tr
 
   private boolean catchResourceCloseErrors = false;
 
+  private boolean generatedRowMappers = false;
+
   @Nullable
   private Map<String, String> defaultColumnMappings;
 
@@ -266,6 +268,29 @@ public class RepositoryManager extends JdbcAccessor implements QueryProducer, Tr
     return catchResourceCloseErrors;
   }
 
+  /**
+   * Set whether to generate a row mapper class for each column label
+   * list and result type, reading columns with the primitive-typed
+   * {@link java.sql.ResultSet} getters and assigning fields or setters
+   * without reflection. Falls back to the reflective mapping when the
+   * result type or its members are not accessible.
+   * <p>Default is {@code false}. Record types are always supported.
+   *
+   * @param generatedRowMappers generate row mapper classes
+   * @see DefaultResultSetHandlerFactory
+   * @since 5.0
+   */
+  public void setGeneratedRowMappers(boolean generatedRowMappers) {
+    this.generatedRowMappers = generatedRowMappers;
+  }
+
+  /**
+   * @since 5.0
+   */
+  public boolean isGeneratedRowMappers() {
+    return generatedRowMappers;
+  }
+
   /**
    * Return the transaction management strategy to be used.
    */
@@ -0,0 +1,523 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.taketoday.beans.BeanProperty;
+import cn.taketoday.bytecode.BytecodeCompiler;
+import cn.taketoday.bytecode.ClassVisitor;
+import cn.taketoday.bytecode.Label;
+import cn.taketoday.bytecode.Type;
+import cn.taketoday.bytecode.commons.GeneratorAdapter;
+import cn.taketoday.bytecode.commons.Local;
+import cn.taketoday.bytecode.commons.MethodSignature;
+import cn.taketoday.bytecode.core.Block;
+import cn.taketoday.bytecode.core.ClassEmitter;
+import cn.taketoday.bytecode.core.ClassGenerator;
+import cn.taketoday.bytecode.core.CodeEmitter;
+import cn.taketoday.bytecode.core.DefaultGeneratorStrategy;
+import cn.taketoday.jdbc.core.ResultSetExtractor;
+import cn.taketoday.jdbc.type.BigDecimalTypeHandler;
+import cn.taketoday.jdbc.type.BooleanTypeHandler;
+import cn.taketoday.jdbc.type.ByteTypeHandler;
+import cn.taketoday.jdbc.type.DoubleTypeHandler;
+import cn.taketoday.jdbc.type.FloatTypeHandler;
+import cn.taketoday.jdbc.type.IntegerTypeHandler;
+import cn.taketoday.jdbc.type.LongTypeHandler;
+import cn.taketoday.jdbc.type.ShortTypeHandler;
+import cn.taketoday.jdbc.type.StringTypeHandler;
+import cn.taketoday.jdbc.type.TypeHandler;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.reflect.GeneratorSupport;
+import cn.taketoday.util.ClassUtils;
+import cn.taketoday.util.ReflectionUtils;
+
+import static cn.taketoday.bytecode.Opcodes.ACC_FINAL;
+import static cn.taketoday.bytecode.Opcodes.ACC_PUBLIC;
+
+/**
+ * Generates a {@link GeneratedResultSetHandler} subclass for one column
+ * label list and target type.
+ * <p>
+ * The generated {@code extractData} instantiates the target directly,
+ * reads {@code int}, {@code long}, {@code double}, {@code float},
+ * {@code short}, {@code byte}, {@code boolean} (primitive or boxed),
+ * {@link String} and {@link BigDecimal} columns with the matching
+ * {@link ResultSet} getter (checking {@link ResultSet#wasNull()} only
+ * when a zero value was read), and assigns them to the field or setter
+ * without reflection. Record types are created with their canonical
+ * constructor. Other columns, nested property paths and custom
+ * {@link TypeHandler TypeHandlers} are delegated to the reflective
+ * {@link ObjectPropertySetter}.
+ * <p>
+ * When the target or one of its members is not accessible from a
+ * generated class in the same package, the reflective handler is used.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see GeneratedResultSetHandler
+ * @see DefaultResultSetHandlerFactory
+ * @since 5.0
+ */
+final class RowMapperGenerator implements ClassGenerator {
+
+  private static final Logger log = LoggerFactory.getLogger(RowMapperGenerator.class);
+
+  private static final AtomicInteger counter = new AtomicInteger();
+
+  private static final Type RESULT_SET_TYPE = Type.fromClass(ResultSet.class);
+
+  private static final Type SQL_EXCEPTION_TYPE = Type.fromClass(SQLException.class);
+
+  private static final Type SUPER_TYPE = Type.fromClass(GeneratedResultSetHandler.class);
+
+  private static final Type GENERATOR_SUPPORT_TYPE = Type.fromClass(GeneratorSupport.class);
+
+  private static final MethodSignature CONSTRUCTOR = MethodSignature.forConstructor(
+          Type.fromClass(ObjectPropertySetter[].class),
+          Type.fromClass(TypeHandler[].class),
+          Type.fromClass(ResultSetExtractor.class)
+  );
+
+  private static final MethodSignature EXTRACT_DATA = new MethodSignature(
+          Type.TYPE_OBJECT, "extractData", RESULT_SET_TYPE);
+
+  private static final MethodSignature SET_TO = new MethodSignature(
+          Type.VOID_TYPE, "setTo", Type.TYPE_OBJECT, RESULT_SET_TYPE, Type.INT_TYPE);
+
+  private static final MethodSignature GET_RESULT = new MethodSignature(
+          Type.TYPE_OBJECT, "getResult", RESULT_SET_TYPE, Type.INT_TYPE);
+
+  private static final MethodSignature EXTRACT_REFLECTIVELY = new MethodSignature(
+          Type.TYPE_OBJECT, "extractReflectively", RESULT_SET_TYPE);
+
+  private static final MethodSignature WAS_NULL = new MethodSignature(Type.BOOLEAN_TYPE, "wasNull");
+
+  private final Class<?> targetClass;
+
+  /**
+   * per column setters, for bean types
+   */
+  private final ObjectPropertySetter[] setters;
+
+  /**
+   * per column type handlers, for record types
+   */
+  private final TypeHandler<?>[] typeHandlers;
+
+  @Nullable
+  private final Constructor<?> constructor;
+
+  /**
+   * column index of each record component, {@code 0} means not mapped
+   */
+  private final int[] componentColumns;
+
+  private final String className;
+
+  private RowMapperGenerator(Class<?> targetClass, ObjectPropertySetter[] setters,
+          TypeHandler<?>[] typeHandlers, @Nullable Constructor<?> constructor, int[] componentColumns) {
+    this.targetClass = targetClass;
+    this.setters = setters;
+    this.typeHandlers = typeHandlers;
+    this.constructor = constructor;
+    this.componentColumns = componentColumns;
+    this.className = getClassName(targetClass);
+  }
+
+  /**
+   * Generate a row mapper for a bean type, falling back to the given
+   * reflective handler if the generation is not possible
+   *
+   * @param setters per column setters, {@code null} element means not mapped
+   * @param fallback reflective handler
+   */
+  static <T> ResultSetExtractor<T> forBean(Class<T> targetClass,
+          ObjectPropertySetter[] setters, ResultSetExtractor<T> fallback) {
+    Constructor<T> constructor = ReflectionUtils.getConstructorIfAvailable(targetClass);
+    if (constructor == null || !isInstantiable(targetClass, constructor)) {
+      return fallback;
+    }
+    var generator = new RowMapperGenerator(targetClass, setters, new TypeHandler<?>[0], null, new int[0]);
+    return generator.generate(fallback);
+  }
+
+  /**
+   * Generate a row mapper for a record type, falling back to the given
+   * reflective handler if the generation is not possible
+   *
+   * @param componentColumns column index of each record component
+   * @param typeHandlers per column type handlers
+   * @param fallback reflective handler
+   */
+  static <T> ResultSetExtractor<T> forRecord(Constructor<T> constructor,
+          int[] componentColumns, TypeHandler<?>[] typeHandlers, ResultSetExtractor<T> fallback) {
+    Class<T> recordType = constructor.getDeclaringClass();
+    if (!isInstantiable(recordType, constructor)) {
+      return fallback;
+    }
+    var generator = new RowMapperGenerator(recordType,
+            new ObjectPropertySetter[0], typeHandlers, constructor, componentColumns);
+    return generator.generate(fallback);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> ResultSetExtractor<T> generate(ResultSetExtractor<T> fallback) {
+    try {
+      ClassLoader classLoader = targetClass.getClassLoader();
+      if (classLoader == null) {
+        classLoader = ClassUtils.getDefaultClassLoader();
+      }
+      byte[] classFile = DefaultGeneratorStrategy.INSTANCE.generate(this);
+      Class<ResultSetExtractor<T>> mapperClass = BytecodeCompiler.compile(className, targetClass,
+              classLoader, ReflectionUtils.getProtectionDomain(targetClass), classFile);
+
+      Constructor<ResultSetExtractor<T>> constructor = ReflectionUtils.getConstructor(mapperClass,
+              ObjectPropertySetter[].class, TypeHandler[].class, ResultSetExtractor.class);
+      return ReflectionUtils.invokeConstructor(constructor, new Object[] { setters, typeHandlers, fallback });
+    }
+    catch (Throwable e) {
+      log.debug("Cannot generate row mapper for '{}', using reflection", targetClass.getName(), e);
+      return fallback;
+    }
+  }
+
+  @Override
+  public void generateClass(ClassVisitor v) {
+    ClassEmitter ce = new ClassEmitter(v);
+    ce.beginClass(ACC_PUBLIC | ACC_FINAL, className.replace('.', '/'), SUPER_TYPE.getDescriptor(), (String[]) null);
+
+    CodeEmitter code = ce.beginMethod(ACC_PUBLIC, CONSTRUCTOR);
+    code.loadThis();
+    code.loadArgs();
+    code.super_invoke_constructor(CONSTRUCTOR);
+    code.returnValue();
+    code.end_method();
+
+    code = ce.beginMethod(ACC_PUBLIC | ACC_FINAL, EXTRACT_DATA, SQL_EXCEPTION_TYPE);
+    Block block = code.begin_block();
+    if (constructor != null) {
+      generateRecordMapping(code, constructor);
+    }
+    else {
+      generateBeanMapping(code);
+    }
+    block.end();
+
+    // primitive-typed getter failed, let TypeHandler and conversion try again
+    code.catchException(block, SQL_EXCEPTION_TYPE);
+    code.pop();
+    code.loadThis();
+    code.loadArg(0);
+    code.invokeVirtual(SUPER_TYPE, EXTRACT_REFLECTIVELY);
+    code.returnValue();
+    code.end_method();
+
+    ce.endClass();
+  }
+
+  private void generateBeanMapping(CodeEmitter code) {
+    Type owner = Type.fromClass(targetClass);
+    Local target = code.newLocal(owner);
+    code.newInstance(owner);
+    code.dup();
+    code.invokeConstructor(owner);
+    code.storeLocal(target);
+
+    ObjectPropertySetter[] setters = this.setters;
+    for (int columnIndex = 1; columnIndex <= setters.length; columnIndex++) {
+      ObjectPropertySetter setter = setters[columnIndex - 1];
+      if (setter == null) {
+        continue;
+      }
+
+      BeanProperty property = setter.getBeanProperty();
+      Member writer = setter.getPropertyPath() == null ? findWriter(property) : null;
+      Getter getter = writer != null ? Getter.find(property.getType(), setter.getTypeHandler()) : null;
+      if (getter == null) {
+        // reflective setter
+        code.loadThis();
+        code.loadLocal(target);
+        code.loadArg(0);
+        code.push(columnIndex);
+        code.invokeVirtual(SUPER_TYPE, SET_TO);
+      }
+      else if (getter.boxedType == null) {
+        // reference type, null can be assigned directly
+        code.loadLocal(target);
+        getter.read(code, columnIndex);
+        write(code, owner, writer);
+      }
+      else {
+        Type valueType = Type.fromClass(getter.valueType);
+        Local value = code.newLocal(valueType);
+        getter.read(code, columnIndex);
+        code.storeLocal(value);
+
+        Label notNull = code.newLabel();
+        Label end = code.newLabel();
+        ifNotNull(code, value, valueType, notNull);
+
+        if (property.isPrimitive()) {
+          // PrimitiveTypeNullHandler
+          code.loadThis();
+          code.loadLocal(target);
+          code.loadArg(0);
+          code.push(columnIndex);
+          code.invokeVirtual(SUPER_TYPE, SET_TO);
+        }
+        else {
+          code.loadLocal(target);
+          code.aconst_null();
+          write(code, owner, writer);
+        }
+        code.goTo(end);
+
+        code.mark(notNull);
+        code.loadLocal(target);
+        code.loadLocal(value);
+        if (!property.isPrimitive()) {
+          code.valueOf(valueType);
+        }
+        write(code, owner, writer);
+        code.mark(end);
+      }
+    }
+
+    code.loadLocal(target);
+    code.returnValue();
+  }
+
+  private void generateRecordMapping(CodeEmitter code, Constructor<?> constructor) {
+    Type owner = Type.fromClass(targetClass);
+    RecordComponent[] components = targetClass.getRecordComponents();
+    Local[] args = new Local[components.length];
+    for (int i = 0; i < components.length; i++) {
+      Class<?> componentType = components[i].getType();
+      Type type = Type.fromClass(componentType);
+      Local arg = code.newLocal(type);
+      args[i] = arg;
+
+      int columnIndex = componentColumns[i];
+      if (columnIndex == 0) {
+        code.zero_or_null(type);
+        code.storeLocal(arg);
+        continue;
+      }
+
+      Getter getter = Getter.find(componentType, typeHandlers[columnIndex - 1]);
+      if (getter == null) {
+        code.loadThis();
+        code.loadArg(0);
+        code.push(columnIndex);
+        code.invokeVirtual(SUPER_TYPE, GET_RESULT);
+        if (componentType.isPrimitive()) {
+          Type boxedType = type.getBoxedType();
+          code.checkCast(boxedType);
+          code.invokeStatic(GENERATOR_SUPPORT_TYPE, new MethodSignature(type, "convert", boxedType));
+        }
+        else {
+          code.checkCast(type);
+        }
+        code.storeLocal(arg);
+      }
+      else if (getter.boxedType == null || componentType.isPrimitive()) {
+        // SQL NULL reads as zero value, same as the default value of primitive type
+        getter.read(code, columnIndex);
+        code.storeLocal(arg);
+      }
+      else {
+        Type valueType = Type.fromClass(getter.valueType);
+        Local value = code.newLocal(valueType);
+        getter.read(code, columnIndex);
+        code.storeLocal(value);
+
+        Label notNull = code.newLabel();
+        Label end = code.newLabel();
+        ifNotNull(code, value, valueType, notNull);
+        code.aconst_null();
+        code.storeLocal(arg);
+        code.goTo(end);
+
+        code.mark(notNull);
+        code.loadLocal(value);
+        code.valueOf(valueType);
+        code.storeLocal(arg);
+        code.mark(end);
+      }
+    }
+
+    code.newInstance(owner);
+    code.dup();
+    for (Local arg : args) {
+      code.loadLocal(arg);
+    }
+    code.invokeConstructor(owner, MethodSignature.from(constructor));
+    code.returnValue();
+  }
+
+  /**
+   * jump to {@code notNull} if the value is not zero or the column is not SQL NULL
+   */
+  private static void ifNotNull(CodeEmitter code, Local value, Type valueType, Label notNull) {
+    code.loadLocal(value);
+    code.zero_or_null(valueType);
+    code.ifCmp(valueType, GeneratorAdapter.NE, notNull);
+    code.loadArg(0);
+    code.invokeInterface(RESULT_SET_TYPE, WAS_NULL);
+    code.ifZCmp(GeneratorAdapter.EQ, notNull);
+  }
+
+  private static void write(CodeEmitter code, Type owner, Member writer) {
+    if (writer instanceof Method method) {
+      code.invokeVirtual(owner, MethodSignature.from(method));
+      Class<?> returnType = method.getReturnType();
+      if (returnType == long.class || returnType == double.class) {
+        code.pop2();
+      }
+      else if (returnType != void.class) {
+        code.pop();
+      }
+    }
+    else {
+      Field field = (Field) writer;
+      code.putField(owner, field.getName(), Type.fromClass(field.getType()));
+    }
+  }
+
+  /**
+   * Find the write method or field that a generated class can access
+   * directly, same precedence as {@link BeanProperty#setValue}
+   */
+  @Nullable
+  private Member findWriter(BeanProperty property) {
+    Method writeMethod = property.getWriteMethod();
+    if (writeMethod != null) {
+      if (!Modifier.isStatic(writeMethod.getModifiers())
+              && writeMethod.getParameterTypes()[0] == property.getType()
+              && isAccessible(writeMethod)) {
+        return writeMethod;
+      }
+      return null;
+    }
+    Field field = property.getField();
+    if (field != null) {
+      int modifiers = field.getModifiers();
+      if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers) && isAccessible(field)) {
+        return field;
+      }
+    }
+    return null;
+  }
+
+  private boolean isAccessible(Member member) {
+    int modifiers = member.getModifiers();
+    Class<?> declaringClass = member.getDeclaringClass();
+    if (Modifier.isPublic(modifiers) && Modifier.isPublic(declaringClass.getModifiers())) {
+      return true;
+    }
+    return !Modifier.isPrivate(modifiers) && isSamePackage(declaringClass, targetClass);
+  }
+
+  private static boolean isInstantiable(Class<?> targetClass, Constructor<?> constructor) {
+    int modifiers = targetClass.getModifiers();
+    if (Modifier.isPrivate(modifiers) || Modifier.isAbstract(modifiers)
+            || Modifier.isPrivate(constructor.getModifiers())) {
+      return false;
+    }
+    return targetClass.getEnclosingClass() == null || Modifier.isStatic(modifiers);
+  }
+
+  private static boolean isSamePackage(Class<?> one, Class<?> other) {
+    return one.getClassLoader() == other.getClassLoader()
+            && one.getPackageName().equals(other.getPackageName());
+  }
+
+  private static String getClassName(Class<?> targetClass) {
+    String name = targetClass.getName();
+    StringBuilder builder = new StringBuilder(name.length() + 16);
+    if (name.startsWith("java.")) {
+      builder.append("system.");
+    }
+    return builder.append(name)
+            .append("$$RowMapper$")
+            .append(counter.incrementAndGet())
+            .toString();
+  }
+
+  /**
+   * primitive-typed {@link ResultSet} getters and the default
+   * {@link TypeHandler TypeHandlers} they are equivalent to
+   */
+  private enum Getter {
+    INT(int.class, Integer.class, IntegerTypeHandler.class, "getInt"),
+    LONG(long.class, Long.class, LongTypeHandler.class, "getLong"),
+    DOUBLE(double.class, Double.class, DoubleTypeHandler.class, "getDouble"),
+    FLOAT(float.class, Float.class, FloatTypeHandler.class, "getFloat"),
+    SHORT(short.class, Short.class, ShortTypeHandler.class, "getShort"),
+    BYTE(byte.class, Byte.class, ByteTypeHandler.class, "getByte"),
+    BOOLEAN(boolean.class, Boolean.class, BooleanTypeHandler.class, "getBoolean"),
+    STRING(String.class, null, StringTypeHandler.class, "getString"),
+    BIG_DECIMAL(BigDecimal.class, null, BigDecimalTypeHandler.class, "getBigDecimal");
+
+    final Class<?> valueType;
+
+    @Nullable
+    final Class<?> boxedType;
+
+    final Class<?> typeHandlerClass;
+
+    final MethodSignature signature;
+
+    Getter(Class<?> valueType, @Nullable Class<?> boxedType, Class<?> typeHandlerClass, String name) {
+      this.valueType = valueType;
+      this.boxedType = boxedType;
+      this.typeHandlerClass = typeHandlerClass;
+      this.signature = new MethodSignature(Type.fromClass(valueType), name, Type.INT_TYPE);
+    }
+
+    void read(CodeEmitter code, int columnIndex) {
+      code.loadArg(0);
+      code.push(columnIndex);
+      code.invokeInterface(RESULT_SET_TYPE, signature);
+    }
+
+    @Nullable
+    static Getter find(Class<?> type, TypeHandler<?> typeHandler) {
+      for (Getter getter : values()) {
+        if (typeHandler.getClass() == getter.typeHandlerClass
+                && (type == getter.valueType || type == getter.boxedType)) {
+          return getter;
+        }
+      }
+      return null;
+    }
+  }
+
+}
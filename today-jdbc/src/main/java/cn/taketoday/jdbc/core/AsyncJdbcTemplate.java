@@ -0,0 +1,302 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.beans.factory.DisposableBean;
+import cn.taketoday.core.JavaVersion;
+import cn.taketoday.core.task.VirtualThreadTaskExecutor;
+import cn.taketoday.jdbc.RepositoryManager;
+import cn.taketoday.jdbc.core.namedparam.NamedParameterJdbcOperations;
+import cn.taketoday.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import cn.taketoday.jdbc.datasource.DataSourceBulkhead;
+import cn.taketoday.jdbc.datasource.DataSourceTransactionManager;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.persistence.EntityManager;
+import cn.taketoday.transaction.PlatformTransactionManager;
+import cn.taketoday.transaction.TransactionDefinition;
+import cn.taketoday.transaction.support.TransactionCallback;
+import cn.taketoday.transaction.support.TransactionTemplate;
+import cn.taketoday.util.concurrent.Future;
+
+/**
+ * Asynchronous facade of {@link JdbcTemplate}, {@link NamedParameterJdbcTemplate}
+ * and {@link EntityManager}, the blocking JDBC calls are offloaded from
+ * the caller, such as an event loop, and the results are delivered by a
+ * {@link Future}, which can be exposed as a {@link CompletableFuture}
+ * with {@link Future#completable()}.
+ * <p>
+ * Calls run on virtual threads on JDK 21+, otherwise on a pool bounded
+ * to the concurrency limit. The number of concurrent calls is limited
+ * by the {@link DataSourceBulkhead} of the DataSource, shared by all
+ * AsyncJdbcTemplates of the DataSource, which defaults to the size of
+ * its connection pool. Calls over the limit wait in a queue without
+ * occupying a thread.
+ * <p>
+ * Each call runs on its own thread, a transaction bound to the caller
+ * thread is not propagated. Use {@link #executeInTransaction} to run
+ * several statements in one transaction:
+ * <pre>{@code
+ * asyncJdbcTemplate.executeInTransaction(status -> {
+ *   jdbcTemplate.update("UPDATE account SET balance = balance - ? WHERE id = ?", 100, 1);
+ *   jdbcTemplate.update("UPDATE account SET balance = balance + ? WHERE id = ?", 100, 2);
+ *   return null;
+ * }).onSuccess(result -> ...);
+ * }</pre>
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see DataSourceBulkhead
+ * @since 5.0
+ */
+public class AsyncJdbcTemplate implements DisposableBean {
+
+  private static final AtomicInteger poolNumber = new AtomicInteger();
+
+  private final DataSource dataSource;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  private final DataSourceBulkhead bulkhead;
+
+  private Executor executor;
+
+  @Nullable
+  private ExecutorService ownedExecutor;
+
+  @Nullable
+  private EntityManager entityManager;
+
+  private TransactionTemplate transactionTemplate;
+
+  public AsyncJdbcTemplate(DataSource dataSource) {
+    this(new JdbcTemplate(dataSource));
+  }
+
+  public AsyncJdbcTemplate(JdbcTemplate jdbcTemplate) {
+    Assert.notNull(jdbcTemplate, "JdbcTemplate is required");
+    DataSource dataSource = jdbcTemplate.getDataSource();
+    Assert.notNull(dataSource, "No DataSource set");
+    this.dataSource = dataSource;
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    this.bulkhead = DataSourceBulkhead.forDataSource(dataSource);
+    this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    this.executor = createDefaultExecutor();
+  }
+
+  /**
+   * Set the Executor to run the blocking calls, default to virtual
+   * threads on JDK 21+, or a pool that follows the bulkhead limit
+   */
+  public void setExecutor(Executor executor) {
+    Assert.notNull(executor, "executor is required");
+    shutdownOwnedExecutor();
+    this.executor = executor;
+  }
+
+  /**
+   * Set the max number of concurrent calls of the DataSource,
+   * applies to all AsyncJdbcTemplates of the DataSource
+   */
+  public void setMaxConcurrency(int maxConcurrency) {
+    bulkhead.setMaxConcurrency(maxConcurrency);
+  }
+
+  /**
+   * Set the transaction manager of {@link #executeInTransaction},
+   * default is a {@link DataSourceTransactionManager} of the DataSource
+   */
+  public void setTransactionManager(PlatformTransactionManager transactionManager) {
+    Assert.notNull(transactionManager, "transactionManager is required");
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Set the EntityManager of {@link #executeEntity}, default is
+   * the EntityManager of a {@link RepositoryManager} of the DataSource
+   */
+  public void setEntityManager(@Nullable EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  public JdbcTemplate getJdbcTemplate() {
+    return jdbcTemplate;
+  }
+
+  public NamedParameterJdbcTemplate getNamedParameterJdbcTemplate() {
+    return namedParameterJdbcTemplate;
+  }
+
+  public EntityManager getEntityManager() {
+    EntityManager entityManager = this.entityManager;
+    if (entityManager == null) {
+      entityManager = new RepositoryManager(dataSource).getEntityManager();
+      this.entityManager = entityManager;
+    }
+    return entityManager;
+  }
+
+  public DataSourceBulkhead getBulkhead() {
+    return bulkhead;
+  }
+
+  // Generic callbacks
+
+  /**
+   * Run the given blocking task, it counts against the concurrency
+   * limit of the DataSource
+   */
+  public <T> Future<T> submit(Callable<T> task) {
+    return bulkhead.submit(task, executor);
+  }
+
+  public <T> Future<T> execute(Function<JdbcOperations, T> action) {
+    Assert.notNull(action, "action is required");
+    return submit(() -> action.apply(jdbcTemplate));
+  }
+
+  public <T> Future<T> executeNamed(Function<NamedParameterJdbcOperations, T> action) {
+    Assert.notNull(action, "action is required");
+    return submit(() -> action.apply(namedParameterJdbcTemplate));
+  }
+
+  public <T> Future<T> executeEntity(Function<EntityManager, T> action) {
+    Assert.notNull(action, "action is required");
+    EntityManager entityManager = getEntityManager();
+    return submit(() -> action.apply(entityManager));
+  }
+
+  /**
+   * Run the given callback in a transaction, all statements of the
+   * callback thread take part in the transaction
+   *
+   * @param action the transactional callback
+   */
+  public <T> Future<T> executeInTransaction(TransactionCallback<T> action) {
+    Assert.notNull(action, "action is required");
+    TransactionTemplate transactionTemplate = this.transactionTemplate;
+    return submit(() -> transactionTemplate.execute(action));
+  }
+
+  /**
+   * Run the given callback in a transaction of the given definition
+   *
+   * @param definition propagation, isolation level, timeout etc.
+   * @param action the transactional callback
+   */
+  public <T> Future<T> executeInTransaction(TransactionDefinition definition, TransactionCallback<T> action) {
+    Assert.notNull(action, "action is required");
+    Assert.notNull(definition, "TransactionDefinition is required");
+    var transactionTemplate = new TransactionTemplate(this.transactionTemplate.getTransactionManager(), definition);
+    return submit(() -> transactionTemplate.execute(action));
+  }
+
+  // Shortcuts of JdbcOperations
+
+  public <T> Future<List<T>> query(String sql, RowMapper<T> rowMapper, @Nullable Object... args) {
+    return submit(() -> jdbcTemplate.query(sql, rowMapper, args));
+  }
+
+  public <T> Future<T> queryForObject(String sql, Class<T> requiredType, @Nullable Object... args) {
+    return submit(() -> jdbcTemplate.queryForObject(sql, requiredType, args));
+  }
+
+  public Future<List<Map<String, Object>>> queryForList(String sql, @Nullable Object... args) {
+    return submit(() -> jdbcTemplate.queryForList(sql, args));
+  }
+
+  public Future<Integer> update(String sql, @Nullable Object... args) {
+    return submit(() -> jdbcTemplate.update(sql, args));
+  }
+
+  public Future<int[]> batchUpdate(String sql, List<Object[]> batchArgs) {
+    return submit(() -> jdbcTemplate.batchUpdate(sql, batchArgs));
+  }
+
+  /**
+   * Shutdown the default executor
+   */
+  @Override
+  public void destroy() {
+    shutdownOwnedExecutor();
+  }
+
+  private void shutdownOwnedExecutor() {
+    ExecutorService ownedExecutor = this.ownedExecutor;
+    if (ownedExecutor != null) {
+      ownedExecutor.shutdown();
+      this.ownedExecutor = null;
+    }
+  }
+
+  /**
+   * The pool is resized to the bulkhead limit on each dispatch, the
+   * limit is shared by the DataSource and may change at any time,
+   * a smaller pool would queue the calls admitted by the bulkhead
+   */
+  private Executor createDefaultExecutor() {
+    if (JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+      return new VirtualThreadTaskExecutor("jdbc-async-");
+    }
+    String prefix = "jdbc-async-" + poolNumber.incrementAndGet() + "-";
+    AtomicInteger threadNumber = new AtomicInteger();
+    int poolSize = bulkhead.getMaxConcurrency();
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+      Thread thread = new Thread(task, prefix + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    pool.allowCoreThreadTimeOut(true);
+    this.ownedExecutor = pool;
+    return task -> {
+      resizePool(pool, bulkhead.getMaxConcurrency());
+      pool.execute(task);
+    };
+  }
+
+  static void resizePool(ThreadPoolExecutor pool, int poolSize) {
+    synchronized(pool) {
+      if (poolSize > pool.getMaximumPoolSize()) {
+        pool.setMaximumPoolSize(poolSize);
+        pool.setCorePoolSize(poolSize);
+      }
+      else if (poolSize < pool.getCorePoolSize()) {
+        pool.setCorePoolSize(poolSize);
+        pool.setMaximumPoolSize(poolSize);
+      }
+    }
+  }
+
+}
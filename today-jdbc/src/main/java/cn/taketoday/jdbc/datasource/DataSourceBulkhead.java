@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.datasource;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.util.ConcurrentReferenceHashMap;
+import cn.taketoday.util.ReflectionUtils;
+import cn.taketoday.util.concurrent.Future;
+import cn.taketoday.util.concurrent.ListenableFutureTask;
+
+/**
+ * Limits the number of tasks running concurrently against a
+ * {@link DataSource}, default to the size of its connection pool.
+ * <p>
+ * Tasks over the limit wait in a queue instead of occupying a thread
+ * that blocks on the pool, and are dispatched to the executor once a
+ * running task completed. Waiting tasks that are cancelled leave
+ * the queue.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see #forDataSource(DataSource)
+ * @since 5.0
+ */
+public class DataSourceBulkhead {
+
+  private static final Logger log = LoggerFactory.getLogger(DataSourceBulkhead.class);
+
+  /**
+   * Default limit, if pool size of the DataSource is unknown
+   */
+  public static final int DEFAULT_MAX_CONCURRENCY = 10;
+
+  /**
+   * Pool size accessors of HikariCP, DBCP2, Tomcat JDBC / Druid and c3p0
+   */
+  private static final String[] POOL_SIZE_METHODS = {
+          "getMaximumPoolSize", "getMaxTotal", "getMaxActive", "getMaxPoolSize"
+  };
+
+  private static final ConcurrentReferenceHashMap<DataSource, DataSourceBulkhead> bulkheads =
+          new ConcurrentReferenceHashMap<>(4, ConcurrentReferenceHashMap.ReferenceType.WEAK);
+
+  private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+  private int maxConcurrency;
+
+  private int running;
+
+  public DataSourceBulkhead(int maxConcurrency) {
+    Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be greater than 0");
+    this.maxConcurrency = maxConcurrency;
+  }
+
+  /**
+   * Returns the bulkhead shared by all callers of the given DataSource
+   */
+  public static DataSourceBulkhead forDataSource(DataSource dataSource) {
+    Assert.notNull(dataSource, "DataSource is required");
+    return bulkheads.computeIfAbsent(dataSource,
+            key -> new DataSourceBulkhead(determinePoolSize(key)));
+  }
+
+  /**
+   * Set the max number of running tasks, waiting tasks are
+   * dispatched if the limit increased
+   */
+  public void setMaxConcurrency(int maxConcurrency) {
+    Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be greater than 0");
+    while (true) {
+      Waiter next;
+      synchronized(this) {
+        this.maxConcurrency = maxConcurrency;
+        if (running >= maxConcurrency || (next = waiters.poll()) == null) {
+          return;
+        }
+        running++;
+      }
+      next.dispatch();
+    }
+  }
+
+  public synchronized int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  /**
+   * Number of running tasks
+   */
+  public synchronized int getRunningCount() {
+    return running;
+  }
+
+  /**
+   * Number of tasks waiting for a running task to complete
+   */
+  public synchronized int getWaitingCount() {
+    return waiters.size();
+  }
+
+  /**
+   * Submit the task, it runs on the executor when the number of
+   * running tasks is under the limit
+   *
+   * @param task the blocking task
+   * @param executor executor to run the task
+   * @return the Future of the task result
+   */
+  public <T> Future<T> submit(Callable<T> task, Executor executor) {
+    Assert.notNull(task, "task is required");
+    Assert.notNull(executor, "executor is required");
+    ListenableFutureTask<T> future = Future.forFutureTask(task);
+    Waiter waiter = new Waiter(future, executor);
+
+    boolean acquired;
+    synchronized(this) {
+      acquired = running < maxConcurrency;
+      if (acquired) {
+        running++;
+      }
+      else {
+        waiters.add(waiter);
+      }
+    }
+
+    if (acquired) {
+      waiter.dispatch();
+    }
+    else {
+      future.onCompleted(f -> {
+        if (f.isCancelled()) {
+          removeWaiter(waiter);
+        }
+      });
+    }
+    return future;
+  }
+
+  private synchronized void removeWaiter(Waiter waiter) {
+    waiters.remove(waiter);
+  }
+
+  /**
+   * Running task completed, hand over the permit to the next waiter,
+   * unless the limit has been decreased under the running tasks
+   */
+  private void release() {
+    Waiter next = null;
+    synchronized(this) {
+      if (running > maxConcurrency || (next = waiters.poll()) == null) {
+        running--;
+      }
+    }
+    if (next != null) {
+      next.dispatch();
+    }
+  }
+
+  /**
+   * Find the connection pool size of the given DataSource
+   */
+  static int determinePoolSize(DataSource dataSource) {
+    while (dataSource instanceof DelegatingDataSource delegating && delegating.getTargetDataSource() != null) {
+      dataSource = delegating.getTargetDataSource();
+    }
+    for (String name : POOL_SIZE_METHODS) {
+      Method method = ReflectionUtils.findMethod(dataSource.getClass(), name);
+      if (method != null && method.getReturnType() == int.class) {
+        try {
+          ReflectionUtils.makeAccessible(method);
+          int poolSize = (int) method.invoke(dataSource);
+          if (poolSize > 0) {
+            return poolSize;
+          }
+        }
+        catch (Exception ex) {
+          log.debug("Cannot determine pool size of DataSource using '{}'", name, ex);
+        }
+      }
+    }
+    return DEFAULT_MAX_CONCURRENCY;
+  }
+
+  private final class Waiter implements Runnable {
+
+    final ListenableFutureTask<?> future;
+
+    final Executor executor;
+
+    Waiter(ListenableFutureTask<?> future, Executor executor) {
+      this.future = future;
+      this.executor = executor;
+    }
+
+    void dispatch() {
+      try {
+        executor.execute(this);
+      }
+      catch (RejectedExecutionException ex) {
+        future.tryFailure(ex);
+        release();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        future.run();
+      }
+      finally {
+        release();
+      }
+    }
+  }
+
+}
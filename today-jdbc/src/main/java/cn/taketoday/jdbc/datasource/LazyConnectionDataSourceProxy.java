@@ -142,6 +142,18 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
     this.readOnlyDataSource = readOnlyDataSource;
   }
 
+  /**
+   * Return the variant of the target DataSource to use for read-only
+   * transactions, if any.
+   *
+   * @see #setReadOnlyDataSource
+   * @since 5.0
+   */
+  @Nullable
+  public DataSource getReadOnlyDataSource() {
+    return this.readOnlyDataSource;
+  }
+
   /**
    * Set the default auto-commit mode to expose when no target Connection
    * has been fetched yet (when the actual JDBC Connection default is not known yet).
@@ -306,6 +318,8 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
 
     private boolean closed = false;
 
+    private boolean resetReadOnly = false;
+
     @Nullable
     private Connection target;
 
@@ -429,6 +443,16 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
         return null;
       }
 
+      if (this.resetReadOnly && "close".equals(method.getName())) {
+        this.resetReadOnly = false;
+        try {
+          getTargetConnection(method).setReadOnly(false);
+        }
+        catch (SQLException ex) {
+          logger.debug("Could not reset JDBC Connection after read-only routing", ex);
+        }
+      }
+
       // Target Connection already fetched,
       // or target Connection necessary for current operation ->
       // invoke method on target connection.
@@ -475,6 +499,11 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
             logger.debug("Could not set JDBC Connection read-only", ex);
           }
         }
+        else if (dataSource == readOnlyDataSource && isEnforceReadOnly() && !this.target.isReadOnly()) {
+          // make writes fail loudly, and do not leak the flag into a shared pool
+          this.target.setReadOnly(true);
+          this.resetReadOnly = true;
+        }
         if (this.transactionIsolation != null &&
                 !this.transactionIsolation.equals(defaultTransactionIsolation())) {
           this.target.setTransactionIsolation(this.transactionIsolation);
@@ -495,8 +524,35 @@ public class LazyConnectionDataSourceProxy extends DelegatingDataSource {
     }
 
     private DataSource getDataSourceToUse() {
-      return (this.readOnly && readOnlyDataSource != null ? readOnlyDataSource : obtainTargetDataSource());
+      return determineTargetDataSource(this.readOnly);
     }
   }
 
+  /**
+   * Whether Connections obtained from the {@link #setReadOnlyDataSource
+   * read-only DataSource} should be switched to read-only explicitly, and
+   * reset when closed. Default is {@code false}, expecting the flag to be
+   * pre-configured on the read-only DataSource.
+   *
+   * @since 5.0
+   */
+  protected boolean isEnforceReadOnly() {
+    return false;
+  }
+
+  /**
+   * Determine the DataSource to fetch the physical Connection from. Invoked
+   * lazily on first creation of a Statement, i.e. once the transaction
+   * settings of the Connection handle are known.
+   * <p>The default implementation returns the {@link #setReadOnlyDataSource
+   * read-only DataSource} for read-only handles, if configured.
+   *
+   * @param readOnly whether the Connection handle has been marked as read-only
+   * @return the DataSource to use (never {@code null})
+   * @since 5.0
+   */
+  protected DataSource determineTargetDataSource(boolean readOnly) {
+    return (readOnly && readOnlyDataSource != null ? readOnlyDataSource : obtainTargetDataSource());
+  }
+
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.datasource.lookup;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.jdbc.datasource.LazyConnectionDataSourceProxy;
+import cn.taketoday.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource that routes read-only work to a read replica DataSource and
+ * everything else to the primary (target) DataSource.
+ *
+ * <p>Like its {@link LazyConnectionDataSourceProxy} superclass, the physical
+ * Connection is only fetched on first creation of a Statement, so the routing
+ * decision is taken once the transaction has been fully set up: a Connection
+ * goes to the {@link #setReadOnlyDataSource read-only DataSource} if it has been
+ * marked as read-only or the current Infra-managed transaction is read-only
+ * (e.g. {@code @Transactional(readOnly = true)}), as exposed through
+ * {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()}.
+ *
+ * <p>Routing only follows these explicit read-only markers, Connections used
+ * outside a transaction go to the primary unless marked read-only. Connections
+ * routed to the read-only DataSource are switched to
+ * {@link java.sql.Connection#setReadOnly read-only}, so that an accidental
+ * write fails instead of silently hitting a replica.
+ *
+ * <p>The read-only DataSource is usually a {@link ReplicaLoadBalancingDataSource}
+ * balancing across several replicas, with the primary as its fallback:
+ *
+ * <pre>{@code
+ * ReplicaLoadBalancingDataSource replicas = new ReplicaLoadBalancingDataSource(List.of(replica1, replica2));
+ * replicas.setFallbackDataSource(primary);
+ * replicas.setLagProbe(ReplicaLagProbe.forQuery(
+ *     "SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())"));
+ *
+ * DataSource dataSource = new ReadWriteRoutingDataSource(primary, replicas);
+ * }</pre>
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see ReplicaLoadBalancingDataSource
+ * @see TransactionSynchronizationManager#isCurrentTransactionReadOnly()
+ * @since 5.0
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy {
+
+  /**
+   * Create a new ReadWriteRoutingDataSource.
+   *
+   * @see #setTargetDataSource
+   * @see #setReadOnlyDataSource
+   */
+  public ReadWriteRoutingDataSource() { }
+
+  /**
+   * Create a new ReadWriteRoutingDataSource.
+   *
+   * @param primaryDataSource the DataSource for read-write work
+   * @param readOnlyDataSource the DataSource for read-only work
+   */
+  public ReadWriteRoutingDataSource(DataSource primaryDataSource, DataSource readOnlyDataSource) {
+    setTargetDataSource(primaryDataSource);
+    setReadOnlyDataSource(readOnlyDataSource);
+    afterPropertiesSet();
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    super.afterPropertiesSet();
+    if (getReadOnlyDataSource() == null) {
+      throw new IllegalArgumentException("Property 'readOnlyDataSource' is required");
+    }
+  }
+
+  @Override
+  protected DataSource determineTargetDataSource(boolean readOnly) {
+    DataSource readOnlyDataSource = getReadOnlyDataSource();
+    if (readOnlyDataSource != null && isReadOnlyRoute(readOnly)) {
+      return readOnlyDataSource;
+    }
+    return obtainTargetDataSource();
+  }
+
+  /**
+   * Determine whether the current Connection should be routed to the
+   * read-only DataSource.
+   *
+   * @param readOnly whether the Connection handle has been marked as read-only
+   */
+  protected boolean isReadOnlyRoute(boolean readOnly) {
+    return readOnly || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+  }
+
+  @Override
+  protected boolean isEnforceReadOnly() {
+    return true;
+  }
+
+}
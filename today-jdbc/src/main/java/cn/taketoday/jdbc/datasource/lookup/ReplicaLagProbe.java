@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.datasource.lookup;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.lang.Assert;
+
+/**
+ * Strategy to determine the replication lag of a read replica, used by
+ * {@link ReplicaLoadBalancingDataSource} to eject stale replicas.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see ReplicaLoadBalancingDataSource#setLagProbe
+ * @since 5.0
+ */
+@FunctionalInterface
+public interface ReplicaLagProbe {
+
+  /**
+   * Determine how far the given replica is behind its primary.
+   *
+   * @param replica the replica DataSource to probe
+   * @return the current replication lag, {@link Duration#ZERO} if in sync
+   * @throws SQLException if the replica could not be probed; the replica
+   * will be considered unavailable
+   */
+  Duration getReplicationLag(DataSource replica) throws SQLException;
+
+  /**
+   * Create a probe executing the given query, which is expected to return
+   * the replication lag in seconds (possibly fractional) in the first column
+   * of its first row. A {@code NULL} or empty result means "in sync".
+   * The query times out after 5 seconds.
+   * <p>For example on PostgreSQL:
+   * <pre>{@code
+   * SELECT EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp())
+   * }</pre>
+   *
+   * @param sql the lag query
+   * @return the query based probe
+   */
+  static ReplicaLagProbe forQuery(String sql) {
+    return forQuery(sql, Duration.ofSeconds(5));
+  }
+
+  /**
+   * Create a probe executing the given query with the given timeout,
+   * see {@link #forQuery(String)}.
+   *
+   * @param sql the lag query
+   * @param timeout the query timeout, rounded up to whole seconds;
+   * a replica that does not answer in time is considered unavailable
+   * @return the query based probe
+   */
+  static ReplicaLagProbe forQuery(String sql, Duration timeout) {
+    Assert.hasText(sql, "Lag query is required");
+    Assert.notNull(timeout, "timeout is required");
+    int timeoutSeconds = (int) Math.max(1, (timeout.toMillis() + 999) / 1000);
+    return replica -> {
+      try (Connection connection = replica.getConnection();
+              Statement statement = connection.createStatement()) {
+        statement.setQueryTimeout(timeoutSeconds);
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+          if (!resultSet.next()) {
+            return Duration.ZERO;
+          }
+          double seconds = resultSet.getDouble(1);
+          if (!resultSet.wasNull() && seconds > 0) {
+            return Duration.ofNanos((long) (seconds * 1_000_000_000L));
+          }
+        }
+        return Duration.ZERO;
+      }
+    };
+  }
+
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.datasource.lookup;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.beans.factory.InitializingBean;
+import cn.taketoday.core.task.SimpleAsyncTaskExecutor;
+import cn.taketoday.jdbc.datasource.AbstractDataSource;
+import cn.taketoday.jdbc.datasource.ConnectionProxy;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+
+/**
+ * {@link DataSource} that balances {@link #getConnection()} calls across a
+ * pool of read replicas, typically used as the
+ * {@link cn.taketoday.jdbc.datasource.LazyConnectionDataSourceProxy#setReadOnlyDataSource
+ * read-only DataSource} of a {@link ReadWriteRoutingDataSource}.
+ *
+ * <p>Replicas are selected either round-robin or by the least number of
+ * outstanding (currently open) connections, see {@link Strategy}. If a
+ * {@link #setLagProbe lag probe} is configured, the replication lag of every
+ * replica is checked at most once per {@link #setLagCheckInterval interval}.
+ * The check is triggered by {@link #getConnection()} but runs on the
+ * {@link #setLagCheckExecutor lag check executor}, so acquiring a connection
+ * never waits for a probe. Replicas lagging more than the
+ * {@link #setMaxLag maximum lag} (or failing the probe) are ejected until a
+ * later check reports them in sync again. {@link #checkReplicationLag()} may
+ * also be called from a scheduler.
+ *
+ * <p>If no replica is available, connections are obtained from the
+ * {@link #setFallbackDataSource fallback DataSource} (usually the primary),
+ * or an {@link SQLException} is thrown if none is configured.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see ReadWriteRoutingDataSource
+ * @see ReplicaLagProbe
+ * @since 5.0
+ */
+public class ReplicaLoadBalancingDataSource extends AbstractDataSource implements InitializingBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReplicaLoadBalancingDataSource.class);
+
+  /**
+   * Replica selection strategy.
+   */
+  public enum Strategy {
+
+    /**
+     * Cycle through the available replicas.
+     */
+    ROUND_ROBIN,
+
+    /**
+     * Choose the available replica with the fewest open connections
+     * obtained through this DataSource.
+     */
+    LEAST_OUTSTANDING
+  }
+
+  @Nullable
+  private List<DataSource> targetDataSources;
+
+  @Nullable
+  private DataSource fallbackDataSource;
+
+  private Strategy strategy = Strategy.LEAST_OUTSTANDING;
+
+  @Nullable
+  private ReplicaLagProbe lagProbe;
+
+  private Duration maxLag = Duration.ofSeconds(10);
+
+  private Duration lagCheckInterval = Duration.ofSeconds(5);
+
+  @Nullable
+  private Executor lagCheckExecutor;
+
+  private Replica[] replicas = new Replica[0];
+
+  private final AtomicInteger counter = new AtomicInteger();
+
+  private final AtomicBoolean lagCheckInProgress = new AtomicBoolean();
+
+  private volatile long nextLagCheck = System.nanoTime();
+
+  public ReplicaLoadBalancingDataSource() { }
+
+  public ReplicaLoadBalancingDataSource(List<DataSource> targetDataSources) {
+    setTargetDataSources(targetDataSources);
+    afterPropertiesSet();
+  }
+
+  /**
+   * Specify the replica DataSources to balance across.
+   */
+  public void setTargetDataSources(List<DataSource> targetDataSources) {
+    this.targetDataSources = targetDataSources;
+  }
+
+  /**
+   * Specify the DataSource to use when no replica is available,
+   * usually the primary DataSource.
+   */
+  public void setFallbackDataSource(@Nullable DataSource fallbackDataSource) {
+    this.fallbackDataSource = fallbackDataSource;
+  }
+
+  /**
+   * Set the replica selection strategy, {@link Strategy#LEAST_OUTSTANDING}
+   * by default.
+   */
+  public void setStrategy(Strategy strategy) {
+    Assert.notNull(strategy, "Strategy is required");
+    this.strategy = strategy;
+  }
+
+  /**
+   * Set the probe used to determine the replication lag of each replica.
+   * Without a probe, all replicas are considered in sync.
+   */
+  public void setLagProbe(@Nullable ReplicaLagProbe lagProbe) {
+    this.lagProbe = lagProbe;
+  }
+
+  /**
+   * Set the maximum tolerated replication lag, 10 seconds by default.
+   */
+  public void setMaxLag(Duration maxLag) {
+    Assert.notNull(maxLag, "maxLag is required");
+    this.maxLag = maxLag;
+  }
+
+  /**
+   * Set the minimum interval between two lag checks, 5 seconds by default.
+   */
+  public void setLagCheckInterval(Duration lagCheckInterval) {
+    Assert.notNull(lagCheckInterval, "lagCheckInterval is required");
+    this.lagCheckInterval = lagCheckInterval;
+  }
+
+  /**
+   * Set the executor running the lag checks triggered by {@link #getConnection()}.
+   * <p>Default is a {@link SimpleAsyncTaskExecutor} with daemon threads.
+   */
+  public void setLagCheckExecutor(@Nullable Executor lagCheckExecutor) {
+    this.lagCheckExecutor = lagCheckExecutor;
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    if (lagCheckExecutor == null) {
+      SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("replica-lag-check-");
+      executor.setDaemon(true);
+      this.lagCheckExecutor = executor;
+    }
+    if (targetDataSources == null || targetDataSources.isEmpty()) {
+      throw new IllegalArgumentException("Property 'targetDataSources' is required");
+    }
+    Replica[] replicas = new Replica[targetDataSources.size()];
+    for (int i = 0; i < replicas.length; i++) {
+      DataSource dataSource = targetDataSources.get(i);
+      Assert.notNull(dataSource, "Replica DataSource must not be null");
+      replicas[i] = new Replica(dataSource);
+    }
+    this.replicas = replicas;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    Replica replica = selectReplica();
+    if (replica != null) {
+      return replica.getConnection(null, null);
+    }
+    return obtainFallbackDataSource().getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    Replica replica = selectReplica();
+    if (replica != null) {
+      return replica.getConnection(username, password);
+    }
+    return obtainFallbackDataSource().getConnection(username, password);
+  }
+
+  /**
+   * Probe the replication lag of all replicas now, ejecting stale replicas
+   * and restoring those back in sync.
+   */
+  public void checkReplicationLag() {
+    ReplicaLagProbe lagProbe = this.lagProbe;
+    if (lagProbe == null) {
+      return;
+    }
+    for (Replica replica : replicas) {
+      boolean available;
+      try {
+        Duration lag = lagProbe.getReplicationLag(replica.dataSource);
+        available = lag.compareTo(maxLag) <= 0;
+        if (!available && replica.available) {
+          logger.warn("Ejecting read replica [{}]: replication lag {} exceeds {}", replica.dataSource, lag, maxLag);
+        }
+      }
+      catch (SQLException | RuntimeException ex) {
+        available = false;
+        if (replica.available) {
+          logger.warn("Ejecting read replica [{}]: lag probe failed", replica.dataSource, ex);
+        }
+      }
+      if (available && !replica.available) {
+        logger.info("Read replica [{}] is back in sync", replica.dataSource);
+      }
+      replica.available = available;
+    }
+  }
+
+  /**
+   * Return the number of replicas currently considered available.
+   */
+  public int getAvailableReplicaCount() {
+    int count = 0;
+    for (Replica replica : replicas) {
+      if (replica.available) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Return whether the given replica is currently considered available.
+   */
+  public boolean isAvailable(DataSource dataSource) {
+    for (Replica replica : replicas) {
+      if (replica.dataSource == dataSource) {
+        return replica.available;
+      }
+    }
+    return false;
+  }
+
+  @Nullable
+  private Replica selectReplica() {
+    checkReplicationLagIfNecessary();
+    Replica[] replicas = this.replicas;
+    Assert.state(replicas.length > 0, "No replicas configured");
+
+    int length = replicas.length;
+    int start = Math.floorMod(counter.getAndIncrement(), length);
+    Replica selected = null;
+    for (int i = 0; i < length; i++) {
+      Replica replica = replicas[(start + i) % length];
+      if (replica.available) {
+        if (strategy == Strategy.ROUND_ROBIN) {
+          return replica;
+        }
+        if (selected == null || replica.outstanding.get() < selected.outstanding.get()) {
+          selected = replica;
+        }
+      }
+    }
+    return selected;
+  }
+
+  private void checkReplicationLagIfNecessary() {
+    if (lagProbe != null && System.nanoTime() - nextLagCheck >= 0
+            && lagCheckInProgress.compareAndSet(false, true)) {
+      Runnable check = () -> {
+        try {
+          checkReplicationLag();
+        }
+        finally {
+          nextLagCheck = System.nanoTime() + lagCheckInterval.toNanos();
+          lagCheckInProgress.set(false);
+        }
+      };
+      Executor executor = lagCheckExecutor;
+      try {
+        Assert.state(executor != null, "No lag check executor, call afterPropertiesSet()");
+        executor.execute(check);
+      }
+      catch (RuntimeException ex) {
+        logger.warn("Could not schedule replication lag check", ex);
+        nextLagCheck = System.nanoTime() + lagCheckInterval.toNanos();
+        lagCheckInProgress.set(false);
+      }
+    }
+  }
+
+  private DataSource obtainFallbackDataSource() throws SQLException {
+    if (fallbackDataSource == null) {
+      throw new SQLException("No read replica available and no fallback DataSource configured");
+    }
+    return fallbackDataSource;
+  }
+
+  private final class Replica {
+
+    final DataSource dataSource;
+
+    final AtomicInteger outstanding = new AtomicInteger();
+
+    volatile boolean available = true;
+
+    Replica(DataSource dataSource) {
+      this.dataSource = dataSource;
+    }
+
+    Connection getConnection(@Nullable String username, @Nullable String password) throws SQLException {
+      if (strategy != Strategy.LEAST_OUTSTANDING) {
+        return username != null ? dataSource.getConnection(username, password) : dataSource.getConnection();
+      }
+
+      outstanding.incrementAndGet();
+      Connection target;
+      try {
+        target = username != null ? dataSource.getConnection(username, password) : dataSource.getConnection();
+      }
+      catch (SQLException | RuntimeException ex) {
+        outstanding.decrementAndGet();
+        throw ex;
+      }
+      return (Connection) Proxy.newProxyInstance(
+              ConnectionProxy.class.getClassLoader(),
+              new Class<?>[] { ConnectionProxy.class },
+              new OutstandingConnectionInvocationHandler(target, outstanding));
+    }
+  }
+
+  /**
+   * Invocation handler that releases the outstanding slot of a replica
+   * when the Connection gets closed.
+   */
+  private static final class OutstandingConnectionInvocationHandler implements InvocationHandler {
+
+    private final Connection target;
+
+    private final AtomicInteger outstanding;
+
+    private boolean closed;
+
+    OutstandingConnectionInvocationHandler(Connection target, AtomicInteger outstanding) {
+      this.target = target;
+      this.outstanding = outstanding;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals" -> {
+          return proxy == args[0];
+        }
+        case "hashCode" -> {
+          return System.identityHashCode(proxy);
+        }
+        case "getTargetConnection" -> {
+          return target;
+        }
+        case "close" -> {
+          if (!closed) {
+            closed = true;
+            outstanding.decrementAndGet();
+          }
+        }
+      }
+
+      try {
+        return method.invoke(target, args);
+      }
+      catch (InvocationTargetException ex) {
+        throw ex.getTargetException();
+      }
+    }
+  }
+
+}
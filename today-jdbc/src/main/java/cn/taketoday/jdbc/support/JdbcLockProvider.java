@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.support;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.dao.DataIntegrityViolationException;
+import cn.taketoday.jdbc.core.JdbcTemplate;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.scheduling.lock.LockConfiguration;
+import cn.taketoday.scheduling.lock.LockProvider;
+import cn.taketoday.scheduling.lock.SimpleLock;
+
+/**
+ * {@link LockProvider} that keeps scheduled task locks in a database table,
+ * one row per lock name:
+ *
+ * <pre>{@code
+ * CREATE TABLE scheduled_lock (
+ *   name       VARCHAR(64)  NOT NULL PRIMARY KEY,
+ *   lock_until TIMESTAMP    NOT NULL,
+ *   locked_at  TIMESTAMP    NOT NULL,
+ *   locked_by  VARCHAR(255) NOT NULL
+ * );
+ * }</pre>
+ *
+ * <p>A lock is acquired by inserting its row or, once the row exists, by a
+ * conditional update of an expired row; both are single atomic statements so no
+ * transaction is required. Lock expiry is based on the clock of the application
+ * nodes, which should therefore be synchronized.
+ *
+ * <p>Each acquisition stores its own token in {@code locked_by}, the owner
+ * followed by a random UUID, and is released by that token only. A lock
+ * that expired and was taken over, even by the same host, is therefore
+ * never released by the previous holder.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see cn.taketoday.scheduling.annotation.SchedulerLock
+ * @since 5.0
+ */
+public class JdbcLockProvider implements LockProvider {
+
+  /**
+   * The default name of the lock table.
+   */
+  public static final String DEFAULT_TABLE_NAME = "scheduled_lock";
+
+  private static final Logger log = LoggerFactory.getLogger(JdbcLockProvider.class);
+
+  private final JdbcTemplate jdbcTemplate;
+
+  private final Set<String> existingLocks = ConcurrentHashMap.newKeySet();
+
+  private String tableName = DEFAULT_TABLE_NAME;
+
+  private String lockedBy = getHostName();
+
+  private Clock clock = Clock.systemUTC();
+
+  public JdbcLockProvider(DataSource dataSource) {
+    this(new JdbcTemplate(dataSource));
+  }
+
+  public JdbcLockProvider(JdbcTemplate jdbcTemplate) {
+    Assert.notNull(jdbcTemplate, "JdbcTemplate is required");
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Set the name of the lock table. Default is {@value #DEFAULT_TABLE_NAME}.
+   */
+  public void setTableName(String tableName) {
+    Assert.hasText(tableName, "tableName must not be empty");
+    this.tableName = tableName;
+  }
+
+  /**
+   * Set the owner stored as the prefix of the lock token. Default is the host name.
+   */
+  public void setLockedBy(String lockedBy) {
+    Assert.hasText(lockedBy, "lockedBy must not be empty");
+    this.lockedBy = lockedBy;
+  }
+
+  /**
+   * Set the clock used to determine lock expiration.
+   */
+  public void setClock(Clock clock) {
+    Assert.notNull(clock, "Clock is required");
+    this.clock = clock;
+  }
+
+  @Nullable
+  @Override
+  public SimpleLock lock(LockConfiguration configuration) {
+    String name = configuration.getName();
+    Timestamp lockUntil = Timestamp.from(configuration.getLockAtMostUntil());
+    Timestamp now = Timestamp.from(this.clock.instant());
+    String token = this.lockedBy + "/" + UUID.randomUUID();
+    if (!this.existingLocks.contains(name)) {
+      if (insertLock(name, lockUntil, now, token)) {
+        this.existingLocks.add(name);
+        return () -> unlock(configuration, token);
+      }
+      this.existingLocks.add(name);
+    }
+    int updated = this.jdbcTemplate.update("UPDATE " + this.tableName
+                    + " SET lock_until = ?, locked_at = ?, locked_by = ? WHERE name = ? AND lock_until <= ?",
+            lockUntil, now, token, name, now);
+    return (updated > 0) ? () -> unlock(configuration, token) : null;
+  }
+
+  private boolean insertLock(String name, Timestamp lockUntil, Timestamp now, String token) {
+    try {
+      return this.jdbcTemplate.update("INSERT INTO " + this.tableName
+              + " (name, lock_until, locked_at, locked_by) VALUES (?, ?, ?, ?)", name, lockUntil, now, token) > 0;
+    }
+    catch (DataIntegrityViolationException ex) {
+      // Duplicate key, the row will be updated instead
+      if (log.isTraceEnabled()) {
+        log.trace("Lock row '{}' not inserted: {}", name, ex.getMessage());
+      }
+      return false;
+    }
+  }
+
+  private void unlock(LockConfiguration configuration, String token) {
+    Instant unlockTime = configuration.getUnlockTime(this.clock.instant());
+    this.jdbcTemplate.update("UPDATE " + this.tableName + " SET lock_until = ? WHERE name = ? AND locked_by = ?",
+            Timestamp.from(unlockTime), configuration.getName(), token);
+  }
+
+  private static String getHostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    }
+    catch (UnknownHostException ex) {
+      return "unknown";
+    }
+  }
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import cn.taketoday.dao.DataAccessException;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Collects the entity lookups by id of a unit of work, the pending ids
+ * of an entity class are loaded with one {@link EntityManager#findByIds}
+ * call when the first of them is resolved, instead of one query per id.
+ *
+ * <pre>{@code
+ * BatchFetcher fetcher = new BatchFetcher(entityManager);
+ * for (Order order : orders) {
+ *   order.customer = fetcher.fetch(Customer.class, order.customerId);
+ * }
+ * // loads the customers of all orders in one query
+ * Customer customer = orders.get(0).customer.get();
+ * }</pre>
+ *
+ * <p>Loaded entities are kept for the lifetime of the fetcher, so it should
+ * be scoped to a unit of work such as a request. This class is not thread-safe.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see EntityManager#findByIds
+ * @since 5.0
+ */
+public class BatchFetcher {
+
+  private final EntityManager entityManager;
+
+  private final HashMap<Class<?>, Batch> batches = new HashMap<>();
+
+  public BatchFetcher(EntityManager entityManager) {
+    Assert.notNull(entityManager, "entityManager is required");
+    this.entityManager = entityManager;
+  }
+
+  /**
+   * Register a lookup by id, the returned supplier loads all pending
+   * ids of the entity class on the first access, and returns
+   * {@code null} if the entity not exist
+   *
+   * @param entityClass entity class
+   * @param id primary key
+   */
+  public <T> Supplier<T> fetch(Class<T> entityClass, Object id) {
+    Assert.notNull(id, "id is required");
+    Batch batch = batches.computeIfAbsent(entityClass, Batch::new);
+    if (!batch.loaded.containsKey(id)) {
+      batch.pending.add(id);
+    }
+    return () -> entityClass.cast(batch.get(id));
+  }
+
+  /**
+   * Find the entity by id, together with the pending ids of the entity class
+   *
+   * @param entityClass entity class
+   * @param id primary key
+   */
+  @Nullable
+  public <T> T get(Class<T> entityClass, Object id) throws DataAccessException {
+    return fetch(entityClass, id).get();
+  }
+
+  /**
+   * Load all pending ids
+   */
+  public void flush() throws DataAccessException {
+    for (Batch batch : batches.values()) {
+      batch.load();
+    }
+  }
+
+  /**
+   * Clear loaded entities and pending ids
+   */
+  public void clear() {
+    batches.clear();
+  }
+
+  private final class Batch {
+
+    final Class<?> entityClass;
+
+    final LinkedHashSet<Object> pending = new LinkedHashSet<>();
+
+    // null value: entity not exist
+    final HashMap<Object, Object> loaded = new HashMap<>();
+
+    Batch(Class<?> entityClass) {
+      this.entityClass = entityClass;
+    }
+
+    @Nullable
+    Object get(Object id) {
+      if (!loaded.containsKey(id)) {
+        pending.add(id);
+        load();
+      }
+      return loaded.get(id);
+    }
+
+    void load() {
+      if (!pending.isEmpty()) {
+        var ids = new ArrayList<>(pending);
+        Map<Object, ?> entities = entityManager.findByIds(entityClass, ids);
+        for (Object id : ids) {
+          loaded.put(id, entities.get(id));
+        }
+        pending.clear();
+      }
+    }
+  }
+
+}
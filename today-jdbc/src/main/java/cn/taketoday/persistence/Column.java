@@ -57,4 +57,12 @@ public @interface Column {
   @AliasFor("value")
   String name() default Constant.BLANK;
 
+  /**
+   * (Optional) Whether the database column is nullable.
+   * Keyset pagination only sorts on columns that are not nullable.
+   *
+   * @since 5.0
+   */
+  boolean nullable() default true;
+
 }
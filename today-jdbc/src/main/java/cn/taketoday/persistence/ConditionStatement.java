@@ -46,8 +46,9 @@ public interface ConditionStatement extends DebugDescriptive {
    *
    * @param metadata entity info
    * @param statement JDBC statement
+   * @return the next parameter index
    */
-  void setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException;
+  int setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException;
 
   @Override
   default String getDescription() {
@@ -27,6 +27,10 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -35,6 +39,7 @@ import java.util.function.Function;
 
 import javax.sql.DataSource;
 
+import cn.taketoday.cache.CacheManager;
 import cn.taketoday.core.Pair;
 import cn.taketoday.dao.DataAccessException;
 import cn.taketoday.dao.DataRetrievalFailureException;
@@ -54,11 +59,11 @@ import cn.taketoday.logging.LogMessage;
 import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
 import cn.taketoday.persistence.dialect.Platform;
-import cn.taketoday.persistence.sql.Insert;
+import cn.taketoday.persistence.sql.KeysetRestriction;
+import cn.taketoday.persistence.sql.MutableOrderByClause;
 import cn.taketoday.persistence.sql.OrderByClause;
 import cn.taketoday.persistence.sql.Restriction;
 import cn.taketoday.persistence.sql.SimpleSelect;
-import cn.taketoday.persistence.sql.Update;
 import cn.taketoday.transaction.TransactionDefinition;
 import cn.taketoday.util.CollectionUtils;
 
@@ -94,11 +99,24 @@ public class DefaultEntityManager implements EntityManager {
 
   private SqlStatementLogger stmtLogger = SqlStatementLogger.sharedInstance;
 
+  private int maxStatementPlans = 1024;
+
+  private boolean poolableStatements = true;
+
+  private boolean multiRowInsert = false;
+
+  private int maxMultiRowInsertRows = 1000;
+
+  private StatementPlanCache statementPlans = new StatementPlanCache(platform, maxStatementPlans);
+
   @Nullable
   private TransactionDefinition transactionConfig = TransactionDefinition.withDefaults();
 
   private QueryHandlerFactories handlerFactories = new QueryHandlerFactories(entityMetadataFactory);
 
+  @Nullable
+  private EntityCache entityCache;
+
   private final DataSource dataSource;
 
   public DefaultEntityManager(RepositoryManager repositoryManager) {
@@ -108,6 +126,7 @@ public class DefaultEntityManager implements EntityManager {
 
   public void setPlatform(@Nullable Platform platform) {
     this.platform = platform == null ? Platform.forClasspath() : platform;
+    this.statementPlans = new StatementPlanCache(this.platform, maxStatementPlans);
   }
 
   public void setDefaultUpdateStrategy(PropertyUpdateStrategy defaultUpdateStrategy) {
@@ -124,6 +143,66 @@ public class DefaultEntityManager implements EntityManager {
     Assert.notNull(entityMetadataFactory, "entityMetadataFactory is required");
     this.entityMetadataFactory = entityMetadataFactory;
     this.handlerFactories = new QueryHandlerFactories(entityMetadataFactory);
+    this.statementPlans = new StatementPlanCache(platform, maxStatementPlans);
+  }
+
+  /**
+   * Set the maximum number of cached statement plans.
+   * <p>Statements of the same entity, operation and shape (properties
+   * to update, restrictions) reuse the rendered SQL and the ordered
+   * properties to bind. Once the limit is reached, the least recently
+   * used plans are evicted. Default is 1024.
+   *
+   * @param maxStatementPlans max number of plans, 0 disables the cache
+   * @since 5.0
+   */
+  public void setMaxStatementPlans(int maxStatementPlans) {
+    Assert.isTrue(maxStatementPlans >= 0, "maxStatementPlans should be a non-negative value");
+    this.maxStatementPlans = maxStatementPlans;
+    this.statementPlans = new StatementPlanCache(platform, maxStatementPlans);
+  }
+
+  /**
+   * Set the hint to the driver or connection pool whether statements
+   * rendered from a cached plan should be pooled, default is {@code true}.
+   *
+   * @see PreparedStatement#setPoolable(boolean)
+   * @since 5.0
+   */
+  public void setPoolableStatements(boolean poolableStatements) {
+    this.poolableStatements = poolableStatements;
+  }
+
+  /**
+   * Set whether batch persist should render multi-row
+   * {@code INSERT ... VALUES (...), (...)} statements (Oracle:
+   * {@code INSERT ALL}) instead of adding one parameter set per entity
+   * to a JDBC batch, which many drivers execute as one round trip per
+   * entity. Default is {@code false}.
+   * <p>Rows per statement are bounded by {@link #setMaxMultiRowInsertRows}
+   * and the {@link Platform#getMaxBindParameters() parameter limit} of the
+   * platform; {@link #setMaxBatchRecords maxBatchRecords} does not apply.
+   * If generated keys are requested but the platform does not return them
+   * for multi-row statements, JDBC batching is used instead.
+   *
+   * @see Platform#getMultiRowInsertString
+   * @since 5.0
+   */
+  public void setMultiRowInsert(boolean multiRowInsert) {
+    this.multiRowInsert = multiRowInsert;
+  }
+
+  /**
+   * Set the maximum number of rows of a multi-row INSERT or upsert
+   * statement, default is 1000.
+   *
+   * @see #setMultiRowInsert(boolean)
+   * @see #persistOrUpdate(Iterable)
+   * @since 5.0
+   */
+  public void setMaxMultiRowInsertRows(int maxMultiRowInsertRows) {
+    Assert.isTrue(maxMultiRowInsertRows > 0, "maxMultiRowInsertRows should be a positive value");
+    this.maxMultiRowInsertRows = maxMultiRowInsertRows;
   }
 
   /**
@@ -204,6 +283,22 @@ public class DefaultEntityManager implements EntityManager {
     this.transactionConfig = definition;
   }
 
+  /**
+   * Set the CacheManager of the second-level entity cache.
+   * <p>Entities found by id are cached by their id in the cache named
+   * after the table name, tables without such a cache are not cached.
+   * Cached entities are evicted on updates and deletes through this
+   * entity manager, statements without an id clear the cache of the
+   * table. The cache holds shallow copies, found entities are copies
+   * too and may be modified.
+   *
+   * @param cacheManager CacheManager, {@code null} disables the cache
+   * @since 5.0
+   */
+  public void setCacheManager(@Nullable CacheManager cacheManager) {
+    this.entityCache = cacheManager != null ? new EntityCache(cacheManager) : null;
+  }
+
   // ---------------------------------------------------------------------
   // Implementation of EntityManager
   // ---------------------------------------------------------------------
@@ -230,10 +325,10 @@ public class DefaultEntityManager implements EntityManager {
       strategy = defaultUpdateStrategy(entity);
     }
 
-    var pair = insertStatement(strategy, entity, entityMetadata);
+    var plan = statementPlans.insert(entityMetadata, entity, strategy);
 
     if (stmtLogger.isDebugEnabled()) {
-      stmtLogger.logStatement(LogMessage.format("Persisting entity: {}", entity), pair.first);
+      stmtLogger.logStatement(LogMessage.format("Persisting entity: {}", entity), plan.sql);
     }
 
     Connection con = DataSourceUtils.getConnection(dataSource);
@@ -241,8 +336,8 @@ public class DefaultEntityManager implements EntityManager {
     ResultSet generatedKeys = null;
     try {
       autoGenerateId = autoGenerateId || entityMetadata.autoGeneratedId;
-      statement = prepareStatement(con, pair.first, autoGenerateId);
-      setParameters(entity, pair.second, statement);
+      statement = prepareStatement(con, plan.sql, autoGenerateId);
+      setParameters(entity, plan.properties, statement);
       // execute
       int updateCount = statement.executeUpdate();
       if (autoGenerateId) {
@@ -261,7 +356,7 @@ public class DefaultEntityManager implements EntityManager {
       return updateCount;
     }
     catch (SQLException ex) {
-      throw translateException("Persisting entity", pair.first, ex);
+      throw translateException("Persisting entity", plan.sql, ex);
     }
     finally {
       closeResource(con, statement, generatedKeys);
@@ -287,31 +382,159 @@ public class DefaultEntityManager implements EntityManager {
   public void persist(Iterable<?> entities, @Nullable PropertyUpdateStrategy strategy, boolean autoGenerateId)
           throws DataAccessException //
   {
+    doBatchPersist(entities, strategy, autoGenerateId, false);
+  }
+
+  @Override
+  public int persistOrUpdate(Object entity) throws DataAccessException {
+    return persistOrUpdate(entity, null);
+  }
+
+  @Override
+  public int persistOrUpdate(Object entity, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    EntityMetadata entityMetadata = entityMetadataFactory.getEntityMetadata(entity.getClass());
+    EntityProperty idProperty = requireIdProperty(entityMetadata);
+    if (strategy == null) {
+      strategy = defaultUpdateStrategy(entity);
+    }
+    if (idProperty.getValue(entity) == null) {
+      return persist(entity, strategy, autoGenerateId);
+    }
+
+    if (!platform.supportsUpsert()) {
+      Connection con = DataSourceUtils.getConnection(dataSource);
+      try {
+        int updateCount = updateOrInsert(con, entity, entityMetadata, idProperty, strategy);
+        evict(entityMetadata, idProperty.getValue(entity));
+        return updateCount;
+      }
+      catch (SQLException ex) {
+        throw translateException("Persisting or updating entity", null, ex);
+      }
+      finally {
+        closeResource(con, null);
+      }
+    }
+
+    var plan = statementPlans.upsert(entityMetadata, idProperty, entity, strategy);
+    if (stmtLogger.isDebugEnabled()) {
+      stmtLogger.logStatement(LogMessage.format("Persisting or updating entity: {}", entity), plan.sql);
+    }
+
+    Connection con = DataSourceUtils.getConnection(dataSource);
+    PreparedStatement statement = null;
+    try {
+      statement = prepareStatement(con, plan.sql);
+      setParameters(entity, plan.properties, statement);
+      int updateCount = statement.executeUpdate();
+      evict(entityMetadata, idProperty.getValue(entity));
+      return updateCount;
+    }
+    catch (SQLException ex) {
+      throw translateException("Persisting or updating entity", plan.sql, ex);
+    }
+    finally {
+      closeResource(con, statement);
+    }
+  }
+
+  @Override
+  public void persistOrUpdate(Iterable<?> entities) throws DataAccessException {
+    persistOrUpdate(entities, null);
+  }
+
+  @Override
+  public void persistOrUpdate(Iterable<?> entities, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    doBatchPersist(entities, strategy, autoGenerateId, true);
+  }
+
+  /**
+   * Batch persist entities in one transaction
+   *
+   * @param upsertExisting whether entities with an ID should be inserted
+   * or updated using upsert statements
+   */
+  private void doBatchPersist(Iterable<?> entities, @Nullable PropertyUpdateStrategy strategy,
+          boolean autoGenerateId, boolean upsertExisting) throws DataAccessException {
     try (var transaction = repositoryManager.beginTransaction(transactionConfig)) {
       int maxBatchRecords = getMaxBatchRecords();
-      var statements = new HashMap<Class<?>, PreparedBatch>(8);
+      var statements = new HashMap<Class<?>, EntityBatch>(8);
+      var upserts = new HashMap<Class<?>, EntityBatch>(8);
+      var evictions = entityCache != null && upsertExisting ? new ArrayList<Object>() : null;
       try {
         for (Object entity : entities) {
           Class<?> entityClass = entity.getClass();
-          PreparedBatch batch = statements.get(entityClass);
+          if (upsertExisting) {
+            EntityMetadata entityMetadata = entityMetadataFactory.getEntityMetadata(entityClass);
+            EntityProperty idProperty = requireIdProperty(entityMetadata);
+            if (idProperty.getValue(entity) != null) {
+              if (!platform.supportsUpsert()) {
+                PropertyUpdateStrategy strategyToUse = strategy;
+                if (strategyToUse == null) {
+                  strategyToUse = defaultUpdateStrategy(entity);
+                }
+                updateOrInsert(transaction.getJdbcConnection(), entity, entityMetadata, idProperty, strategyToUse);
+                if (evictions != null) {
+                  evictions.add(entity);
+                }
+                continue;
+              }
+              EntityBatch batch = upserts.get(entityClass);
+              if (batch == null) {
+                PropertyUpdateStrategy strategyToUse = strategy;
+                if (strategyToUse == null) {
+                  strategyToUse = defaultUpdateStrategy(entity);
+                }
+                var plan = statementPlans.upsert(entityMetadata, idProperty, entity, strategyToUse);
+                batch = createMultiRowBatch(transaction.getJdbcConnection(), strategyToUse,
+                        entityMetadata, plan.properties, false, true);
+                upserts.put(entityClass, batch);
+              }
+              batch.addBatchUpdate(entity, maxBatchRecords);
+              if (evictions != null) {
+                evictions.add(entity);
+              }
+              continue;
+            }
+          }
+
+          EntityBatch batch = statements.get(entityClass);
           if (batch == null) {
             EntityMetadata entityMetadata = entityMetadataFactory.getEntityMetadata(entityClass);
             PropertyUpdateStrategy strategyToUse = strategy;
             if (strategyToUse == null) {
               strategyToUse = defaultUpdateStrategy(entity);
             }
-            var pair = insertStatement(strategyToUse, entity, entityMetadata);
-            batch = new PreparedBatch(transaction.getJdbcConnection(), pair.first, strategyToUse, entityMetadata,
-                    pair.second, autoGenerateId || entityMetadata.autoGeneratedId);
+            var plan = statementPlans.insert(entityMetadata, entity, strategyToUse);
+            boolean generateId = autoGenerateId || entityMetadata.autoGeneratedId;
+            if (multiRowInsert && plan.properties.length > 0 && (!generateId
+                    || entityMetadata.idProperty == null || platform.supportsMultiRowInsertGeneratedKeys())) {
+              batch = createMultiRowBatch(transaction.getJdbcConnection(), strategyToUse,
+                      entityMetadata, plan.properties, generateId, false);
+            }
+            else {
+              batch = new PreparedBatch(transaction.getJdbcConnection(), plan.sql, strategyToUse,
+                      entityMetadata, plan.properties, generateId);
+            }
             statements.put(entityClass, batch);
           }
           batch.addBatchUpdate(entity, maxBatchRecords);
         }
 
-        for (PreparedBatch preparedBatch : statements.values()) {
-          preparedBatch.explicitExecuteBatch();
+        for (EntityBatch batch : statements.values()) {
+          batch.explicitExecuteBatch();
+        }
+        for (EntityBatch batch : upserts.values()) {
+          batch.explicitExecuteBatch();
         }
         transaction.commit(false);
+
+        if (evictions != null) {
+          for (Object entity : evictions) {
+            EntityMetadata entityMetadata = entityMetadataFactory.getEntityMetadata(entity.getClass());
+            evict(entityMetadata, entityMetadata.idProperty().getValue(entity));
+          }
+        }
       }
       catch (Throwable ex) {
         transaction.rollback(false);
@@ -326,6 +549,60 @@ public class DefaultEntityManager implements EntityManager {
     }
   }
 
+  private MultiRowBatch createMultiRowBatch(Connection connection, PropertyUpdateStrategy strategy,
+          EntityMetadata entityMetadata, EntityProperty[] properties, boolean autoGenerateId, boolean upsert) {
+    int rowsPerStatement = Math.max(1, Math.min(maxMultiRowInsertRows,
+            platform.getMaxBindParameters() / Math.max(1, properties.length)));
+    String sql = renderRows(entityMetadata, properties, upsert, rowsPerStatement);
+    return new MultiRowBatch(connection, sql, strategy, entityMetadata,
+            properties, autoGenerateId, upsert, rowsPerStatement);
+  }
+
+  /**
+   * Fallback for platforms without native upserts: UPDATE by ID, then
+   * INSERT if no row was updated. Unlike a native upsert this is not
+   * atomic, a concurrent INSERT of the same ID fails with a duplicate key.
+   */
+  private int updateOrInsert(Connection con, Object entity, EntityMetadata entityMetadata,
+          EntityProperty idProperty, PropertyUpdateStrategy strategy) throws SQLException {
+    var update = statementPlans.updateById(entityMetadata, idProperty, entity, updateExcludeId(strategy));
+    if (stmtLogger.isDebugEnabled()) {
+      stmtLogger.logStatement(LogMessage.format("Updating entity before inserting: {}", entity), update.sql);
+    }
+    PreparedStatement statement = prepareStatement(con, update.sql);
+    try {
+      int idx = setParameters(entity, update.properties, statement);
+      idProperty.setTo(statement, idx, entity);
+      int updateCount = statement.executeUpdate();
+      if (updateCount > 0) {
+        return updateCount;
+      }
+    }
+    finally {
+      closeResource(null, statement);
+    }
+
+    var insert = statementPlans.insert(entityMetadata, entity, strategy);
+    if (stmtLogger.isDebugEnabled()) {
+      stmtLogger.logStatement(LogMessage.format("Inserting entity, no row updated: {}", entity), insert.sql);
+    }
+    statement = prepareStatement(con, insert.sql);
+    try {
+      setParameters(entity, insert.properties, statement);
+      return statement.executeUpdate();
+    }
+    finally {
+      closeResource(null, statement);
+    }
+  }
+
+  private static EntityProperty requireIdProperty(EntityMetadata entityMetadata) {
+    if (entityMetadata.idProperty == null) {
+      throw new InvalidDataAccessApiUsageException("Persisting or updating an entity, Id property not found");
+    }
+    return entityMetadata.idProperty;
+  }
+
   @Override
   public int update(Object entity) throws DataAccessException {
     return update(entity, null);
@@ -345,45 +622,26 @@ public class DefaultEntityManager implements EntityManager {
       }
     }
 
-    Update updateStmt = new Update(metadata.tableName);
-
-    ArrayList<EntityProperty> properties = new ArrayList<>(4);
-    ArrayList<EntityProperty> updateByProperties = new ArrayList<>(2);
-    for (EntityProperty property : metadata.entityPropertiesExcludeId) {
-      if (property.isPresent(UpdateBy.class)) {
-        updateByProperties.add(property);
-        updateStmt.addRestriction(property.columnName);
-      }
-      else if (strategy.shouldUpdate(entity, property)) {
-        properties.add(property);
-        updateStmt.addAssignment(property.columnName);
-      }
-    }
-
-    if (properties.isEmpty()) {
-      throw new InvalidDataAccessApiUsageException("Updating an entity, There is no update properties");
-    }
-
-    if (updateByProperties.isEmpty()) {
-      throw new InvalidDataAccessApiUsageException("Updating an entity, There is no update by properties");
-    }
-
-    String sql = updateStmt.toStatementString(platform);
+    var plan = statementPlans.update(metadata, entity, strategy);
+    String sql = plan.sql;
 
     if (stmtLogger.isDebugEnabled()) {
-      stmtLogger.logStatement(LogMessage.format("Updating entity using: '{}'", updateByProperties), sql);
+      stmtLogger.logStatement(LogMessage.format("Updating entity using: '{}'",
+              Arrays.toString(plan.restrictionProperties)), sql);
     }
 
     Connection con = DataSourceUtils.getConnection(dataSource);
     PreparedStatement statement = null;
     try {
-      statement = con.prepareStatement(sql);
-      int idx = setParameters(entity, properties, statement);
+      statement = prepareStatement(con, sql);
+      int idx = setParameters(entity, plan.properties, statement);
       // apply where parameters
-      for (EntityProperty updateBy : updateByProperties) {
+      for (EntityProperty updateBy : plan.restrictionProperties) {
         updateBy.setTo(statement, idx++, entity);
       }
-      return statement.executeUpdate();
+      int updateCount = statement.executeUpdate();
+      clearCache(metadata);
+      return updateCount;
     }
     catch (SQLException ex) {
       throw translateException("Updating entity", sql, ex);
@@ -444,22 +702,8 @@ public class DefaultEntityManager implements EntityManager {
   }
 
   private int doUpdateById(Object entity, Object id, EntityProperty idProperty, EntityMetadata metadata, PropertyUpdateStrategy strategy) {
-    Update updateStmt = new Update(metadata.tableName);
-    updateStmt.addRestriction(idProperty.columnName);
-
-    ArrayList<EntityProperty> properties = new ArrayList<>();
-    for (EntityProperty property : metadata.entityProperties) {
-      if (strategy.shouldUpdate(entity, property)) {
-        updateStmt.addAssignment(property.columnName);
-        properties.add(property);
-      }
-    }
-
-    if (properties.isEmpty()) {
-      throw new InvalidDataAccessApiUsageException("Updating an entity, There is no update properties");
-    }
-
-    String sql = updateStmt.toStatementString(platform);
+    var plan = statementPlans.updateById(metadata, idProperty, entity, strategy);
+    String sql = plan.sql;
 
     if (stmtLogger.isDebugEnabled()) {
       stmtLogger.logStatement(LogMessage.format("Updating entity using ID: '{}'", id), sql);
@@ -468,11 +712,13 @@ public class DefaultEntityManager implements EntityManager {
     Connection con = DataSourceUtils.getConnection(dataSource);
     PreparedStatement statement = null;
     try {
-      statement = con.prepareStatement(sql);
-      int idx = setParameters(entity, properties, statement);
+      statement = prepareStatement(con, sql);
+      int idx = setParameters(entity, plan.properties, statement);
       // last one is ID
       idProperty.setParameter(statement, idx, id);
-      return statement.executeUpdate();
+      int updateCount = statement.executeUpdate();
+      evict(metadata, id);
+      return updateCount;
     }
     catch (SQLException ex) {
       throw translateException("Updating entity By ID", sql, ex);
@@ -491,39 +737,31 @@ public class DefaultEntityManager implements EntityManager {
   public int updateBy(Object entity, String where, @Nullable PropertyUpdateStrategy strategy) {
     EntityMetadata metadata = entityMetadataFactory.getEntityMetadata(entity.getClass());
 
-    Update updateStmt = new Update(metadata.tableName);
-
     if (strategy == null) {
       strategy = defaultUpdateStrategy(entity);
     }
 
     EntityProperty updateBy = null;
-    ArrayList<EntityProperty> properties = new ArrayList<>();
     for (EntityProperty property : metadata.entityProperties) {
       // columnName or property name
       if (Objects.equals(where, property.columnName)
               || Objects.equals(where, property.property.getName())) {
         updateBy = property;
       }
-      else if (strategy.shouldUpdate(entity, property)) {
-        updateStmt.addAssignment(property.columnName);
-        properties.add(property);
-      }
     }
 
     if (updateBy == null) {
       throw new InvalidDataAccessApiUsageException("Updating an entity, 'where' property '%s' not found".formatted(where));
     }
 
-    updateStmt.addRestriction(updateBy.columnName);
-
     Object updateByValue = updateBy.getValue(entity);
     if (updateByValue == null) {
       throw new InvalidDataAccessApiUsageException(
               "Updating an entity, 'where' property value '%s' is required".formatted(where));
     }
 
-    String sql = updateStmt.toStatementString(platform);
+    var plan = statementPlans.updateBy(metadata, updateBy, entity, strategy);
+    String sql = plan.sql;
     if (stmtLogger.isDebugEnabled()) {
       stmtLogger.logStatement(LogMessage.format("Updating entity using {} : '{}'", where, updateByValue), sql);
     }
@@ -531,11 +769,18 @@ public class DefaultEntityManager implements EntityManager {
     Connection con = DataSourceUtils.getConnection(dataSource);
     PreparedStatement statement = null;
     try {
-      statement = con.prepareStatement(sql);
-      int idx = setParameters(entity, properties, statement);
+      statement = prepareStatement(con, sql);
+      int idx = setParameters(entity, plan.properties, statement);
       // last one is where
       updateBy.setParameter(statement, idx, updateByValue);
-      return statement.executeUpdate();
+      int updateCount = statement.executeUpdate();
+      if (updateBy.isIdProperty) {
+        evict(metadata, updateByValue);
+      }
+      else {
+        clearCache(metadata);
+      }
+      return updateCount;
     }
     catch (SQLException ex) {
       throw translateException("Updating entity By " + where, sql, ex);
@@ -553,12 +798,7 @@ public class DefaultEntityManager implements EntityManager {
       throw new InvalidDataAccessApiUsageException("Deleting an entity, Id property not found");
     }
 
-    StringBuilder sql = new StringBuilder();
-    sql.append("DELETE FROM ");
-    sql.append(metadata.tableName);
-    sql.append(" WHERE `");
-    sql.append(metadata.idProperty.columnName);
-    sql.append("` = ? ");
+    String sql = statementPlans.deleteById(metadata, metadata.idProperty).sql;
 
     if (stmtLogger.isDebugEnabled()) {
       stmtLogger.logStatement(LogMessage.format("Deleting entity using ID: {}", id), sql);
@@ -567,12 +807,14 @@ public class DefaultEntityManager implements EntityManager {
     Connection con = DataSourceUtils.getConnection(dataSource);
     PreparedStatement statement = null;
     try {
-      statement = con.prepareStatement(sql.toString());
+      statement = prepareStatement(con, sql);
       metadata.idProperty.setParameter(statement, 1, id);
-      return statement.executeUpdate();
+      int updateCount = statement.executeUpdate();
+      evict(metadata, id);
+      return updateCount;
     }
     catch (SQLException ex) {
-      throw translateException("Deleting entity using ID", sql.toString(), ex);
+      throw translateException("Deleting entity using ID", sql, ex);
     }
     finally {
       closeResource(con, statement);
@@ -590,18 +832,18 @@ public class DefaultEntityManager implements EntityManager {
 
     ExampleQuery exampleQuery = null;
 
-    StringBuilder sql = new StringBuilder();
-    sql.append("DELETE FROM ");
-    sql.append(metadata.tableName);
+    String sql;
     if (id != null) {
       // delete by id
-      sql.append(" WHERE `");
-      sql.append(metadata.idProperty.columnName);
-      sql.append("` = ? ");
+      sql = statementPlans.deleteById(metadata, metadata.idProperty).sql;
     }
     else {
+      StringBuilder sqlBuilder = new StringBuilder();
+      sqlBuilder.append("DELETE FROM ");
+      sqlBuilder.append(metadata.tableName);
       exampleQuery = new ExampleQuery(entityOrExample, metadata);
-      exampleQuery.renderWhereClause(sql);
+      exampleQuery.renderWhereClause(sqlBuilder);
+      sql = sqlBuilder.toString();
     }
 
     if (stmtLogger.isDebugEnabled()) {
@@ -611,7 +853,7 @@ public class DefaultEntityManager implements EntityManager {
     Connection con = DataSourceUtils.getConnection(dataSource);
     PreparedStatement statement = null;
     try {
-      statement = con.prepareStatement(sql.toString());
+      statement = id != null ? prepareStatement(con, sql) : con.prepareStatement(sql);
       if (id != null) {
         metadata.idProperty.setParameter(statement, 1, id);
       }
@@ -619,10 +861,17 @@ public class DefaultEntityManager implements EntityManager {
         exampleQuery.setParameter(metadata, statement);
       }
 
-      return statement.executeUpdate();
+      int updateCount = statement.executeUpdate();
+      if (id != null) {
+        evict(metadata, id);
+      }
+      else {
+        clearCache(metadata);
+      }
+      return updateCount;
     }
     catch (SQLException ex) {
-      throw translateException("Deleting entity", sql.toString(), ex);
+      throw translateException("Deleting entity", sql, ex);
     }
     finally {
       closeResource(con, statement);
@@ -651,7 +900,88 @@ public class DefaultEntityManager implements EntityManager {
   @Override
   @Nullable
   public <T> T findById(Class<T> entityClass, Object id) throws DataAccessException {
-    return iterate(entityClass, new FindByIdQuery(id)).first();
+    EntityCache entityCache = this.entityCache;
+    if (entityCache == null) {
+      return iterate(entityClass, new FindByIdQuery(id)).first();
+    }
+
+    EntityMetadata metadata = entityMetadataFactory.getEntityMetadata(entityClass);
+    T entity = entityCache.get(metadata, id, entityClass);
+    if (entity == null) {
+      long stamp = entityCache.stamp(metadata);
+      entity = iterate(entityClass, new FindByIdQuery(id)).first();
+      if (entity != null) {
+        entityCache.put(metadata, id, entity, stamp);
+      }
+    }
+    return entity;
+  }
+
+  /**
+   * Find entities by primary keys, cached entities are not queried,
+   * the others are loaded with {@code WHERE id IN (...)} statements
+   * sized to the {@link Platform#getMaxInListSize() IN list limit}
+   * of the platform.
+   */
+  @Override
+  public <T> Map<Object, T> findByIds(Class<T> entityClass, Collection<?> ids) throws DataAccessException {
+    EntityMetadata metadata = entityMetadataFactory.getEntityMetadata(entityClass);
+    EntityProperty idProperty = metadata.idProperty();
+
+    var found = new HashMap<Object, T>(ids.size());
+    var pending = new LinkedHashSet<Object>(ids);
+    EntityCache entityCache = this.entityCache;
+    if (entityCache != null) {
+      Iterator<Object> iterator = pending.iterator();
+      while (iterator.hasNext()) {
+        Object id = iterator.next();
+        T entity = entityCache.get(metadata, id, entityClass);
+        if (entity != null) {
+          found.put(id, entity);
+          iterator.remove();
+        }
+      }
+    }
+
+    if (!pending.isEmpty()) {
+      long stamp = entityCache != null ? entityCache.stamp(metadata) : 0;
+      int batchSize = Math.max(1, platform.getMaxInListSize());
+      var batch = new ArrayList<Object>(Math.min(batchSize, pending.size()));
+      for (Object id : pending) {
+        batch.add(id);
+        if (batch.size() == batchSize) {
+          fetchByIds(entityClass, metadata, idProperty, List.copyOf(batch), found, stamp);
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        fetchByIds(entityClass, metadata, idProperty, batch, found, stamp);
+      }
+    }
+
+    var entities = new LinkedHashMap<Object, T>(found.size());
+    for (Object id : ids) {
+      T entity = found.get(id);
+      if (entity != null) {
+        entities.put(id, entity);
+      }
+    }
+    return entities;
+  }
+
+  private <T> void fetchByIds(Class<T> entityClass, EntityMetadata metadata,
+          EntityProperty idProperty, List<Object> ids, Map<Object, T> found, long stamp) {
+    EntityCache entityCache = this.entityCache;
+    try (EntityIterator<T> iterator = iterate(entityClass, new FindByIdsQuery(ids))) {
+      while (iterator.hasNext()) {
+        T entity = iterator.next();
+        Object id = idProperty.getValue(entity);
+        found.put(id, entity);
+        if (entityCache != null) {
+          entityCache.put(metadata, id, entity, stamp);
+        }
+      }
+    }
   }
 
   @Nullable
@@ -890,6 +1220,10 @@ public class DefaultEntityManager implements EntityManager {
       pageable = defaultPageable();
     }
 
+    if (pageable instanceof KeysetPageable keyset) {
+      return keysetPage(entityClass, handler, keyset);
+    }
+
     ArrayList<Restriction> restrictions = new ArrayList<>();
     EntityMetadata metadata = entityMetadataFactory.getEntityMetadata(entityClass);
     handler.renderWhereClause(metadata, restrictions);
@@ -933,19 +1267,137 @@ public class DefaultEntityManager implements EntityManager {
     }
   }
 
-  private Number doQueryCount(EntityMetadata metadata, ConditionStatement handler, ArrayList<Restriction> restrictions, Connection con) throws DataAccessException {
-    StringBuilder countSql = new StringBuilder(restrictions.size() * 10 + 25 + metadata.tableName.length());
-    countSql.append("SELECT COUNT(*) FROM `")
-            .append(metadata.tableName)
-            .append('`');
+  private <T> Page<T> keysetPage(Class<T> entityClass, ConditionStatement handler, KeysetPageable pageable) throws DataAccessException {
+    EntityMetadata metadata = entityMetadataFactory.getEntityMetadata(entityClass);
 
-    Restriction.render(restrictions, countSql);
+    var sortKeys = pageable.sortKeys();
+    var keys = new ArrayList<EntityProperty>(sortKeys.size() + 1);
+    var orders = new ArrayList<Order>(sortKeys.size() + 1);
+    for (Pair<String, Order> sortKey : sortKeys) {
+      EntityProperty property = metadata.findProperty(sortKey.first);
+      if (property == null) {
+        throw new InvalidDataAccessApiUsageException("Keyset property '%s' not found".formatted(sortKey.first));
+      }
+      if (property.isNullable()) {
+        // a null value on the last row cannot continue the page
+        throw new InvalidDataAccessApiUsageException(
+                "Keyset property '%s' must not be nullable, use the ID, a primitive or a @Column(nullable = false) property"
+                        .formatted(sortKey.first));
+      }
+      keys.add(property);
+      orders.add(sortKey.second);
+    }
 
-    String statement = countSql.toString();
-    ResultSet resultSet = null;
+    // ID makes the order unique
+    if (metadata.idProperty != null && !keys.contains(metadata.idProperty)) {
+      keys.add(metadata.idProperty);
+      orders.add(orders.isEmpty() ? Order.ASC : orders.get(orders.size() - 1));
+    }
+
+    if (keys.isEmpty()) {
+      throw new InvalidDataAccessApiUsageException("Keyset pagination requires sort keys or an ID property");
+    }
+
+    Object[] lastValues = pageable.lastValues();
+    if (lastValues != null && lastValues.length != keys.size()) {
+      throw new InvalidDataAccessApiUsageException("Keyset values not match the sort keys: " + keys);
+    }
+
+    String[] columns = new String[keys.size()];
+    MutableOrderByClause orderByClause = OrderByClause.mutable();
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = keys.get(i).columnName;
+      orderByClause.orderBy(columns[i], orders.get(i));
+    }
+
+    ArrayList<Restriction> restrictions = new ArrayList<>();
+    handler.renderWhereClause(metadata, restrictions);
+
+    Connection con = DataSourceUtils.getConnection(dataSource);
+    String statement = null;
     PreparedStatement stmt = null;
     try {
+      Number count = null;
+      if (pageable.countTotal()) {
+        count = doQueryCount(metadata, handler, restrictions, con);
+      }
+
+      var selectRestrictions = new ArrayList<>(restrictions);
+      KeysetRestriction keyset = null;
+      if (lastValues != null) {
+        keyset = new KeysetRestriction(columns, orders.toArray(new Order[0]), platform.supportsRowValueComparison());
+        selectRestrictions.add(keyset);
+      }
+
+      int pageSize = pageable.pageSize();
+      statement = new SimpleSelect(Arrays.asList(metadata.columnNames), selectRestrictions)
+              .setTableName(metadata.tableName)
+              .orderBy(orderByClause)
+              .limit(pageSize + 1) // look ahead one row for the next page
+              .toStatementString(platform);
+
       stmt = con.prepareStatement(statement);
+      int idx = handler.setParameter(metadata, stmt);
+      if (keyset != null) {
+        // keyset parameters follow the condition parameters
+        for (int valueIndex : keyset.valueIndexes()) {
+          EntityProperty property = keys.get(valueIndex);
+          property.setParameter(stmt, idx++, keysetValue(property, lastValues[valueIndex]));
+        }
+      }
+
+      if (stmtLogger.isDebugEnabled()) {
+        stmtLogger.logStatement(handler.getDebugLogMessage(), statement);
+      }
+
+      List<T> rows = new DefaultEntityIterator<T>(con, stmt, entityClass, metadata).list(pageSize + 1);
+      String continuationToken = null;
+      if (rows.size() > pageSize) {
+        rows = new ArrayList<>(rows.subList(0, pageSize));
+        T last = rows.get(pageSize - 1);
+        Object[] values = new Object[keys.size()];
+        for (int i = 0; i < values.length; i++) {
+          EntityProperty property = keys.get(i);
+          values[i] = property.getValue(last);
+          if (values[i] == null) {
+            throw new InvalidDataAccessApiUsageException(
+                    "Keyset property '%s' value is required".formatted(property.property.getName()));
+          }
+        }
+        continuationToken = KeysetPageable.continuationToken(pageable.pageNumber() + 1, values);
+      }
+      return new Page<>(pageable, count, rows, continuationToken);
+    }
+    catch (Throwable ex) {
+      closeResource(con, stmt);
+      if (ex instanceof DataAccessException dae) {
+        throw dae;
+      }
+      if (ex instanceof SQLException) {
+        throw translateException(handler.getDescription(), statement, (SQLException) ex);
+      }
+      throw new DataRetrievalFailureException("Unable to retrieve the keyset pageable data ", ex);
+    }
+  }
+
+  /**
+   * enum values are stored as its name in the continuation token
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Object keysetValue(EntityProperty property, Object value) {
+    Class<?> type = property.property.getType();
+    if (value instanceof String name && type.isEnum()) {
+      return Enum.valueOf((Class) type, name);
+    }
+    return value;
+  }
+
+  private Number doQueryCount(EntityMetadata metadata, ConditionStatement handler, ArrayList<Restriction> restrictions, Connection con) throws DataAccessException {
+    String statement = statementPlans.count(metadata, restrictions);
+    ResultSet resultSet = null;
+    PreparedStatement stmt = null;
+    try {
+      stmt = prepareStatement(con, statement);
       handler.setParameter(metadata, stmt);
 
       if (stmtLogger.isDebugEnabled()) {
@@ -966,6 +1418,20 @@ public class DefaultEntityManager implements EntityManager {
     }
   }
 
+  private void evict(EntityMetadata metadata, Object id) {
+    EntityCache entityCache = this.entityCache;
+    if (entityCache != null) {
+      entityCache.evict(metadata, id);
+    }
+  }
+
+  private void clearCache(EntityMetadata metadata) {
+    EntityCache entityCache = this.entityCache;
+    if (entityCache != null) {
+      entityCache.clear(metadata);
+    }
+  }
+
   /**
    * default Pageable
    */
@@ -988,26 +1454,24 @@ public class DefaultEntityManager implements EntityManager {
 
   protected PreparedStatement prepareStatement(Connection connection, String sql, boolean autoGenerateId) throws SQLException {
     if (autoGenerateId) {
-      return connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+      return prepareStatement(connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS));
     }
-    return connection.prepareStatement(sql);
+    return prepareStatement(connection, sql);
   }
 
-  private DataAccessException translateException(String task, @Nullable String sql, SQLException ex) {
-    return repositoryManager.translateException(task, sql, ex);
+  private PreparedStatement prepareStatement(Connection connection, String sql) throws SQLException {
+    return prepareStatement(connection.prepareStatement(sql));
   }
 
-  private Pair<String, ArrayList<EntityProperty>> insertStatement(PropertyUpdateStrategy strategy, Object entity, EntityMetadata entityMetadata) {
-    Insert insert = new Insert(entityMetadata.tableName);
-    var properties = new ArrayList<EntityProperty>(entityMetadata.entityProperties.length);
-    for (EntityProperty property : entityMetadata.entityProperties) {
-      if (strategy.shouldUpdate(entity, property)) {
-        insert.addColumn(property.columnName);
-        properties.add(property);
-      }
+  private PreparedStatement prepareStatement(PreparedStatement statement) throws SQLException {
+    if (!poolableStatements) {
+      statement.setPoolable(false);
     }
+    return statement;
+  }
 
-    return Pair.of(insert.toStatementString(platform), properties);
+  private DataAccessException translateException(String task, @Nullable String sql, SQLException ex) {
+    return repositoryManager.translateException(task, sql, ex);
   }
 
   private void closeResource(@Nullable Connection connection, @Nullable PreparedStatement statement) {
@@ -1057,7 +1521,7 @@ public class DefaultEntityManager implements EntityManager {
 
   //
 
-  private static int setParameters(Object entity, ArrayList<EntityProperty> properties, PreparedStatement statement) throws SQLException {
+  private static int setParameters(Object entity, EntityProperty[] properties, PreparedStatement statement) throws SQLException {
     int idx = 1;
     for (EntityProperty property : properties) {
       property.setTo(statement, idx++, entity);
@@ -1110,21 +1574,53 @@ public class DefaultEntityManager implements EntityManager {
 
   }
 
-  final class PreparedBatch extends BatchExecution {
+  /**
+   * Entities of one class, persisted in batches
+   */
+  abstract class EntityBatch extends BatchExecution {
+
+    EntityBatch(String sql, PropertyUpdateStrategy strategy, EntityMetadata entityMetadata, boolean autoGenerateId) {
+      super(sql, strategy, entityMetadata, autoGenerateId);
+    }
+
+    public abstract void addBatchUpdate(Object entity, int maxBatchRecords) throws Throwable;
+
+    public abstract void explicitExecuteBatch() throws Throwable;
+
+    protected final void afterProcessing(boolean implicitExecution, @Nullable Throwable exception) {
+      if (CollectionUtils.isNotEmpty(batchPersistListeners)) {
+        for (BatchPersistListener listener : batchPersistListeners) {
+          listener.afterProcessing(this, implicitExecution, exception);
+        }
+      }
+    }
+
+    protected final void beforeProcessing(boolean implicitExecution) {
+      if (CollectionUtils.isNotEmpty(batchPersistListeners)) {
+        for (BatchPersistListener listener : batchPersistListeners) {
+          listener.beforeProcessing(this, implicitExecution);
+        }
+      }
+    }
+
+  }
+
+  final class PreparedBatch extends EntityBatch {
 
     public final PreparedStatement statement;
 
-    public final ArrayList<EntityProperty> properties;
+    public final EntityProperty[] properties;
 
     public int currentBatchRecords = 0;
 
     PreparedBatch(Connection connection, String sql, PropertyUpdateStrategy strategy,
-            EntityMetadata entityMetadata, ArrayList<EntityProperty> properties, boolean autoGenerateId) throws SQLException {
+            EntityMetadata entityMetadata, EntityProperty[] properties, boolean autoGenerateId) throws SQLException {
       super(sql, strategy, entityMetadata, autoGenerateId);
       this.properties = properties;
       this.statement = prepareStatement(connection, sql, autoGenerateId);
     }
 
+    @Override
     public void addBatchUpdate(Object entity, int maxBatchRecords) throws Throwable {
       entities.add(entity);
       PreparedStatement statement = this.statement;
@@ -1135,6 +1631,7 @@ public class DefaultEntityManager implements EntityManager {
       }
     }
 
+    @Override
     public void explicitExecuteBatch() throws Throwable {
       executeBatch(statement, false);
       closeResource(null, statement);
@@ -1178,22 +1675,150 @@ public class DefaultEntityManager implements EntityManager {
       }
     }
 
-    private void afterProcessing(boolean implicitExecution, @Nullable Throwable exception) {
-      if (CollectionUtils.isNotEmpty(batchPersistListeners)) {
-        for (BatchPersistListener listener : batchPersistListeners) {
-          listener.afterProcessing(this, implicitExecution, exception);
+  }
+
+  /**
+   * Renders up to {@code rowsPerStatement} entities into one multi-row
+   * INSERT or upsert statement, generated keys are assigned in row order.
+   * The statement of full chunks is prepared once per batch, only a final
+   * partial chunk needs its own statement.
+   */
+  final class MultiRowBatch extends EntityBatch {
+
+    private final Connection connection;
+
+    /**
+     * Statement of {@code rowsPerStatement} rows, re-used by all full chunks
+     */
+    @Nullable
+    private PreparedStatement statement;
+
+    public final EntityProperty[] properties;
+
+    public final int rowsPerStatement;
+
+    private final boolean upsert;
+
+    /**
+     * IDs of the pending upsert rows, a statement must not touch the same
+     * row twice: PostgreSQL and Oracle reject it
+     */
+    @Nullable
+    private final HashSet<Object> pendingIds;
+
+    MultiRowBatch(Connection connection, String sql, PropertyUpdateStrategy strategy, EntityMetadata entityMetadata,
+            EntityProperty[] properties, boolean autoGenerateId, boolean upsert, int rowsPerStatement) {
+      super(sql, strategy, entityMetadata, autoGenerateId);
+      this.upsert = upsert;
+      this.pendingIds = upsert ? new HashSet<>() : null;
+      this.connection = connection;
+      this.properties = properties;
+      this.rowsPerStatement = rowsPerStatement;
+    }
+
+    @Override
+    public void addBatchUpdate(Object entity, int maxBatchRecords) throws Throwable {
+      if (pendingIds != null) {
+        // upsert plans bind the ID first
+        Object id = properties[0].getValue(entity);
+        if (!pendingIds.add(id)) {
+          executeRows(true);
+          pendingIds.add(id);
         }
       }
+      entities.add(entity);
+      if (entities.size() >= rowsPerStatement) {
+        executeRows(true);
+      }
     }
 
-    private void beforeProcessing(boolean implicitExecution) {
-      if (CollectionUtils.isNotEmpty(batchPersistListeners)) {
-        for (BatchPersistListener listener : batchPersistListeners) {
-          listener.beforeProcessing(this, implicitExecution);
+    @Override
+    public void explicitExecuteBatch() throws Throwable {
+      try {
+        if (!entities.isEmpty()) {
+          executeRows(false);
+        }
+      }
+      finally {
+        closeResource(null, this.statement);
+        this.statement = null;
+      }
+    }
+
+    private void executeRows(boolean implicitExecution) throws Throwable {
+      beforeProcessing(implicitExecution);
+      int rows = entities.size();
+      boolean full = rows == rowsPerStatement;
+      String sql = full ? this.sql : renderRows(entityMetadata, properties, upsert, rows);
+      if (stmtLogger.isDebugEnabled()) {
+        stmtLogger.logStatement(LogMessage.format("Executing multi-row statement, rows: {}", rows), sql);
+      }
+
+      Throwable exception = null;
+      PreparedStatement statement = null;
+      ResultSet generatedKeys = null;
+      try {
+        if (full) {
+          statement = this.statement;
+          if (statement == null) {
+            statement = prepareStatement(connection, sql, autoGenerateId);
+            this.statement = statement;
+          }
+        }
+        else {
+          statement = prepareStatement(connection, sql, autoGenerateId);
+        }
+        int idx = 1;
+        for (Object entity : entities) {
+          for (EntityProperty property : properties) {
+            property.setTo(statement, idx++, entity);
+          }
+        }
+        int updateCount = statement.executeUpdate();
+        if (!upsert) {
+          assertUpdateCount(sql, updateCount, rows);
+        }
+
+        if (autoGenerateId) {
+          EntityProperty idProperty = entityMetadata.idProperty;
+          if (idProperty != null) {
+            try {
+              generatedKeys = statement.getGeneratedKeys();
+              for (Object entity : entities) {
+                if (generatedKeys.next()) {
+                  idProperty.setProperty(entity, generatedKeys, 1);
+                }
+              }
+            }
+            catch (SQLException e) {
+              throw new GeneratedKeysException("Cannot get generated keys", e);
+            }
+          }
+        }
+      }
+      catch (Throwable e) {
+        exception = e;
+        throw e;
+      }
+      finally {
+        closeResource(null, full ? null : statement, generatedKeys);
+        afterProcessing(implicitExecution, exception);
+        this.entities.clear();
+        if (pendingIds != null) {
+          pendingIds.clear();
         }
       }
     }
 
   }
 
+  private String renderRows(EntityMetadata entityMetadata, EntityProperty[] properties, boolean upsert, int rows) {
+    List<String> columns = StatementPlanCache.columnNames(properties);
+    if (upsert) {
+      // upsert plans bind the ID first
+      return platform.getUpsertString(entityMetadata.tableName, columns, List.of(properties[0].columnName), rows);
+    }
+    return platform.getMultiRowInsertString(entityMetadata.tableName, columns, rows);
+  }
+
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.taketoday.cache.Cache;
+import cn.taketoday.cache.CacheManager;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.transaction.support.TransactionSynchronization;
+import cn.taketoday.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Second-level entity cache, entities are cached by their id in the
+ * {@link Cache} named after the table name, so that updates through
+ * other entity classes of the same table, such as {@link EntityRef}
+ * classes, invalidate them too. Tables without a cache in the
+ * {@link CacheManager} are not cached.
+ * <p>
+ * The cache holds copies of the entities and hands out copies, so
+ * callers may modify found entities. Copies are shallow, the mapped
+ * property values themselves are shared.
+ * <p>
+ * Invalidations are applied immediately, and again after the current
+ * transaction completed, so that rows read inside the transaction
+ * before its rollback are not kept. Each invalidation advances the
+ * {@link #stamp stamp} of the table, a read-through {@link #put} only
+ * caches the entity if the stamp it read under is still current, so a
+ * row read before a concurrent update never overwrites its eviction.
+ * Entities read inside a transaction are never cached, they may be
+ * rows written but not committed by that transaction.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+final class EntityCache {
+
+  private final CacheManager cacheManager;
+
+  private final ConcurrentHashMap<String, AtomicLong> invalidations = new ConcurrentHashMap<>();
+
+  EntityCache(CacheManager cacheManager) {
+    this.cacheManager = cacheManager;
+  }
+
+  @Nullable
+  private Cache getCache(EntityMetadata metadata) {
+    return cacheManager.getCache(metadata.tableName);
+  }
+
+  private AtomicLong invalidation(EntityMetadata metadata) {
+    return invalidations.computeIfAbsent(metadata.tableName, name -> new AtomicLong());
+  }
+
+  /**
+   * Stamp of the table, to be taken before reading the entities
+   * passed to {@link #put}
+   */
+  public long stamp(EntityMetadata metadata) {
+    return invalidation(metadata).get();
+  }
+
+  /**
+   * @return a copy of the cached entity, {@code null} if not cached
+   * or cached by another entity class
+   */
+  @Nullable
+  public <T> T get(EntityMetadata metadata, Object id, Class<T> entityClass) {
+    Cache cache = getCache(metadata);
+    if (cache != null) {
+      Cache.ValueWrapper wrapper = cache.get(id);
+      if (wrapper != null && entityClass.isInstance(wrapper.get())) {
+        return entityClass.cast(copy(metadata, wrapper.get()));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Cache a copy of the entity read under the given stamp, unless
+   * the table has been invalidated since or the entity has been read
+   * inside a transaction
+   */
+  public void put(EntityMetadata metadata, Object id, Object entity, long stamp) {
+    if (TransactionSynchronizationManager.isActualTransactionActive()) {
+      // may see uncommitted rows, other threads must not
+      return;
+    }
+    Cache cache = getCache(metadata);
+    if (cache != null) {
+      AtomicLong invalidation = invalidation(metadata);
+      if (invalidation.get() == stamp) {
+        cache.putIfAbsent(id, copy(metadata, entity));
+        // an invalidation between the check and the put may have missed it
+        if (invalidation.get() != stamp) {
+          cache.evictIfPresent(id);
+        }
+      }
+    }
+  }
+
+  public void evict(EntityMetadata metadata, Object id) {
+    Cache cache = getCache(metadata);
+    if (cache != null) {
+      AtomicLong invalidation = invalidation(metadata);
+      invalidation.incrementAndGet();
+      cache.evictIfPresent(id);
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+          @Override
+          public void afterCompletion(int status) {
+            invalidation.incrementAndGet();
+            cache.evictIfPresent(id);
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Rows affected by a statement are unknown, clear all entities
+   */
+  public void clear(EntityMetadata metadata) {
+    Cache cache = getCache(metadata);
+    if (cache != null) {
+      AtomicLong invalidation = invalidation(metadata);
+      invalidation.incrementAndGet();
+      cache.invalidate();
+      if (TransactionSynchronizationManager.isSynchronizationActive()) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+          @Override
+          public void afterCompletion(int status) {
+            invalidation.incrementAndGet();
+            cache.invalidate();
+          }
+        });
+      }
+    }
+  }
+
+  private static Object copy(EntityMetadata metadata, Object entity) {
+    Object copy = metadata.root.newInstance();
+    for (EntityProperty property : metadata.entityProperties) {
+      property.setValue(copy, property.getValue(entity));
+    }
+    return copy;
+  }
+
+}
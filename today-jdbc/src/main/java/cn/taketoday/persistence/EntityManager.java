@@ -19,6 +19,8 @@ package cn.taketoday.persistence;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
@@ -173,6 +175,57 @@ public interface EntityManager {
     persist(new StreamIterable<>(entities), strategy, autoGenerateId);
   }
 
+  /**
+   * Persist the given entity if it has no ID yet, otherwise insert it or
+   * update the existing row with the same ID in a single statement
+   * ({@code ON DUPLICATE KEY UPDATE}, {@code ON CONFLICT DO UPDATE} or
+   * {@code MERGE}, depending on the
+   * {@link cn.taketoday.persistence.dialect.Platform Platform}).
+   *
+   * @param entity entity instance
+   * @return update count as reported by the driver
+   * @throws IllegalEntityException entity metadata parsing failed
+   * @since 5.0
+   */
+  int persistOrUpdate(Object entity) throws DataAccessException;
+
+  /**
+   * Persist the given entity if it has no ID yet, otherwise insert it or
+   * update the existing row with the same ID in a single statement.
+   *
+   * @param entity entity instance
+   * @param strategy property persist strategy
+   * @return update count as reported by the driver
+   * @throws IllegalEntityException entity metadata parsing failed
+   * @see #persistOrUpdate(Object)
+   * @since 5.0
+   */
+  int persistOrUpdate(Object entity, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException;
+
+  /**
+   * Persist the entities without an ID, and insert or update the entities
+   * with an ID using multi-row upsert statements, in one transaction.
+   * Generated keys are assigned to the persisted entities in order.
+   *
+   * @param entities entities instances
+   * @throws IllegalEntityException entity metadata parsing failed
+   * @see #persistOrUpdate(Object)
+   * @since 5.0
+   */
+  void persistOrUpdate(Iterable<?> entities) throws DataAccessException;
+
+  /**
+   * Persist the entities without an ID, and insert or update the entities
+   * with an ID using multi-row upsert statements, in one transaction.
+   *
+   * @param entities entities instances
+   * @param strategy property persist strategy
+   * @throws IllegalEntityException entity metadata parsing failed
+   * @see #persistOrUpdate(Iterable)
+   * @since 5.0
+   */
+  void persistOrUpdate(Iterable<?> entities, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException;
+
   /**
    * Merge the state of the given entity into underlying repository
    *
@@ -293,6 +346,29 @@ public interface EntityManager {
   @Nullable
   <T> T findById(Class<T> entityClass, Object id) throws DataAccessException;
 
+  /**
+   * Find entities by primary keys, implementations should load them in
+   * as few queries as possible, the ids should be of the id property type.
+   *
+   * @param entityClass entity class
+   * @param ids primary keys
+   * @return found entities keyed by the given ids, in the order of ids,
+   * entities not exist are absent
+   * @throws IllegalEntityException entityClass is legal entity
+   * @see BatchFetcher
+   * @since 5.0
+   */
+  default <T> Map<Object, T> findByIds(Class<T> entityClass, Collection<?> ids) throws DataAccessException {
+    var entities = new LinkedHashMap<Object, T>();
+    for (Object id : ids) {
+      T entity = findById(entityClass, id);
+      if (entity != null) {
+        entities.put(id, entity);
+      }
+    }
+    return entities;
+  }
+
   /**
    * @throws IllegalEntityException entityClass is legal entity
    */
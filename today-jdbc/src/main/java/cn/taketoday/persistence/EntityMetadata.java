@@ -48,6 +48,12 @@ public class EntityMetadata {
   @Nullable
   public final EntityProperty idProperty;
 
+  /**
+   * @since 5.0
+   */
+  @Nullable
+  public final EntityProperty shardKeyProperty;
+
   public final BeanProperty[] beanProperties;
 
   public final String[] columnNames;
@@ -75,6 +81,7 @@ public class EntityMetadata {
     this.columnNames = StringUtils.toStringArray(columnNames);
     this.beanProperties = beanProperties.toArray(new BeanProperty[0]);
     this.entityProperties = entityProperties.toArray(new EntityProperty[0]);
+    this.shardKeyProperty = determineShardKey(this.entityProperties);
 
     if (idProperty != null) {
       entityProperties.remove(idProperty);
@@ -94,6 +101,20 @@ public class EntityMetadata {
     return propertyMap;
   }
 
+  @Nullable
+  private EntityProperty determineShardKey(EntityProperty[] entityProperties) {
+    EntityProperty shardKey = null;
+    for (EntityProperty property : entityProperties) {
+      if (property.isPresent(ShardKey.class)) {
+        if (shardKey != null) {
+          throw new IllegalEntityException("Only one ShardKey property supported, entity: " + entityClass);
+        }
+        shardKey = property;
+      }
+    }
+    return shardKey;
+  }
+
   private boolean determineGeneratedId(@Nullable EntityProperty idProperty) {
     if (idProperty != null) {
       return MergedAnnotations.from(idProperty.property, idProperty.property.getAnnotations())
@@ -115,6 +136,20 @@ public class EntityMetadata {
     return idProperty;
   }
 
+  /**
+   * obtain shard key property
+   *
+   * @throws IllegalEntityException shard key property not found
+   * @since 5.0
+   */
+  public EntityProperty shardKeyProperty() throws IllegalEntityException {
+    EntityProperty shardKeyProperty = this.shardKeyProperty;
+    if (shardKeyProperty == null) {
+      throw new IllegalEntityException("ShardKey property is required");
+    }
+    return shardKeyProperty;
+  }
+
   /**
    * FInd property
    */
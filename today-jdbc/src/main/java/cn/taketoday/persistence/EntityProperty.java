@@ -142,6 +142,20 @@ public class EntityProperty {
     property.setDirectly(entity, propertyValue);
   }
 
+  /**
+   * The ID, primitive and {@code @Column(nullable = false)} properties
+   * never hold {@code null}
+   *
+   * @since 5.0
+   */
+  public boolean isNullable() {
+    if (isIdProperty || property.getType().isPrimitive()) {
+      return false;
+    }
+    MergedAnnotation<Column> column = getAnnotation(Column.class);
+    return !column.isPresent() || column.getBoolean("nullable");
+  }
+
   public MergedAnnotations getAnnotations() {
     MergedAnnotations annotations = this.annotations;
     if (annotations == null) {
@@ -101,11 +101,12 @@ final class ExampleQuery extends SimpleSelectQueryStatement implements Condition
   }
 
   @Override
-  public void setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
+  public int setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
     int idx = 1;
     for (var condition : scan(null)) {
       idx = condition.setParameter(statement, idx);
     }
+    return idx;
   }
 
   @Override
@@ -40,8 +40,9 @@ class FindByIdQuery extends ColumnsQueryStatement implements QueryStatement {
   }
 
   @Override
-  public void setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
+  public int setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
     metadata.idProperty().setParameter(statement, 1, id);
+    return 2;
   }
 
   @Override
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import cn.taketoday.logging.LogMessage;
+import cn.taketoday.persistence.sql.Select;
+
+/**
+ * {@code WHERE `id` IN (?, ?, ...)}
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class FindByIdsQuery extends ColumnsQueryStatement implements QueryStatement {
+
+  private final List<?> ids;
+
+  FindByIdsQuery(List<?> ids) {
+    this.ids = ids;
+  }
+
+  @Override
+  protected void renderInternal(EntityMetadata metadata, Select select) {
+    StringBuilder where = new StringBuilder(metadata.idColumnName.length() + ids.size() * 3 + 8);
+    where.append('`').append(metadata.idColumnName).append("` IN (");
+    for (int i = 0; i < ids.size(); i++) {
+      if (i > 0) {
+        where.append(", ");
+      }
+      where.append('?');
+    }
+    select.setWhereClause(where.append(')').toString());
+  }
+
+  @Override
+  public int setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
+    EntityProperty idProperty = metadata.idProperty();
+    int idx = 1;
+    for (Object id : ids) {
+      idProperty.setParameter(statement, idx++, id);
+    }
+    return idx;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Fetch entities By IDs";
+  }
+
+  @Override
+  public Object getDebugLogMessage() {
+    return LogMessage.format("Query entities using IDs: {}", ids);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.math.BigInteger;
+import java.util.List;
+
+import cn.taketoday.util.ReflectionUtils;
+
+/**
+ * {@link ShardingStrategy} that distributes shard keys evenly by
+ * {@code floorMod(hash, shardCount)}.
+ * <p>
+ * Integral numbers are hashed by their {@code long} value, enums by
+ * their {@link Enum#name() name} and character sequences by their
+ * content. Other keys are hashed by {@link Object#hashCode()}, so the
+ * key type must override it with a stable hash code like
+ * {@link java.util.UUID}; keys with the identity hash code of
+ * {@link Object} are rejected, as they differ from node to node. Adding a
+ * shard moves most keys, use {@link LookupShardingStrategy} when shards
+ * need to be rebalanced online.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class HashShardingStrategy implements ShardingStrategy {
+
+  private static final ClassValue<Boolean> valueHashCode = new ClassValue<>() {
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      return ReflectionUtils.getMethod(type, "hashCode").getDeclaringClass() != Object.class;
+    }
+  };
+
+  @Override
+  public String determineShard(Object shardKey, List<String> shards) {
+    return shards.get((int) Math.floorMod(hash(shardKey), (long) shards.size()));
+  }
+
+  /**
+   * Hash of the given shard key
+   */
+  protected long hash(Object shardKey) {
+    if (shardKey instanceof Long || shardKey instanceof Integer
+            || shardKey instanceof Short || shardKey instanceof Byte) {
+      return ((Number) shardKey).longValue();
+    }
+    if (shardKey instanceof BigInteger bigInteger) {
+      return bigInteger.longValue();
+    }
+    if (shardKey instanceof Enum<?> enumValue) {
+      return enumValue.name().hashCode();
+    }
+    if (shardKey instanceof CharSequence sequence) {
+      return sequence.toString().hashCode();
+    }
+    if (!valueHashCode.get(shardKey.getClass())) {
+      throw new IllegalArgumentException("Shard key of type '%s' has no value based hashCode()"
+              .formatted(shardKey.getClass().getName()));
+    }
+    return shardKey.hashCode();
+  }
+
+}
@@ -0,0 +1,365 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import cn.taketoday.core.Pair;
+import cn.taketoday.core.style.ToStringBuilder;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * Keyset (seek) pagination: instead of skipping {@code offset} rows,
+ * selects the rows after the last-seen values of the sort keys
+ * <pre>{@code
+ * WHERE (k1, k2) > (?, ?) ORDER BY k1, k2 LIMIT n
+ * }</pre>
+ * so the cost of a page does not depend on its depth.
+ * <p>
+ * The sort keys are entity property names, the ID property is appended
+ * when not present to make the order unique. Sort key columns should be
+ * not null and covered by an index. The rows are not counted unless
+ * {@link #withCount()} is used.
+ * <pre>{@code
+ * Page<User> page = entityManager.page(User.class, condition, KeysetPageable.of(20, "createAt"));
+ * // next request
+ * page = entityManager.page(User.class, condition, KeysetPageable.of(20, "createAt")
+ *         .after(page.getContinuationToken()));
+ * }</pre>
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see Page#getContinuationToken()
+ * @since 5.0
+ */
+public final class KeysetPageable implements Pageable {
+
+  private static final byte VERSION = 1;
+
+  private final int pageNumber;
+
+  private final int pageSize;
+
+  private final List<Pair<String, Order>> sortKeys;
+
+  @Nullable
+  private final Object[] lastValues;
+
+  private final boolean countTotal;
+
+  private KeysetPageable(int pageNumber, int pageSize, List<Pair<String, Order>> sortKeys,
+          @Nullable Object[] lastValues, boolean countTotal) {
+    Assert.isTrue(pageSize > 0, "pageSize must be a positive value");
+    this.pageNumber = pageNumber;
+    this.pageSize = pageSize;
+    this.sortKeys = sortKeys;
+    this.lastValues = lastValues;
+    this.countTotal = countTotal;
+  }
+
+  @Override
+  public int pageNumber() {
+    return pageNumber;
+  }
+
+  @Override
+  public int pageSize() {
+    return pageSize;
+  }
+
+  /**
+   * Keyset pages never skip rows
+   */
+  @Override
+  public int offset() {
+    return 0;
+  }
+
+  @Override
+  public int offset(int max) {
+    return 0;
+  }
+
+  /**
+   * Sort keys, property name and order
+   */
+  public List<Pair<String, Order>> sortKeys() {
+    return sortKeys;
+  }
+
+  /**
+   * Last-seen values of the sort keys, {@code null} for the first page
+   */
+  @Nullable
+  public Object[] lastValues() {
+    return lastValues;
+  }
+
+  /**
+   * Should count total rows
+   */
+  public boolean countTotal() {
+    return countTotal;
+  }
+
+  /**
+   * Returns a pageable of the page identified by the given token
+   *
+   * @param continuationToken token from {@link Page#getContinuationToken()},
+   * {@code null} or empty for the first page
+   * @throws IllegalArgumentException invalid token
+   */
+  public KeysetPageable after(@Nullable String continuationToken) {
+    if (StringUtils.isEmpty(continuationToken)) {
+      return new KeysetPageable(1, pageSize, sortKeys, null, countTotal);
+    }
+    try (var input = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(continuationToken)))) {
+      if (input.readByte() != VERSION) {
+        throw new IllegalArgumentException("Unsupported continuation token");
+      }
+      int pageNumber = input.readInt();
+      Object[] values = new Object[input.readUnsignedByte()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = readValue(input);
+      }
+      return new KeysetPageable(pageNumber, pageSize, sortKeys, values, countTotal);
+    }
+    catch (IOException | RuntimeException e) {
+      throw new IllegalArgumentException("Invalid continuation token", e);
+    }
+  }
+
+  /**
+   * Returns a pageable of the rows after the given sort key values
+   *
+   * @param lastValues last-seen values, in order of the sort keys
+   * (followed by the ID if not a sort key)
+   */
+  public KeysetPageable afterValues(Object... lastValues) {
+    Assert.notEmpty(lastValues, "lastValues is required");
+    return new KeysetPageable(pageNumber + 1, pageSize, sortKeys, lastValues, countTotal);
+  }
+
+  /**
+   * Returns a pageable that counts total rows
+   */
+  public KeysetPageable withCount() {
+    return new KeysetPageable(pageNumber, pageSize, sortKeys, lastValues, true);
+  }
+
+  @Override
+  public String toString() {
+    return ToStringBuilder.from(this)
+            .append("pageNumber", pageNumber)
+            .append("pageSize", pageSize)
+            .append("sortKeys", sortKeys)
+            .append("lastValues", Arrays.toString(lastValues))
+            .append("countTotal", countTotal)
+            .toString();
+  }
+
+  /**
+   * Keyset pageable of the first page, ascending by the given properties
+   *
+   * @param pageSize page size
+   * @param properties sort key properties, the ID is used if empty
+   */
+  public static KeysetPageable of(int pageSize, String... properties) {
+    var sortKeys = new ArrayList<Pair<String, Order>>(properties.length);
+    for (String property : properties) {
+      sortKeys.add(Pair.of(property, Order.ASC));
+    }
+    return new KeysetPageable(1, pageSize, List.copyOf(sortKeys), null, false);
+  }
+
+  /**
+   * Keyset pageable of the first page
+   *
+   * @param pageSize page size
+   * @param sortKeys sort key properties and orders, the ID is used if empty
+   */
+  public static KeysetPageable of(int pageSize, List<Pair<String, Order>> sortKeys) {
+    Assert.notNull(sortKeys, "sortKeys is required");
+    return new KeysetPageable(1, pageSize, List.copyOf(sortKeys), null, false);
+  }
+
+  // continuation token
+
+  /**
+   * Create an opaque token of the given page number and sort key values
+   *
+   * @throws IllegalArgumentException value type not supported
+   */
+  static String continuationToken(int pageNumber, Object[] values) {
+    var output = new ByteArrayOutputStream(values.length * 12 + 8);
+    try (var data = new DataOutputStream(output)) {
+      data.writeByte(VERSION);
+      data.writeInt(pageNumber);
+      data.writeByte(values.length);
+      for (Object value : values) {
+        writeValue(data, value);
+      }
+    }
+    catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(output.toByteArray());
+  }
+
+  private static void writeValue(DataOutputStream data, @Nullable Object value) throws IOException {
+    if (value == null) {
+      data.writeByte(0);
+    }
+    else if (value instanceof String string) {
+      data.writeByte(1);
+      data.writeUTF(string);
+    }
+    else if (value instanceof Integer number) {
+      data.writeByte(2);
+      data.writeInt(number);
+    }
+    else if (value instanceof Long number) {
+      data.writeByte(3);
+      data.writeLong(number);
+    }
+    else if (value instanceof Short number) {
+      data.writeByte(4);
+      data.writeShort(number);
+    }
+    else if (value instanceof Byte number) {
+      data.writeByte(5);
+      data.writeByte(number);
+    }
+    else if (value instanceof Boolean bool) {
+      data.writeByte(6);
+      data.writeBoolean(bool);
+    }
+    else if (value instanceof Double number) {
+      data.writeByte(7);
+      data.writeDouble(number);
+    }
+    else if (value instanceof Float number) {
+      data.writeByte(8);
+      data.writeFloat(number);
+    }
+    else if (value instanceof BigDecimal || value instanceof BigInteger
+            || value instanceof LocalDate || value instanceof LocalDateTime || value instanceof LocalTime
+            || value instanceof Instant || value instanceof OffsetDateTime || value instanceof UUID) {
+      data.writeByte(typeTag(value));
+      data.writeUTF(value.toString());
+    }
+    else if (value instanceof Timestamp timestamp) {
+      data.writeByte(17);
+      data.writeLong(timestamp.getTime());
+      data.writeInt(timestamp.getNanos());
+    }
+    else if (value instanceof java.sql.Date date) {
+      data.writeByte(18);
+      data.writeLong(date.getTime());
+    }
+    else if (value instanceof Date date) {
+      data.writeByte(19);
+      data.writeLong(date.getTime());
+    }
+    else if (value instanceof Enum<?> enumValue) {
+      // converted by the property type when binding
+      data.writeByte(1);
+      data.writeUTF(enumValue.name());
+    }
+    else {
+      throw new IllegalArgumentException("Unsupported keyset value type: " + value.getClass().getName());
+    }
+  }
+
+  private static int typeTag(Object value) {
+    if (value instanceof BigDecimal) {
+      return 9;
+    }
+    else if (value instanceof BigInteger) {
+      return 10;
+    }
+    else if (value instanceof LocalDate) {
+      return 11;
+    }
+    else if (value instanceof LocalDateTime) {
+      return 12;
+    }
+    else if (value instanceof LocalTime) {
+      return 13;
+    }
+    else if (value instanceof Instant) {
+      return 14;
+    }
+    else if (value instanceof OffsetDateTime) {
+      return 15;
+    }
+    return 16;
+  }
+
+  @Nullable
+  private static Object readValue(DataInputStream input) throws IOException {
+    int tag = input.readUnsignedByte();
+    return switch (tag) {
+      case 0 -> null;
+      case 1 -> input.readUTF();
+      case 2 -> input.readInt();
+      case 3 -> input.readLong();
+      case 4 -> input.readShort();
+      case 5 -> input.readByte();
+      case 6 -> input.readBoolean();
+      case 7 -> input.readDouble();
+      case 8 -> input.readFloat();
+      case 9 -> new BigDecimal(input.readUTF());
+      case 10 -> new BigInteger(input.readUTF());
+      case 11 -> LocalDate.parse(input.readUTF());
+      case 12 -> LocalDateTime.parse(input.readUTF());
+      case 13 -> LocalTime.parse(input.readUTF());
+      case 14 -> Instant.parse(input.readUTF());
+      case 15 -> OffsetDateTime.parse(input.readUTF());
+      case 16 -> UUID.fromString(input.readUTF());
+      case 17 -> {
+        var timestamp = new Timestamp(input.readLong());
+        timestamp.setNanos(input.readInt());
+        yield timestamp;
+      }
+      case 18 -> new java.sql.Date(input.readLong());
+      case 19 -> new Date(input.readLong());
+      default -> throw new IllegalArgumentException("Unknown value type: " + tag);
+    };
+  }
+
+}
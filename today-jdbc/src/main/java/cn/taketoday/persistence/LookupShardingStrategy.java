@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.dao.DataRetrievalFailureException;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * {@link ShardingStrategy} that finds the shard of a key in a lookup
+ * (directory) table, so that keys can be moved between shards
+ * independently.
+ * <p>
+ * Resolved shards are cached by default. Keys not found in the table
+ * are delegated to the {@link #setDefaultStrategy default strategy},
+ * typically {@link HashShardingStrategy} for newly created keys.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class LookupShardingStrategy implements ShardingStrategy {
+
+  private final Function<Object, String> lookup;
+
+  @Nullable
+  private ShardingStrategy defaultStrategy;
+
+  @Nullable
+  private ConcurrentHashMap<Object, String> cache = new ConcurrentHashMap<>();
+
+  public LookupShardingStrategy(Map<?, String> table) {
+    this(table::get);
+  }
+
+  public LookupShardingStrategy(Function<Object, String> lookup) {
+    Assert.notNull(lookup, "Lookup function is required");
+    this.lookup = lookup;
+  }
+
+  /**
+   * Set the strategy for shard keys not found in the lookup table,
+   * if not set an {@link IllegalArgumentException} will be thrown
+   */
+  public void setDefaultStrategy(@Nullable ShardingStrategy defaultStrategy) {
+    this.defaultStrategy = defaultStrategy;
+  }
+
+  /**
+   * Set whether to cache the resolved shards, default is {@code true}.
+   * Disable it or call {@link #evict} if keys are moved at runtime.
+   */
+  public void setCacheable(boolean cacheable) {
+    this.cache = cacheable ? new ConcurrentHashMap<>() : null;
+  }
+
+  /**
+   * Evict cached shard of the given key
+   */
+  public void evict(Object shardKey) {
+    if (cache != null) {
+      cache.remove(shardKey);
+    }
+  }
+
+  @Override
+  public String determineShard(Object shardKey, List<String> shards) {
+    ConcurrentHashMap<Object, String> cache = this.cache;
+    String shard = cache != null ? cache.get(shardKey) : null;
+    if (shard == null) {
+      shard = lookup.apply(shardKey);
+      if (shard == null) {
+        if (defaultStrategy == null) {
+          throw new IllegalArgumentException("Shard key not found in lookup table: " + shardKey);
+        }
+        return defaultStrategy.determineShard(shardKey, shards);
+      }
+      if (cache != null) {
+        cache.put(shardKey, shard);
+      }
+    }
+    return shard;
+  }
+
+  /**
+   * Create a strategy that executes the given query on the directory
+   * database, the query has the shard key as the only parameter and
+   * returns the shard name in the first column of its first row.
+   * <pre>{@code
+   * SELECT `shard` FROM `shard_directory` WHERE `user_id` = ?
+   * }</pre>
+   *
+   * @param directory directory database
+   * @param sql lookup query
+   */
+  public static LookupShardingStrategy forQuery(DataSource directory, String sql) {
+    Assert.notNull(directory, "Directory DataSource is required");
+    Assert.hasText(sql, "Lookup query is required");
+    return new LookupShardingStrategy(shardKey -> {
+      try (Connection connection = directory.getConnection();
+              PreparedStatement statement = connection.prepareStatement(sql)) {
+        statement.setObject(1, shardKey);
+        try (ResultSet resultSet = statement.executeQuery()) {
+          return resultSet.next() ? resultSet.getString(1) : null;
+        }
+      }
+      catch (SQLException e) {
+        throw new DataRetrievalFailureException("Unable to lookup shard of key: " + shardKey, e);
+      }
+    });
+  }
+
+}
@@ -77,11 +77,12 @@ final class MapQueryHandlerFactory implements QueryHandlerFactory {
     }
 
     @Override
-    public void setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
+    public int setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
       int idx = 1;
       for (Map.Entry<?, ?> entry : map.entrySet()) {
         statement.setObject(idx++, entry.getValue());
       }
+      return idx;
     }
 
     @Override
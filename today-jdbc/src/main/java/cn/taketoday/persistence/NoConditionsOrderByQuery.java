@@ -43,6 +43,8 @@ class NoConditionsOrderByQuery extends ColumnsQueryStatement implements QuerySta
   }
 
   @Override
-  public void setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException { }
+  public int setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
+    return 1;
+  }
 
 }
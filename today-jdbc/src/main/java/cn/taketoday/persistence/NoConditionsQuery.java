@@ -41,8 +41,8 @@ final class NoConditionsQuery extends ColumnsQueryStatement implements Condition
   }
 
   @Override
-  public void setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
-    // noop
+  public int setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
+    return 1;
   }
 
   @Override
@@ -24,6 +24,7 @@ import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import cn.taketoday.core.style.ToStringBuilder;
+import cn.taketoday.lang.Nullable;
 
 /**
  * Page result
@@ -60,8 +61,9 @@ public class Page<T> {
   private final int totalPages;
 
   /**
-   * total row count
+   * total row count, {@code null} if not counted
    */
+  @Nullable
   private final Number totalRows;
 
   /**
@@ -89,6 +91,12 @@ public class Page<T> {
    */
   private final boolean hasNextPage;
 
+  /**
+   * opaque token to fetch the next page with keyset pagination
+   */
+  @Nullable
+  private final String continuationToken;
+
   /**
    * @param pageable page params
    * @param total total rows count
@@ -120,6 +128,49 @@ public class Page<T> {
     this.hasNextPage = pageNumber != totalPages;
     this.nextPage = hasNextPage ? (pageNumber + 1) : 1;
     this.prevPage = hasPrevPage ? (pageNumber - 1) : 1;
+    this.continuationToken = null;
+  }
+
+  /**
+   * Keyset page
+   *
+   * @param pageable page params
+   * @param total total rows count, {@code null} if not counted
+   * @param rows rows data
+   * @param continuationToken token to fetch the next page,
+   * {@code null} if this is the last page
+   * @see KeysetPageable#after(String)
+   * @since 5.0
+   */
+  public Page(Pageable pageable, @Nullable Number total, List<T> rows, @Nullable String continuationToken) {
+    this.rows = rows;
+    this.totalRows = total;
+    this.limit = pageable.pageSize();
+    this.continuationToken = continuationToken;
+    this.pageNumber = Math.max(pageable.pageNumber(), 1);
+    this.totalPages = total != null ? (int) ((total.longValue() - 1) / limit + 1) : -1;
+
+    this.firstPage = pageNumber == 1;
+    this.hasPrevPage = pageNumber != 1;
+    this.hasNextPage = continuationToken != null;
+    this.lastPage = !hasNextPage;
+    this.nextPage = hasNextPage ? (pageNumber + 1) : 1;
+    this.prevPage = hasPrevPage ? (pageNumber - 1) : 1;
+  }
+
+  private Page(Page<?> page, List<T> rows) {
+    this.rows = rows;
+    this.limit = page.limit;
+    this.prevPage = page.prevPage;
+    this.nextPage = page.nextPage;
+    this.lastPage = page.lastPage;
+    this.firstPage = page.firstPage;
+    this.totalRows = page.totalRows;
+    this.pageNumber = page.pageNumber;
+    this.totalPages = page.totalPages;
+    this.hasPrevPage = page.hasPrevPage;
+    this.hasNextPage = page.hasNextPage;
+    this.continuationToken = page.continuationToken;
   }
 
   //
@@ -142,7 +193,7 @@ public class Page<T> {
   }
 
   public <E> Page<E> withRows(List<E> rows) {
-    return new Page<>(totalRows, pageNumber, limit, rows);
+    return new Page<>(this, rows);
   }
 
   //
@@ -163,14 +214,36 @@ public class Page<T> {
     return nextPage;
   }
 
+  /**
+   * Returns total pages, or {@code -1} if the rows were not counted
+   */
   public int getTotalPages() {
     return totalPages;
   }
 
+  /**
+   * Returns total rows, or {@code null} if the rows were not counted
+   *
+   * @see KeysetPageable#withCount()
+   */
+  @Nullable
   public Number getTotalRows() {
     return totalRows;
   }
 
+  /**
+   * Returns the opaque token to fetch the next page with keyset
+   * pagination, or {@code null} if there is no next page or this
+   * page was not fetched by keyset.
+   *
+   * @see KeysetPageable#after(String)
+   * @since 5.0
+   */
+  @Nullable
+  public String getContinuationToken() {
+    return continuationToken;
+  }
+
   public List<T> getRows() {
     return rows;
   }
@@ -204,6 +277,7 @@ public class Page<T> {
             .append("isLastPage", lastPage)
             .append("hasPrevPage", hasPrevPage)
             .append("hasNextPage", hasNextPage)
+            .append("continuationToken", continuationToken)
             .append("rows", rows)
             .toString();
   }
@@ -224,6 +298,7 @@ public class Page<T> {
               && hasPrevPage == page.hasPrevPage
               && hasNextPage == page.hasNextPage
               && Objects.equals(totalRows, page.totalRows)
+              && Objects.equals(continuationToken, page.continuationToken)
               && Objects.equals(rows, page.rows);
     }
     return false;
@@ -233,7 +308,7 @@ public class Page<T> {
   public int hashCode() {
     return Objects.hash(pageNumber, limit, prevPage,
             nextPage, totalPages, totalRows, rows, firstPage,
-            lastPage, hasPrevPage, hasNextPage);
+            lastPage, hasPrevPage, hasNextPage, continuationToken);
   }
 
 }
\ No newline at end of file
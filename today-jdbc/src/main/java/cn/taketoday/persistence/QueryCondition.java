@@ -74,8 +74,8 @@ public abstract class QueryCondition extends ColumnsQueryStatement implements Qu
   }
 
   @Override
-  public void setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
-    setParameter(statement);
+  public int setParameter(EntityMetadata metadata, PreparedStatement statement) throws SQLException {
+    return setParameter(statement);
   }
 
   /**
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import cn.taketoday.lang.Assert;
+
+/**
+ * {@link ShardingStrategy} that maps ordered ranges of shard keys to
+ * shards, for example by user id or creation date.
+ * <pre>{@code
+ * ShardingStrategy.range()
+ *     .addRange(0, "shard0")
+ *     .addRange(10_000_000, "shard1")
+ *     .addRange(20_000_000, "shard2");
+ * }</pre>
+ * A range starts at its lower bound (inclusive) and ends at the lower
+ * bound of the next range (exclusive), the last range is unbounded.
+ * Integral numbers are compared by their {@code long} value.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class RangeShardingStrategy implements ShardingStrategy {
+
+  private final TreeMap<Comparable<Object>, String> ranges = new TreeMap<>();
+
+  /**
+   * Add a range starting at the given lower bound
+   *
+   * @param lowerBound inclusive lower bound
+   * @param shard shard name
+   * @return this
+   */
+  @SuppressWarnings("unchecked")
+  public RangeShardingStrategy addRange(Comparable<?> lowerBound, String shard) {
+    Assert.notNull(lowerBound, "lowerBound is required");
+    Assert.hasText(shard, "shard is required");
+    ranges.put((Comparable<Object>) normalize(lowerBound), shard);
+    return this;
+  }
+
+  @Override
+  public String determineShard(Object shardKey, List<String> shards) {
+    Map.Entry<Comparable<Object>, String> range = ranges.floorEntry(normalize(shardKey));
+    if (range == null) {
+      throw new IllegalArgumentException("No range found for shard key: " + shardKey);
+    }
+    return range.getValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Comparable<Object> normalize(Object shardKey) {
+    if (shardKey instanceof Integer || shardKey instanceof Short || shardKey instanceof Byte) {
+      shardKey = ((Number) shardKey).longValue();
+    }
+    if (shardKey instanceof Comparable<?> comparable) {
+      return (Comparable<Object>) comparable;
+    }
+    throw new IllegalArgumentException("Shard key must be Comparable: " + shardKey);
+  }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Specifies the shard key of an entity. The value of the field or
+ * property to which the <code>ShardKey</code> annotation is applied
+ * determines the shard (physical database) the entity is stored in,
+ * see {@link ShardingStrategy}.
+ *
+ * <p>Only one shard key property is supported, it may be the
+ * {@link Id} property. Entities without a shard key are stored in
+ * the default shard.
+ *
+ * <pre>{@code
+ *   // Example:
+ *
+ *   @ShardKey
+ *   public Long getUserId() {
+ *     return userId;
+ *   }
+ * }</pre>
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see ShardingEntityManager
+ * @since 5.0
+ */
+@Documented
+@Target({ ElementType.ANNOTATION_TYPE, ElementType.FIELD, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+
+}
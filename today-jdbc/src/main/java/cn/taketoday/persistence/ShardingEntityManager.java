@@ -0,0 +1,1187 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.core.JavaVersion;
+import cn.taketoday.core.Pair;
+import cn.taketoday.core.task.SimpleAsyncTaskExecutor;
+import cn.taketoday.dao.DataAccessException;
+import cn.taketoday.dao.DataRetrievalFailureException;
+import cn.taketoday.dao.IncorrectResultSizeDataAccessException;
+import cn.taketoday.dao.InvalidDataAccessApiUsageException;
+import cn.taketoday.jdbc.RepositoryManager;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.persistence.sql.MutableOrderByClause;
+import cn.taketoday.persistence.sql.OrderByClause;
+import cn.taketoday.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link EntityManager} that routes entities across several physical
+ * databases (shards) by their {@link ShardKey}.
+ * <p>
+ * Operations that carry a shard key value, an entity or an example
+ * with the shard key property set, or an id when the id is the shard
+ * key, are routed directly to one shard by the {@link ShardingStrategy}
+ * of the entity. Entities without a shard key live in the
+ * {@link #setDefaultShard default shard}.
+ * <p>
+ * Other reads are scattered to all shards in parallel and gathered:
+ * rows are merged with a streaming k-way merge-sort on the sort keys of
+ * the query, counts are summed, and pages push the limit down so that
+ * each shard returns at most {@code offset + pageSize} rows. Prefer
+ * {@link KeysetPageable} for deep pages. Updates and deletes without a
+ * shard key are broadcast to all shards.
+ * <p>
+ * Writes that reach several shards are <em>not</em> atomic across
+ * shards: each shard commits on its own, so a failure on one shard
+ * leaves the groups already written to other shards in place. A batch
+ * {@code persist} or {@code persistOrUpdate} whose entities span more
+ * than one shard is therefore rejected when a transaction is active on
+ * the calling thread, as that transaction could only cover one shard.
+ * <p>
+ * Scatter queries run on the {@link #setExecutor executor}, except
+ * when a transaction is active on the calling thread, then the shards
+ * are queried one by one on that thread. The default executor runs at
+ * most {@value #DEFAULT_CONCURRENCY_PER_SHARD} shard queries per shard
+ * at a time, on virtual threads on JDK 21+, further scatter queries
+ * wait for a slot on the calling thread.
+ * <pre>{@code
+ * var entityManager = ShardingEntityManager.forDataSources(Map.of(
+ *         "shard0", shard0, "shard1", shard1));
+ * entityManager.setShardingStrategy(ShardingStrategy.hash());
+ * }</pre>
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see ShardKey
+ * @see ShardingStrategy
+ * @since 5.0
+ */
+public class ShardingEntityManager implements EntityManager {
+
+  /**
+   * Concurrent shard queries per shard of the default executor,
+   * below the common connection pool sizes
+   */
+  public static final int DEFAULT_CONCURRENCY_PER_SHARD = 8;
+
+  private final LinkedHashMap<String, EntityManager> shards;
+
+  private final List<String> shardNames;
+
+  private String defaultShard;
+
+  private ShardingStrategy shardingStrategy = new HashShardingStrategy();
+
+  private final LinkedHashMap<Class<?>, ShardingStrategy> entityStrategies = new LinkedHashMap<>();
+
+  private Executor executor;
+
+  private Pageable defaultPageable = Pageable.of(1, 10);
+
+  private EntityMetadataFactory entityMetadataFactory = new DefaultEntityMetadataFactory();
+
+  private QueryHandlerFactories handlerFactories = new QueryHandlerFactories(entityMetadataFactory);
+
+  /**
+   * @param shards shard name to its EntityManager, in a stable order
+   */
+  public ShardingEntityManager(Map<String, ? extends EntityManager> shards) {
+    Assert.notEmpty(shards, "shards is required");
+    this.shards = new LinkedHashMap<>(shards);
+    this.shardNames = List.copyOf(shards.keySet());
+    this.defaultShard = shardNames.get(0);
+    this.executor = createDefaultExecutor(shardNames.size() * DEFAULT_CONCURRENCY_PER_SHARD);
+  }
+
+  /**
+   * Create a ShardingEntityManager with a {@link DefaultEntityManager}
+   * for each DataSource
+   *
+   * @param dataSources shard name to its DataSource, in a stable order
+   */
+  public static ShardingEntityManager forDataSources(Map<String, DataSource> dataSources) {
+    Assert.notEmpty(dataSources, "dataSources is required");
+    var shards = new LinkedHashMap<String, EntityManager>();
+    for (Map.Entry<String, DataSource> entry : dataSources.entrySet()) {
+      shards.put(entry.getKey(), new RepositoryManager(entry.getValue()).getEntityManager());
+    }
+    return new ShardingEntityManager(shards);
+  }
+
+  /**
+   * Set the shard of the entities without a {@link ShardKey},
+   * default is the first shard
+   */
+  public void setDefaultShard(String defaultShard) {
+    Assert.isTrue(shards.containsKey(defaultShard), () -> "Unknown shard: " + defaultShard);
+    this.defaultShard = defaultShard;
+  }
+
+  /**
+   * Set the default ShardingStrategy, default is {@link HashShardingStrategy}
+   */
+  public void setShardingStrategy(ShardingStrategy shardingStrategy) {
+    Assert.notNull(shardingStrategy, "shardingStrategy is required");
+    this.shardingStrategy = shardingStrategy;
+  }
+
+  /**
+   * Set the ShardingStrategy of the given entity class
+   */
+  public void setShardingStrategy(Class<?> entityClass, ShardingStrategy shardingStrategy) {
+    Assert.notNull(entityClass, "entityClass is required");
+    Assert.notNull(shardingStrategy, "shardingStrategy is required");
+    entityStrategies.put(entityClass, shardingStrategy);
+  }
+
+  /**
+   * Set the Executor to query the shards in parallel, it should be
+   * bounded, as every scatter query submits a task per shard
+   */
+  public void setExecutor(Executor executor) {
+    Assert.notNull(executor, "executor is required");
+    this.executor = executor;
+  }
+
+  public void setDefaultPageable(Pageable defaultPageable) {
+    Assert.notNull(defaultPageable, "defaultPageable is required");
+    this.defaultPageable = defaultPageable;
+  }
+
+  /**
+   * Set the EntityMetadataFactory, should be same as the shards
+   */
+  public void setEntityMetadataFactory(EntityMetadataFactory entityMetadataFactory) {
+    Assert.notNull(entityMetadataFactory, "entityMetadataFactory is required");
+    this.entityMetadataFactory = entityMetadataFactory;
+    this.handlerFactories = new QueryHandlerFactories(entityMetadataFactory);
+  }
+
+  /**
+   * Names of all shards, in registration order
+   */
+  public List<String> getShardNames() {
+    return shardNames;
+  }
+
+  /**
+   * Get the EntityManager of the given shard
+   *
+   * @throws IllegalArgumentException shard not found
+   */
+  public EntityManager getShard(String name) {
+    EntityManager shard = shards.get(name);
+    if (shard == null) {
+      throw new IllegalArgumentException("Unknown shard: " + name);
+    }
+    return shard;
+  }
+
+  /**
+   * Determine the shard name of the given entity class and shard key value
+   */
+  public String determineShard(Class<?> entityClass, Object shardKey) {
+    Assert.notNull(shardKey, "shardKey is required");
+    ShardingStrategy strategy = entityStrategies.getOrDefault(entityClass, shardingStrategy);
+    return strategy.determineShard(shardKey, shardNames);
+  }
+
+  // persist
+
+  @Override
+  public int persist(Object entity) throws DataAccessException {
+    return routeEntity(entity).persist(entity);
+  }
+
+  @Override
+  public int persist(Object entity, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    return routeEntity(entity).persist(entity, strategy);
+  }
+
+  @Override
+  public int persist(Object entity, boolean autoGenerateId) throws DataAccessException {
+    return routeEntity(entity).persist(entity, autoGenerateId);
+  }
+
+  @Override
+  public int persist(Object entity, @Nullable PropertyUpdateStrategy strategy, boolean autoGenerateId) throws DataAccessException {
+    return routeEntity(entity).persist(entity, strategy, autoGenerateId);
+  }
+
+  @Override
+  public void persist(Iterable<?> entities) throws DataAccessException {
+    groupByShard(entities).forEach(EntityManager::persist);
+  }
+
+  @Override
+  public void persist(Iterable<?> entities, boolean autoGenerateId) throws DataAccessException {
+    groupByShard(entities).forEach((shard, group) -> shard.persist(group, autoGenerateId));
+  }
+
+  @Override
+  public void persist(Iterable<?> entities, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    groupByShard(entities).forEach((shard, group) -> shard.persist(group, strategy));
+  }
+
+  @Override
+  public void persist(Iterable<?> entities, @Nullable PropertyUpdateStrategy strategy, boolean autoGenerateId) throws DataAccessException {
+    groupByShard(entities).forEach((shard, group) -> shard.persist(group, strategy, autoGenerateId));
+  }
+
+  @Override
+  public int persistOrUpdate(Object entity) throws DataAccessException {
+    return routeEntity(entity).persistOrUpdate(entity);
+  }
+
+  @Override
+  public int persistOrUpdate(Object entity, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    return routeEntity(entity).persistOrUpdate(entity, strategy);
+  }
+
+  @Override
+  public void persistOrUpdate(Iterable<?> entities) throws DataAccessException {
+    groupByShard(entities).forEach(EntityManager::persistOrUpdate);
+  }
+
+  @Override
+  public void persistOrUpdate(Iterable<?> entities, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    groupByShard(entities).forEach((shard, group) -> shard.persistOrUpdate(group, strategy));
+  }
+
+  // update
+
+  @Override
+  public int update(Object entityOrExample) throws DataAccessException {
+    return update(entityOrExample, null);
+  }
+
+  @Override
+  public int update(Object entityOrExample, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    EntityManager shard = route(entityOrExample.getClass(), entityOrExample);
+    if (shard != null) {
+      return shard.update(entityOrExample, strategy);
+    }
+    return sum(scatter(em -> em.update(entityOrExample, strategy)));
+  }
+
+  @Override
+  public int updateById(Object entityOrExample) throws DataAccessException {
+    return updateById(entityOrExample, (PropertyUpdateStrategy) null);
+  }
+
+  @Override
+  public int updateById(Object entityOrExample, Object id) throws DataAccessException {
+    return updateById(entityOrExample, id, null);
+  }
+
+  @Override
+  public int updateById(Object entityOrExample, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    EntityManager shard = route(entityOrExample.getClass(), entityOrExample);
+    if (shard != null) {
+      return shard.updateById(entityOrExample, strategy);
+    }
+    return sum(scatter(em -> em.updateById(entityOrExample, strategy)));
+  }
+
+  @Override
+  public int updateById(Object entityOrExample, Object id, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    EntityManager shard = route(entityOrExample.getClass(), entityOrExample);
+    if (shard == null) {
+      shard = routeById(entityOrExample.getClass(), id);
+    }
+    if (shard != null) {
+      return shard.updateById(entityOrExample, id, strategy);
+    }
+    return sum(scatter(em -> em.updateById(entityOrExample, id, strategy)));
+  }
+
+  @Override
+  public int updateBy(Object entityOrExample, String where) throws DataAccessException {
+    return updateBy(entityOrExample, where, null);
+  }
+
+  @Override
+  public int updateBy(Object entityOrExample, String where, @Nullable PropertyUpdateStrategy strategy) throws DataAccessException {
+    EntityManager shard = route(entityOrExample.getClass(), entityOrExample);
+    if (shard != null) {
+      return shard.updateBy(entityOrExample, where, strategy);
+    }
+    return sum(scatter(em -> em.updateBy(entityOrExample, where, strategy)));
+  }
+
+  // delete
+
+  @Override
+  public int delete(Class<?> entityClass, Object id) throws DataAccessException {
+    EntityManager shard = routeById(entityClass, id);
+    if (shard != null) {
+      return shard.delete(entityClass, id);
+    }
+    return sum(scatter(em -> em.delete(entityClass, id)));
+  }
+
+  @Override
+  public int delete(Object entityOrExample) throws DataAccessException {
+    EntityManager shard = route(entityOrExample.getClass(), entityOrExample);
+    if (shard != null) {
+      return shard.delete(entityOrExample);
+    }
+    return sum(scatter(em -> em.delete(entityOrExample)));
+  }
+
+  // find
+
+  @Nullable
+  @Override
+  public <T> T findById(Class<T> entityClass, Object id) throws DataAccessException {
+    EntityManager shard = routeById(entityClass, id);
+    if (shard != null) {
+      return shard.findById(entityClass, id);
+    }
+    return first(scatter(em -> em.findById(entityClass, id)), null);
+  }
+
+  @Override
+  public <T> Map<Object, T> findByIds(Class<T> entityClass, Collection<?> ids) throws DataAccessException {
+    EntityMetadata metadata = getMetadata(entityClass);
+    EntityProperty shardKeyProperty = metadata.shardKeyProperty;
+    if (shardKeyProperty == null) {
+      return shards.get(defaultShard).findByIds(entityClass, ids);
+    }
+
+    List<Map<Object, T>> found;
+    if (shardKeyProperty.isIdProperty) {
+      var groups = new LinkedHashMap<EntityManager, List<Object>>();
+      for (Object id : ids) {
+        groups.computeIfAbsent(shards.get(determineShard(entityClass, id)), shard -> new ArrayList<>()).add(id);
+      }
+      found = new ArrayList<>(groups.size());
+      for (Map.Entry<EntityManager, List<Object>> entry : groups.entrySet()) {
+        found.add(entry.getKey().findByIds(entityClass, entry.getValue()));
+      }
+    }
+    else {
+      found = scatter(em -> em.findByIds(entityClass, ids));
+    }
+
+    // in the order of ids
+    Map<Object, T> shardEntities = mergeMaps(found);
+    var entities = new LinkedHashMap<Object, T>(shardEntities.size());
+    for (Object id : ids) {
+      T entity = shardEntities.get(id);
+      if (entity != null) {
+        entities.put(id, entity);
+      }
+    }
+    return entities;
+  }
+
+  @Nullable
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T findFirst(T entity) throws DataAccessException {
+    return findFirst((Class<T>) entity.getClass(), entity);
+  }
+
+  @Nullable
+  @Override
+  public <T> T findFirst(Class<T> entityClass, Object example) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard != null) {
+      return shard.findFirst(entityClass, example);
+    }
+    // each shard returns its first row, the smallest one wins
+    Comparator<T> comparator = statementComparator(entityClass, handlerFactories.createCondition(example));
+    return first(scatter(em -> em.findFirst(entityClass, example)), comparator);
+  }
+
+  @Nullable
+  @Override
+  public <T> T findFirst(Class<T> entityClass, @Nullable QueryStatement handler) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.findFirst(entityClass, handler);
+    }
+    Comparator<T> comparator = statementComparator(entityClass, handler);
+    return first(scatter(em -> em.findFirst(entityClass, handler)), comparator);
+  }
+
+  @Nullable
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T findUnique(T example) throws DataAccessException {
+    return findUnique((Class<T>) example.getClass(), example);
+  }
+
+  @Nullable
+  @Override
+  public <T> T findUnique(Class<T> entityClass, Object example) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard != null) {
+      return shard.findUnique(entityClass, example);
+    }
+    return unique(scatter(em -> em.findUnique(entityClass, example)));
+  }
+
+  @Nullable
+  @Override
+  public <T> T findUnique(Class<T> entityClass, @Nullable QueryStatement handler) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.findUnique(entityClass, handler);
+    }
+    return unique(scatter(em -> em.findUnique(entityClass, handler)));
+  }
+
+  @Override
+  public <T> List<T> find(Class<T> entityClass) throws DataAccessException {
+    return find(entityClass, (QueryStatement) null);
+  }
+
+  @Override
+  public <T> List<T> find(Class<T> entityClass, Map<String, Order> sortKeys) throws DataAccessException {
+    Assert.notEmpty(sortKeys, "sortKeys is required");
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.find(entityClass, sortKeys);
+    }
+    Comparator<T> comparator = comparator(entityClass, OrderByClause.forMap(sortKeys));
+    return merge(scatter(em -> em.find(entityClass, sortKeys)), comparator);
+  }
+
+  @Override
+  public <T> List<T> find(Class<T> entityClass, Pair<String, Order> sortKey) throws DataAccessException {
+    Assert.notNull(sortKey, "sortKey is required");
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.find(entityClass, sortKey);
+    }
+    Comparator<T> comparator = comparator(entityClass, OrderByClause.mutable().orderBy(sortKey));
+    return merge(scatter(em -> em.find(entityClass, sortKey)), comparator);
+  }
+
+  @SafeVarargs
+  @Override
+  public final <T> List<T> find(Class<T> entityClass, Pair<String, Order>... sortKeys) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.find(entityClass, sortKeys);
+    }
+    Comparator<T> comparator = comparator(entityClass, OrderByClause.valueOf(sortKeys));
+    return merge(scatter(em -> em.find(entityClass, sortKeys)), comparator);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> List<T> find(T example) throws DataAccessException {
+    return find((Class<T>) example.getClass(), example);
+  }
+
+  @Override
+  public <T> List<T> find(Class<T> entityClass, Object example) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard != null) {
+      return shard.find(entityClass, example);
+    }
+    Comparator<T> comparator = statementComparator(entityClass, handlerFactories.createCondition(example));
+    return merge(scatter(em -> em.find(entityClass, example)), comparator);
+  }
+
+  @Override
+  public <T> List<T> find(Class<T> entityClass, @Nullable QueryStatement handler) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.find(entityClass, handler);
+    }
+    Comparator<T> comparator = statementComparator(entityClass, handler);
+    return merge(scatter(em -> em.find(entityClass, handler)), comparator);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, T> Map<K, T> find(T example, String mapKey) throws DataAccessException {
+    return find((Class<T>) example.getClass(), example, mapKey);
+  }
+
+  @Override
+  public <K, T> Map<K, T> find(Class<T> entityClass, Object example, String mapKey) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard != null) {
+      return shard.find(entityClass, example, mapKey);
+    }
+    return mergeMaps(scatter(em -> em.find(entityClass, example, mapKey)));
+  }
+
+  @Override
+  public <K, T> Map<K, T> find(Class<T> entityClass, @Nullable QueryStatement handler, String mapKey) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.find(entityClass, handler, mapKey);
+    }
+    return mergeMaps(scatter(em -> em.find(entityClass, handler, mapKey)));
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, T> Map<K, T> find(T example, Function<T, K> keyMapper) throws DataAccessException {
+    return find((Class<T>) example.getClass(), example, keyMapper);
+  }
+
+  @Override
+  public <K, T> Map<K, T> find(Class<T> entityClass, Object example, Function<T, K> keyMapper) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard != null) {
+      return shard.find(entityClass, example, keyMapper);
+    }
+    return mergeMaps(scatter(em -> em.find(entityClass, example, keyMapper)));
+  }
+
+  @Override
+  public <K, T> Map<K, T> find(Class<T> entityClass, @Nullable QueryStatement handler, Function<T, K> keyMapper) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.find(entityClass, handler, keyMapper);
+    }
+    return mergeMaps(scatter(em -> em.find(entityClass, handler, keyMapper)));
+  }
+
+  // count
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> Number count(T example) throws DataAccessException {
+    return count((Class<T>) example.getClass(), example);
+  }
+
+  @Override
+  public <T> Number count(Class<T> entityClass) throws DataAccessException {
+    return count(entityClass, (ConditionStatement) null);
+  }
+
+  @Override
+  public <T> Number count(Class<T> entityClass, Object example) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard != null) {
+      return shard.count(entityClass, example);
+    }
+    return sumLong(scatter(em -> em.count(entityClass, example)));
+  }
+
+  @Override
+  public <T> Number count(Class<T> entityClass, @Nullable ConditionStatement handler) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.count(entityClass, handler);
+    }
+    return sumLong(scatter(em -> em.count(entityClass, handler)));
+  }
+
+  // page
+
+  @Override
+  public <T> Page<T> page(T example) throws DataAccessException {
+    return page(example, Pageable.unwrap(example));
+  }
+
+  @Override
+  public <T> Page<T> page(Class<T> entityClass, @Nullable Pageable pageable) throws DataAccessException {
+    return page(entityClass, (ConditionStatement) null, pageable);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> Page<T> page(T example, @Nullable Pageable pageable) throws DataAccessException {
+    return page((Class<T>) example.getClass(), example, pageable);
+  }
+
+  @Override
+  public <T> Page<T> page(Class<T> entityClass, Object example) throws DataAccessException {
+    return page(entityClass, example, Pageable.unwrap(example));
+  }
+
+  @Override
+  public <T> Page<T> page(Class<T> entityClass, Object example, @Nullable Pageable pageable) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard != null) {
+      return shard.page(entityClass, example, pageable);
+    }
+    return scatterPage(entityClass, handlerFactories.createCondition(example), pageable,
+            (em, pushed) -> em.page(entityClass, example, pushed));
+  }
+
+  @Override
+  public <T> Page<T> page(Class<T> entityClass, @Nullable ConditionStatement handler) throws DataAccessException {
+    return page(entityClass, handler, Pageable.unwrap(handler));
+  }
+
+  @Override
+  public <T> Page<T> page(Class<T> entityClass, @Nullable ConditionStatement handler, @Nullable Pageable pageable) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      return shard.page(entityClass, handler, pageable);
+    }
+    return scatterPage(entityClass, handler, pageable,
+            (em, pushed) -> em.page(entityClass, handler, pushed));
+  }
+
+  // iterate
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> void iterate(T example, Consumer<T> entityConsumer) throws DataAccessException {
+    iterate((Class<T>) example.getClass(), example, entityConsumer);
+  }
+
+  @Override
+  public <T> void iterate(Class<T> entityClass, Object example, Consumer<T> entityConsumer) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard != null) {
+      shard.iterate(entityClass, example, entityConsumer);
+    }
+    else {
+      Comparator<T> comparator = statementComparator(entityClass, handlerFactories.createCondition(example));
+      consume(scatter(em -> em.iterate(entityClass, example)), comparator, entityConsumer);
+    }
+  }
+
+  @Override
+  public <T> void iterate(Class<T> entityClass, @Nullable QueryStatement handler, Consumer<T> entityConsumer) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard != null) {
+      shard.iterate(entityClass, handler, entityConsumer);
+    }
+    else {
+      Comparator<T> comparator = statementComparator(entityClass, handler);
+      consume(scatter(em -> em.iterate(entityClass, handler)), comparator, entityConsumer);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> EntityIterator<T> iterate(T example) throws DataAccessException {
+    return iterate((Class<T>) example.getClass(), example);
+  }
+
+  /**
+   * @throws InvalidDataAccessApiUsageException shard key not present,
+   * use {@link #iterate(Class, Object, Consumer)} to iterate all shards
+   */
+  @Override
+  public <T> EntityIterator<T> iterate(Class<T> entityClass, Object example) throws DataAccessException {
+    EntityManager shard = route(entityClass, example);
+    if (shard == null) {
+      throw new InvalidDataAccessApiUsageException(
+              "EntityIterator of all shards not supported, use iterate(entityClass, example, consumer) instead");
+    }
+    return shard.iterate(entityClass, example);
+  }
+
+  /**
+   * @throws InvalidDataAccessApiUsageException entity is sharded, use
+   * {@link #iterate(Class, QueryStatement, Consumer)} to iterate all shards
+   */
+  @Override
+  public <T> EntityIterator<T> iterate(Class<T> entityClass, @Nullable QueryStatement handler) throws DataAccessException {
+    EntityManager shard = route(entityClass, null);
+    if (shard == null) {
+      throw new InvalidDataAccessApiUsageException(
+              "EntityIterator of all shards not supported, use iterate(entityClass, handler, consumer) instead");
+    }
+    return shard.iterate(entityClass, handler);
+  }
+
+  // routing
+
+  private EntityMetadata getMetadata(Class<?> entityClass) {
+    return entityMetadataFactory.getEntityMetadata(entityClass);
+  }
+
+  /**
+   * Find the shard to write the given entity to
+   *
+   * @throws InvalidDataAccessApiUsageException shard key value is null
+   */
+  private EntityManager routeEntity(Object entity) {
+    EntityMetadata metadata = getMetadata(entity.getClass());
+    EntityProperty shardKeyProperty = metadata.shardKeyProperty;
+    if (shardKeyProperty == null) {
+      return shards.get(defaultShard);
+    }
+    Object shardKey = shardKeyProperty.getValue(entity);
+    if (shardKey == null) {
+      throw new InvalidDataAccessApiUsageException("Shard key '%s' of entity '%s' is required"
+              .formatted(shardKeyProperty.property.getName(), metadata.entityClass.getName()));
+    }
+    return shards.get(determineShard(metadata.entityClass, shardKey));
+  }
+
+  /**
+   * Find the shard of the given entity or example
+   *
+   * @return {@code null} if all shards should be accessed
+   */
+  @Nullable
+  private EntityManager route(Class<?> entityClass, @Nullable Object entityOrExample) {
+    EntityMetadata metadata = getMetadata(entityClass);
+    EntityProperty shardKeyProperty = metadata.shardKeyProperty;
+    if (shardKeyProperty == null) {
+      return shards.get(defaultShard);
+    }
+    if (entityClass.isInstance(entityOrExample)) {
+      Object shardKey = shardKeyProperty.getValue(entityOrExample);
+      if (shardKey != null) {
+        return shards.get(determineShard(entityClass, shardKey));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Find the shard of the given id, when id is the shard key
+   *
+   * @return {@code null} if all shards should be accessed
+   */
+  @Nullable
+  private EntityManager routeById(Class<?> entityClass, Object id) {
+    EntityMetadata metadata = getMetadata(entityClass);
+    EntityProperty shardKeyProperty = metadata.shardKeyProperty;
+    if (shardKeyProperty == null) {
+      return shards.get(defaultShard);
+    }
+    if (shardKeyProperty.isIdProperty) {
+      return shards.get(determineShard(entityClass, id));
+    }
+    return null;
+  }
+
+  /**
+   * Group the entities of a batch write by shard, a transaction
+   * cannot span the groups of several shards
+   */
+  private LinkedHashMap<EntityManager, List<Object>> groupByShard(Iterable<?> entities) {
+    var groups = new LinkedHashMap<EntityManager, List<Object>>();
+    for (Object entity : entities) {
+      groups.computeIfAbsent(routeEntity(entity), shard -> new ArrayList<>()).add(entity);
+    }
+    if (groups.size() > 1 && TransactionSynchronizationManager.isActualTransactionActive()) {
+      throw new InvalidDataAccessApiUsageException(
+              "Entities span %d shards, a transaction cannot span shards, write each shard's entities separately"
+                      .formatted(groups.size()));
+    }
+    return groups;
+  }
+
+  // scatter-gather
+
+  /**
+   * Apply the action to all shards, in parallel if no transaction
+   * is active, results are in shard order
+   */
+  private <R> List<R> scatter(Function<EntityManager, R> action) {
+    Collection<EntityManager> targets = shards.values();
+    var results = new ArrayList<R>(targets.size());
+    if (targets.size() == 1 || TransactionSynchronizationManager.isActualTransactionActive()) {
+      for (EntityManager shard : targets) {
+        results.add(action.apply(shard));
+      }
+      return results;
+    }
+
+    var futures = new ArrayList<CompletableFuture<R>>(targets.size());
+    for (EntityManager shard : targets) {
+      futures.add(CompletableFuture.supplyAsync(() -> action.apply(shard), executor));
+    }
+
+    Throwable failure = null;
+    for (CompletableFuture<R> future : futures) {
+      try {
+        results.add(future.join());
+      }
+      catch (CompletionException e) {
+        Throwable cause = e.getCause() != null ? e.getCause() : e;
+        if (failure == null) {
+          failure = cause;
+        }
+        else {
+          failure.addSuppressed(cause);
+        }
+      }
+    }
+
+    if (failure != null) {
+      // close the iterators of the succeeded shards
+      for (R result : results) {
+        if (result instanceof EntityIterator<?> iterator) {
+          iterator.close();
+        }
+      }
+      if (failure instanceof RuntimeException ex) {
+        throw ex;
+      }
+      if (failure instanceof Error error) {
+        throw error;
+      }
+      throw new DataRetrievalFailureException("Unable to query shards", failure);
+    }
+    return results;
+  }
+
+  /**
+   * Push {@code offset + pageSize} down to each shard, then merge
+   * the rows and skip the offset
+   */
+  private <T> Page<T> scatterPage(Class<T> entityClass, @Nullable ConditionStatement handler,
+          @Nullable Pageable pageable, BiFunction<EntityManager, Pageable, Page<T>> action) {
+    if (pageable == null) {
+      pageable = defaultPageable;
+    }
+    if (pageable instanceof KeysetPageable keyset) {
+      return scatterKeysetPage(entityClass, keyset, action);
+    }
+
+    Comparator<T> comparator = statementComparator(entityClass, handler);
+    int offset = pageable.offset();
+    int pageSize = pageable.pageSize();
+    Pageable pushed = Pageable.of(1, offset + pageSize);
+
+    List<Page<T>> pages = scatter(em -> action.apply(em, pushed));
+    long total = 0;
+    var rows = new ArrayList<Iterator<T>>(pages.size());
+    for (Page<T> page : pages) {
+      Number totalRows = page.getTotalRows();
+      if (totalRows != null) {
+        total += totalRows.longValue();
+      }
+      rows.add(page.getRows().iterator());
+    }
+
+    var merged = new ArrayList<T>(pageSize);
+    merge(rows, comparator, offset, pageSize, merged::add);
+    return new Page<>(pageable, total, merged);
+  }
+
+  private <T> Page<T> scatterKeysetPage(Class<T> entityClass,
+          KeysetPageable pageable, BiFunction<EntityManager, Pageable, Page<T>> action) {
+    EntityMetadata metadata = getMetadata(entityClass);
+    var keys = new ArrayList<EntityProperty>();
+    var orders = new ArrayList<Order>();
+    for (Pair<String, Order> sortKey : pageable.sortKeys()) {
+      keys.add(findSortKey(metadata, sortKey.first));
+      orders.add(sortKey.second);
+    }
+    // same unique order as DefaultEntityManager
+    if (metadata.idProperty != null && !keys.contains(metadata.idProperty)) {
+      keys.add(metadata.idProperty);
+      orders.add(orders.isEmpty() ? Order.ASC : orders.get(orders.size() - 1));
+    }
+
+    List<Page<T>> pages = scatter(em -> action.apply(em, pageable));
+    boolean hasMore = false;
+    Long total = pageable.countTotal() ? 0L : null;
+    var rows = new ArrayList<Iterator<T>>(pages.size());
+    for (Page<T> page : pages) {
+      if (total != null && page.getTotalRows() != null) {
+        total += page.getTotalRows().longValue();
+      }
+      hasMore |= page.getContinuationToken() != null;
+      rows.add(page.getRows().iterator());
+    }
+
+    int pageSize = pageable.pageSize();
+    var merged = new ArrayList<T>(pageSize + 1);
+    merge(rows, comparator(keys, orders), 0, pageSize + 1, merged::add);
+
+    String continuationToken = null;
+    if (merged.size() > pageSize || (hasMore && !merged.isEmpty())) {
+      if (merged.size() > pageSize) {
+        merged.remove(pageSize);
+      }
+      T last = merged.get(merged.size() - 1);
+      Object[] values = new Object[keys.size()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = keys.get(i).getValue(last);
+      }
+      continuationToken = KeysetPageable.continuationToken(pageable.pageNumber() + 1, values);
+    }
+    return new Page<>(pageable, total, merged, continuationToken);
+  }
+
+  /**
+   * Merge the sorted rows of each shard
+   */
+  private static <T> List<T> merge(List<List<T>> shardRows, @Nullable Comparator<T> comparator) {
+    int size = 0;
+    var sources = new ArrayList<Iterator<T>>(shardRows.size());
+    for (List<T> rows : shardRows) {
+      size += rows.size();
+      sources.add(rows.iterator());
+    }
+    var merged = new ArrayList<T>(size);
+    merge(sources, comparator, 0, Integer.MAX_VALUE, merged::add);
+    return merged;
+  }
+
+  private static <T> void consume(List<EntityIterator<T>> iterators,
+          @Nullable Comparator<T> comparator, Consumer<T> entityConsumer) {
+    try {
+      merge(iterators, comparator, 0, Integer.MAX_VALUE, entityConsumer);
+    }
+    finally {
+      for (EntityIterator<T> iterator : iterators) {
+        iterator.close();
+      }
+    }
+  }
+
+  /**
+   * Streaming k-way merge of the sorted sources, concatenated in
+   * shard order if no comparator
+   *
+   * @param offset number of rows to skip
+   * @param limit max number of rows to consume
+   */
+  static <T> void merge(List<? extends Iterator<T>> sources,
+          @Nullable Comparator<T> comparator, int offset, int limit, Consumer<T> consumer) {
+    int skipped = 0;
+    int consumed = 0;
+    if (comparator == null) {
+      for (Iterator<T> source : sources) {
+        while (consumed < limit && source.hasNext()) {
+          T row = source.next();
+          if (skipped < offset) {
+            skipped++;
+          }
+          else {
+            consumer.accept(row);
+            consumed++;
+          }
+        }
+      }
+      return;
+    }
+
+    var queue = new PriorityQueue<MergeHead<T>>(Math.max(1, sources.size()), (a, b) -> {
+      int result = comparator.compare(a.row, b.row);
+      // stable across shards
+      return result != 0 ? result : Integer.compare(a.shard, b.shard);
+    });
+
+    for (int i = 0; i < sources.size(); i++) {
+      Iterator<T> source = sources.get(i);
+      if (source.hasNext()) {
+        queue.add(new MergeHead<>(i, source, source.next()));
+      }
+    }
+
+    while (consumed < limit && !queue.isEmpty()) {
+      MergeHead<T> head = queue.poll();
+      if (skipped < offset) {
+        skipped++;
+      }
+      else {
+        consumer.accept(head.row);
+        consumed++;
+      }
+      if (head.source.hasNext()) {
+        head.row = head.source.next();
+        queue.add(head);
+      }
+    }
+  }
+
+  @Nullable
+  private static <T> T first(List<T> candidates, @Nullable Comparator<T> comparator) {
+    T first = null;
+    for (T candidate : candidates) {
+      if (candidate != null) {
+        if (comparator == null) {
+          return candidate;
+        }
+        if (first == null || comparator.compare(candidate, first) < 0) {
+          first = candidate;
+        }
+      }
+    }
+    return first;
+  }
+
+  @Nullable
+  private static <T> T unique(List<T> candidates) {
+    T unique = null;
+    int found = 0;
+    for (T candidate : candidates) {
+      if (candidate != null) {
+        unique = candidate;
+        found++;
+      }
+    }
+    if (found > 1) {
+      throw new IncorrectResultSizeDataAccessException(1, found);
+    }
+    return unique;
+  }
+
+  private static <K, T> Map<K, T> mergeMaps(List<Map<K, T>> maps) {
+    var merged = new LinkedHashMap<K, T>();
+    for (Map<K, T> map : maps) {
+      merged.putAll(map);
+    }
+    return merged;
+  }
+
+  private static int sum(List<Integer> counts) {
+    int sum = 0;
+    for (Integer count : counts) {
+      sum += count;
+    }
+    return sum;
+  }
+
+  private static Long sumLong(List<Number> counts) {
+    long sum = 0;
+    for (Number count : counts) {
+      sum += count.longValue();
+    }
+    return sum;
+  }
+
+  // order
+
+  @Nullable
+  private <T> Comparator<T> statementComparator(Class<T> entityClass, @Nullable Object handler) {
+    if (handler instanceof ConditionStatement condition) {
+      // resolved on the calling thread, before the shards render the statement,
+      // order by clause of the example is available after its conditions rendered
+      EntityMetadata metadata = getMetadata(entityClass);
+      condition.renderWhereClause(metadata, new ArrayList<>());
+      return comparator(entityClass, condition.getOrderByClause(metadata));
+    }
+    return null;
+  }
+
+  /**
+   * Create a comparator of the sort keys of the given clause
+   *
+   * @throws InvalidDataAccessApiUsageException plain clause can not be merged
+   */
+  @Nullable
+  private <T> Comparator<T> comparator(Class<T> entityClass, @Nullable OrderByClause clause) {
+    if (clause == null || clause.isEmpty()) {
+      return null;
+    }
+    if (!(clause instanceof MutableOrderByClause mutable)) {
+      throw new InvalidDataAccessApiUsageException(
+              "Plain ORDER BY clause '%s' can't be merged across shards, use sort keys instead".formatted(clause.toClause()));
+    }
+    EntityMetadata metadata = getMetadata(entityClass);
+    var keys = new ArrayList<EntityProperty>();
+    var orders = new ArrayList<Order>();
+    for (Pair<String, Order> sortKey : mutable.sortKeys()) {
+      keys.add(findSortKey(metadata, sortKey.first));
+      orders.add(sortKey.second);
+    }
+    return comparator(keys, orders);
+  }
+
+  /**
+   * SQL {@code NULL} is ordered first in ascending order, same as MySQL
+   */
+  private static <T> Comparator<T> comparator(List<EntityProperty> keys, List<Order> orders) {
+    Comparator<T> comparator = null;
+    for (int i = 0; i < keys.size(); i++) {
+      EntityProperty property = keys.get(i);
+      Comparator<T> next = (a, b) -> compareValues(property.getValue(a), property.getValue(b));
+      if (orders.get(i) == Order.DESC) {
+        next = next.reversed();
+      }
+      comparator = comparator == null ? next : comparator.thenComparing(next);
+    }
+    return comparator;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compareValues(@Nullable Object a, @Nullable Object b) {
+    if (a == b) {
+      return 0;
+    }
+    if (a == null) {
+      return -1;
+    }
+    if (b == null) {
+      return 1;
+    }
+    return ((Comparable<Object>) a).compareTo(b);
+  }
+
+  private static EntityProperty findSortKey(EntityMetadata metadata, String name) {
+    for (EntityProperty property : metadata.entityProperties) {
+      if (property.columnName.equalsIgnoreCase(name)) {
+        return property;
+      }
+    }
+    EntityProperty property = metadata.findProperty(name);
+    if (property == null) {
+      throw new InvalidDataAccessApiUsageException("Sort key '%s' not found in entity '%s'"
+              .formatted(name, metadata.entityClass.getName()));
+    }
+    return property;
+  }
+
+  private static Executor createDefaultExecutor(int concurrencyLimit) {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("sharding-");
+    executor.setConcurrencyLimit(concurrencyLimit);
+    if (JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+      executor.setVirtualThreads(true);
+    }
+    return executor;
+  }
+
+  static final class MergeHead<T> {
+
+    final int shard;
+
+    final Iterator<T> source;
+
+    T row;
+
+    MergeHead(int shard, Iterator<T> source, T row) {
+      this.shard = shard;
+      this.source = source;
+      this.row = row;
+    }
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Strategy to determine the shard of an entity from its {@link ShardKey}
+ * value.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see ShardingEntityManager#setShardingStrategy
+ * @since 5.0
+ */
+@FunctionalInterface
+public interface ShardingStrategy {
+
+  /**
+   * Determine the shard of the given shard key value.
+   *
+   * @param shardKey the shard key value, never {@code null}
+   * @param shards names of all shards, in registration order
+   * @return the name of the shard, must be one of {@code shards}
+   */
+  String determineShard(Object shardKey, List<String> shards);
+
+  // Static Factory Methods
+
+  /**
+   * Distribute the shard keys by their hash
+   *
+   * @see HashShardingStrategy
+   */
+  static HashShardingStrategy hash() {
+    return new HashShardingStrategy();
+  }
+
+  /**
+   * Distribute the shard keys by ranges, the ranges should be added
+   * with {@link RangeShardingStrategy#addRange}
+   *
+   * @see RangeShardingStrategy
+   */
+  static RangeShardingStrategy range() {
+    return new RangeShardingStrategy();
+  }
+
+  /**
+   * Find the shard in the given lookup table
+   *
+   * @see LookupShardingStrategy
+   */
+  static LookupShardingStrategy lookup(Map<?, String> table) {
+    return new LookupShardingStrategy(table);
+  }
+
+  /**
+   * Find the shard with the given lookup function, a {@code null}
+   * result means the shard key is unknown
+   *
+   * @see LookupShardingStrategy
+   */
+  static LookupShardingStrategy lookup(Function<Object, String> lookup) {
+    return new LookupShardingStrategy(lookup);
+  }
+
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import cn.taketoday.dao.InvalidDataAccessApiUsageException;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.persistence.dialect.Platform;
+import cn.taketoday.persistence.sql.Insert;
+import cn.taketoday.persistence.sql.Restriction;
+import cn.taketoday.persistence.sql.Update;
+import cn.taketoday.util.ConcurrentLruCache;
+
+/**
+ * Cache of rendered SQL and the ordered properties to bind, so that
+ * repeated statements of the same shape only bind parameters.
+ *
+ * <p>A plan is keyed by entity class, operation and statement shape:
+ * the properties selected by the {@link PropertyUpdateStrategy}, the
+ * 'where' property or the restrictions of a condition. COUNT statements
+ * are only cached if all restrictions have value based {@code equals},
+ * others are rendered for each call. The least recently used plans are
+ * evicted once {@code maxPlans} is reached.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see DefaultEntityManager
+ * @since 5.0
+ */
+final class StatementPlanCache {
+
+  private static final ClassValue<Boolean> valueComparable = new ClassValue<>() {
+
+    @Override
+    protected Boolean computeValue(Class<?> type) {
+      try {
+        return type.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+      }
+      catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  private final ConcurrentLruCache<PlanKey, StatementPlan> plans;
+
+  private final Platform platform;
+
+  StatementPlanCache(Platform platform, int maxPlans) {
+    Assert.notNull(platform, "Platform is required");
+    this.platform = platform;
+    this.plans = new ConcurrentLruCache<>(maxPlans, PlanKey::build);
+  }
+
+  /**
+   * INSERT plan, binding properties selected by the strategy
+   */
+  StatementPlan insert(EntityMetadata metadata, Object entity, PropertyUpdateStrategy strategy) {
+    BitSet shape = shape(metadata.entityProperties, entity, strategy, null);
+    return plans.get(new PlanKey(metadata.entityClass, Operation.INSERT, null, shape, () -> {
+      EntityProperty[] properties = select(metadata.entityProperties, shape);
+      Insert insert = new Insert(metadata.tableName);
+      for (EntityProperty property : properties) {
+        insert.addColumn(property.columnName);
+      }
+      return new StatementPlan(insert.toStatementString(platform), properties, StatementPlan.EMPTY);
+    }));
+  }
+
+  /**
+   * INSERT-or-UPDATE plan keyed by ID, the ID is bound first, followed by
+   * the properties selected by the strategy
+   */
+  StatementPlan upsert(EntityMetadata metadata, EntityProperty idProperty, Object entity, PropertyUpdateStrategy strategy) {
+    BitSet shape = shape(metadata.entityPropertiesExcludeId, entity, strategy, null);
+    return plans.get(new PlanKey(metadata.entityClass, Operation.UPSERT, null, shape, () -> {
+      EntityProperty[] selected = select(metadata.entityPropertiesExcludeId, shape);
+      EntityProperty[] properties = new EntityProperty[selected.length + 1];
+      properties[0] = idProperty;
+      System.arraycopy(selected, 0, properties, 1, selected.length);
+      String sql = platform.getUpsertString(metadata.tableName,
+              columnNames(properties), List.of(idProperty.columnName), 1);
+      return new StatementPlan(sql, properties, StatementPlan.EMPTY);
+    }));
+  }
+
+  /**
+   * UPDATE plan, restricted by the {@link UpdateBy} properties
+   */
+  StatementPlan update(EntityMetadata metadata, Object entity, PropertyUpdateStrategy strategy) {
+    BitSet shape = new BitSet(metadata.entityPropertiesExcludeId.length);
+    int i = 0;
+    for (EntityProperty property : metadata.entityPropertiesExcludeId) {
+      if (!property.isPresent(UpdateBy.class) && strategy.shouldUpdate(entity, property)) {
+        shape.set(i);
+      }
+      i++;
+    }
+
+    return plans.get(new PlanKey(metadata.entityClass, Operation.UPDATE, null, shape, () -> {
+      if (shape.isEmpty()) {
+        throw new InvalidDataAccessApiUsageException("Updating an entity, There is no update properties");
+      }
+
+      Update updateStmt = new Update(metadata.tableName);
+      EntityProperty[] properties = select(metadata.entityPropertiesExcludeId, shape);
+      for (EntityProperty property : properties) {
+        updateStmt.addAssignment(property.columnName);
+      }
+
+      var updateBy = new ArrayList<EntityProperty>(2);
+      for (EntityProperty property : metadata.entityPropertiesExcludeId) {
+        if (property.isPresent(UpdateBy.class)) {
+          updateBy.add(property);
+          updateStmt.addRestriction(property.columnName);
+        }
+      }
+
+      if (updateBy.isEmpty()) {
+        throw new InvalidDataAccessApiUsageException("Updating an entity, There is no update by properties");
+      }
+      return new StatementPlan(updateStmt.toStatementString(platform),
+              properties, updateBy.toArray(StatementPlan.EMPTY));
+    }));
+  }
+
+  /**
+   * UPDATE plan restricted by ID, the ID value is bound last
+   */
+  StatementPlan updateById(EntityMetadata metadata, EntityProperty idProperty, Object entity, PropertyUpdateStrategy strategy) {
+    BitSet shape = shape(metadata.entityProperties, entity, strategy, null);
+    return plans.get(new PlanKey(metadata.entityClass, Operation.UPDATE_BY_ID, null, shape, () -> {
+      if (shape.isEmpty()) {
+        throw new InvalidDataAccessApiUsageException("Updating an entity, There is no update properties");
+      }
+      Update updateStmt = new Update(metadata.tableName);
+      updateStmt.addRestriction(idProperty.columnName);
+
+      EntityProperty[] properties = select(metadata.entityProperties, shape);
+      for (EntityProperty property : properties) {
+        updateStmt.addAssignment(property.columnName);
+      }
+      return new StatementPlan(updateStmt.toStatementString(platform),
+              properties, new EntityProperty[] { idProperty });
+    }));
+  }
+
+  /**
+   * UPDATE plan restricted by the given 'where' property, its value is bound last
+   */
+  StatementPlan updateBy(EntityMetadata metadata, EntityProperty updateBy, Object entity, PropertyUpdateStrategy strategy) {
+    BitSet shape = shape(metadata.entityProperties, entity, strategy, updateBy);
+    return plans.get(new PlanKey(metadata.entityClass, Operation.UPDATE_BY, updateBy.columnName, shape, () -> {
+      Update updateStmt = new Update(metadata.tableName);
+      EntityProperty[] properties = select(metadata.entityProperties, shape);
+      for (EntityProperty property : properties) {
+        updateStmt.addAssignment(property.columnName);
+      }
+      updateStmt.addRestriction(updateBy.columnName);
+      return new StatementPlan(updateStmt.toStatementString(platform),
+              properties, new EntityProperty[] { updateBy });
+    }));
+  }
+
+  /**
+   * DELETE plan restricted by ID
+   */
+  StatementPlan deleteById(EntityMetadata metadata, EntityProperty idProperty) {
+    return plans.get(new PlanKey(metadata.entityClass, Operation.DELETE_BY_ID, null, null, () -> {
+      String sql = "DELETE FROM " + metadata.tableName + " WHERE `" + idProperty.columnName + "` = ? ";
+      return new StatementPlan(sql, StatementPlan.EMPTY, new EntityProperty[] { idProperty });
+    }));
+  }
+
+  /**
+   * COUNT statement for the given restrictions
+   */
+  String count(EntityMetadata metadata, List<Restriction> restrictions) {
+    List<Restriction> shape = comparableShape(restrictions);
+    if (shape == null) {
+      return countSql(metadata, restrictions);
+    }
+    return plans.get(new PlanKey(metadata.entityClass, Operation.COUNT, null, shape,
+            () -> new StatementPlan(countSql(metadata, shape), StatementPlan.EMPTY, StatementPlan.EMPTY))).sql;
+  }
+
+  /**
+   * Returns the number of cached plans
+   */
+  int size() {
+    return plans.size();
+  }
+
+  private static String countSql(EntityMetadata metadata, List<Restriction> restrictions) {
+    StringBuilder countSql = new StringBuilder(restrictions.size() * 10 + 25 + metadata.tableName.length());
+    countSql.append("SELECT COUNT(*) FROM `")
+            .append(metadata.tableName)
+            .append('`');
+
+    Restriction.render(restrictions, countSql);
+    return countSql.toString();
+  }
+
+  /**
+   * Unwrap the restrictions of property conditions, so that the shape
+   * does not hold the query values.
+   *
+   * @return the restrictions to key the plan by, or {@code null} if a
+   * restriction cannot be compared by value
+   */
+  @Nullable
+  private static List<Restriction> comparableShape(List<Restriction> restrictions) {
+    var shape = new ArrayList<Restriction>(restrictions.size());
+    for (Restriction restriction : restrictions) {
+      if (restriction instanceof PropertyConditionStrategy.Condition condition) {
+        restriction = condition.restriction;
+      }
+      if (!valueComparable.get(restriction.getClass())) {
+        return null;
+      }
+      shape.add(restriction);
+    }
+    return shape;
+  }
+
+  static List<String> columnNames(EntityProperty[] properties) {
+    var columns = new ArrayList<String>(properties.length);
+    for (EntityProperty property : properties) {
+      columns.add(property.columnName);
+    }
+    return columns;
+  }
+
+  private static BitSet shape(EntityProperty[] properties, Object entity,
+          PropertyUpdateStrategy strategy, @Nullable EntityProperty excluded) {
+    BitSet shape = new BitSet(properties.length);
+    for (int i = 0; i < properties.length; i++) {
+      EntityProperty property = properties[i];
+      if (property != excluded && strategy.shouldUpdate(entity, property)) {
+        shape.set(i);
+      }
+    }
+    return shape;
+  }
+
+  private static EntityProperty[] select(EntityProperty[] properties, BitSet shape) {
+    EntityProperty[] selected = new EntityProperty[shape.cardinality()];
+    int idx = 0;
+    for (int i = shape.nextSetBit(0); i >= 0; i = shape.nextSetBit(i + 1)) {
+      selected[idx++] = properties[i];
+    }
+    return selected;
+  }
+
+  enum Operation {
+    INSERT, UPSERT, UPDATE, UPDATE_BY_ID, UPDATE_BY, DELETE_BY_ID, COUNT
+  }
+
+  /**
+   * Rendered SQL and the properties to bind, in parameter order:
+   * {@code properties} first, then {@code restrictionProperties}.
+   */
+  static final class StatementPlan {
+
+    static final EntityProperty[] EMPTY = new EntityProperty[0];
+
+    public final String sql;
+
+    public final EntityProperty[] properties;
+
+    public final EntityProperty[] restrictionProperties;
+
+    StatementPlan(String sql, EntityProperty[] properties, EntityProperty[] restrictionProperties) {
+      this.sql = sql;
+      this.properties = properties;
+      this.restrictionProperties = restrictionProperties;
+    }
+
+  }
+
+  /**
+   * Plan identity, carrying the factory of the plan until it is built
+   */
+  private static final class PlanKey {
+
+    private final Class<?> entityClass;
+
+    private final Operation operation;
+
+    @Nullable
+    private final String qualifier;
+
+    @Nullable
+    private final Object shape;
+
+    @Nullable
+    private Supplier<StatementPlan> factory;
+
+    PlanKey(Class<?> entityClass, Operation operation, @Nullable String qualifier,
+            @Nullable Object shape, Supplier<StatementPlan> factory) {
+      this.entityClass = entityClass;
+      this.operation = operation;
+      this.qualifier = qualifier;
+      this.shape = shape;
+      this.factory = factory;
+    }
+
+    StatementPlan build() {
+      Supplier<StatementPlan> factory = this.factory;
+      Assert.state(factory != null, "Plan already built");
+      // the factory may capture the entity, do not retain it in the cache
+      this.factory = null;
+      return factory.get();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (!(o instanceof PlanKey that))
+        return false;
+      return entityClass == that.entityClass
+              && operation == that.operation
+              && Objects.equals(qualifier, that.qualifier)
+              && Objects.equals(shape, that.shape);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(entityClass, operation, qualifier, shape);
+    }
+  }
+
+}
@@ -17,10 +17,58 @@
 
 package cn.taketoday.persistence.dialect;
 
+import java.util.List;
+
 /**
  * @author TODAY 2021/10/10 13:12
  * @since 4.0
  */
 public class MySQLPlatform extends Platform {
 
+  @Override
+  public boolean supportsRowValueComparison() {
+    return true;
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    return 65535;
+  }
+
+  @Override
+  public boolean supportsUpsert() {
+    return true;
+  }
+
+  /**
+   * {@code INSERT ... ON DUPLICATE KEY UPDATE `b` = VALUES(`b`)}
+   */
+  @Override
+  public String getUpsertString(String tableName, List<String> columns, List<String> keyColumns, int rows) {
+    StringBuilder buf = new StringBuilder(tableName.length() + (columns.size() * 4 + 4) * rows + columns.size() * 20 + 50);
+    appendValuesInsert(buf, tableName, columns, rows);
+    buf.append(" ON DUPLICATE KEY UPDATE ");
+    boolean first = true;
+    for (String column : columns) {
+      if (!keyColumns.contains(column)) {
+        if (!first) {
+          buf.append(", ");
+        }
+        appendIdentifier(buf, column);
+        buf.append(" = VALUES(");
+        appendIdentifier(buf, column);
+        buf.append(')');
+        first = false;
+      }
+    }
+    if (first) {
+      // nothing to update, keep existing row
+      String key = keyColumns.get(0);
+      appendIdentifier(buf, key);
+      buf.append(" = ");
+      appendIdentifier(buf, key);
+    }
+    return buf.toString();
+  }
+
 }
@@ -17,10 +17,132 @@
 
 package cn.taketoday.persistence.dialect;
 
+import java.util.List;
+
 /**
  * @author TODAY 2021/10/10 13:12
  * @since 4.0
  */
 public class OraclePlatform extends Platform {
 
+  /**
+   * Row limiting clause, requires Oracle 12c or later
+   */
+  @Override
+  public void appendLimit(StringBuilder buf, int limit, int offset) {
+    if (offset > 0) {
+      buf.append(" OFFSET ").append(offset).append(" ROWS FETCH NEXT ");
+    }
+    else {
+      buf.append(" FETCH FIRST ");
+    }
+    buf.append(limit).append(" ROWS ONLY");
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    return 65535;
+  }
+
+  /**
+   * ORA-01795: maximum number of expressions in a list is 1000
+   */
+  @Override
+  public int getMaxInListSize() {
+    return 1000;
+  }
+
+  /**
+   * Oracle does not expose the generated keys of an {@code INSERT ALL}
+   */
+  @Override
+  public boolean supportsMultiRowInsertGeneratedKeys() {
+    return false;
+  }
+
+  @Override
+  public boolean supportsUpsert() {
+    return true;
+  }
+
+  /**
+   * Identifiers are not quoted: quoted identifiers are case-sensitive on
+   * Oracle, while unquoted ones match the upper case dictionary names
+   */
+  @Override
+  protected void appendIdentifier(StringBuilder buf, String identifier) {
+    buf.append(identifier);
+  }
+
+  /**
+   * {@code INSERT ALL INTO t (a) VALUES (?) INTO t (a) VALUES (?) SELECT 1 FROM DUAL}
+   */
+  @Override
+  public String getMultiRowInsertString(String tableName, List<String> columns, int rows) {
+    StringBuilder buf = new StringBuilder((tableName.length() + columns.size() * 16 + 20) * rows + 30);
+    buf.append("INSERT ALL");
+    for (int i = 0; i < rows; i++) {
+      buf.append(" INTO ").append(tableName).append(" (");
+      appendColumns(buf, columns, null);
+      buf.append(") VALUES ");
+      appendParameters(buf, columns.size());
+    }
+    buf.append(" SELECT 1 FROM DUAL");
+    return buf.toString();
+  }
+
+  /**
+   * {@code MERGE INTO t USING (SELECT ? a, ? b FROM DUAL UNION ALL ...) s ON (...)
+   * WHEN MATCHED THEN UPDATE ... WHEN NOT MATCHED THEN INSERT ...}
+   */
+  @Override
+  public String getUpsertString(String tableName, List<String> columns, List<String> keyColumns, int rows) {
+    StringBuilder buf = new StringBuilder((columns.size() * 16 + 30) * rows + columns.size() * 40 + 100);
+    buf.append("MERGE INTO ").append(tableName).append(" t USING (");
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        buf.append(" UNION ALL ");
+      }
+      buf.append("SELECT ");
+      for (int j = 0; j < columns.size(); j++) {
+        if (j > 0) {
+          buf.append(", ");
+        }
+        buf.append("? ");
+        appendIdentifier(buf, columns.get(j));
+      }
+      buf.append(" FROM DUAL");
+    }
+    buf.append(") s ON (");
+    for (int i = 0; i < keyColumns.size(); i++) {
+      if (i > 0) {
+        buf.append(" AND ");
+      }
+      String key = keyColumns.get(i);
+      buf.append("t.");
+      appendIdentifier(buf, key);
+      buf.append(" = s.");
+      appendIdentifier(buf, key);
+    }
+    buf.append(')');
+
+    boolean first = true;
+    for (String column : columns) {
+      if (!keyColumns.contains(column)) {
+        buf.append(first ? " WHEN MATCHED THEN UPDATE SET " : ", ");
+        buf.append("t.");
+        appendIdentifier(buf, column);
+        buf.append(" = s.");
+        appendIdentifier(buf, column);
+        first = false;
+      }
+    }
+    buf.append(" WHEN NOT MATCHED THEN INSERT (");
+    appendColumns(buf, columns, null);
+    buf.append(") VALUES (");
+    appendColumns(buf, columns, "s");
+    buf.append(')');
+    return buf.toString();
+  }
+
 }
@@ -17,12 +17,15 @@
 
 package cn.taketoday.persistence.dialect;
 
+import java.util.Iterator;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import cn.taketoday.persistence.sql.ANSICaseFragment;
 import cn.taketoday.persistence.sql.ANSIJoinFragment;
 import cn.taketoday.persistence.sql.CaseFragment;
 import cn.taketoday.persistence.sql.JoinFragment;
+import cn.taketoday.lang.Nullable;
 import cn.taketoday.util.ClassUtils;
 import cn.taketoday.util.StringUtils;
 
@@ -99,6 +102,173 @@ public abstract class Platform {
     return new ANSICaseFragment();
   }
 
+  /**
+   * Does this dialect support row value constructor comparisons like
+   * {@code (a, b) > (?, ?)}
+   *
+   * @return {@code true} if row value constructor comparisons are supported
+   * @since 5.0
+   */
+  public boolean supportsRowValueComparison() {
+    return false;
+  }
+
+  /**
+   * Append the clause restricting the number of rows returned.
+   *
+   * @param buf SQL buffer
+   * @param limit max number of rows
+   * @param offset number of rows to skip
+   * @since 5.0
+   */
+  public void appendLimit(StringBuilder buf, int limit, int offset) {
+    buf.append(" LIMIT ").append(limit);
+    if (offset > 0) {
+      buf.append(" OFFSET ").append(offset);
+    }
+  }
+
+  /**
+   * The maximum number of bind parameters a single statement may contain,
+   * used to size multi-row statements.
+   *
+   * @return max number of bind parameters
+   * @since 5.0
+   */
+  public int getMaxBindParameters() {
+    return 2000;
+  }
+
+  /**
+   * The maximum number of elements in an {@code IN (...)} list,
+   * used to size batched lookups by id.
+   *
+   * @return max number of elements in an IN list
+   * @since 5.0
+   */
+  public int getMaxInListSize() {
+    return getMaxBindParameters();
+  }
+
+  /**
+   * Does this dialect return the generated keys of all rows, in row order,
+   * for a multi-row INSERT statement
+   *
+   * @return {@code true} if generated keys of multi-row INSERTs are supported
+   * @see #getMultiRowInsertString
+   * @since 5.0
+   */
+  public boolean supportsMultiRowInsertGeneratedKeys() {
+    return true;
+  }
+
+  /**
+   * Render an INSERT statement inserting {@code rows} rows at once,
+   * binding the given columns of each row in order.
+   * <p>The default implementation renders a row value constructor list:
+   * {@code INSERT INTO t (`a`, `b`) VALUES (?, ?), (?, ?)}
+   *
+   * @param tableName the table to insert into
+   * @param columns the columns of each row
+   * @param rows number of rows
+   * @return the multi-row INSERT statement
+   * @since 5.0
+   */
+  public String getMultiRowInsertString(String tableName, List<String> columns, int rows) {
+    StringBuilder buf = new StringBuilder(tableName.length() + (columns.size() * 4 + 4) * rows + 30);
+    appendValuesInsert(buf, tableName, columns, rows);
+    return buf.toString();
+  }
+
+  /**
+   * Does this dialect support native upserts, see {@link #getUpsertString}
+   *
+   * @return {@code true} if upserts are supported
+   * @since 5.0
+   */
+  public boolean supportsUpsert() {
+    return false;
+  }
+
+  /**
+   * Render a statement inserting {@code rows} rows, or updating the existing
+   * rows identified by the given key columns, binding the given columns of
+   * each row in order.
+   * <p>A key must not occur more than once in one statement.
+   *
+   * @param tableName the table to insert into or update
+   * @param columns the columns of each row, including the key columns
+   * @param keyColumns the columns identifying an existing row
+   * @param rows number of rows
+   * @return the upsert statement
+   * @throws UnsupportedOperationException if this dialect does not support upserts
+   * @see #supportsUpsert()
+   * @since 5.0
+   */
+  public String getUpsertString(String tableName, List<String> columns, List<String> keyColumns, int rows) {
+    throw new UnsupportedOperationException("Upsert is not supported by " + getClass().getSimpleName());
+  }
+
+  /**
+   * Append the given identifier, quoted as this dialect requires.
+   * <p>The default implementation quotes with backticks, like the SQL
+   * builders of the persistence module. Statements rendered by the dialect,
+   * multi-row inserts and upserts, use the quoting of the dialect instead,
+   * since their syntax only exists on that database.
+   *
+   * @param buf SQL buffer
+   * @param identifier table or column name
+   * @since 5.0
+   */
+  protected void appendIdentifier(StringBuilder buf, String identifier) {
+    buf.append('`').append(identifier).append('`');
+  }
+
+  /**
+   * {@code INSERT INTO t (`a`, `b`) VALUES (?, ?), (?, ?)}
+   */
+  protected void appendValuesInsert(StringBuilder buf, String tableName, List<String> columns, int rows) {
+    buf.append("INSERT INTO ").append(tableName).append(" (");
+    appendColumns(buf, columns, null);
+    buf.append(") VALUES ");
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        buf.append(", ");
+      }
+      appendParameters(buf, columns.size());
+    }
+  }
+
+  /**
+   * {@code `a`, `b`} or {@code prefix.`a`, prefix.`b`}
+   */
+  protected void appendColumns(StringBuilder buf, List<String> columns, @Nullable String prefix) {
+    Iterator<String> itr = columns.iterator();
+    while (itr.hasNext()) {
+      if (prefix != null) {
+        buf.append(prefix).append('.');
+      }
+      appendIdentifier(buf, itr.next());
+      if (itr.hasNext()) {
+        buf.append(", ");
+      }
+    }
+  }
+
+  /**
+   * {@code (?, ?, ?)}
+   */
+  protected static void appendParameters(StringBuilder buf, int count) {
+    buf.append('(');
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        buf.append(", ");
+      }
+      buf.append('?');
+    }
+    buf.append(')');
+  }
+
   public static Platform forClasspath() {
     if (ClassUtils.isPresent("com.mysql.cj.jdbc.Driver")) {
       return new MySQLPlatform();
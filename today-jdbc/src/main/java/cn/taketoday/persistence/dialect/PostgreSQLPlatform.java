@@ -17,10 +17,62 @@
 
 package cn.taketoday.persistence.dialect;
 
+import java.util.List;
+
 /**
  * @author TODAY 2021/10/10 13:13
  * @since 4.0
  */
 public class PostgreSQLPlatform extends Platform {
 
+  @Override
+  public boolean supportsRowValueComparison() {
+    return true;
+  }
+
+  @Override
+  public int getMaxBindParameters() {
+    return 32767;
+  }
+
+  @Override
+  public boolean supportsUpsert() {
+    return true;
+  }
+
+  /**
+   * ANSI double quotes, unquoted identifiers are folded to lower case
+   * so lower case names match either way
+   */
+  @Override
+  protected void appendIdentifier(StringBuilder buf, String identifier) {
+    buf.append('"').append(identifier).append('"');
+  }
+
+  /**
+   * {@code INSERT ... ON CONFLICT ("id") DO UPDATE SET "b" = EXCLUDED."b"}
+   */
+  @Override
+  public String getUpsertString(String tableName, List<String> columns, List<String> keyColumns, int rows) {
+    StringBuilder buf = new StringBuilder(tableName.length() + (columns.size() * 4 + 4) * rows + columns.size() * 20 + 50);
+    appendValuesInsert(buf, tableName, columns, rows);
+    buf.append(" ON CONFLICT (");
+    appendColumns(buf, keyColumns, null);
+    buf.append(')');
+    boolean first = true;
+    for (String column : columns) {
+      if (!keyColumns.contains(column)) {
+        buf.append(first ? " DO UPDATE SET " : ", ");
+        appendIdentifier(buf, column);
+        buf.append(" = EXCLUDED.");
+        appendIdentifier(buf, column);
+        first = false;
+      }
+    }
+    if (first) {
+      buf.append(" DO NOTHING");
+    }
+    return buf.toString();
+  }
+
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence.sql;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.persistence.Order;
+
+/**
+ * Keyset (seek) restriction, selects the rows after the last-seen
+ * values of the sort keys.
+ * <p>
+ * Rendered as a row value comparison {@code (`a`, `b`) > (?, ?)} when
+ * supported and all keys have the same order, otherwise expanded to
+ * {@code (`a` > ? OR (`a` = ? AND `b` > ?))}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public final class KeysetRestriction implements Restriction {
+
+  private final String[] columns;
+
+  private final Order[] orders;
+
+  private final boolean rowValue;
+
+  /**
+   * @param columns sort key columns
+   * @param orders sort key orders
+   * @param rowValueComparison the platform supports row value comparisons
+   */
+  public KeysetRestriction(String[] columns, Order[] orders, boolean rowValueComparison) {
+    Assert.notEmpty(columns, "Keyset columns is required");
+    Assert.isTrue(columns.length == orders.length, "Keyset columns and orders must have the same length");
+    this.columns = columns;
+    this.orders = orders;
+    this.rowValue = rowValueComparison && columns.length > 1 && sameOrder(orders);
+  }
+
+  @Override
+  public void render(StringBuilder sqlBuffer) {
+    if (columns.length == 1) {
+      comparison(sqlBuffer, 0);
+    }
+    else if (rowValue) {
+      sqlBuffer.append('(');
+      for (int i = 0; i < columns.length; i++) {
+        if (i > 0) {
+          sqlBuffer.append(", ");
+        }
+        sqlBuffer.append('`').append(columns[i]).append('`');
+      }
+      sqlBuffer.append(operator(orders[0])).append('(');
+      for (int i = 0; i < columns.length; i++) {
+        if (i > 0) {
+          sqlBuffer.append(", ");
+        }
+        sqlBuffer.append('?');
+      }
+      sqlBuffer.append(')');
+    }
+    else {
+      sqlBuffer.append('(');
+      for (int i = 0; i < columns.length; i++) {
+        if (i > 0) {
+          sqlBuffer.append(" OR ");
+        }
+        sqlBuffer.append('(');
+        for (int j = 0; j < i; j++) {
+          sqlBuffer.append('`').append(columns[j]).append("` = ? AND ");
+        }
+        comparison(sqlBuffer, i);
+        sqlBuffer.append(')');
+      }
+      sqlBuffer.append(')');
+    }
+  }
+
+  /**
+   * Returns the indexes of the last-seen values, in the order
+   * of the rendered parameters.
+   */
+  public int[] valueIndexes() {
+    if (columns.length == 1 || rowValue) {
+      int[] indexes = new int[columns.length];
+      for (int i = 0; i < indexes.length; i++) {
+        indexes[i] = i;
+      }
+      return indexes;
+    }
+
+    int[] indexes = new int[columns.length * (columns.length + 1) / 2];
+    int idx = 0;
+    for (int i = 0; i < columns.length; i++) {
+      for (int j = 0; j <= i; j++) {
+        indexes[idx++] = j;
+      }
+    }
+    return indexes;
+  }
+
+  private void comparison(StringBuilder sqlBuffer, int i) {
+    sqlBuffer.append('`')
+            .append(columns[i])
+            .append('`')
+            .append(operator(orders[i]))
+            .append('?');
+  }
+
+  private static String operator(Order order) {
+    return order == Order.DESC ? " < " : " > ";
+  }
+
+  private static boolean sameOrder(Order[] orders) {
+    for (Order order : orders) {
+      if (order != orders[0]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
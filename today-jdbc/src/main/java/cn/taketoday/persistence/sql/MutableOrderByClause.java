@@ -19,6 +19,8 @@ package cn.taketoday.persistence.sql;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 import cn.taketoday.core.Pair;
 import cn.taketoday.lang.Nullable;
@@ -74,6 +76,15 @@ public class MutableOrderByClause implements OrderByClause {
     return sortKeys.isEmpty();
   }
 
+  /**
+   * Sort keys, column name and order
+   *
+   * @since 5.0
+   */
+  public List<Pair<String, Order>> sortKeys() {
+    return Collections.unmodifiableList(sortKeys);
+  }
+
   @Override
   public CharSequence toClause() {
     StringBuilder orderByClause = new StringBuilder();
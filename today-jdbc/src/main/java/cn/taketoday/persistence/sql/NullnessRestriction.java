@@ -17,6 +17,8 @@
 
 package cn.taketoday.persistence.sql;
 
+import java.util.Objects;
+
 /**
  * Nullness restriction - IS (NOT)? NULL
  *
@@ -45,4 +47,20 @@ final class NullnessRestriction implements Restriction {
       sqlBuffer.append(" is not null");
     }
   }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o)
+      return true;
+    if (!(o instanceof NullnessRestriction that))
+      return false;
+    return affirmative == that.affirmative
+            && Objects.equals(columnName, that.columnName);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(columnName, affirmative);
+  }
+
 }
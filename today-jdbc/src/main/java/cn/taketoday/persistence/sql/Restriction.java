@@ -172,6 +172,17 @@ public interface Restriction {
       sqlBuffer.append(sequence);
     }
 
+    @Override
+    public boolean equals(Object o) {
+      return this == o || (o instanceof Plain that
+              && sequence.toString().equals(that.sequence.toString()));
+    }
+
+    @Override
+    public int hashCode() {
+      return sequence.toString().hashCode();
+    }
+
   }
 
 }
@@ -206,10 +206,7 @@ public class SimpleSelect implements StatementSequence {
     }
 
     if (limit != null) {
-      buf.append(" LIMIT ").append(limit);
-      if (offset != null && offset > 0) {
-        buf.append(" OFFSET ").append(offset);
-      }
+      platform.appendLimit(buf, limit, offset != null ? offset : 0);
     }
 
     return buf.toString();
@@ -84,6 +84,20 @@ public class FuzzyQueryConditionStrategy implements PropertyConditionStrategy {
               .append(columnName)
               .append("` like ?");
     }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o)
+        return true;
+      if (!(o instanceof LikeRestriction that))
+        return false;
+      return columnName.equals(that.columnName);
+    }
+
+    @Override
+    public int hashCode() {
+      return columnName.hashCode();
+    }
   }
 
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+import cn.taketoday.jdbc.core.ResultSetExtractor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class RowMapperGeneratorTests {
+
+  private final RepositoryManager repositoryManager
+          = new RepositoryManager("jdbc:h2:mem:row_mapper;DB_CLOSE_DELAY=-1", "sa", "");
+
+  @BeforeEach
+  void setup() {
+    repositoryManager.setGeneratedRowMappers(true);
+    try (NamedQuery query = repositoryManager.createNamedQuery("""
+            drop table if exists t_item;
+            create table t_item
+            (
+                `id`       int primary key,
+                `name`     varchar(255),
+                `price`    decimal(10, 2),
+                `stock`    bigint,
+                `rate`     double,
+                `enabled`  boolean,
+                `quantity` int
+            );
+            insert into t_item values (1, 'apple', 1.50, 100, 0.5, true, 3);
+            insert into t_item values (2, null, null, null, null, null, null);
+            """)) {
+      query.executeUpdate();
+    }
+  }
+
+  @AfterEach
+  void drop() {
+    try (NamedQuery query = repositoryManager.createNamedQuery("drop table if exists t_item")) {
+      query.executeUpdate();
+    }
+  }
+
+  @Test
+  void generatedBeanMapper() throws SQLException {
+    ResultSetExtractor<Item> handler = createHandler(Item.class, "id", "name", "price");
+    assertThat(handler).isInstanceOf(GeneratedResultSetHandler.class);
+    assertThat(handler.getClass().getName()).startsWith(Item.class.getName() + "$$RowMapper$");
+
+    List<Item> items = fetch(Item.class);
+    assertThat(items).hasSize(2);
+
+    Item item = items.get(0);
+    assertThat(item.id).isEqualTo(1);
+    assertThat(item.name).isEqualTo("apple");
+    assertThat(item.price).isEqualByComparingTo("1.50");
+    assertThat(item.getStock()).isEqualTo(100L);
+    assertThat(item.rate).isEqualTo(0.5);
+    assertThat(item.enabled).isTrue();
+    assertThat(item.quantity).isEqualTo(3);
+
+    Item nulls = items.get(1);
+    assertThat(nulls.id).isEqualTo(2);
+    assertThat(nulls.name).isNull();
+    assertThat(nulls.price).isNull();
+    assertThat(nulls.getStock()).isNull();
+    assertThat(nulls.rate).isZero();
+    assertThat(nulls.enabled).isNull();
+    assertThat(nulls.quantity).isNull();
+  }
+
+  @Test
+  void primitiveNullDelegatesToPrimitiveTypeNullHandler() {
+    repositoryManager.setPrimitiveTypeNullHandler((property, obj) -> ((Item) obj).rate = -1);
+    try {
+      List<Item> items = fetch(Item.class, "select id, rate from t_item order by id");
+      assertThat(items.get(0).rate).isEqualTo(0.5);
+      assertThat(items.get(1).rate).isEqualTo(-1);
+    }
+    finally {
+      repositoryManager.setPrimitiveTypeNullHandler(null);
+    }
+  }
+
+  @Test
+  void generatedRecordMapper() throws SQLException {
+    ResultSetExtractor<ItemRecord> handler = createHandler(ItemRecord.class, "id", "name");
+    assertThat(handler).isInstanceOf(GeneratedResultSetHandler.class);
+
+    List<ItemRecord> records = fetch(ItemRecord.class);
+    assertThat(records).containsExactly(
+            new ItemRecord(1, "apple", new BigDecimal("1.50"), 100L, 0.5, 3),
+            new ItemRecord(2, null, null, null, 0, null));
+  }
+
+  @Test
+  void reflectiveRecordMapper() throws SQLException {
+    repositoryManager.setGeneratedRowMappers(false);
+    ResultSetExtractor<ItemRecord> handler = createHandler(ItemRecord.class, "id", "name");
+    assertThat(handler).isInstanceOf(RecordResultHandler.class);
+
+    List<ItemRecord> records = fetch(ItemRecord.class);
+    assertThat(records).containsExactly(
+            new ItemRecord(1, "apple", new BigDecimal("1.50"), 100L, 0.5, 3),
+            new ItemRecord(2, null, null, null, 0, null));
+  }
+
+  @Test
+  void inaccessibleTypeFallsBackToReflection() throws SQLException {
+    ResultSetExtractor<PrivateItem> handler = createHandler(PrivateItem.class, "id", "name");
+    assertThat(handler).isInstanceOf(ObjectResultHandler.class);
+
+    List<PrivateItem> items = fetch(PrivateItem.class);
+    assertThat(items).extracting(item -> item.name).containsExactly("apple", null);
+  }
+
+  private <T> List<T> fetch(Class<T> type) {
+    return fetch(type, "select * from t_item order by id");
+  }
+
+  private <T> List<T> fetch(Class<T> type, String sql) {
+    try (NamedQuery query = repositoryManager.createNamedQuery(sql)) {
+      return query.fetch(type);
+    }
+  }
+
+  private <T> ResultSetExtractor<T> createHandler(Class<T> type, String... columns) throws SQLException {
+    ResultSetMetaData meta = mock();
+    given(meta.getColumnCount()).willReturn(columns.length);
+    for (int i = 0; i < columns.length; i++) {
+      given(meta.getColumnLabel(i + 1)).willReturn(columns[i]);
+    }
+    var factory = new DefaultResultSetHandlerFactory<>(new JdbcBeanMetadata(type), repositoryManager, null);
+    return factory.getResultSetHandler(meta);
+  }
+
+  public static class Item {
+
+    public int id;
+
+    public String name;
+
+    public BigDecimal price;
+
+    private Long stock;
+
+    public double rate;
+
+    public Boolean enabled;
+
+    Integer quantity;
+
+    public Long getStock() {
+      return stock;
+    }
+
+    public void setStock(Long stock) {
+      this.stock = stock;
+    }
+
+  }
+
+  public record ItemRecord(int id, String name, BigDecimal price, Long stock, double rate, Integer quantity) {
+
+  }
+
+  private static class PrivateItem {
+
+    public int id;
+
+    public String name;
+
+  }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.core;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import cn.taketoday.jdbc.datasource.DriverManagerDataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class AsyncJdbcTemplateTests {
+
+  private final DriverManagerDataSource dataSource =
+          new DriverManagerDataSource("jdbc:h2:mem:async_jdbc;DB_CLOSE_DELAY=-1", "sa", "");
+
+  private AsyncJdbcTemplate asyncJdbcTemplate;
+
+  @BeforeEach
+  void setup() {
+    asyncJdbcTemplate = new AsyncJdbcTemplate(dataSource);
+    JdbcTemplate jdbcTemplate = asyncJdbcTemplate.getJdbcTemplate();
+    jdbcTemplate.execute("DROP TABLE IF EXISTS account");
+    jdbcTemplate.execute("CREATE TABLE account (id INT PRIMARY KEY, balance INT)");
+  }
+
+  @AfterEach
+  void destroy() {
+    asyncJdbcTemplate.destroy();
+  }
+
+  @Test
+  void queryAndUpdate() throws Exception {
+    assertThat(asyncJdbcTemplate.update("INSERT INTO account VALUES (?, ?)", 1, 100).get(5, TimeUnit.SECONDS)).isEqualTo(1);
+    assertThat(asyncJdbcTemplate.batchUpdate("INSERT INTO account VALUES (?, ?)",
+            List.of(new Object[] { 2, 200 }, new Object[] { 3, 300 })).get(5, TimeUnit.SECONDS)).containsExactly(1, 1);
+
+    List<Integer> balances = asyncJdbcTemplate.query("SELECT balance FROM account ORDER BY id",
+            (rs, rowNum) -> rs.getInt(1)).get(5, TimeUnit.SECONDS);
+    assertThat(balances).containsExactly(100, 200, 300);
+
+    assertThat(asyncJdbcTemplate.queryForObject("SELECT SUM(balance) FROM account", Integer.class)
+            .completable().get(5, TimeUnit.SECONDS)).isEqualTo(600);
+
+    assertThat(asyncJdbcTemplate.execute(jdbc -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS))
+            .isNotEqualTo(Thread.currentThread().getName());
+  }
+
+  @Test
+  void executeInTransaction() throws Exception {
+    asyncJdbcTemplate.update("INSERT INTO account VALUES (?, ?)", 1, 100).get(5, TimeUnit.SECONDS);
+    JdbcTemplate jdbcTemplate = asyncJdbcTemplate.getJdbcTemplate();
+
+    var failed = asyncJdbcTemplate.executeInTransaction(status -> {
+      jdbcTemplate.update("UPDATE account SET balance = 0 WHERE id = 1");
+      throw new IllegalStateException("rollback");
+    });
+    assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(IllegalStateException.class);
+    assertThat(jdbcTemplate.queryForObject("SELECT balance FROM account WHERE id = 1", Integer.class)).isEqualTo(100);
+
+    asyncJdbcTemplate.executeInTransaction(status -> {
+      jdbcTemplate.update("UPDATE account SET balance = 50 WHERE id = 1");
+      return jdbcTemplate.update("INSERT INTO account VALUES (?, ?)", 2, 50);
+    }).get(5, TimeUnit.SECONDS);
+    assertThat(jdbcTemplate.queryForObject("SELECT SUM(balance) FROM account", Integer.class)).isEqualTo(100);
+  }
+
+  @Test
+  void resizePoolFollowsLimit() {
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(2, 2, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    try {
+      AsyncJdbcTemplate.resizePool(pool, 8);
+      assertThat(pool.getCorePoolSize()).isEqualTo(8);
+      assertThat(pool.getMaximumPoolSize()).isEqualTo(8);
+
+      AsyncJdbcTemplate.resizePool(pool, 3);
+      assertThat(pool.getCorePoolSize()).isEqualTo(3);
+      assertThat(pool.getMaximumPoolSize()).isEqualTo(3);
+    }
+    finally {
+      pool.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class DataSourceBulkheadTests {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void limitsConcurrency() throws Exception {
+    DataSourceBulkhead bulkhead = new DataSourceBulkhead(2);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+
+    List<Future<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      int value = i;
+      futures.add(bulkhead.submit(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        release.await(5, TimeUnit.SECONDS);
+        running.decrementAndGet();
+        return value;
+      }, executor));
+    }
+
+    assertThat(bulkhead.getRunningCount()).isEqualTo(2);
+    assertThat(bulkhead.getWaitingCount()).isEqualTo(4);
+    release.countDown();
+
+    for (int i = 0; i < futures.size(); i++) {
+      assertThat(futures.get(i).get(5, TimeUnit.SECONDS)).isEqualTo(i);
+    }
+    assertThat(maxRunning.get()).isEqualTo(2);
+    assertThat(bulkhead.getRunningCount()).isZero();
+    assertThat(bulkhead.getWaitingCount()).isZero();
+  }
+
+  @Test
+  void increaseLimitDispatchesWaiters() throws Exception {
+    DataSourceBulkhead bulkhead = new DataSourceBulkhead(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> first = bulkhead.submit(() -> release.await(5, TimeUnit.SECONDS), executor);
+    Future<String> second = bulkhead.submit(() -> "second", executor);
+    assertThat(bulkhead.getWaitingCount()).isEqualTo(1);
+
+    bulkhead.setMaxConcurrency(2);
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(true);
+  }
+
+  @Test
+  void cancelledWaiterLeavesQueue() throws Exception {
+    DataSourceBulkhead bulkhead = new DataSourceBulkhead(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<Object> first = bulkhead.submit(() -> release.await(5, TimeUnit.SECONDS), executor);
+    Future<String> second = bulkhead.submit(() -> "second", executor);
+    assertThat(bulkhead.getWaitingCount()).isEqualTo(1);
+
+    assertThat(second.cancel(false)).isTrue();
+    assertThat(bulkhead.getWaitingCount()).isZero();
+
+    release.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(true);
+    assertThat(bulkhead.submit(() -> "ok", executor).get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+  }
+
+  @Test
+  void decreaseLimitHoldsWaitersUntilUnderLimit() throws Exception {
+    DataSourceBulkhead bulkhead = new DataSourceBulkhead(2);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    CountDownLatch releaseSecond = new CountDownLatch(1);
+    Future<Object> first = bulkhead.submit(() -> releaseFirst.await(5, TimeUnit.SECONDS), executor);
+    Future<Object> second = bulkhead.submit(() -> releaseSecond.await(5, TimeUnit.SECONDS), executor);
+    Future<String> third = bulkhead.submit(() -> "third", executor);
+
+    bulkhead.setMaxConcurrency(1);
+    releaseFirst.countDown();
+    assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(true);
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (bulkhead.getRunningCount() > 1 && System.nanoTime() < deadline) {
+      Thread.onSpinWait();
+    }
+    assertThat(bulkhead.getRunningCount()).isEqualTo(1);
+    assertThat(bulkhead.getWaitingCount()).isEqualTo(1);
+    assertThat(third.isDone()).isFalse();
+
+    releaseSecond.countDown();
+    assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(true);
+    assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("third");
+  }
+
+  @Test
+  void rejectedTaskReleasesPermit() throws Exception {
+    DataSourceBulkhead bulkhead = new DataSourceBulkhead(1);
+    Future<String> rejected = bulkhead.submit(() -> "rejected", task -> {
+      throw new RejectedExecutionException();
+    });
+    assertThatThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+            .isInstanceOf(ExecutionException.class)
+            .hasCauseInstanceOf(RejectedExecutionException.class);
+
+    assertThat(bulkhead.getRunningCount()).isZero();
+    assertThat(bulkhead.submit(() -> "ok", executor).get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+  }
+
+  @Test
+  void determinePoolSize() {
+    assertThat(DataSourceBulkhead.determinePoolSize(new PooledDataSource())).isEqualTo(7);
+    assertThat(DataSourceBulkhead.determinePoolSize(new DelegatingDataSource(new PooledDataSource()))).isEqualTo(7);
+    assertThat(DataSourceBulkhead.determinePoolSize(mock(DataSource.class)))
+            .isEqualTo(DataSourceBulkhead.DEFAULT_MAX_CONCURRENCY);
+
+    DataSource dataSource = mock(DataSource.class);
+    assertThat(DataSourceBulkhead.forDataSource(dataSource)).isSameAs(DataSourceBulkhead.forDataSource(dataSource));
+  }
+
+  static class PooledDataSource extends DriverManagerDataSource {
+
+    public int getMaximumPoolSize() {
+      return 7;
+    }
+  }
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.datasource.lookup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class ReadWriteRoutingDataSourceTests {
+
+  private final DataSource primary = mock();
+
+  private final DataSource replica = mock();
+
+  private final Connection primaryConnection = mock();
+
+  private final Connection replicaConnection = mock();
+
+  private ReadWriteRoutingDataSource dataSource;
+
+  @BeforeEach
+  void setup() throws SQLException {
+    given(primary.getConnection()).willReturn(primaryConnection);
+    given(replica.getConnection()).willReturn(replicaConnection);
+    dataSource = new ReadWriteRoutingDataSource(primary, replica);
+    dataSource.setDefaultAutoCommit(true);
+    dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+  }
+
+  @AfterEach
+  void cleanup() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    TransactionSynchronizationManager.setActualTransactionActive(false);
+  }
+
+  @Test
+  void readWriteGoesToPrimary() throws SQLException {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try (Connection connection = dataSource.getConnection()) {
+      connection.createStatement();
+    }
+    verify(primaryConnection).createStatement();
+    verify(replica, never()).getConnection();
+  }
+
+  @Test
+  void readOnlyTransactionGoesToReplica() throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      // routing is decided lazily, after the transaction has been set up
+      TransactionSynchronizationManager.setActualTransactionActive(true);
+      TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+      connection.createStatement();
+    }
+    verify(replicaConnection).createStatement();
+    verify(primary, never()).getConnection();
+  }
+
+  @Test
+  void readOnlyConnectionGoesToReplica() throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setReadOnly(true);
+      connection.createStatement();
+    }
+    verify(replicaConnection).createStatement();
+    verify(replicaConnection).setReadOnly(true);
+    verify(replicaConnection).setReadOnly(false);
+    verify(replicaConnection).close();
+  }
+
+  @Test
+  void preconfiguredReadOnlyReplicaLeftUntouched() throws SQLException {
+    given(replicaConnection.isReadOnly()).willReturn(true);
+    try (Connection connection = dataSource.getConnection()) {
+      connection.setReadOnly(true);
+      connection.createStatement();
+    }
+    verify(replicaConnection, never()).setReadOnly(anyBoolean());
+  }
+
+  @Test
+  void nonTransactionalConnectionGoesToPrimary() throws SQLException {
+    try (Connection connection = dataSource.getConnection()) {
+      connection.createStatement();
+    }
+    verify(primaryConnection).createStatement();
+    verify(replica, never()).getConnection();
+  }
+
+  @Test
+  void readOnlyDataSourceIsRequired() {
+    ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource();
+    dataSource.setTargetDataSource(primary);
+    assertThatIllegalArgumentException().isThrownBy(dataSource::afterPropertiesSet)
+            .withMessage("Property 'readOnlyDataSource' is required");
+  }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.datasource.lookup;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import cn.taketoday.jdbc.datasource.ConnectionProxy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class ReplicaLoadBalancingDataSourceTests {
+
+  private final DataSource replica1 = replica();
+
+  private final DataSource replica2 = replica();
+
+  @Test
+  void roundRobin() throws SQLException {
+    var dataSource = new ReplicaLoadBalancingDataSource(List.of(replica1, replica2));
+    dataSource.setStrategy(ReplicaLoadBalancingDataSource.Strategy.ROUND_ROBIN);
+
+    Connection first = dataSource.getConnection();
+    Connection second = dataSource.getConnection();
+    Connection third = dataSource.getConnection();
+    assertThat(first).isNotSameAs(second);
+    assertThat(third).isSameAs(first);
+  }
+
+  @Test
+  void leastOutstanding() throws SQLException {
+    var dataSource = new ReplicaLoadBalancingDataSource(List.of(replica1, replica2));
+
+    Connection first = target(dataSource.getConnection());
+    Connection second = target(dataSource.getConnection());
+    assertThat(first).isNotSameAs(second);
+
+    // first one still open: the other replica has fewer outstanding connections
+    Connection open = dataSource.getConnection();
+    Connection next = dataSource.getConnection();
+    assertThat(target(open)).isNotSameAs(target(next));
+
+    open.close();
+    open.close();
+    Connection afterClose = dataSource.getConnection();
+    assertThat(target(afterClose)).isSameAs(target(open));
+  }
+
+  @Test
+  void laggingReplicaIsEjected() throws SQLException {
+    Map<DataSource, Duration> lags = new ConcurrentHashMap<>();
+    lags.put(replica1, Duration.ofSeconds(30));
+    lags.put(replica2, Duration.ZERO);
+
+    var dataSource = new ReplicaLoadBalancingDataSource(List.of(replica1, replica2));
+    dataSource.setLagProbe(lags::get);
+    dataSource.setMaxLag(Duration.ofSeconds(5));
+    dataSource.setLagCheckInterval(Duration.ofHours(1));
+    dataSource.setLagCheckExecutor(Runnable::run);
+
+    Connection expected = target(replica2.getConnection());
+    for (int i = 0; i < 4; i++) {
+      assertThat(target(dataSource.getConnection())).isSameAs(expected);
+    }
+    assertThat(dataSource.isAvailable(replica1)).isFalse();
+    assertThat(dataSource.getAvailableReplicaCount()).isEqualTo(1);
+
+    lags.put(replica1, Duration.ofSeconds(1));
+    dataSource.checkReplicationLag();
+    assertThat(dataSource.getAvailableReplicaCount()).isEqualTo(2);
+  }
+
+  @Test
+  void failingProbeEjectsReplica() {
+    var dataSource = new ReplicaLoadBalancingDataSource(List.of(replica1));
+    dataSource.setLagProbe(replica -> {
+      throw new SQLException("unreachable");
+    });
+    dataSource.checkReplicationLag();
+    assertThat(dataSource.isAvailable(replica1)).isFalse();
+  }
+
+  @Test
+  void fallbackWhenNoReplicaAvailable() throws SQLException {
+    DataSource primary = replica();
+    var dataSource = new ReplicaLoadBalancingDataSource(List.of(replica1));
+    dataSource.setLagProbe(replica -> Duration.ofMinutes(1));
+    dataSource.setLagCheckExecutor(Runnable::run);
+
+    assertThatExceptionOfType(SQLException.class).isThrownBy(dataSource::getConnection);
+
+    dataSource.setFallbackDataSource(primary);
+    assertThat(dataSource.getConnection()).isSameAs(primary.getConnection());
+  }
+
+  @Test
+  void lagCheckDoesNotBlockConnectionAcquisition() throws Exception {
+    CountDownLatch probing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    var dataSource = new ReplicaLoadBalancingDataSource(List.of(replica1));
+    dataSource.setLagProbe(replica -> {
+      probing.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return Duration.ofMinutes(1);
+    });
+
+    assertThat(target(dataSource.getConnection())).isSameAs(replica1.getConnection());
+    assertThat(probing.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(target(dataSource.getConnection())).isSameAs(replica1.getConnection());
+    release.countDown();
+  }
+
+  private static Connection target(Connection connection) {
+    return connection instanceof ConnectionProxy proxy ? proxy.getTargetConnection() : connection;
+  }
+
+  private static DataSource replica() {
+    DataSource dataSource = mock();
+    Connection connection = mock();
+    try {
+      given(dataSource.getConnection()).willReturn(connection);
+    }
+    catch (SQLException ex) {
+      throw new IllegalStateException(ex);
+    }
+    return dataSource;
+  }
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.jdbc.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import cn.taketoday.jdbc.BadSqlGrammarException;
+import cn.taketoday.jdbc.core.JdbcTemplate;
+import cn.taketoday.jdbc.datasource.embedded.EmbeddedDatabase;
+import cn.taketoday.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import cn.taketoday.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import cn.taketoday.scheduling.lock.LockConfiguration;
+import cn.taketoday.scheduling.lock.SimpleLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link JdbcLockProvider}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class JdbcLockProviderTests {
+
+  private static final Instant NOW = Instant.parse("2024-01-01T00:00:00Z");
+
+  private final EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+          .setType(EmbeddedDatabaseType.H2)
+          .generateUniqueName(true)
+          .build();
+
+  private final JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+  JdbcLockProviderTests() {
+    jdbcTemplate.execute("""
+            CREATE TABLE scheduled_lock (
+              name VARCHAR(64) NOT NULL PRIMARY KEY,
+              lock_until TIMESTAMP NOT NULL,
+              locked_at TIMESTAMP NOT NULL,
+              locked_by VARCHAR(255) NOT NULL)""");
+  }
+
+  @AfterEach
+  void shutdown() {
+    database.shutdown();
+  }
+
+  @Test
+  void lockIsExclusiveAcrossProviders() {
+    JdbcLockProvider node1 = createProvider("node1", NOW);
+    JdbcLockProvider node2 = createProvider("node2", NOW);
+
+    SimpleLock lock = node1.lock(configuration(Duration.ZERO));
+    assertThat(lock).isNotNull();
+    assertThat(node2.lock(configuration(Duration.ZERO))).isNull();
+    assertThat(jdbcTemplate.queryForObject("SELECT locked_by FROM scheduled_lock WHERE name = 'task'", String.class))
+            .startsWith("node1/");
+
+    lock.unlock();
+    assertThat(node2.lock(configuration(Duration.ZERO))).isNotNull();
+    assertThat(node1.lock(configuration(Duration.ZERO))).isNull();
+  }
+
+  @Test
+  void lockCanBeAcquiredAfterExpiry() {
+    assertThat(createProvider("node1", NOW).lock(configuration(Duration.ZERO))).isNotNull();
+    JdbcLockProvider node2 = createProvider("node2", NOW.plus(Duration.ofMinutes(10)));
+    assertThat(node2.lock(configuration(Duration.ZERO))).isNotNull();
+  }
+
+  @Test
+  void staleHolderCannotReleaseTakenOverLock() {
+    SimpleLock stale = createProvider("node1", NOW).lock(configuration(Duration.ZERO));
+    assertThat(stale).isNotNull();
+
+    Instant later = NOW.plus(Duration.ofMinutes(10));
+    SimpleLock current = createProvider("node1", later)
+            .lock(new LockConfiguration(later, "task", Duration.ofMinutes(10), Duration.ZERO));
+    assertThat(current).isNotNull();
+
+    stale.unlock();
+    assertThat(createProvider("node2", later).lock(configuration(Duration.ZERO))).isNull();
+    current.unlock();
+    assertThat(createProvider("node2", later).lock(configuration(Duration.ZERO))).isNotNull();
+  }
+
+  @Test
+  void unlockHonorsLockAtLeastFor() {
+    JdbcLockProvider node1 = createProvider("node1", NOW);
+    SimpleLock lock = node1.lock(configuration(Duration.ofMinutes(1)));
+    assertThat(lock).isNotNull();
+    lock.unlock();
+    assertThat(createProvider("node2", NOW.plusSeconds(30)).lock(configuration(Duration.ZERO))).isNull();
+    assertThat(createProvider("node2", NOW.plusSeconds(60)).lock(configuration(Duration.ZERO))).isNotNull();
+  }
+
+  @Test
+  void insertFailureOtherThanDuplicateKeyIsReported() {
+    JdbcLockProvider lockProvider = createProvider("node1", NOW);
+    lockProvider.setTableName("missing_lock");
+    assertThatExceptionOfType(BadSqlGrammarException.class)
+            .isThrownBy(() -> lockProvider.lock(configuration(Duration.ZERO)));
+  }
+
+  private JdbcLockProvider createProvider(String lockedBy, Instant now) {
+    JdbcLockProvider lockProvider = new JdbcLockProvider(jdbcTemplate);
+    lockProvider.setLockedBy(lockedBy);
+    lockProvider.setClock(Clock.fixed(now, ZoneOffset.UTC));
+    return lockProvider;
+  }
+
+  private static LockConfiguration configuration(Duration lockAtLeastFor) {
+    return new LockConfiguration(NOW, "task", Duration.ofMinutes(10), lockAtLeastFor);
+  }
+
+}
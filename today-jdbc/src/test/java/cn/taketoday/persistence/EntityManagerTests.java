@@ -17,6 +17,7 @@
 
 package cn.taketoday.persistence;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
 import java.lang.annotation.ElementType;
@@ -25,18 +26,24 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
+import cn.taketoday.cache.concurrent.ConcurrentMapCacheManager;
+import cn.taketoday.core.Pair;
 import cn.taketoday.dao.IncorrectResultSizeDataAccessException;
 import cn.taketoday.dao.InvalidDataAccessApiUsageException;
 import cn.taketoday.jdbc.NamedQuery;
 import cn.taketoday.jdbc.RepositoryManager;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.persistence.dialect.MySQLPlatform;
 import cn.taketoday.persistence.model.Gender;
 import cn.taketoday.persistence.model.NoIdModel;
 import cn.taketoday.persistence.model.UserModel;
 import cn.taketoday.test.util.ReflectionTestUtils;
+import cn.taketoday.transaction.support.TransactionSynchronizationManager;
 import cn.taketoday.util.CollectionUtils;
 
 import static cn.taketoday.persistence.PropertyUpdateStrategy.always;
@@ -147,6 +154,128 @@ class EntityManagerTests extends AbstractRepositoryManagerTests {
 
   }
 
+  @ParameterizedRepositoryManagerTest
+  void multiRowBatchPersist(RepositoryManager repositoryManager) {
+    DefaultEntityManager entityManager = new DefaultEntityManager(repositoryManager);
+    entityManager.setMultiRowInsert(true);
+    entityManager.setMaxMultiRowInsertRows(4);
+
+    List<Integer> executions = new ArrayList<>();
+    List<Object> fullStatements = new ArrayList<>();
+    entityManager.addBatchPersistListeners((execution, implicitExecution, e) -> {
+      assertThat(e).isNull();
+      executions.add(execution.entities.size());
+      if (implicitExecution) {
+        fullStatements.add(ReflectionTestUtils.getField(execution, "statement"));
+      }
+    });
+
+    List<UserModel> entities = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      entities.add(UserModel.male("TODAY", 10 + i));
+    }
+    entityManager.persist(entities);
+
+    assertThat(executions).containsExactly(4, 4, 2);
+    // full chunks share one prepared statement
+    assertThat(fullStatements).hasSize(2).doesNotContainNull();
+    assertThat(fullStatements.get(1)).isSameAs(fullStatements.get(0));
+    for (int i = 1; i < entities.size(); i++) {
+      assertThat(entities.get(i).id).isGreaterThan(entities.get(i - 1).id);
+    }
+
+    try (NamedQuery query = repositoryManager.createNamedQuery("SELECT * from t_user order by id")) {
+      query.setAutoDerivingColumns(true);
+      assertThat(query.fetch(UserModel.class)).isEqualTo(entities);
+    }
+  }
+
+  @ParameterizedRepositoryManagerTest
+  void persistOrUpdate(RepositoryManager repositoryManager) {
+    DefaultEntityManager entityManager = new DefaultEntityManager(repositoryManager);
+    entityManager.setPlatform(new H2MergePlatform());
+
+    UserModel existing = UserModel.male("TODAY", 9);
+    entityManager.persist(existing);
+    existing.name = "updated";
+
+    UserModel created = UserModel.male("created", 20);
+    UserModel withId = UserModel.male("withId", 21);
+    withId.id = 100;
+
+    entityManager.persistOrUpdate(List.of(existing, created, withId));
+    assertThat(created.id).isNotNull();
+
+    try (NamedQuery query = repositoryManager.createNamedQuery("SELECT * from t_user order by id")) {
+      query.setAutoDerivingColumns(true);
+      assertThat(query.fetch(UserModel.class)).containsExactlyInAnyOrder(existing, created, withId);
+    }
+
+    withId.age = 30;
+    assertThat(entityManager.persistOrUpdate(withId)).isEqualTo(1);
+    assertThat(entityManager.findById(UserModel.class, 100).age).isEqualTo(30);
+
+    assertThatThrownBy(() -> entityManager.persistOrUpdate(new NoIdModel()))
+            .isInstanceOf(InvalidDataAccessApiUsageException.class);
+  }
+
+  @ParameterizedRepositoryManagerTest
+  void persistOrUpdateSplitsDuplicateIds(RepositoryManager repositoryManager) {
+    DefaultEntityManager entityManager = new DefaultEntityManager(repositoryManager);
+    entityManager.setPlatform(new H2MergePlatform());
+
+    UserModel first = UserModel.male("first", 20);
+    first.id = 100;
+    UserModel second = UserModel.male("second", 21);
+    second.id = 100;
+
+    entityManager.persistOrUpdate(List.of(first, second));
+    assertThat(entityManager.findById(UserModel.class, 100).name).isEqualTo("second");
+  }
+
+  @ParameterizedRepositoryManagerTest
+  void persistOrUpdateWithoutNativeUpsert(RepositoryManager repositoryManager) {
+    DefaultEntityManager entityManager = new DefaultEntityManager(repositoryManager);
+    entityManager.setPlatform(new cn.taketoday.persistence.dialect.Platform() { });
+
+    UserModel existing = UserModel.male("TODAY", 9);
+    entityManager.persist(existing);
+    existing.name = "updated";
+
+    UserModel withId = UserModel.male("withId", 21);
+    withId.id = 100;
+
+    entityManager.persistOrUpdate(List.of(existing, withId));
+    assertThat(entityManager.findById(UserModel.class, existing.id).name).isEqualTo("updated");
+    assertThat(entityManager.findById(UserModel.class, 100)).isEqualTo(withId);
+
+    withId.age = 30;
+    assertThat(entityManager.persistOrUpdate(withId)).isEqualTo(1);
+    assertThat(entityManager.findById(UserModel.class, 100).age).isEqualTo(30);
+  }
+
+  /**
+   * H2 native {@code MERGE INTO ... KEY (...) VALUES ...}
+   */
+  static class H2MergePlatform extends cn.taketoday.persistence.dialect.MySQLPlatform {
+
+    @Override
+    public String getUpsertString(String tableName, List<String> columns, List<String> keyColumns, int rows) {
+      StringBuilder buf = new StringBuilder("MERGE INTO ").append(tableName).append(" (");
+      appendColumns(buf, columns, null);
+      buf.append(") KEY (");
+      appendColumns(buf, keyColumns, null);
+      buf.append(") VALUES ");
+      for (int i = 0; i < rows; i++) {
+        if (i > 0) {
+          buf.append(", ");
+        }
+        appendParameters(buf, columns.size());
+      }
+      return buf.toString();
+    }
+  }
+
   // find
 
   @Retention(RetentionPolicy.RUNTIME)
@@ -531,6 +660,56 @@ class EntityManagerTests extends AbstractRepositoryManagerTests {
 
   }
 
+  @ParameterizedRepositoryManagerTest
+  void keysetPage(RepositoryManager repositoryManager) {
+    DefaultEntityManager entityManager = new DefaultEntityManager(repositoryManager);
+
+    List<Object> entities = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      entities.add(UserModel.male("TODAY", 34 - i));
+    }
+    entityManager.persist(entities);
+
+    KeysetPageable pageable = KeysetPageable.of(10, "age");
+    Page<UserModel> page = entityManager.page(UserModel.class, pageable);
+    assertThat(page.getRows()).extracting(user -> user.age).containsExactly(10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+    assertThat(page.getTotalRows()).isNull();
+    assertThat(page.getTotalPages()).isEqualTo(-1);
+    assertThat(page.isFirstPage()).isTrue();
+    assertThat(page.isHasNextPage()).isTrue();
+    assertThat(page.getContinuationToken()).isNotNull();
+
+    page = entityManager.page(UserModel.class, pageable.after(page.getContinuationToken()));
+    assertThat(page.getRows()).extracting(user -> user.age).containsExactly(20, 21, 22, 23, 24, 25, 26, 27, 28, 29);
+    assertThat(page.getPageNumber()).isEqualTo(2);
+    assertThat(page.isHasPrevPage()).isTrue();
+
+    page = entityManager.page(UserModel.class, pageable.withCount().after(page.getContinuationToken()));
+    assertThat(page.getRows()).extracting(user -> user.age).containsExactly(30, 31, 32, 33, 34);
+    assertThat(page.getPageNumber()).isEqualTo(3);
+    assertThat(page.getTotalRows()).isEqualTo(25L);
+    assertThat(page.getTotalPages()).isEqualTo(3);
+    assertThat(page.isLastPage()).isTrue();
+    assertThat(page.isHasNextPage()).isFalse();
+    assertThat(page.getContinuationToken()).isNull();
+
+    // descending with condition
+    UserForm userForm = new UserForm();
+    userForm.name = "TODAY";
+    page = entityManager.page(UserModel.class, userForm,
+            KeysetPageable.of(20, List.of(Pair.of("age", Order.DESC))).afterValues(30, 5));
+    assertThat(page.getRows()).extracting(user -> user.age).containsExactly(29, 28, 27, 26, 25, 24, 23, 22, 21, 20,
+            19, 18, 17, 16, 15, 14, 13, 12, 11, 10);
+
+    assertThatThrownBy(() -> entityManager.page(UserModel.class, KeysetPageable.of(10, "none")))
+            .isInstanceOf(InvalidDataAccessApiUsageException.class)
+            .hasMessage("Keyset property 'none' not found");
+
+    assertThatThrownBy(() -> entityManager.page(UserModel.class, KeysetPageable.of(10, "name")))
+            .isInstanceOf(InvalidDataAccessApiUsageException.class)
+            .hasMessageStartingWith("Keyset property 'name' must not be nullable");
+  }
+
   // update
 
   @ParameterizedRepositoryManagerTest
@@ -572,6 +751,126 @@ class EntityManagerTests extends AbstractRepositoryManagerTests {
             .hasMessage("Updating an entity, There is no update by properties");
   }
 
+  @ParameterizedRepositoryManagerTest
+  void findByIds(RepositoryManager repositoryManager) {
+    DefaultEntityManager entityManager = new DefaultEntityManager(repositoryManager);
+    entityManager.setPlatform(new MySQLPlatform() {
+
+      @Override
+      public int getMaxInListSize() {
+        return 3;
+      }
+    });
+    createData(entityManager);
+
+    Map<Object, UserModel> users = entityManager.findByIds(UserModel.class, List.of(7, 1, 100, 2, 5, 1, 3, 4));
+    assertThat(users.keySet()).containsExactly(7, 1, 2, 5, 3, 4);
+    assertThat(users.get(1).age).isEqualTo(9);
+    assertThat(users.get(7).age).isEqualTo(15);
+    assertThat(entityManager.findByIds(UserModel.class, List.of())).isEmpty();
+  }
+
+  @ParameterizedRepositoryManagerTest
+  void secondLevelCache(RepositoryManager repositoryManager) {
+    DefaultEntityManager entityManager = new DefaultEntityManager(repositoryManager);
+    entityManager.setCacheManager(new ConcurrentMapCacheManager("t_user"));
+    createData(entityManager);
+
+    UserModel cached = entityManager.findById(UserModel.class, 1);
+    UserModel hit = entityManager.findById(UserModel.class, 1);
+    assertThat(hit).isNotSameAs(cached).usingRecursiveComparison().isEqualTo(cached);
+    hit.age = 1000;
+    assertThat(entityManager.findById(UserModel.class, 1).age).isEqualTo(9);
+
+    try (NamedQuery query = repositoryManager.createNamedQuery("UPDATE t_user SET age = 99 WHERE id = 1")) {
+      query.executeUpdate();
+    }
+    assertThat(entityManager.findById(UserModel.class, 1).age).isEqualTo(9);
+
+    // evicted
+    assertThat(entityManager.update(new UserName(1, "cached"))).isEqualTo(1);
+    UserModel updated = entityManager.findById(UserModel.class, 1);
+    assertThat(updated.age).isEqualTo(99);
+    assertThat(updated.name).isEqualTo("cached");
+    assertThat(entityManager.findByIds(UserModel.class, List.of(1, 2)).get(1))
+            .usingRecursiveComparison().isEqualTo(updated);
+
+    assertThat(entityManager.findById(UserModel.class, 2)).isNotNull();
+    entityManager.delete(UserModel.class, 2);
+    assertThat(entityManager.findById(UserModel.class, 2)).isNull();
+
+    // cleared
+    entityManager.findById(UserModel.class, 3);
+    assertThat(entityManager.update(new UserAge("TODAY", 50))).isGreaterThan(0);
+    assertThat(entityManager.findById(UserModel.class, 3).age).isEqualTo(50);
+  }
+
+  @Test
+  void staleReadThroughNotCached() {
+    EntityMetadata metadata = new DefaultEntityMetadataFactory().getEntityMetadata(UserModel.class);
+    EntityCache entityCache = new EntityCache(new ConcurrentMapCacheManager("t_user"));
+    UserModel user = UserModel.male("TODAY", 9);
+    user.id = 1;
+
+    // read before a concurrent update evicted the row
+    long stamp = entityCache.stamp(metadata);
+    entityCache.evict(metadata, 1);
+    entityCache.put(metadata, 1, user, stamp);
+    assertThat(entityCache.get(metadata, 1, UserModel.class)).isNull();
+
+    entityCache.put(metadata, 1, user, entityCache.stamp(metadata));
+    assertThat(entityCache.get(metadata, 1, UserModel.class))
+            .isNotSameAs(user).usingRecursiveComparison().isEqualTo(user);
+  }
+
+  @Test
+  void readThroughInTransactionNotCached() {
+    EntityMetadata metadata = new DefaultEntityMetadataFactory().getEntityMetadata(UserModel.class);
+    EntityCache entityCache = new EntityCache(new ConcurrentMapCacheManager("t_user"));
+    UserModel user = UserModel.male("TODAY", 9);
+    user.id = 1;
+
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try {
+      // may be the transaction's own uncommitted write
+      entityCache.put(metadata, 1, user, entityCache.stamp(metadata));
+      assertThat(entityCache.get(metadata, 1, UserModel.class)).isNull();
+    }
+    finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    entityCache.put(metadata, 1, user, entityCache.stamp(metadata));
+    assertThat(entityCache.get(metadata, 1, UserModel.class)).isNotNull();
+  }
+
+  @ParameterizedRepositoryManagerTest
+  void batchFetcher(RepositoryManager repositoryManager) {
+    List<Integer> batches = new ArrayList<>();
+    DefaultEntityManager entityManager = new DefaultEntityManager(repositoryManager) {
+
+      @Override
+      public <T> Map<Object, T> findByIds(Class<T> entityClass, Collection<?> ids) {
+        batches.add(ids.size());
+        return super.findByIds(entityClass, ids);
+      }
+    };
+    createData(entityManager);
+
+    BatchFetcher fetcher = new BatchFetcher(entityManager);
+    List<Supplier<UserModel>> users = new ArrayList<>();
+    for (int id = 1; id <= 5; id++) {
+      users.add(fetcher.fetch(UserModel.class, id));
+    }
+    Supplier<UserModel> missing = fetcher.fetch(UserModel.class, 100);
+
+    assertThat(users.get(2).get().id).isEqualTo(3);
+    assertThat(missing.get()).isNull();
+    assertThat(users).extracting(Supplier::get).extracting(user -> user.id).containsExactly(1, 2, 3, 4, 5);
+    assertThat(fetcher.get(UserModel.class, 1)).isSameAs(users.get(0).get());
+    assertThat(batches).containsExactly(6);
+  }
+
   public static void createData(DefaultEntityManager entityManager) {
     UserModel userModel = UserModel.male("TODAY", 9);
 
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import cn.taketoday.core.Pair;
+import cn.taketoday.persistence.model.Gender;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class KeysetPageableTests {
+
+  @Test
+  void firstPage() {
+    KeysetPageable pageable = KeysetPageable.of(20, "age", "name");
+    assertThat(pageable.pageNumber()).isEqualTo(1);
+    assertThat(pageable.pageSize()).isEqualTo(20);
+    assertThat(pageable.offset()).isZero();
+    assertThat(pageable.lastValues()).isNull();
+    assertThat(pageable.countTotal()).isFalse();
+    assertThat(pageable.withCount().countTotal()).isTrue();
+    assertThat(pageable.sortKeys()).containsExactly(Pair.of("age", Order.ASC), Pair.of("name", Order.ASC));
+
+    assertThat(pageable.after(null).lastValues()).isNull();
+    assertThat(pageable.after("").pageNumber()).isEqualTo(1);
+  }
+
+  @Test
+  void continuationToken() {
+    LocalDateTime createAt = LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456789);
+    UUID uuid = UUID.randomUUID();
+    Object[] values = { 1, 2L, "TODAY", createAt, new BigDecimal("1.50"), uuid, true, Gender.MALE };
+
+    String token = KeysetPageable.continuationToken(3, values);
+    assertThat(token).doesNotContain("=", "+", "/");
+
+    KeysetPageable pageable = KeysetPageable.of(10, List.of(Pair.of("createAt", Order.DESC))).after(token);
+    assertThat(pageable.pageNumber()).isEqualTo(3);
+    assertThat(pageable.lastValues())
+            .containsExactly(1, 2L, "TODAY", createAt, new BigDecimal("1.50"), uuid, true, "MALE");
+    assertThat(pageable.sortKeys()).containsExactly(Pair.of("createAt", Order.DESC));
+  }
+
+  @Test
+  void afterValues() {
+    KeysetPageable pageable = KeysetPageable.of(10, "age").afterValues(18, 100);
+    assertThat(pageable.pageNumber()).isEqualTo(2);
+    assertThat(pageable.lastValues()).containsExactly(18, 100);
+  }
+
+  @Test
+  void invalidToken() {
+    KeysetPageable pageable = KeysetPageable.of(10, "age");
+    assertThatIllegalArgumentException().isThrownBy(() -> pageable.after("invalid token"))
+            .withMessage("Invalid continuation token");
+    assertThatIllegalArgumentException().isThrownBy(() -> pageable.after("AAAA"))
+            .withMessage("Invalid continuation token");
+    assertThatIllegalArgumentException().isThrownBy(() -> KeysetPageable.continuationToken(1, new Object[] { new Object() }))
+            .withMessageStartingWith("Unsupported keyset value type");
+  }
+
+}
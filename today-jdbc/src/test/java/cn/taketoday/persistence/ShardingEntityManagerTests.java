@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import cn.taketoday.beans.DirectFieldAccessor;
+import cn.taketoday.core.Pair;
+import cn.taketoday.core.task.SimpleAsyncTaskExecutor;
+import cn.taketoday.dao.InvalidDataAccessApiUsageException;
+import cn.taketoday.jdbc.JdbcConnection;
+import cn.taketoday.jdbc.RepositoryManager;
+import cn.taketoday.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class ShardingEntityManagerTests {
+
+  private final Map<String, RepositoryManager> managers = new LinkedHashMap<>();
+
+  private ShardingEntityManager entityManager;
+
+  @BeforeEach
+  void setup() {
+    var shards = new LinkedHashMap<String, EntityManager>();
+    for (String name : List.of("shard0", "shard1")) {
+      RepositoryManager manager = new RepositoryManager(
+              "jdbc:h2:mem:sharding_%s;DB_CLOSE_DELAY=-1".formatted(name), "sa", "");
+      try (JdbcConnection con = manager.open()) {
+        con.createNamedQuery("DROP TABLE IF EXISTS t_order").executeUpdate();
+        con.createNamedQuery("""
+                CREATE TABLE t_order (id INT PRIMARY KEY, user_id BIGINT, amount INT)""").executeUpdate();
+      }
+      managers.put(name, manager);
+      shards.put(name, manager.getEntityManager());
+    }
+    entityManager = new ShardingEntityManager(shards);
+  }
+
+  @Test
+  void persistRoutesByShardKey() {
+    for (int i = 0; i < 6; i++) {
+      entityManager.persist(new ShardOrder(i, i, i * 10), false);
+    }
+
+    assertThat(entityManager.determineShard(ShardOrder.class, 1L)).isEqualTo("shard1");
+    assertThat(count("shard0")).isEqualTo(3);
+    assertThat(count("shard1")).isEqualTo(3);
+
+    ShardOrder example = new ShardOrder();
+    example.userId = 3L;
+    assertThat(entityManager.find(example)).extracting(o -> o.id).containsExactly(3);
+
+    ShardOrder noKey = new ShardOrder();
+    noKey.id = 100;
+    assertThatThrownBy(() -> entityManager.persist(noKey))
+            .isInstanceOf(InvalidDataAccessApiUsageException.class);
+  }
+
+  @Test
+  void batchPersistGroupsByShard() {
+    var orders = new ArrayList<ShardOrder>();
+    for (int i = 0; i < 10; i++) {
+      orders.add(new ShardOrder(i, i, i));
+    }
+    entityManager.persist(orders, false);
+
+    assertThat(count("shard0")).isEqualTo(5);
+    assertThat(count("shard1")).isEqualTo(5);
+    assertThat(entityManager.count(ShardOrder.class).longValue()).isEqualTo(10);
+  }
+
+  @Test
+  void batchPersistInTransactionRejectsSeveralShards() {
+    TransactionSynchronizationManager.setActualTransactionActive(true);
+    try {
+      var orders = List.of(new ShardOrder(0, 0, 0), new ShardOrder(1, 1, 1));
+      assertThatThrownBy(() -> entityManager.persist(orders, false))
+              .isInstanceOf(InvalidDataAccessApiUsageException.class)
+              .hasMessageStartingWith("Entities span 2 shards");
+      assertThat(count("shard0")).isZero();
+      assertThat(count("shard1")).isZero();
+
+      entityManager.persist(List.of(new ShardOrder(2, 2, 2), new ShardOrder(4, 4, 4)), false);
+      assertThat(count("shard0")).isEqualTo(2);
+    }
+    finally {
+      TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+  }
+
+  @Test
+  void scatterFindMergesSortedRows() {
+    int[] amounts = { 50, 10, 40, 30, 20, 60 };
+    for (int i = 0; i < amounts.length; i++) {
+      entityManager.persist(new ShardOrder(i, i, amounts[i]), false);
+    }
+
+    List<ShardOrder> orders = entityManager.find(ShardOrder.class, Pair.of("amount", Order.DESC));
+    assertThat(orders).extracting(o -> o.amount).containsExactly(60, 50, 40, 30, 20, 10);
+
+    var iterated = new ArrayList<Integer>();
+    entityManager.iterate(ShardOrder.class, new OrderForm(), order -> iterated.add(order.amount));
+    assertThat(iterated).containsExactly(10, 20, 30, 40, 50, 60);
+
+    assertThat(entityManager.findFirst(ShardOrder.class, new OrderForm()).amount).isEqualTo(10);
+    assertThat(entityManager.findById(ShardOrder.class, 2).amount).isEqualTo(40);
+    assertThat(entityManager.delete(ShardOrder.class, 2)).isEqualTo(1);
+    assertThat(entityManager.count(ShardOrder.class).longValue()).isEqualTo(5);
+  }
+
+  @Test
+  void pagePushesLimitDown() {
+    for (int i = 0; i < 10; i++) {
+      entityManager.persist(new ShardOrder(i, i, 100 - i), false);
+    }
+
+    Page<ShardOrder> page = entityManager.page(ShardOrder.class, new OrderForm(), Pageable.of(2, 3));
+    assertThat(page.getTotalRows().longValue()).isEqualTo(10);
+    assertThat(page.getRows()).extracting(o -> o.amount).containsExactly(94, 95, 96);
+
+    KeysetPageable keyset = KeysetPageable.of(4, List.of(Pair.of("amount", Order.DESC)));
+    Page<ShardOrder> first = entityManager.page(ShardOrder.class, (ConditionStatement) null, keyset);
+    assertThat(first.getRows()).extracting(o -> o.amount).containsExactly(100, 99, 98, 97);
+    assertThat(first.getContinuationToken()).isNotNull();
+
+    Page<ShardOrder> second = entityManager.page(ShardOrder.class, (ConditionStatement) null, keyset.after(first.getContinuationToken()));
+    assertThat(second.getRows()).extracting(o -> o.amount).containsExactly(96, 95, 94, 93);
+  }
+
+  @Test
+  void strategies() {
+    List<String> shards = List.of("a", "b", "c");
+    ShardingStrategy hash = ShardingStrategy.hash();
+    assertThat(hash.determineShard(4L, shards)).isEqualTo("b");
+    assertThat(hash.determineShard(-1, shards)).isEqualTo("c");
+    assertThat(hash.determineShard(new StringBuilder("tenant"), shards))
+            .isEqualTo(hash.determineShard("tenant", shards));
+    assertThat(hash.determineShard(Region.EAST, shards))
+            .isEqualTo(hash.determineShard("EAST", shards));
+    assertThatIllegalArgumentException().isThrownBy(() -> hash.determineShard(new Object(), shards));
+
+    RangeShardingStrategy range = ShardingStrategy.range()
+            .addRange(0, "a")
+            .addRange(100L, "b")
+            .addRange(1000, "c");
+    assertThat(range.determineShard(99, shards)).isEqualTo("a");
+    assertThat(range.determineShard(100, shards)).isEqualTo("b");
+    assertThat(range.determineShard(5000L, shards)).isEqualTo("c");
+    assertThatIllegalArgumentException().isThrownBy(() -> range.determineShard(-1, shards));
+
+    LookupShardingStrategy lookup = ShardingStrategy.lookup(Map.of("tenant", "c"));
+    assertThat(lookup.determineShard("tenant", shards)).isEqualTo("c");
+    assertThat(lookup.determineShard(4L, shards)).isEqualTo("b");
+  }
+
+  @Test
+  void defaultExecutorIsBounded() {
+    Object executor = new DirectFieldAccessor(entityManager).getPropertyValue("executor");
+    assertThat(executor).isInstanceOf(SimpleAsyncTaskExecutor.class);
+    assertThat(((SimpleAsyncTaskExecutor) executor).getConcurrencyLimit())
+            .isEqualTo(2 * ShardingEntityManager.DEFAULT_CONCURRENCY_PER_SHARD);
+  }
+
+  private long count(String shard) {
+    try (JdbcConnection con = managers.get(shard).open()) {
+      return con.createNamedQuery("SELECT COUNT(*) FROM t_order").fetchScalar(Long.class);
+    }
+  }
+
+  @Table("t_order")
+  public static class ShardOrder {
+
+    @Id
+    public Integer id;
+
+    @ShardKey
+    public Long userId;
+
+    @Column(nullable = false)
+    public Integer amount;
+
+    public ShardOrder() { }
+
+    ShardOrder(int id, long userId, int amount) {
+      this.id = id;
+      this.userId = userId;
+      this.amount = amount;
+    }
+
+  }
+
+  enum Region {
+    EAST
+  }
+
+  public static class OrderForm {
+
+    @OrderBy
+    public Integer amount;
+
+  }
+
+}
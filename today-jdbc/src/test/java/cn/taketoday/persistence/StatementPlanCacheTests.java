@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cn.taketoday.dao.InvalidDataAccessApiUsageException;
+import cn.taketoday.persistence.StatementPlanCache.StatementPlan;
+import cn.taketoday.persistence.dialect.Platform;
+import cn.taketoday.persistence.model.Gender;
+import cn.taketoday.persistence.model.UserModel;
+import cn.taketoday.persistence.sql.Restriction;
+
+import static cn.taketoday.persistence.PropertyUpdateStrategy.always;
+import static cn.taketoday.persistence.PropertyUpdateStrategy.noneNull;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class StatementPlanCacheTests {
+
+  final EntityMetadata metadata = new DefaultEntityMetadataFactory().createEntityMetadata(UserModel.class);
+
+  final StatementPlanCache cache = new StatementPlanCache(Platform.forClasspath(), 16);
+
+  @Test
+  void insertPlanReusedForSameShape() {
+    StatementPlan plan = cache.insert(metadata, new UserModel("TODAY", Gender.MALE, 9), noneNull());
+    StatementPlan other = cache.insert(metadata, new UserModel("Harry", Gender.FEMALE, 20), noneNull());
+
+    assertThat(other).isSameAs(plan);
+    assertThat(plan.sql).startsWith("INSERT INTO");
+    assertThat(plan.properties).extracting(property -> property.property.getName())
+            .containsExactlyInAnyOrder("age", "name", "gender");
+    assertThat(plan.restrictionProperties).isEmpty();
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void differentShapeRendersNewPlan() {
+    StatementPlan plan = cache.insert(metadata, new UserModel("TODAY", Gender.MALE, 9), noneNull());
+    UserModel withEmail = new UserModel("TODAY", Gender.MALE, 9);
+    withEmail.email = "taketoday@foxmail.com";
+    StatementPlan other = cache.insert(metadata, withEmail, noneNull());
+
+    assertThat(other).isNotSameAs(plan);
+    assertThat(other.properties).hasSize(plan.properties.length + 1);
+    assertThat(cache.insert(metadata, withEmail, always()).properties)
+            .hasSize(metadata.entityProperties.length);
+    assertThat(cache.size()).isEqualTo(3);
+  }
+
+  @Test
+  void updateByIdBindsIdLast() {
+    UserModel user = UserModel.forId(1);
+    user.name = "TODAY";
+    StatementPlan plan = cache.updateById(metadata, metadata.idProperty(), user,
+            (entity, property) -> !property.isIdProperty && property.getValue(entity) != null);
+
+    assertThat(plan.sql).startsWith("UPDATE").endsWith("`id` = ?");
+    assertThat(plan.properties).extracting(property -> property.property.getName()).containsExactly("name");
+    assertThat(plan.restrictionProperties).containsExactly(metadata.idProperty());
+
+    assertThatThrownBy(() -> cache.updateById(metadata, metadata.idProperty(), new UserModel(), noneNull()))
+            .isInstanceOf(InvalidDataAccessApiUsageException.class)
+            .hasMessage("Updating an entity, There is no update properties");
+  }
+
+  @Test
+  void updateByExcludesWhereProperty() {
+    UserModel user = new UserModel("TODAY", Gender.MALE, 9);
+    EntityProperty name = metadata.findProperty("name");
+    StatementPlan plan = cache.updateBy(metadata, name, user, noneNull());
+
+    assertThat(plan.properties).doesNotContain(name);
+    assertThat(plan.restrictionProperties).containsExactly(name);
+    assertThat(cache.updateBy(metadata, metadata.findProperty("age"), user, noneNull())).isNotSameAs(plan);
+  }
+
+  @Test
+  void deleteById() {
+    StatementPlan plan = cache.deleteById(metadata, metadata.idProperty());
+    assertThat(plan.sql).isEqualTo("DELETE FROM " + metadata.tableName + " WHERE `id` = ? ");
+    assertThat(cache.deleteById(metadata, metadata.idProperty())).isSameAs(plan);
+  }
+
+  @Test
+  void countKeyedByRestrictions() {
+    String sql = cache.count(metadata, List.of());
+    assertThat(sql).isEqualTo("SELECT COUNT(*) FROM `" + metadata.tableName + "`");
+
+    ArrayList<Restriction> restrictions = new ArrayList<>();
+    restrictions.add(Restriction.equal("name"));
+    restrictions.add(Restriction.isNotNull("age"));
+    String restricted = cache.count(metadata, restrictions);
+    assertThat(restricted).endsWith(" WHERE `name` = ? AND age is not null");
+
+    assertThat(cache.count(metadata, List.of(Restriction.equal("name"), Restriction.isNotNull("age"))))
+            .isSameAs(restricted);
+    assertThat(cache.size()).isEqualTo(2);
+  }
+
+  @Test
+  void countKeyedByConditionShapeNotValues() {
+    EntityProperty name = metadata.findProperty("name");
+    String sql = cache.count(metadata, List.of(
+            new PropertyConditionStrategy.Condition("TODAY", Restriction.equal("name"), name)));
+    assertThat(cache.count(metadata, List.of(
+            new PropertyConditionStrategy.Condition("Harry", Restriction.equal("name"), name)))).isSameAs(sql);
+    assertThat(cache.size()).isEqualTo(1);
+  }
+
+  @Test
+  void countWithIdentityRestrictionNotCached() {
+    Restriction custom = sqlBuffer -> sqlBuffer.append("`age` > 1");
+    String sql = cache.count(metadata, List.of(custom));
+    assertThat(sql).endsWith(" WHERE `age` > 1");
+    assertThat(cache.count(metadata, List.of(custom))).isEqualTo(sql);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void leastRecentlyUsedPlansEvicted() {
+    StatementPlanCache cache = new StatementPlanCache(Platform.forClasspath(), 2);
+    for (String column : List.of("a", "b", "c", "d")) {
+      cache.count(metadata, List.of(Restriction.equal(column)));
+    }
+    assertThat(cache.size()).isEqualTo(2);
+    StatementPlan plan = cache.deleteById(metadata, metadata.idProperty());
+    assertThat(cache.deleteById(metadata, metadata.idProperty())).isSameAs(plan);
+  }
+
+  @Test
+  void maxPlans() {
+    StatementPlanCache cache = new StatementPlanCache(Platform.forClasspath(), 0);
+    StatementPlan plan = cache.deleteById(metadata, metadata.idProperty());
+    assertThat(cache.deleteById(metadata, metadata.idProperty())).isNotSameAs(plan);
+    assertThat(cache.size()).isZero();
+  }
+
+}
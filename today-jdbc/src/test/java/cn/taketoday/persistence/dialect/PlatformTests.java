@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence.dialect;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+class PlatformTests {
+
+  private final List<String> columns = List.of("id", "name");
+
+  private final List<String> keys = List.of("id");
+
+  @Test
+  void multiRowInsert() {
+    assertThat(new MySQLPlatform().getMultiRowInsertString("t_user", columns, 2))
+            .isEqualTo("INSERT INTO t_user (`id`, `name`) VALUES (?, ?), (?, ?)");
+    assertThat(new PostgreSQLPlatform().getMultiRowInsertString("t_user", columns, 1))
+            .isEqualTo("INSERT INTO t_user (\"id\", \"name\") VALUES (?, ?)");
+  }
+
+  @Test
+  void oracleInsertAll() {
+    OraclePlatform platform = new OraclePlatform();
+    assertThat(platform.supportsMultiRowInsertGeneratedKeys()).isFalse();
+    assertThat(platform.getMultiRowInsertString("t_user", columns, 2))
+            .isEqualTo("INSERT ALL INTO t_user (id, name) VALUES (?, ?) INTO t_user (id, name) VALUES (?, ?) SELECT 1 FROM DUAL");
+  }
+
+  @Test
+  void mysqlUpsert() {
+    assertThat(new MySQLPlatform().getUpsertString("t_user", columns, keys, 2))
+            .isEqualTo("INSERT INTO t_user (`id`, `name`) VALUES (?, ?), (?, ?) ON DUPLICATE KEY UPDATE `name` = VALUES(`name`)");
+    assertThat(new MySQLPlatform().getUpsertString("t_user", keys, keys, 1))
+            .isEqualTo("INSERT INTO t_user (`id`) VALUES (?) ON DUPLICATE KEY UPDATE `id` = `id`");
+  }
+
+  @Test
+  void postgresqlUpsert() {
+    assertThat(new PostgreSQLPlatform().getUpsertString("t_user", columns, keys, 1))
+            .isEqualTo("INSERT INTO t_user (\"id\", \"name\") VALUES (?, ?) ON CONFLICT (\"id\") DO UPDATE SET \"name\" = EXCLUDED.\"name\"");
+    assertThat(new PostgreSQLPlatform().getUpsertString("t_user", keys, keys, 1))
+            .isEqualTo("INSERT INTO t_user (\"id\") VALUES (?) ON CONFLICT (\"id\") DO NOTHING");
+  }
+
+  @Test
+  void oracleMerge() {
+    assertThat(new OraclePlatform().getUpsertString("t_user", columns, keys, 2))
+            .isEqualTo("MERGE INTO t_user t USING (SELECT ? id, ? name FROM DUAL UNION ALL SELECT ? id, ? name FROM DUAL) s "
+                    + "ON (t.id = s.id) WHEN MATCHED THEN UPDATE SET t.name = s.name "
+                    + "WHEN NOT MATCHED THEN INSERT (id, name) VALUES (s.id, s.name)");
+  }
+
+  @Test
+  void upsertNotSupportedByDefault() {
+    Platform platform = new Platform() { };
+    assertThat(platform.supportsUpsert()).isFalse();
+    assertThat(new MySQLPlatform().supportsUpsert()).isTrue();
+    assertThat(new PostgreSQLPlatform().supportsUpsert()).isTrue();
+    assertThat(new OraclePlatform().supportsUpsert()).isTrue();
+    assertThatThrownBy(() -> platform.getUpsertString("t_user", columns, keys, 1))
+            .isInstanceOf(UnsupportedOperationException.class);
+    assertThat(platform.getMaxBindParameters()).isEqualTo(2000);
+  }
+
+}
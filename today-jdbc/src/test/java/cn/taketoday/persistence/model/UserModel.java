@@ -20,6 +20,7 @@ package cn.taketoday.persistence.model;
 import java.util.Objects;
 
 import cn.taketoday.core.style.ToStringBuilder;
+import cn.taketoday.persistence.Column;
 import cn.taketoday.persistence.Id;
 import cn.taketoday.persistence.Table;
 import lombok.Data;
@@ -35,6 +36,7 @@ public class UserModel {
   @Id
   public Integer id;
 
+  @Column(nullable = false)
   public Integer age;
 
   public String name;
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.persistence.sql;
+
+import org.junit.jupiter.api.Test;
+
+import cn.taketoday.persistence.Order;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class KeysetRestrictionTests {
+
+  @Test
+  void singleKey() {
+    var restriction = new KeysetRestriction(new String[] { "id" }, new Order[] { Order.DESC }, true);
+    assertThat(render(restriction)).isEqualTo("`id` < ?");
+    assertThat(restriction.valueIndexes()).containsExactly(0);
+  }
+
+  @Test
+  void rowValueComparison() {
+    var restriction = new KeysetRestriction(new String[] { "age", "id" }, new Order[] { Order.ASC, Order.ASC }, true);
+    assertThat(render(restriction)).isEqualTo("(`age`, `id`) > (?, ?)");
+    assertThat(restriction.valueIndexes()).containsExactly(0, 1);
+  }
+
+  @Test
+  void expanded() {
+    var restriction = new KeysetRestriction(new String[] { "a", "b", "c" },
+            new Order[] { Order.ASC, Order.ASC, Order.ASC }, false);
+    assertThat(render(restriction))
+            .isEqualTo("((`a` > ?) OR (`a` = ? AND `b` > ?) OR (`a` = ? AND `b` = ? AND `c` > ?))");
+    assertThat(restriction.valueIndexes()).containsExactly(0, 0, 1, 0, 1, 2);
+  }
+
+  @Test
+  void mixedOrdersExpanded() {
+    var restriction = new KeysetRestriction(new String[] { "age", "id" }, new Order[] { Order.DESC, Order.ASC }, true);
+    assertThat(render(restriction)).isEqualTo("((`age` < ?) OR (`age` = ? AND `id` > ?))");
+    assertThat(restriction.valueIndexes()).containsExactly(0, 0, 1);
+  }
+
+  private static String render(Restriction restriction) {
+    StringBuilder buf = new StringBuilder();
+    restriction.render(buf);
+    return buf.toString();
+  }
+
+}
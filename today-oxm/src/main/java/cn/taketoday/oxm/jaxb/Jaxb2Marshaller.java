@@ -44,6 +44,8 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.xml.XMLConstants;
 import javax.xml.datatype.Duration;
@@ -205,6 +207,21 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
 
   private boolean processExternalEntities = false;
 
+  private int poolSize = 0;
+
+  @Nullable
+  private BlockingQueue<Marshaller> marshallerPool;
+
+  @Nullable
+  private BlockingQueue<Unmarshaller> unmarshallerPool;
+
+  @Nullable
+  private BlockingQueue<SAXParser> saxParserPool;
+
+  /** cached while pooling is enabled, guarded by itself */
+  @Nullable
+  private volatile SAXParserFactory saxParserFactory;
+
   /**
    * Set multiple JAXB context paths. The given array of context paths gets
    * converted to a colon-delimited string, as supported by JAXB.
@@ -433,6 +450,7 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
    */
   public void setSupportDtd(boolean supportDtd) {
     this.supportDtd = supportDtd;
+    resetSaxParsers();
   }
 
   /**
@@ -457,6 +475,7 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
     if (processExternalEntities) {
       this.supportDtd = true;
     }
+    resetSaxParsers();
   }
 
   /**
@@ -466,6 +485,45 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
     return this.processExternalEntities;
   }
 
+  /**
+   * Set the maximum number of idle JAXB {@code Marshaller}, {@code Unmarshaller}
+   * and {@code SAXParser} instances kept for reuse, each kind has its own pool.
+   * <p>Creating and configuring these instances is expensive compared to
+   * marshalling small documents, while they are not thread-safe. Instances are
+   * borrowed for a single operation, reset and given back afterwards; if the
+   * pool is empty a new instance is created, if it is full the instance is
+   * discarded, so callers never block. Instances that failed are not reused.
+   * <p>Unlike a per-thread cache, the number of pooled instances does not grow
+   * with the number of threads, which makes it suitable for virtual threads.
+   * <p>Default is {@code 0}, meaning that a new instance is created every time.
+   *
+   * @since 5.0
+   */
+  public void setPoolSize(int poolSize) {
+    Assert.isTrue(poolSize >= 0, "poolSize must not be negative");
+    this.poolSize = poolSize;
+    if (poolSize > 0) {
+      this.marshallerPool = new ArrayBlockingQueue<>(poolSize);
+      this.unmarshallerPool = new ArrayBlockingQueue<>(poolSize);
+      this.saxParserPool = new ArrayBlockingQueue<>(poolSize);
+    }
+    else {
+      this.marshallerPool = null;
+      this.unmarshallerPool = null;
+      this.saxParserPool = null;
+    }
+    resetSaxParsers();
+  }
+
+  /**
+   * Return the maximum number of idle instances kept for reuse.
+   *
+   * @since 5.0
+   */
+  public int getPoolSize() {
+    return this.poolSize;
+  }
+
   @Override
   public void setBeanClassLoader(ClassLoader classLoader) {
     this.beanClassLoader = classLoader;
@@ -709,9 +767,14 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
 
   @Override
   public void marshal(Object graph, Result result, @Nullable MimeContainer mimeContainer) throws XmlMappingException {
+    BlockingQueue<Marshaller> pool = this.marshallerPool;
+    Marshaller marshaller = pool != null ? pool.poll() : null;
+    if (marshaller == null) {
+      marshaller = createMarshaller();
+    }
     try {
-      Marshaller marshaller = createMarshaller();
-      if (this.mtomEnabled && mimeContainer != null) {
+      boolean attachments = this.mtomEnabled && mimeContainer != null;
+      if (attachments) {
         marshaller.setAttachmentMarshaller(new Jaxb2AttachmentMarshaller(mimeContainer));
       }
       if (StaxUtils.isStaxResult(result)) {
@@ -720,6 +783,13 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
       else {
         marshaller.marshal(graph, result);
       }
+
+      if (pool != null) {
+        if (attachments) {
+          marshaller.setAttachmentMarshaller(null);
+        }
+        pool.offer(marshaller);
+      }
     }
     catch (JAXBException ex) {
       throw convertJaxbException(ex);
@@ -800,22 +870,40 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
 
   @Override
   public Object unmarshal(Source source, @Nullable MimeContainer mimeContainer) throws XmlMappingException {
-    source = processSource(source);
+    SAXParser saxParser = obtainSaxParser(source);
+    source = processSource(source, saxParser);
 
+    BlockingQueue<Unmarshaller> pool = this.unmarshallerPool;
+    Unmarshaller unmarshaller = pool != null ? pool.poll() : null;
+    if (unmarshaller == null) {
+      unmarshaller = createUnmarshaller();
+    }
     try {
-      Unmarshaller unmarshaller = createUnmarshaller();
-      if (this.mtomEnabled && mimeContainer != null) {
+      boolean attachments = this.mtomEnabled && mimeContainer != null;
+      if (attachments) {
         unmarshaller.setAttachmentUnmarshaller(new Jaxb2AttachmentUnmarshaller(mimeContainer));
       }
+      Object result;
       if (StaxUtils.isStaxSource(source)) {
-        return unmarshalStaxSource(unmarshaller, source);
+        result = unmarshalStaxSource(unmarshaller, source);
       }
       else if (this.mappedClass != null) {
-        return unmarshaller.unmarshal(source, this.mappedClass).getValue();
+        result = unmarshaller.unmarshal(source, this.mappedClass).getValue();
       }
       else {
-        return unmarshaller.unmarshal(source);
+        result = unmarshaller.unmarshal(source);
+      }
+
+      if (pool != null) {
+        if (attachments) {
+          unmarshaller.setAttachmentUnmarshaller(null);
+        }
+        pool.offer(unmarshaller);
       }
+      if (saxParser != null) {
+        releaseSaxParser(saxParser);
+      }
+      return result;
     }
     catch (NullPointerException ex) {
       if (!isSupportDtd()) {
@@ -866,7 +954,70 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
     }
   }
 
-  private Source processSource(Source source) {
+  /**
+   * Borrow a pooled SAX parser if pooling is enabled and the
+   * source needs a {@code XMLReader}.
+   */
+  @Nullable
+  private SAXParser obtainSaxParser(Source source) {
+    BlockingQueue<SAXParser> pool = this.saxParserPool;
+    if (pool != null && (source instanceof StreamSource
+            || (source instanceof SAXSource saxSource && saxSource.getXMLReader() == null))) {
+      SAXParser saxParser = pool.poll();
+      if (saxParser == null) {
+        try {
+          saxParser = createSaxParser();
+        }
+        catch (SAXException | ParserConfigurationException ex) {
+          // processSource will log it
+          return null;
+        }
+      }
+      return saxParser;
+    }
+    return null;
+  }
+
+  private void releaseSaxParser(SAXParser saxParser) {
+    BlockingQueue<SAXParser> pool = this.saxParserPool;
+    if (pool != null) {
+      try {
+        saxParser.reset();
+        pool.offer(saxParser);
+      }
+      catch (UnsupportedOperationException ex) {
+        // not reusable
+      }
+    }
+  }
+
+  private SAXParser createSaxParser() throws SAXException, ParserConfigurationException {
+    SAXParserFactory saxParserFactory = this.saxParserFactory;
+    if (saxParserFactory == null) {
+      saxParserFactory = SAXParserFactory.newInstance();
+      saxParserFactory.setNamespaceAware(true);
+      saxParserFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", !isSupportDtd());
+      String name = "http://xml.org/sax/features/external-general-entities";
+      saxParserFactory.setFeature(name, isProcessExternalEntities());
+      if (this.poolSize > 0) {
+        this.saxParserFactory = saxParserFactory;
+      }
+    }
+    // SAXParserFactory is not guaranteed to be thread-safe
+    synchronized(saxParserFactory) {
+      return saxParserFactory.newSAXParser();
+    }
+  }
+
+  private void resetSaxParsers() {
+    this.saxParserFactory = null;
+    BlockingQueue<SAXParser> pool = this.saxParserPool;
+    if (pool != null) {
+      pool.clear();
+    }
+  }
+
+  private Source processSource(Source source, @Nullable SAXParser saxParser) {
     if (StaxUtils.isStaxSource(source) || source instanceof DOMSource) {
       return source;
     }
@@ -892,12 +1043,9 @@ public class Jaxb2Marshaller implements MimeMarshaller, MimeUnmarshaller,
 
     try {
       if (xmlReader == null) {
-        SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
-        saxParserFactory.setNamespaceAware(true);
-        saxParserFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", !isSupportDtd());
-        String name = "http://xml.org/sax/features/external-general-entities";
-        saxParserFactory.setFeature(name, isProcessExternalEntities());
-        SAXParser saxParser = saxParserFactory.newSAXParser();
+        if (saxParser == null) {
+          saxParser = createSaxParser();
+        }
         xmlReader = saxParser.getXMLReader();
       }
       if (!isProcessExternalEntities()) {
@@ -30,11 +30,13 @@ import org.xml.sax.Locator;
 import org.xmlunit.diff.DifferenceEvaluator;
 
 import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
 import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.namespace.QName;
 import javax.xml.transform.Result;
@@ -307,6 +309,83 @@ class Jaxb2MarshallerTests extends AbstractMarshallerTests<Jaxb2Marshaller> {
     assertThat(XmlContent.from(writer)).isSimilarTo("<airplane><name>test</name></airplane>", ev);
   }
 
+  @Test
+  void pooledMarshaller() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    Jaxb2Marshaller marshaller = new Jaxb2Marshaller() {
+      @Override
+      public jakarta.xml.bind.Marshaller createMarshaller() {
+        created.incrementAndGet();
+        return super.createMarshaller();
+      }
+    };
+    marshaller.setContextPath(CONTEXT_PATH);
+    marshaller.setPoolSize(2);
+    marshaller.afterPropertiesSet();
+
+    DifferenceEvaluator ev = chain(Default, downgradeDifferencesToEqual(XML_STANDALONE));
+    for (int i = 0; i < 3; i++) {
+      StringWriter writer = new StringWriter();
+      marshaller.marshal(flights, new StreamResult(writer));
+      assertThat(XmlContent.from(writer)).isSimilarTo(EXPECTED_STRING, ev);
+    }
+    assertThat(created).hasValue(1);
+  }
+
+  @Test
+  void pooledUnmarshaller() throws Exception {
+    AtomicInteger created = new AtomicInteger();
+    Jaxb2Marshaller marshaller = new Jaxb2Marshaller() {
+      @Override
+      public jakarta.xml.bind.Unmarshaller createUnmarshaller() {
+        created.incrementAndGet();
+        return super.createUnmarshaller();
+      }
+    };
+    marshaller.setContextPath(CONTEXT_PATH);
+    marshaller.setPoolSize(2);
+    marshaller.afterPropertiesSet();
+    assertThat(marshaller.getPoolSize()).isEqualTo(2);
+
+    for (int i = 0; i < 3; i++) {
+      Object result = marshaller.unmarshal(new StreamSource(new StringReader(EXPECTED_STRING)));
+      assertThat(result).isInstanceOf(Flights.class);
+      assertThat(((Flights) result).getFlight().get(0).getNumber()).isEqualTo(42L);
+    }
+    assertThat(created).hasValue(1);
+  }
+
+  @Test
+  void pooledSaxParserKeepsXmlOptions() throws Exception {
+    final jakarta.xml.bind.Unmarshaller unmarshaller = mock();
+    Jaxb2Marshaller marshaller = new Jaxb2Marshaller() {
+      @Override
+      public jakarta.xml.bind.Unmarshaller createUnmarshaller() {
+        return unmarshaller;
+      }
+    };
+    marshaller.setPoolSize(1);
+
+    ArgumentCaptor<SAXSource> sourceCaptor = ArgumentCaptor.forClass(SAXSource.class);
+    marshaller.unmarshal(new StreamSource("1"));
+    marshaller.unmarshal(new StreamSource("1"));
+    verify(unmarshaller, times(2)).unmarshal(sourceCaptor.capture());
+
+    SAXSource first = sourceCaptor.getAllValues().get(0);
+    SAXSource second = sourceCaptor.getAllValues().get(1);
+    assertThat(second.getXMLReader()).isSameAs(first.getXMLReader());
+    assertThat(second.getXMLReader().getFeature("http://apache.org/xml/features/disallow-doctype-decl")).isTrue();
+    assertThat(second.getXMLReader().getEntityResolver()).isNotNull();
+
+    // options changed, pooled parsers are discarded
+    marshaller.setSupportDtd(true);
+    marshaller.unmarshal(new StreamSource("1"));
+    verify(unmarshaller, times(3)).unmarshal(sourceCaptor.capture());
+    SAXSource third = sourceCaptor.getValue();
+    assertThat(third.getXMLReader()).isNotSameAs(first.getXMLReader());
+    assertThat(third.getXMLReader().getFeature("http://apache.org/xml/features/disallow-doctype-decl")).isFalse();
+  }
+
   @Test
     // SPR-10806
   void unmarshalStreamSourceWithXmlOptions() throws Exception {
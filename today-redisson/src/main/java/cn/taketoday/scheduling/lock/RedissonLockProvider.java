@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.lock;
+
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * {@link LockProvider} backed by Redis keys managed through Redisson. A lock is a
+ * key that is set only if absent, with a time to live of {@code lockAtMostFor}.
+ * <p>Releasing a lock deletes the key, or shortens its time to live to the rest of
+ * {@code lockAtLeastFor}, but only if it is still owned by the releasing node.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see cn.taketoday.scheduling.annotation.SchedulerLock
+ * @since 5.0
+ */
+public class RedissonLockProvider implements LockProvider {
+
+  /**
+   * The default prefix of the lock keys.
+   */
+  public static final String DEFAULT_KEY_PREFIX = "scheduled-lock:";
+
+  private static final String UNLOCK_SCRIPT = """
+          if redis.call('get', KEYS[1]) == ARGV[1] then
+            if tonumber(ARGV[2]) > 0 then
+              return redis.call('pexpire', KEYS[1], ARGV[2])
+            end
+            return redis.call('del', KEYS[1])
+          end
+          return 0""";
+
+  private final RedissonClient redisson;
+
+  private String keyPrefix = DEFAULT_KEY_PREFIX;
+
+  public RedissonLockProvider(RedissonClient redisson) {
+    Assert.notNull(redisson, "RedissonClient is required");
+    this.redisson = redisson;
+  }
+
+  /**
+   * Set the prefix of the lock keys. Default is {@value #DEFAULT_KEY_PREFIX}.
+   */
+  public void setKeyPrefix(String keyPrefix) {
+    Assert.notNull(keyPrefix, "keyPrefix is required");
+    this.keyPrefix = keyPrefix;
+  }
+
+  @Nullable
+  @Override
+  public SimpleLock lock(LockConfiguration configuration) {
+    String key = this.keyPrefix + configuration.getName();
+    long ttl = Duration.between(Instant.now(), configuration.getLockAtMostUntil()).toMillis();
+    if (ttl <= 0) {
+      return null;
+    }
+    String token = UUID.randomUUID().toString();
+    RBucket<String> bucket = this.redisson.getBucket(key, StringCodec.INSTANCE);
+    if (!bucket.trySet(token, ttl, TimeUnit.MILLISECONDS)) {
+      return null;
+    }
+    return () -> unlock(key, token, configuration);
+  }
+
+  private void unlock(String key, String token, LockConfiguration configuration) {
+    Instant now = Instant.now();
+    long keepFor = Duration.between(now, configuration.getUnlockTime(now)).toMillis();
+    this.redisson.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, UNLOCK_SCRIPT,
+            RScript.ReturnType.INTEGER, List.of(key), token, Long.toString(keepFor));
+  }
+
+}
@@ -55,5 +55,23 @@ public @interface EnableRedissonWebSession {
    */
   String keyPrefix() default "";
 
+  /**
+   * Buffer session changes made during a request and flush them as one
+   * pipelined batch when the request completes.
+   *
+   * @see RedissonSessionRepository#setWriteBehind(boolean)
+   * @since 5.0
+   */
+  boolean writeBehind() default false;
+
+  /**
+   * Minimum interval, in {@link #timeUnit()}, between two persisted
+   * last-access updates of the same session.
+   *
+   * @see RedissonSessionRepository#setExpirationRefreshInterval(java.time.Duration)
+   * @since 5.0
+   */
+  int expirationRefreshInterval() default 0;
+
 }
 
@@ -21,11 +21,13 @@ import org.redisson.api.BatchOptions;
 import org.redisson.api.BatchResult;
 import org.redisson.api.RBatch;
 import org.redisson.api.RMap;
+import org.redisson.api.RMapAsync;
 import org.redisson.api.RPatternTopic;
 import org.redisson.api.RSet;
 import org.redisson.api.RTopic;
 import org.redisson.api.RedissonClient;
 import org.redisson.api.listener.PatternMessageListener;
+import org.redisson.client.codec.Codec;
 import org.redisson.client.codec.StringCodec;
 import org.redisson.codec.CompositeCodec;
 
@@ -33,6 +35,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,6 +45,8 @@ import cn.taketoday.core.AttributeAccessor;
 import cn.taketoday.core.Conventions;
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
 import cn.taketoday.session.MapSession;
 import cn.taketoday.session.SecureRandomSessionIdGenerator;
 import cn.taketoday.session.SessionEventDispatcher;
@@ -49,15 +54,31 @@ import cn.taketoday.session.SessionIdGenerator;
 import cn.taketoday.session.SessionRepository;
 import cn.taketoday.session.WebSession;
 import cn.taketoday.util.StringUtils;
+import cn.taketoday.web.RequestContext;
+import cn.taketoday.web.RequestContextHolder;
 
 /**
  * Redisson SessionRepository
  *
+ * <p>By default every mutation of a session is written through to Redis
+ * immediately. With {@link #setWriteBehind(boolean) write-behind} enabled,
+ * sessions retrieved while a {@link RequestContext} is bound are cached for
+ * the rest of the request, only the attributes changed during the request
+ * are tracked, and all changes are flushed as one pipelined {@link RBatch}
+ * when the request completes (or when {@link WebSession#save()} is called).
+ *
+ * <p>Last-access updates and the corresponding TTL refresh are coalesced:
+ * they are only written when at least the configured
+ * {@link #setExpirationRefreshInterval(Duration) refresh interval} has
+ * elapsed since the last persisted access time.
+ *
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 2019-09-28 10:31
  */
 public class RedissonSessionRepository implements SessionRepository, PatternMessageListener<String> {
 
+  private static final Logger log = LoggerFactory.getLogger(RedissonSessionRepository.class);
+
   /**
    * A session index that contains the current principal name (i.e. username).
    * <p>
@@ -71,6 +92,20 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
 
   private static final String SECURITY_CONTEXT = "SECURITY_CONTEXT";
 
+  private static final String CREATION_TIME_KEY = "session:creationTime";
+
+  private static final String LAST_ACCESSED_TIME_KEY = "session:lastAccessedTime";
+
+  private static final String MAX_IDLE_TIME_KEY = "session:setMaxIdleTime";
+
+  private static final String REQUEST_SESSION_ATTRIBUTE_PREFIX =
+          RedissonSessionRepository.class.getName() + ".SESSION.";
+
+  /**
+   * Marker for attributes removed during a write-behind unit of work
+   */
+  private static final Object REMOVED = new Object();
+
   private final RedissonClient redisson;
   private final RPatternTopic deletedTopic;
   private final RPatternTopic expiredTopic;
@@ -84,6 +119,12 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
   private final SessionEventDispatcher eventDispatcher;
   private final SessionIdGenerator idGenerator;
 
+  private Codec mapCodec;
+
+  private boolean writeBehind = false;
+
+  private Duration expirationRefreshInterval = Duration.ZERO;
+
   public RedissonSessionRepository(RedissonClient redissonClient) {
     this(redissonClient, null, null, null);
   }
@@ -97,6 +138,7 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
       this.keyPrefix = keyPrefix;
     }
     this.redisson = redisson;
+    this.mapCodec = new CompositeCodec(StringCodec.INSTANCE, redisson.getConfig().getCodec());
     this.deletedTopic = redisson.getPatternTopic("__keyevent@*:del", StringCodec.INSTANCE);
     this.expiredTopic = redisson.getPatternTopic("__keyevent@*:expired", StringCodec.INSTANCE);
     this.createdTopic = redisson.getPatternTopic(getEventsChannelPrefix() + "*", StringCodec.INSTANCE);
@@ -120,8 +162,7 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
 
   @Nullable
   private MapSession loadSession(String sessionId) {
-    var map = redisson.<String, Object>getMap(keyPrefix + sessionId,
-            new CompositeCodec(StringCodec.INSTANCE, redisson.getConfig().getCodec()));
+    var map = redisson.<String, Object>getMap(keyPrefix + sessionId, mapCodec);
 
     Set<Map.Entry<String, Object>> entrySet = map.readAllEntrySet();
     if (entrySet.isEmpty()) {
@@ -131,13 +172,13 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     MapSession delegate = new MapSession(sessionId);
     for (Map.Entry<String, Object> entry : entrySet) {
       String key = entry.getKey();
-      if ("session:creationTime".equals(key)) {
+      if (CREATION_TIME_KEY.equals(key)) {
         delegate.setCreationTime(Instant.ofEpochMilli((Long) entry.getValue()));
       }
-      else if ("session:lastAccessedTime".equals(key)) {
+      else if (LAST_ACCESSED_TIME_KEY.equals(key)) {
         delegate.setLastAccessTime(Instant.ofEpochMilli((Long) entry.getValue()));
       }
-      else if ("session:setMaxIdleTime".equals(key)) {
+      else if (MAX_IDLE_TIME_KEY.equals(key)) {
         delegate.setMaxIdleTime(Duration.ofSeconds((Long) entry.getValue()));
       }
       else if (key.startsWith(SESSION_ATTR_PREFIX)) {
@@ -172,16 +213,78 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
   }
 
   public void setDefaultMaxInactiveInterval(@Nullable Duration defaultMaxInactiveInterval) {
+    assertRefreshIntervalBelowMaxIdle(expirationRefreshInterval, defaultMaxInactiveInterval);
     this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
   }
 
+  /**
+   * Set the codec used to serialize session attribute values, defaults
+   * to the codec of the {@link RedissonClient} configuration.
+   * <p>Session metadata and attribute names are always encoded as strings.
+   *
+   * @param codec the attribute value codec, {@code null} to use the
+   * client's default codec
+   * @since 5.0
+   */
+  public void setCodec(@Nullable Codec codec) {
+    if (codec == null) {
+      codec = redisson.getConfig().getCodec();
+    }
+    this.mapCodec = new CompositeCodec(StringCodec.INSTANCE, codec);
+  }
+
+  /**
+   * Enable write-behind: attribute changes made while a request is bound
+   * are buffered and flushed as one pipelined batch on request completion.
+   * Sessions used outside a request are always written through.
+   *
+   * @since 5.0
+   */
+  public void setWriteBehind(boolean writeBehind) {
+    this.writeBehind = writeBehind;
+  }
+
+  public boolean isWriteBehind() {
+    return writeBehind;
+  }
+
+  /**
+   * Set the minimum interval between two persisted last-access updates
+   * (and TTL refreshes) of the same session. Access times within the
+   * interval are only kept in memory, so a session may expire up to
+   * this interval earlier than its max idle time suggests.
+   * <p>The interval must be shorter than the default max inactive
+   * interval. Sessions whose own max idle time is not longer than the
+   * interval persist every access.
+   * <p>Defaults to {@link Duration#ZERO}, persisting every access.
+   *
+   * @since 5.0
+   */
+  public void setExpirationRefreshInterval(Duration expirationRefreshInterval) {
+    Assert.notNull(expirationRefreshInterval, "expirationRefreshInterval is required");
+    Assert.isTrue(!expirationRefreshInterval.isNegative(), "expirationRefreshInterval must not be negative");
+    assertRefreshIntervalBelowMaxIdle(expirationRefreshInterval, defaultMaxInactiveInterval);
+    this.expirationRefreshInterval = expirationRefreshInterval;
+  }
+
+  private static void assertRefreshIntervalBelowMaxIdle(Duration refreshInterval, @Nullable Duration maxIdleTime) {
+    if (maxIdleTime != null && maxIdleTime.getSeconds() > 0 && refreshInterval.compareTo(maxIdleTime) >= 0) {
+      throw new IllegalArgumentException("expirationRefreshInterval (%s) must be shorter than the max inactive interval (%s)"
+              .formatted(refreshInterval, maxIdleTime));
+    }
+  }
+
+  public Duration getExpirationRefreshInterval() {
+    return expirationRefreshInterval;
+  }
+
   @Override
   public RedissonSession createSession() {
     RedissonSession session = new RedissonSession();
     if (defaultMaxInactiveInterval != null) {
       session.setMaxIdleTime(defaultMaxInactiveInterval);
     }
-    return session;
+    return bindToRequest(session);
   }
 
   @Override
@@ -190,17 +293,38 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     if (defaultMaxInactiveInterval != null) {
       session.setMaxIdleTime(defaultMaxInactiveInterval);
     }
-    return session;
+    return bindToRequest(session);
   }
 
   @Nullable
   @Override
   public RedissonSession retrieveSession(String sessionId) {
+    RequestContext request = writeBehind ? RequestContextHolder.get() : null;
+    if (request != null
+            && request.getAttribute(REQUEST_SESSION_ATTRIBUTE_PREFIX + sessionId) instanceof RedissonSession session) {
+      return session.isExpired() ? null : session;
+    }
+
     MapSession mapSession = loadSession(sessionId);
     if (mapSession == null || mapSession.isExpired()) {
       return null;
     }
-    return new RedissonSession(mapSession);
+    return bindToRequest(new RedissonSession(mapSession));
+  }
+
+  /**
+   * In write-behind mode, cache the session for the current request and
+   * flush its pending changes when the request completes.
+   */
+  private RedissonSession bindToRequest(RedissonSession session) {
+    RequestContext request = writeBehind ? RequestContextHolder.get() : null;
+    if (request != null) {
+      String name = REQUEST_SESSION_ATTRIBUTE_PREFIX + session.getId();
+      request.setAttribute(name, session);
+      request.registerRequestDestructionCallback(name, session::flushQuietly);
+      session.deferWrites = true;
+    }
+    return session;
   }
 
   @Nullable
@@ -215,6 +339,7 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
 
     session.clearPrincipal();
     session.setMaxIdleTime(Duration.ZERO);
+    session.flush();
     return session;
   }
 
@@ -291,19 +416,38 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     @Nullable
     private RMap<String, Object> map;
 
+    /**
+     * last access time known to be persisted, used to coalesce updates
+     */
+    private Instant persistedLastAccessTime;
+
+    private boolean deferWrites;
+
+    /**
+     * attribute changes not yet flushed, {@link #REMOVED} marks a removal.
+     * Guarded by {@code this}, together with the dirty flags.
+     */
+    private final LinkedHashMap<String, Object> pendingAttributes = new LinkedHashMap<>();
+
+    private boolean lastAccessTimeDirty;
+
+    private boolean maxIdleTimeDirty;
+
+    private boolean principalDirty;
+
     RedissonSession() {
       this(idGenerator.generateId());
     }
 
     RedissonSession(String id) {
       this.delegate = new MapSession(id, RedissonSessionRepository.this.eventDispatcher);
-      map = redisson.getMap(keyPrefix + delegate.getId(),
-              new CompositeCodec(StringCodec.INSTANCE, redisson.getConfig().getCodec()));
+      map = redisson.getMap(keyPrefix + delegate.getId(), mapCodec);
+      persistedLastAccessTime = delegate.getLastAccessTime();
 
       Map<String, Object> newMap = new HashMap<>(3);
-      newMap.put("session:creationTime", delegate.getCreationTime().toEpochMilli());
-      newMap.put("session:lastAccessedTime", delegate.getLastAccessTime().toEpochMilli());
-      newMap.put("session:setMaxIdleTime", delegate.getMaxIdleTime().getSeconds());
+      newMap.put(CREATION_TIME_KEY, delegate.getCreationTime().toEpochMilli());
+      newMap.put(LAST_ACCESSED_TIME_KEY, delegate.getLastAccessTime().toEpochMilli());
+      newMap.put(MAX_IDLE_TIME_KEY, delegate.getMaxIdleTime().getSeconds());
       map.putAll(newMap);
 
       updateExpiration();
@@ -323,10 +467,95 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
 
     RedissonSession(MapSession session) {
       this.delegate = session;
-      map = redisson.getMap(keyPrefix + session.getId(), new CompositeCodec(StringCodec.INSTANCE, redisson.getConfig().getCodec()));
+      map = redisson.getMap(keyPrefix + session.getId(), mapCodec);
+      persistedLastAccessTime = session.getLastAccessTime();
       principalName = resolvePrincipal(this);
     }
 
+    /**
+     * Flush on request completion: request destruction callbacks are not
+     * isolated from each other, so failures are logged instead of thrown
+     */
+    void flushQuietly() {
+      try {
+        flush();
+      }
+      catch (RuntimeException e) {
+        log.error("Failed to flush session '{}' on request completion", getId(), e);
+      }
+    }
+
+    /**
+     * Flush changes buffered in write-behind mode as one pipelined batch
+     */
+    void flush() {
+      RBatch batch = prepareFlush();
+      if (batch != null) {
+        batch.execute();
+      }
+    }
+
+    /**
+     * Collect pending changes into a batch and reset them, the batch is
+     * executed outside the lock
+     */
+    @Nullable
+    private synchronized RBatch prepareFlush() {
+      if (map == null || !(principalDirty || lastAccessTimeDirty
+              || maxIdleTimeDirty || !pendingAttributes.isEmpty())) {
+        return null;
+      }
+
+      RBatch batch = redisson.createBatch(BatchOptions.defaults());
+      RMapAsync<String, Object> mapAsync = batch.getMap(map.getName(), map.getCodec());
+      for (Map.Entry<String, Object> entry : pendingAttributes.entrySet()) {
+        String key = getSessionAttrNameKey(entry.getKey());
+        if (entry.getValue() == REMOVED) {
+          mapAsync.fastRemoveAsync(key);
+        }
+        else {
+          mapAsync.fastPutAsync(key, entry.getValue());
+        }
+      }
+
+      if (principalDirty) {
+        String newPrincipal = resolvePrincipal(this);
+        if (principalName != null) {
+          batch.getSet(getPrincipalKey(principalName), StringCodec.INSTANCE).removeAsync(getId());
+        }
+        if (newPrincipal != null) {
+          batch.getSet(getPrincipalKey(newPrincipal), StringCodec.INSTANCE).addAsync(getId());
+        }
+        principalName = newPrincipal;
+      }
+
+      if (maxIdleTimeDirty) {
+        mapAsync.fastPutAsync(MAX_IDLE_TIME_KEY, delegate.getMaxIdleTime().getSeconds());
+      }
+      if (lastAccessTimeDirty) {
+        mapAsync.fastPutAsync(LAST_ACCESSED_TIME_KEY, delegate.getLastAccessTime().toEpochMilli());
+        persistedLastAccessTime = delegate.getLastAccessTime();
+      }
+      if (maxIdleTimeDirty || lastAccessTimeDirty) {
+        long maxIdleSeconds = delegate.getMaxIdleTime().getSeconds();
+        if (maxIdleSeconds > 0) {
+          batch.getBucket(getExpiredKey(getId())).setAsync("", maxIdleSeconds, TimeUnit.SECONDS);
+          mapAsync.expireAsync(maxIdleSeconds + 60, TimeUnit.SECONDS);
+        }
+      }
+
+      pendingAttributes.clear();
+      principalDirty = false;
+      lastAccessTimeDirty = false;
+      maxIdleTimeDirty = false;
+      return batch;
+    }
+
+    private boolean isPrincipalAttribute(String attributeName) {
+      return attributeName.equals(PRINCIPAL_NAME_INDEX_NAME)
+              || attributeName.equals(SECURITY_CONTEXT);
+    }
+
     @Override
     public String getId() {
       return delegate.getId();
@@ -339,11 +568,18 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
       }
       else {
         delegate.setAttribute(attributeName, attributeValue);
-        if (map != null) {
+        if (deferWrites) {
+          synchronized(this) {
+            pendingAttributes.put(attributeName, attributeValue);
+            if (isPrincipalAttribute(attributeName)) {
+              principalDirty = true;
+            }
+          }
+        }
+        else if (map != null) {
           map.fastPut(getSessionAttrNameKey(attributeName), attributeValue);
 
-          if (attributeName.equals(PRINCIPAL_NAME_INDEX_NAME)
-                  || attributeName.equals(SECURITY_CONTEXT)) {
+          if (isPrincipalAttribute(attributeName)) {
             // remove old
             if (principalName != null) {
               RSet<String> set = getPrincipalSet(principalName);
@@ -372,7 +608,15 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     public Object removeAttribute(String attributeName) {
       Object old = delegate.removeAttribute(attributeName);
 
-      if (map != null) {
+      if (deferWrites) {
+        synchronized(this) {
+          pendingAttributes.put(attributeName, REMOVED);
+          if (isPrincipalAttribute(attributeName)) {
+            principalDirty = true;
+          }
+        }
+      }
+      else if (map != null) {
         map.fastRemove(getSessionAttrNameKey(attributeName));
       }
 
@@ -387,8 +631,21 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     public void setLastAccessTime(Instant lastAccessTime) {
       delegate.setLastAccessTime(lastAccessTime);
 
-      if (map != null) {
-        map.fastPut("session:lastAccessedTime", lastAccessTime.toEpochMilli());
+      // coalesce updates within the refresh interval, unless that could let the session expire
+      Duration maxIdleTime = delegate.getMaxIdleTime();
+      if ((maxIdleTime.getSeconds() <= 0 || expirationRefreshInterval.compareTo(maxIdleTime) < 0)
+              && Duration.between(persistedLastAccessTime, lastAccessTime).compareTo(expirationRefreshInterval) < 0) {
+        return;
+      }
+
+      if (deferWrites) {
+        synchronized(this) {
+          lastAccessTimeDirty = true;
+        }
+      }
+      else if (map != null) {
+        map.fastPut(LAST_ACCESSED_TIME_KEY, lastAccessTime.toEpochMilli());
+        persistedLastAccessTime = lastAccessTime;
         updateExpiration();
       }
     }
@@ -402,8 +659,13 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     public void setMaxIdleTime(Duration interval) {
       delegate.setMaxIdleTime(interval);
 
-      if (map != null) {
-        map.fastPut("session:setMaxIdleTime", interval.getSeconds());
+      if (deferWrites) {
+        synchronized(this) {
+          maxIdleTimeDirty = true;
+        }
+      }
+      else if (map != null) {
+        map.fastPut(MAX_IDLE_TIME_KEY, interval.getSeconds());
         updateExpiration();
       }
     }
@@ -421,6 +683,7 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     @Override
     @SuppressWarnings("unchecked")
     public void changeSessionId() {
+      flush();
       String oldId = delegate.getId();
       delegate.changeSessionId();
 
@@ -492,6 +755,7 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     @Override
     public void save() {
       delegate.save();
+      flush();
     }
 
     @Override
@@ -520,6 +784,9 @@ public class RedissonSessionRepository implements SessionRepository, PatternMess
     @Override
     public void clearAttributes() {
       delegate.clearAttributes();
+      synchronized(this) {
+        pendingAttributes.clear();
+      }
       if (map != null) {
         map.clear();
       }
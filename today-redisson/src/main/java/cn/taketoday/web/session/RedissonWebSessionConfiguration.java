@@ -49,6 +49,10 @@ public class RedissonWebSessionConfiguration implements ImportAware {
   @Nullable
   private TimeUnit timeUnit;
 
+  private boolean writeBehind;
+
+  private int expirationRefreshInterval;
+
   @Component
   public RedissonSessionRepository redissonSessionRepository(RedissonClient client,
           SessionIdGenerator idGenerator, SessionEventDispatcher eventDispatcher) {
@@ -59,6 +63,11 @@ public class RedissonWebSessionConfiguration implements ImportAware {
       Duration duration = Duration.of(maxIdleTime, timeUnit.toChronoUnit());
       repository.setDefaultMaxInactiveInterval(duration);
     }
+    if (expirationRefreshInterval > 0 && timeUnit != null) {
+      repository.setExpirationRefreshInterval(
+              Duration.of(expirationRefreshInterval, timeUnit.toChronoUnit()));
+    }
+    repository.setWriteBehind(writeBehind);
     return repository;
   }
 
@@ -74,12 +83,22 @@ public class RedissonWebSessionConfiguration implements ImportAware {
     this.timeUnit = timeUnit;
   }
 
+  public void setWriteBehind(boolean writeBehind) {
+    this.writeBehind = writeBehind;
+  }
+
+  public void setExpirationRefreshInterval(int expirationRefreshInterval) {
+    this.expirationRefreshInterval = expirationRefreshInterval;
+  }
+
   @Override
   public void setImportMetadata(AnnotationMetadata importMetadata) {
     var annotation = importMetadata.getAnnotation(EnableRedissonWebSession.class);
     this.keyPrefix = annotation.getString("keyPrefix");
     this.maxIdleTime = annotation.getInt("maxIdleTime");
     this.timeUnit = annotation.getEnum("timeUnit", TimeUnit.class);
+    this.writeBehind = annotation.getBoolean("writeBehind");
+    this.expirationRefreshInterval = annotation.getInt("expirationRefreshInterval");
   }
 
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.scheduling.lock;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.redisson.api.RBucket;
+import org.redisson.client.codec.StringCodec;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import cn.taketoday.cache.BaseTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link RedissonLockProvider}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+@EnabledIfSystemProperty(named = "redisBinary", matches = ".+")
+class RedissonLockProviderTests extends BaseTest {
+
+  private final RedissonLockProvider node1 = new RedissonLockProvider(redisson);
+
+  private final RedissonLockProvider node2 = new RedissonLockProvider(redisson);
+
+  @Test
+  void lockIsExclusiveAcrossProviders() {
+    SimpleLock lock = node1.lock(configuration(Duration.ofMinutes(10), Duration.ZERO));
+    assertThat(lock).isNotNull();
+    assertThat(lockKey().isExists()).isTrue();
+    assertThat(node2.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNull();
+
+    lock.unlock();
+    assertThat(lockKey().isExists()).isFalse();
+    assertThat(node2.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNotNull();
+    assertThat(node1.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNull();
+  }
+
+  @Test
+  void lockCanBeAcquiredAfterExpiry() throws InterruptedException {
+    assertThat(node1.lock(configuration(Duration.ofMillis(200), Duration.ZERO))).isNotNull();
+    awaitExpiry();
+    assertThat(node2.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNotNull();
+  }
+
+  @Test
+  void staleHolderCannotReleaseTakenOverLock() throws InterruptedException {
+    SimpleLock stale = node1.lock(configuration(Duration.ofMillis(200), Duration.ZERO));
+    assertThat(stale).isNotNull();
+    awaitExpiry();
+
+    SimpleLock current = node2.lock(configuration(Duration.ofMinutes(10), Duration.ZERO));
+    assertThat(current).isNotNull();
+
+    stale.unlock();
+    assertThat(node1.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNull();
+    current.unlock();
+    assertThat(node1.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNotNull();
+  }
+
+  @Test
+  void unlockHonorsLockAtLeastFor() {
+    SimpleLock lock = node1.lock(configuration(Duration.ofMinutes(10), Duration.ofMinutes(1)));
+    assertThat(lock).isNotNull();
+    lock.unlock();
+
+    assertThat(node2.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNull();
+    assertThat(lockKey().remainTimeToLive()).isPositive().isLessThanOrEqualTo(Duration.ofMinutes(1).toMillis());
+  }
+
+  @Test
+  void keyPrefix() {
+    node1.setKeyPrefix("custom:");
+    assertThat(node1.lock(configuration(Duration.ofMinutes(10), Duration.ZERO))).isNotNull();
+    assertThat(redisson.getBucket("custom:task", StringCodec.INSTANCE).isExists()).isTrue();
+    assertThat(lockKey().isExists()).isFalse();
+  }
+
+  private void awaitExpiry() throws InterruptedException {
+    long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    while (lockKey().isExists()) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+
+  private static RBucket<String> lockKey() {
+    return redisson.getBucket(RedissonLockProvider.DEFAULT_KEY_PREFIX + "task", StringCodec.INSTANCE);
+  }
+
+  private static LockConfiguration configuration(Duration lockAtMostFor, Duration lockAtLeastFor) {
+    return new LockConfiguration(Instant.now(), "task", lockAtMostFor, lockAtLeastFor);
+  }
+
+}
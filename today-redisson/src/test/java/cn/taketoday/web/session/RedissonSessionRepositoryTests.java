@@ -0,0 +1,173 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.session;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.redisson.api.RMap;
+import org.redisson.client.codec.BaseCodec;
+import org.redisson.client.codec.Codec;
+import org.redisson.client.codec.StringCodec;
+import org.redisson.client.protocol.Decoder;
+import org.redisson.client.protocol.Encoder;
+import org.redisson.codec.CompositeCodec;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import cn.taketoday.cache.BaseTest;
+import cn.taketoday.web.RequestContextHolder;
+import cn.taketoday.web.mock.MockRequestContext;
+import cn.taketoday.web.session.RedissonSessionRepository.RedissonSession;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ */
+@EnabledIfSystemProperty(named = "redisBinary", matches = ".+")
+class RedissonSessionRepositoryTests extends BaseTest {
+
+  private static final String LAST_ACCESSED_TIME_KEY = "session:lastAccessedTime";
+
+  private final MockRequestContext request = new MockRequestContext();
+
+  @AfterEach
+  void cleanup() {
+    RequestContextHolder.cleanup();
+  }
+
+  @Test
+  void writeBehindFlushesChangesOnRequestCompletion() {
+    var repository = new RedissonSessionRepository(redisson);
+    repository.setWriteBehind(true);
+    RequestContextHolder.set(request);
+
+    RedissonSession session = repository.createSession();
+    session.setAttribute("name", "today");
+    session.setAttribute("age", 23);
+    session.removeAttribute("age");
+
+    RMap<String, Object> map = sessionMap(session);
+    assertThat(map.containsKey(RedissonSessionRepository.SESSION_ATTR_PREFIX + "name")).isFalse();
+    assertThat(repository.retrieveSession(session.getId())).isSameAs(session);
+
+    request.requestCompleted();
+
+    assertThat(map.get(RedissonSessionRepository.SESSION_ATTR_PREFIX + "name")).isEqualTo("today");
+    assertThat(map.containsKey(RedissonSessionRepository.SESSION_ATTR_PREFIX + "age")).isFalse();
+  }
+
+  @Test
+  void failedFlushDoesNotSkipOtherDestructionCallbacks() {
+    var repository = new RedissonSessionRepository(redisson);
+    repository.setCodec(new FailingCodec(redisson.getConfig().getCodec()));
+    repository.setWriteBehind(true);
+    RequestContextHolder.set(request);
+
+    RedissonSession session = repository.createSession();
+    session.setAttribute("poison", new Poison());
+
+    AtomicBoolean invoked = new AtomicBoolean();
+    request.registerRequestDestructionCallback("after-session", () -> invoked.set(true));
+    request.requestCompleted();
+
+    assertThat(invoked).isTrue();
+  }
+
+  @Test
+  void lastAccessTimeRefreshCoalesced() {
+    var repository = new RedissonSessionRepository(redisson);
+    repository.setDefaultMaxInactiveInterval(Duration.ofMinutes(30));
+    repository.setExpirationRefreshInterval(Duration.ofMinutes(1));
+
+    RedissonSession session = repository.createSession();
+    RMap<String, Object> map = sessionMap(session);
+    Object persisted = map.get(LAST_ACCESSED_TIME_KEY);
+    Instant lastAccessTime = session.getLastAccessTime();
+
+    session.setLastAccessTime(lastAccessTime.plusSeconds(10));
+    assertThat(map.get(LAST_ACCESSED_TIME_KEY)).isEqualTo(persisted);
+
+    session.setLastAccessTime(lastAccessTime.plusSeconds(90));
+    assertThat(map.get(LAST_ACCESSED_TIME_KEY)).isEqualTo(lastAccessTime.plusSeconds(90).toEpochMilli());
+  }
+
+  @Test
+  void lastAccessTimeNotCoalescedWhenMaxIdleTimeIsShorter() {
+    var repository = new RedissonSessionRepository(redisson);
+    repository.setExpirationRefreshInterval(Duration.ofMinutes(1));
+
+    RedissonSession session = repository.createSession();
+    session.setMaxIdleTime(Duration.ofSeconds(30));
+    Instant lastAccessTime = session.getLastAccessTime().plusSeconds(10);
+    session.setLastAccessTime(lastAccessTime);
+
+    assertThat(sessionMap(session).get(LAST_ACCESSED_TIME_KEY)).isEqualTo(lastAccessTime.toEpochMilli());
+  }
+
+  @Test
+  void expirationRefreshIntervalMustBeShorterThanMaxInactiveInterval() {
+    var repository = new RedissonSessionRepository(redisson);
+    repository.setDefaultMaxInactiveInterval(Duration.ofMinutes(30));
+    assertThatIllegalArgumentException()
+            .isThrownBy(() -> repository.setExpirationRefreshInterval(Duration.ofMinutes(30)));
+
+    repository.setExpirationRefreshInterval(Duration.ofMinutes(10));
+    assertThatIllegalArgumentException()
+            .isThrownBy(() -> repository.setDefaultMaxInactiveInterval(Duration.ofMinutes(5)));
+  }
+
+  private RMap<String, Object> sessionMap(RedissonSession session) {
+    Codec codec = new CompositeCodec(StringCodec.INSTANCE, redisson.getConfig().getCodec());
+    return redisson.getMap("today:session:" + session.getId(), codec);
+  }
+
+  static class Poison {
+
+  }
+
+  static class FailingCodec extends BaseCodec {
+
+    private final Codec delegate;
+
+    FailingCodec(Codec delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Decoder<Object> getValueDecoder() {
+      return delegate.getValueDecoder();
+    }
+
+    @Override
+    public Encoder getValueEncoder() {
+      return in -> {
+        if (in instanceof Poison) {
+          throw new IOException("Cannot encode poison");
+        }
+        return delegate.getValueEncoder().encode(in);
+      };
+    }
+  }
+
+}
@@ -40,6 +40,7 @@ import cn.taketoday.aop.support.AbstractPointcutAdvisor;
 import cn.taketoday.aop.support.ComposablePointcut;
 import cn.taketoday.aop.support.StaticMethodMatcherPointcut;
 import cn.taketoday.aop.support.annotation.AnnotationClassFilter;
+import cn.taketoday.aop.support.annotation.AnnotationIndexedPointcut;
 import cn.taketoday.aop.support.annotation.AnnotationMethodMatcher;
 import cn.taketoday.beans.factory.BeanFactory;
 import cn.taketoday.beans.factory.BeanFactoryAware;
@@ -215,14 +216,24 @@ public class RetryConfiguration extends AbstractPointcutAdvisor
     return result;
   }
 
-  private static final class AnnotationClassOrMethodPointcut extends StaticMethodMatcherPointcut {
+  private static final class AnnotationClassOrMethodPointcut extends StaticMethodMatcherPointcut
+          implements AnnotationIndexedPointcut {
+
     private final MethodMatcher methodResolver;
 
+    private final Set<Class<? extends Annotation>> annotationTypes;
+
     AnnotationClassOrMethodPointcut(Class<? extends Annotation> annotationType) {
       this.methodResolver = new AnnotationMethodMatcher(annotationType);
+      this.annotationTypes = Set.of(annotationType);
       setClassFilter(new AnnotationClassOrMethodFilter(annotationType));
     }
 
+    @Override
+    public Set<Class<? extends Annotation>> getAnnotationTypes() {
+      return this.annotationTypes;
+    }
+
     @Override
     public boolean matches(Method method, Class<?> targetClass) {
       return getClassFilter().matches(targetClass) || this.methodResolver.matches(method, targetClass);
@@ -159,4 +159,19 @@ public interface CacheAwareContextLoaderDelegate {
    */
   void closeContext(MergedContextConfiguration mergedContextConfiguration, @Nullable HierarchyMode hierarchyMode);
 
+  /**
+   * Signal that the given test class no longer uses the
+   * {@linkplain ApplicationContext application context} for the supplied
+   * {@link MergedContextConfiguration}, so that the context cache may evict it.
+   * <p>The default implementation of this method does nothing.
+   *
+   * @param mergedContextConfiguration the merged context configuration of the
+   * context no longer used; never {@code null}
+   * @param testClass the test class that used the context
+   * @see TestContext#markApplicationContextUnused()
+   * @since 5.0
+   */
+  default void unregisterContextUsage(MergedContextConfiguration mergedContextConfiguration, Class<?> testClass) {
+  }
+
 }
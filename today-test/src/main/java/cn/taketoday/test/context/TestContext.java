@@ -149,6 +149,17 @@ public interface TestContext extends AttributeAccessor, Serializable {
    */
   void markApplicationContextDirty(@Nullable HierarchyMode hierarchyMode);
 
+  /**
+   * Signal that the {@linkplain ApplicationContext application context}
+   * associated with this test context is no longer used by the test class,
+   * so the context cache may evict it.
+   * <p>The default implementation of this method does nothing.
+   *
+   * @since 5.0
+   */
+  default void markApplicationContextUnused() {
+  }
+
   /**
    * Update this test context to reflect the state of the currently executing test.
    * <p><strong>WARNING</strong>: This method should only be invoked by the
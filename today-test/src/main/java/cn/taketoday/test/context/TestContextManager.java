@@ -523,6 +523,18 @@ public class TestContextManager {
       }
     }
 
+    try {
+      getTestContext().markApplicationContextUnused();
+    }
+    catch (Throwable ex) {
+      if (afterTestClassException == null) {
+        afterTestClassException = ex;
+      }
+      else {
+        afterTestClassException.addSuppressed(ex);
+      }
+    }
+
     this.testContextHolder.remove();
 
     if (afterTestClassException != null) {
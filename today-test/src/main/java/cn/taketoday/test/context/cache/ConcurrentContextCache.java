@@ -0,0 +1,661 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.cache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import cn.taketoday.context.ApplicationContext;
+import cn.taketoday.context.ConfigurableApplicationContext;
+import cn.taketoday.core.style.ToStringBuilder;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.test.annotation.DirtiesContext.HierarchyMode;
+import cn.taketoday.test.context.MergedContextConfiguration;
+import cn.taketoday.util.DataSize;
+
+/**
+ * {@link ContextCache} designed for parallel test execution.
+ *
+ * <p>Lookups don't lock, and contexts are loaded through
+ * {@link #get(MergedContextConfiguration, Function)} with per-key
+ * <em>single-flight</em> semantics: if several test classes need the same
+ * context at the same time, only one of them loads it while the others wait
+ * for the result, contexts for different keys are loaded in parallel.
+ *
+ * <p>Eviction is weighted instead of purely count based. Each context has a
+ * weight, an estimate of its retained heap, and a cost, the time it took to
+ * load. When the cache exceeds its maximum size or its maximum total weight,
+ * the <em>GreedyDual-Size</em> policy evicts the context with the lowest
+ * priority, where the priority is the cost per weight unit on top of an
+ * aging value that is raised on every eviction. So contexts that are
+ * expensive to rebuild relative to their size are kept longer, and
+ * recently used contexts are kept longer than stale ones.
+ *
+ * <p>A context is never evicted while it is in use: from the time a test
+ * class obtains it through {@link #get(MergedContextConfiguration, Function)}
+ * until {@link #release} after the test class, or while it is the parent
+ * of a context being loaded. If every candidate is in use, the cache
+ * temporarily exceeds its limits and catches up on release. Evicted
+ * contexts are closed after the cache lock is released.
+ *
+ * <p>The maximum total weight may be supplied as a constructor argument or
+ * set via a system property or Infra property named
+ * {@value #MAX_CONTEXT_CACHE_WEIGHT_PROPERTY_NAME}, it defaults to a quarter
+ * of the maximum heap.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see ContextCacheUtils#retrieveMaxCacheWeight()
+ * @since 5.0
+ */
+public class ConcurrentContextCache implements ContextCache {
+
+  /**
+   * System property used to enable the {@code ConcurrentContextCache} as the
+   * default context cache: {@value}.
+   */
+  public static final String CONCURRENT_CONTEXT_CACHE_PROPERTY_NAME = "infra.test.context.cache.concurrent";
+
+  /**
+   * System property used to configure the maximum total weight of the
+   * cached contexts, as a data size like {@code 512MB}: {@value}.
+   */
+  public static final String MAX_CONTEXT_CACHE_WEIGHT_PROPERTY_NAME = "infra.test.context.cache.maxWeight";
+
+  private static final long BASE_WEIGHT = DataSize.ofMegabytes(1).toBytes();
+
+  private static final long BEAN_WEIGHT = DataSize.ofKilobytes(16).toBytes();
+
+  private static final Logger statsLogger = LoggerFactory.getLogger(CONTEXT_CACHE_LOGGING_CATEGORY);
+
+  private final ConcurrentHashMap<MergedContextConfiguration, CachedContext> contextMap = new ConcurrentHashMap<>(32);
+
+  /**
+   * contexts being loaded
+   */
+  private final ConcurrentHashMap<MergedContextConfiguration, CompletableFuture<ApplicationContext>> loadingMap =
+          new ConcurrentHashMap<>(16);
+
+  /**
+   * Map of parent keys to sets of children keys
+   *
+   * @see DefaultContextCache
+   */
+  private final Map<MergedContextConfiguration, Set<MergedContextConfiguration>> hierarchyMap =
+          new ConcurrentHashMap<>(32);
+
+  /**
+   * test classes using a context, sets are only mutated inside compute
+   */
+  private final ConcurrentHashMap<MergedContextConfiguration, Set<Class<?>>> usageMap = new ConcurrentHashMap<>(32);
+
+  private final Map<MergedContextConfiguration, Integer> failureCounts = new ConcurrentHashMap<>(32);
+
+  private final AtomicInteger totalFailureCount = new AtomicInteger();
+
+  private final AtomicInteger hitCount = new AtomicInteger();
+
+  private final AtomicInteger missCount = new AtomicInteger();
+
+  private final AtomicInteger loadCount = new AtomicInteger();
+
+  private final AtomicInteger evictionCount = new AtomicInteger();
+
+  private final LongAdder totalLoadTime = new LongAdder();
+
+  private final AtomicBoolean shutdownReportRegistered = new AtomicBoolean();
+
+  private final int maxSize;
+
+  private final long maxWeight;
+
+  private final ToLongFunction<ApplicationContext> weigher;
+
+  /**
+   * guarded by this
+   */
+  private long totalWeight;
+
+  /**
+   * GreedyDual-Size aging value, written while holding the lock
+   */
+  private volatile double inflation;
+
+  /**
+   * Create a new {@code ConcurrentContextCache} using the maximum cache
+   * size and weight obtained via {@link ContextCacheUtils}.
+   *
+   * @see ContextCacheUtils#retrieveMaxCacheSize()
+   * @see ContextCacheUtils#retrieveMaxCacheWeight()
+   */
+  public ConcurrentContextCache() {
+    this(ContextCacheUtils.retrieveMaxCacheSize(), ContextCacheUtils.retrieveMaxCacheWeight());
+  }
+
+  /**
+   * Create a new {@code ConcurrentContextCache} that estimates the
+   * weight of a context by its bean definition count.
+   *
+   * @param maxSize the maximum number of contexts
+   * @param maxWeight the maximum total weight in bytes
+   * @see #estimateWeight(ApplicationContext)
+   */
+  public ConcurrentContextCache(int maxSize, long maxWeight) {
+    this(maxSize, maxWeight, ConcurrentContextCache::estimateWeight);
+  }
+
+  /**
+   * Create a new {@code ConcurrentContextCache}.
+   *
+   * @param maxSize the maximum number of contexts
+   * @param maxWeight the maximum total weight
+   * @param weigher computes the weight of a context, in the same unit as {@code maxWeight}
+   */
+  public ConcurrentContextCache(int maxSize, long maxWeight, ToLongFunction<ApplicationContext> weigher) {
+    Assert.isTrue(maxSize > 0, "'maxSize' must be positive");
+    Assert.isTrue(maxWeight > 0, "'maxWeight' must be positive");
+    Assert.notNull(weigher, "weigher is required");
+    this.maxSize = maxSize;
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+  }
+
+  @Override
+  public boolean contains(MergedContextConfiguration key) {
+    Assert.notNull(key, "Key is required");
+    return this.contextMap.containsKey(key);
+  }
+
+  @Override
+  @Nullable
+  public ApplicationContext get(MergedContextConfiguration key) {
+    Assert.notNull(key, "Key is required");
+    CachedContext cached = this.contextMap.get(key);
+    if (cached == null) {
+      this.missCount.incrementAndGet();
+      return null;
+    }
+    this.hitCount.incrementAndGet();
+    cached.touch(this.inflation);
+    return cached.context;
+  }
+
+  /**
+   * Obtain the {@code ApplicationContext} for the given key, loading and
+   * caching it with the supplied loader if absent.
+   * <p>A context is loaded at most once at a time, concurrent callers for
+   * the same key wait for the result of the loading thread and fail with the
+   * same exception if it fails. The loader must not access this key itself,
+   * loading parent contexts is fine.
+   *
+   * @param key the context key (never {@code null})
+   * @param loader loads the context
+   * @return the cached or loaded context
+   */
+  public ApplicationContext get(MergedContextConfiguration key, Function<MergedContextConfiguration, ApplicationContext> loader) {
+    Assert.notNull(key, "Key is required");
+    Assert.notNull(loader, "loader is required");
+    registerUsage(key);
+    ApplicationContext context = get(key);
+    if (context != null) {
+      return context;
+    }
+
+    CompletableFuture<ApplicationContext> future = new CompletableFuture<>();
+    CompletableFuture<ApplicationContext> inFlight = this.loadingMap.putIfAbsent(key, future);
+    if (inFlight != null) {
+      // shared the load of another thread, it is not rebuilt
+      this.missCount.decrementAndGet();
+      this.hitCount.incrementAndGet();
+      return await(inFlight);
+    }
+
+    try {
+      CachedContext cached = this.contextMap.get(key);
+      if (cached != null) {
+        // loaded between our lookup and registration
+        future.complete(cached.context);
+        return cached.context;
+      }
+
+      long start = System.nanoTime();
+      context = loader.apply(key);
+      Assert.state(context != null, "Loader returned null ApplicationContext");
+      long loadTime = System.nanoTime() - start;
+
+      this.loadCount.incrementAndGet();
+      this.totalLoadTime.add(loadTime);
+      List<ConfigurableApplicationContext> evicted = put(key, context, loadTime);
+      future.complete(context);
+      close(evicted);
+      return context;
+    }
+    catch (RuntimeException | Error ex) {
+      future.completeExceptionally(ex);
+      throw ex;
+    }
+    finally {
+      this.loadingMap.remove(key, future);
+    }
+  }
+
+  private static ApplicationContext await(CompletableFuture<ApplicationContext> future) {
+    try {
+      return future.join();
+    }
+    catch (CompletionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException runtimeEx) {
+        throw runtimeEx;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Release the usage of the context for the given key by the given test
+   * class, evictions skipped while the context was in use are caught up.
+   *
+   * @param key the context key (never {@code null})
+   * @param testClass the test class that obtained the context
+   * @see CacheAwareContextLoaderDelegate#unregisterContextUsage
+   */
+  public void release(MergedContextConfiguration key, Class<?> testClass) {
+    Assert.notNull(key, "Key is required");
+    this.usageMap.computeIfPresent(key, (k, users) -> {
+      users.remove(testClass);
+      return users.isEmpty() ? null : users;
+    });
+
+    List<ConfigurableApplicationContext> evicted;
+    synchronized(this) {
+      evicted = evictIfNecessary(null);
+    }
+    close(evicted);
+  }
+
+  private void registerUsage(MergedContextConfiguration key) {
+    Class<?> testClass = key.getTestClass();
+    this.usageMap.compute(key, (k, users) -> {
+      if (users == null) {
+        users = new HashSet<>(4);
+      }
+      users.add(testClass);
+      return users;
+    });
+  }
+
+  @Override
+  public void put(MergedContextConfiguration key, ApplicationContext context) {
+    close(put(key, context, 0));
+  }
+
+  /**
+   * @return evicted contexts, to be closed outside the lock
+   */
+  private synchronized List<ConfigurableApplicationContext> put(MergedContextConfiguration key, ApplicationContext context, long loadTime) {
+    Assert.notNull(key, "Key is required");
+    Assert.notNull(context, "ApplicationContext is required");
+
+    long weight = Math.max(1, this.weigher.applyAsLong(context));
+    CachedContext cached = new CachedContext(context, weight, loadTime);
+    cached.touch(this.inflation);
+
+    CachedContext previous = this.contextMap.put(key, cached);
+    if (previous != null) {
+      this.totalWeight -= previous.weight;
+    }
+    this.totalWeight += weight;
+
+    MergedContextConfiguration child = key;
+    MergedContextConfiguration parent = child.getParent();
+    while (parent != null) {
+      Set<MergedContextConfiguration> children = this.hierarchyMap.computeIfAbsent(parent, k -> ConcurrentHashMap.newKeySet());
+      children.add(child);
+      child = parent;
+      parent = child.getParent();
+    }
+
+    return evictIfNecessary(key);
+  }
+
+  /**
+   * GreedyDual-Size: evict the lowest priority and age the
+   * remaining ones by raising the inflation to its priority.
+   *
+   * @param added the key just added, it and its ancestors are kept
+   * @return evicted contexts, to be closed outside the lock
+   */
+  private List<ConfigurableApplicationContext> evictIfNecessary(@Nullable MergedContextConfiguration added) {
+    List<ConfigurableApplicationContext> evicted = new ArrayList<>();
+    while (this.contextMap.size() > this.maxSize || (this.totalWeight > this.maxWeight && this.contextMap.size() > 1)) {
+      MergedContextConfiguration victim = null;
+      double lowest = Double.MAX_VALUE;
+      for (Map.Entry<MergedContextConfiguration, CachedContext> entry : this.contextMap.entrySet()) {
+        MergedContextConfiguration key = entry.getKey();
+        if (!key.equals(added) && (added == null || !isAncestor(key, added)) && !isInUse(key)) {
+          double priority = entry.getValue().priority;
+          if (priority < lowest) {
+            lowest = priority;
+            victim = key;
+          }
+        }
+      }
+      if (victim == null) {
+        break;
+      }
+      this.inflation = Math.max(this.inflation, lowest);
+      this.evictionCount.incrementAndGet();
+      removeAndCleanup(victim, evicted);
+    }
+    return evicted;
+  }
+
+  /**
+   * Whether the context or one of its children is used by a test class,
+   * or is the parent of a context being loaded.
+   */
+  private boolean isInUse(MergedContextConfiguration key) {
+    if (this.usageMap.containsKey(key)) {
+      return true;
+    }
+    for (MergedContextConfiguration loading : this.loadingMap.keySet()) {
+      if (isAncestor(key, loading)) {
+        return true;
+      }
+    }
+    Set<MergedContextConfiguration> children = this.hierarchyMap.get(key);
+    if (children != null) {
+      for (MergedContextConfiguration child : children) {
+        if (isInUse(child)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static void close(List<ConfigurableApplicationContext> contexts) {
+    for (ConfigurableApplicationContext context : contexts) {
+      context.close();
+    }
+  }
+
+  private static boolean isAncestor(MergedContextConfiguration candidate, MergedContextConfiguration key) {
+    MergedContextConfiguration parent = key.getParent();
+    while (parent != null) {
+      if (parent.equals(candidate)) {
+        return true;
+      }
+      parent = parent.getParent();
+    }
+    return false;
+  }
+
+  @Override
+  public synchronized void remove(MergedContextConfiguration key, @Nullable HierarchyMode hierarchyMode) {
+    Assert.notNull(key, "Key is required");
+
+    // startKey is the level at which to begin clearing the cache,
+    // depending on the configured hierarchy mode.
+    MergedContextConfiguration startKey = key;
+    if (hierarchyMode == HierarchyMode.EXHAUSTIVE) {
+      MergedContextConfiguration parent = startKey.getParent();
+      while (parent != null) {
+        startKey = parent;
+        parent = startKey.getParent();
+      }
+    }
+
+    List<ConfigurableApplicationContext> closing = new ArrayList<>();
+    removeAndCleanup(startKey, closing);
+    close(closing);
+  }
+
+  /**
+   * Remove the context and its children, the removed contexts to
+   * close are added to the given list.
+   */
+  private void removeAndCleanup(MergedContextConfiguration startKey, List<ConfigurableApplicationContext> closing) {
+    List<MergedContextConfiguration> removedContexts = new ArrayList<>();
+    remove(removedContexts, startKey, closing);
+
+    // Remove all remaining references to any removed contexts from the
+    // hierarchy map.
+    for (MergedContextConfiguration currentKey : removedContexts) {
+      for (Set<MergedContextConfiguration> children : this.hierarchyMap.values()) {
+        children.remove(currentKey);
+      }
+    }
+
+    // Remove empty entries from the hierarchy map.
+    this.hierarchyMap.values().removeIf(Set::isEmpty);
+  }
+
+  private void remove(List<MergedContextConfiguration> removedContexts,
+          MergedContextConfiguration key, List<ConfigurableApplicationContext> closing) {
+    Set<MergedContextConfiguration> children = this.hierarchyMap.get(key);
+    if (children != null) {
+      for (MergedContextConfiguration child : new HashSet<>(children)) {
+        // Recurse through lower levels
+        remove(removedContexts, child, closing);
+      }
+      this.hierarchyMap.remove(key);
+    }
+
+    // Physically remove and close leaf nodes first
+    CachedContext cached = this.contextMap.remove(key);
+    if (cached != null) {
+      this.totalWeight -= cached.weight;
+      if (cached.context instanceof ConfigurableApplicationContext cac) {
+        closing.add(cac);
+      }
+    }
+    removedContexts.add(key);
+  }
+
+  @Override
+  public int getFailureCount(MergedContextConfiguration key) {
+    return this.failureCounts.getOrDefault(key, 0);
+  }
+
+  @Override
+  public void incrementFailureCount(MergedContextConfiguration key) {
+    this.totalFailureCount.incrementAndGet();
+    this.failureCounts.merge(key, 1, Integer::sum);
+  }
+
+  @Override
+  public int size() {
+    return this.contextMap.size();
+  }
+
+  /**
+   * Get the maximum size of this cache.
+   */
+  public int getMaxSize() {
+    return this.maxSize;
+  }
+
+  /**
+   * Get the maximum total weight of this cache.
+   */
+  public long getMaxWeight() {
+    return this.maxWeight;
+  }
+
+  /**
+   * Get the total weight of the cached contexts.
+   */
+  public synchronized long getTotalWeight() {
+    return this.totalWeight;
+  }
+
+  @Override
+  public int getParentContextCount() {
+    return this.hierarchyMap.size();
+  }
+
+  @Override
+  public int getHitCount() {
+    return this.hitCount.get();
+  }
+
+  @Override
+  public int getMissCount() {
+    return this.missCount.get();
+  }
+
+  /**
+   * Get the number of contexts loaded through this cache.
+   */
+  public int getLoadCount() {
+    return this.loadCount.get();
+  }
+
+  /**
+   * Get the total time spent loading contexts, in milliseconds.
+   */
+  public long getTotalLoadTime() {
+    return TimeUnit.NANOSECONDS.toMillis(this.totalLoadTime.sum());
+  }
+
+  /**
+   * Get the number of contexts evicted to honor the size and weight limits.
+   */
+  public int getEvictionCount() {
+    return this.evictionCount.get();
+  }
+
+  @Override
+  public synchronized void reset() {
+    clear();
+    clearStatistics();
+    this.usageMap.clear();
+    this.totalFailureCount.set(0);
+    this.failureCounts.clear();
+  }
+
+  @Override
+  public synchronized void clear() {
+    this.contextMap.clear();
+    this.hierarchyMap.clear();
+    this.totalWeight = 0;
+    this.inflation = 0;
+  }
+
+  @Override
+  public synchronized void clearStatistics() {
+    this.hitCount.set(0);
+    this.missCount.set(0);
+    this.loadCount.set(0);
+    this.evictionCount.set(0);
+    this.totalLoadTime.reset();
+  }
+
+  @Override
+  public void logStatistics() {
+    statsLogger.debug("Test ApplicationContext cache statistics: {}", this);
+  }
+
+  /**
+   * Report the statistics at the end of the test run, when the JVM shuts down.
+   * Has no effect if already registered.
+   */
+  public void reportStatisticsOnShutdown() {
+    if (this.shutdownReportRegistered.compareAndSet(false, true)) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        if (getLoadCount() > 0) {
+          statsLogger.info("Test ApplicationContext cache statistics: {}", this);
+        }
+      }, "ContextCacheStatistics"));
+    }
+  }
+
+  @Override
+  public String toString() {
+    int loadCount = getLoadCount();
+    return new ToStringBuilder(this)
+            .append("size", size())
+            .append("maxSize", getMaxSize())
+            .append("totalWeight", getTotalWeight())
+            .append("maxWeight", getMaxWeight())
+            .append("parentContextCount", getParentContextCount())
+            .append("hitCount", getHitCount())
+            .append("missCount", getMissCount())
+            .append("loadCount", loadCount)
+            .append("totalLoadTime", getTotalLoadTime() + "ms")
+            .append("averageLoadTime", (loadCount == 0 ? 0 : getTotalLoadTime() / loadCount) + "ms")
+            .append("evictionCount", getEvictionCount())
+            .append("failureCount", this.totalFailureCount)
+            .toString();
+  }
+
+  /**
+   * Rough estimate of the retained heap of a context in bytes,
+   * based on its bean definition count.
+   *
+   * @param context the context to weigh
+   * @return the estimated weight in bytes
+   */
+  public static long estimateWeight(ApplicationContext context) {
+    return BASE_WEIGHT + BEAN_WEIGHT * context.getBeanDefinitionCount();
+  }
+
+  private static final class CachedContext {
+
+    public final ApplicationContext context;
+
+    public final long weight;
+
+    /**
+     * cost of a rebuild per weight unit
+     */
+    private final double cost;
+
+    public volatile double priority;
+
+    CachedContext(ApplicationContext context, long weight, long loadTime) {
+      this.context = context;
+      this.weight = weight;
+      this.cost = (double) Math.max(1, loadTime) / weight;
+    }
+
+    void touch(double inflation) {
+      this.priority = inflation + this.cost;
+    }
+  }
+
+}
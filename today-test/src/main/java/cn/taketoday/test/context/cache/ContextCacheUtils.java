@@ -22,6 +22,7 @@ package cn.taketoday.test.context.cache;
 
 import cn.taketoday.lang.TodayStrategies;
 import cn.taketoday.test.context.CacheAwareContextLoaderDelegate;
+import cn.taketoday.util.DataSize;
 import cn.taketoday.util.StringUtils;
 
 /**
@@ -66,6 +67,35 @@ public abstract class ContextCacheUtils {
     return retrieveProperty(propertyName, defaultValue);
   }
 
+  /**
+   * Retrieve the maximum total weight of a {@link ConcurrentContextCache}.
+   * <p>Uses {@link TodayStrategies} to retrieve a system property or Infra
+   * property named {@value ConcurrentContextCache#MAX_CONTEXT_CACHE_WEIGHT_PROPERTY_NAME},
+   * parsed as a {@link DataSize}.
+   * <p>Defaults to a quarter of the maximum heap if no such property has been
+   * set or if the property is not a valid data size.
+   *
+   * @return the maximum total weight in bytes
+   * @see ConcurrentContextCache#MAX_CONTEXT_CACHE_WEIGHT_PROPERTY_NAME
+   */
+  public static long retrieveMaxCacheWeight() {
+    try {
+      String value = TodayStrategies.getProperty(ConcurrentContextCache.MAX_CONTEXT_CACHE_WEIGHT_PROPERTY_NAME);
+      if (StringUtils.hasText(value)) {
+        long weight = DataSize.parse(value.trim()).toBytes();
+        if (weight > 0) {
+          return weight;
+        }
+      }
+    }
+    catch (Exception ex) {
+      // ignore
+    }
+
+    // Fallback
+    return Math.max(1, Runtime.getRuntime().maxMemory() / 4);
+  }
+
   private static int retrieveProperty(String key, int defaultValue) {
     try {
       String value = TodayStrategies.getProperty(key);
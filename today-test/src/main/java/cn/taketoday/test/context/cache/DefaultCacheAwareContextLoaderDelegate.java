@@ -25,6 +25,7 @@ import cn.taketoday.context.ApplicationContextInitializer;
 import cn.taketoday.context.support.GenericApplicationContext;
 import cn.taketoday.lang.Assert;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.lang.TodayStrategies;
 import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
 import cn.taketoday.test.annotation.DirtiesContext.HierarchyMode;
@@ -47,6 +48,9 @@ import cn.taketoday.test.context.util.TestContextFactoriesUtils;
  * invoke the {@link #DefaultCacheAwareContextLoaderDelegate(ContextCache)}
  * and provide a custom {@link ContextCache} implementation.
  *
+ * <p>If the cache is a {@link ConcurrentContextCache}, contexts are loaded
+ * without holding a global lock on the cache.
+ *
  * @author Sam Brannen
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 4.0
@@ -58,7 +62,7 @@ public class DefaultCacheAwareContextLoaderDelegate implements CacheAwareContext
   /**
    * Default static cache of Infra application contexts.
    */
-  static final ContextCache defaultContextCache = new DefaultContextCache();
+  static final ContextCache defaultContextCache = createDefaultContextCache();
 
   private final List<ApplicationContextFailureProcessor> contextFailureProcessors =
           TestContextFactoriesUtils.loadFactoryImplementations(ApplicationContextFailureProcessor.class);
@@ -109,9 +113,26 @@ public class DefaultCacheAwareContextLoaderDelegate implements CacheAwareContext
     this.failureThreshold = failureThreshold;
   }
 
+  /**
+   * Create the default cache: a {@link ConcurrentContextCache} if enabled via
+   * {@value ConcurrentContextCache#CONCURRENT_CONTEXT_CACHE_PROPERTY_NAME},
+   * otherwise a {@link DefaultContextCache}.
+   */
+  private static ContextCache createDefaultContextCache() {
+    if (TodayStrategies.getFlag(ConcurrentContextCache.CONCURRENT_CONTEXT_CACHE_PROPERTY_NAME)) {
+      ConcurrentContextCache contextCache = new ConcurrentContextCache();
+      contextCache.reportStatisticsOnShutdown();
+      return contextCache;
+    }
+    return new DefaultContextCache();
+  }
+
   @Override
   public boolean isContextLoaded(MergedContextConfiguration mergedConfig) {
     mergedConfig = replaceIfNecessary(mergedConfig);
+    if (this.contextCache instanceof ConcurrentContextCache) {
+      return this.contextCache.contains(mergedConfig);
+    }
     synchronized(this.contextCache) {
       return this.contextCache.contains(mergedConfig);
     }
@@ -120,53 +141,22 @@ public class DefaultCacheAwareContextLoaderDelegate implements CacheAwareContext
   @Override
   public ApplicationContext loadContext(MergedContextConfiguration mergedConfig) {
     mergedConfig = replaceIfNecessary(mergedConfig);
+    if (this.contextCache instanceof ConcurrentContextCache concurrentCache) {
+      // no global lock: the cache loads each key once, different keys in parallel
+      try {
+        return concurrentCache.get(mergedConfig, this::loadContextForCache);
+      }
+      finally {
+        concurrentCache.logStatistics();
+      }
+    }
+
     synchronized(this.contextCache) {
       ApplicationContext context = this.contextCache.get(mergedConfig);
       try {
         if (context == null) {
-          int failureCount = this.contextCache.getFailureCount(mergedConfig);
-          if (failureCount >= this.failureThreshold) {
-            throw new IllegalStateException("""
-                    ApplicationContext failure threshold (%d) exceeded: \
-                    skipping repeated attempt to load context for %s"""
-                    .formatted(this.failureThreshold, mergedConfig));
-          }
-          try {
-            if (mergedConfig instanceof AotMergedContextConfiguration aotMergedConfig) {
-              context = loadContextInAotMode(aotMergedConfig);
-            }
-            else {
-              context = loadContextInternal(mergedConfig);
-            }
-            if (logger.isTraceEnabled()) {
-              logger.trace("Storing ApplicationContext [%s] in cache under key %s".formatted(
-                      System.identityHashCode(context), mergedConfig));
-            }
-            this.contextCache.put(mergedConfig, context);
-          }
-          catch (Exception ex) {
-            if (logger.isTraceEnabled()) {
-              logger.trace("Incrementing ApplicationContext failure count for " + mergedConfig);
-            }
-            this.contextCache.incrementFailureCount(mergedConfig);
-            Throwable cause = ex;
-            if (ex instanceof ContextLoadException cle) {
-              cause = cle.getCause();
-              for (ApplicationContextFailureProcessor contextFailureProcessor : this.contextFailureProcessors) {
-                try {
-                  contextFailureProcessor.processLoadFailure(cle.getApplicationContext(), cause);
-                }
-                catch (Throwable throwable) {
-                  if (logger.isDebugEnabled()) {
-                    logger.debug("Ignoring exception thrown from ApplicationContextFailureProcessor [%s]: %s"
-                            .formatted(contextFailureProcessor, throwable));
-                  }
-                }
-              }
-            }
-            throw new IllegalStateException(
-                    "Failed to load ApplicationContext for " + mergedConfig, cause);
-          }
+          context = loadContextForCache(mergedConfig);
+          this.contextCache.put(mergedConfig, context);
         }
         else {
           if (logger.isTraceEnabled()) {
@@ -183,6 +173,57 @@ public class DefaultCacheAwareContextLoaderDelegate implements CacheAwareContext
     }
   }
 
+  /**
+   * Load the {@code ApplicationContext} to be stored in the cache, honoring
+   * the failure threshold and notifying the failure processors.
+   */
+  private ApplicationContext loadContextForCache(MergedContextConfiguration mergedConfig) {
+    int failureCount = this.contextCache.getFailureCount(mergedConfig);
+    if (failureCount >= this.failureThreshold) {
+      throw new IllegalStateException("""
+              ApplicationContext failure threshold (%d) exceeded: \
+              skipping repeated attempt to load context for %s"""
+              .formatted(this.failureThreshold, mergedConfig));
+    }
+    try {
+      ApplicationContext context;
+      if (mergedConfig instanceof AotMergedContextConfiguration aotMergedConfig) {
+        context = loadContextInAotMode(aotMergedConfig);
+      }
+      else {
+        context = loadContextInternal(mergedConfig);
+      }
+      if (logger.isTraceEnabled()) {
+        logger.trace("Storing ApplicationContext [%s] in cache under key %s".formatted(
+                System.identityHashCode(context), mergedConfig));
+      }
+      return context;
+    }
+    catch (Exception ex) {
+      if (logger.isTraceEnabled()) {
+        logger.trace("Incrementing ApplicationContext failure count for " + mergedConfig);
+      }
+      this.contextCache.incrementFailureCount(mergedConfig);
+      Throwable cause = ex;
+      if (ex instanceof ContextLoadException cle) {
+        cause = cle.getCause();
+        for (ApplicationContextFailureProcessor contextFailureProcessor : this.contextFailureProcessors) {
+          try {
+            contextFailureProcessor.processLoadFailure(cle.getApplicationContext(), cause);
+          }
+          catch (Throwable throwable) {
+            if (logger.isDebugEnabled()) {
+              logger.debug("Ignoring exception thrown from ApplicationContextFailureProcessor [%s]: %s"
+                      .formatted(contextFailureProcessor, throwable));
+            }
+          }
+        }
+      }
+      throw new IllegalStateException(
+              "Failed to load ApplicationContext for " + mergedConfig, cause);
+    }
+  }
+
   @Override
   public void closeContext(MergedContextConfiguration mergedConfig, @Nullable HierarchyMode hierarchyMode) {
     mergedConfig = replaceIfNecessary(mergedConfig);
@@ -191,6 +232,13 @@ public class DefaultCacheAwareContextLoaderDelegate implements CacheAwareContext
     }
   }
 
+  @Override
+  public void unregisterContextUsage(MergedContextConfiguration mergedConfig, Class<?> testClass) {
+    if (this.contextCache instanceof ConcurrentContextCache concurrentCache) {
+      concurrentCache.release(replaceIfNecessary(mergedConfig), testClass);
+    }
+  }
+
   /**
    * Get the {@link ContextCache} used by this context loader delegate.
    */
@@ -157,6 +157,11 @@ public class DefaultTestContext implements TestContext {
     this.cacheAwareContextLoaderDelegate.closeContext(this.mergedConfig, hierarchyMode);
   }
 
+  @Override
+  public void markApplicationContextUnused() {
+    this.cacheAwareContextLoaderDelegate.unregisterContextUsage(this.mergedConfig, this.testClass);
+  }
+
   @Override
   public final Class<?> getTestClass() {
     return this.testClass;
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.test.context.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.taketoday.context.ApplicationContext;
+import cn.taketoday.context.ConfigurableApplicationContext;
+import cn.taketoday.test.annotation.DirtiesContext.HierarchyMode;
+import cn.taketoday.test.context.MergedContextConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for {@link ConcurrentContextCache}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class ConcurrentContextCacheTests {
+
+  private static final MergedContextConfiguration abcConfig = config(Abc.class);
+  private static final MergedContextConfiguration fooConfig = config(Foo.class);
+  private static final MergedContextConfiguration barConfig = config(Bar.class);
+  private static final MergedContextConfiguration bazConfig = config(Baz.class);
+
+  private final ConfigurableApplicationContext abcContext = mock();
+  private final ConfigurableApplicationContext fooContext = mock();
+  private final ConfigurableApplicationContext barContext = mock();
+  private final ConfigurableApplicationContext bazContext = mock();
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void invalidLimits() {
+    assertThatIllegalArgumentException().isThrownBy(() -> new ConcurrentContextCache(0, 1));
+    assertThatIllegalArgumentException().isThrownBy(() -> new ConcurrentContextCache(1, 0));
+  }
+
+  @Test
+  void concurrentLoadsOfSameKeyShareOneLoad() throws Exception {
+    ConcurrentContextCache cache = new ConcurrentContextCache(8, Long.MAX_VALUE, context -> 1);
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<ApplicationContext>> results = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      results.add(executor.submit(() -> cache.get(fooConfig, key -> {
+        loads.incrementAndGet();
+        await(release);
+        return fooContext;
+      })));
+    }
+    Thread.sleep(100);
+    release.countDown();
+
+    for (Future<ApplicationContext> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(fooContext);
+    }
+    assertThat(loads.get()).isEqualTo(1);
+    assertThat(cache.getLoadCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+    assertThat(cache.getHitCount()).isEqualTo(3);
+    assertThat(cache.size()).isEqualTo(1);
+
+    assertThat(cache.get(fooConfig, key -> barContext)).isSameAs(fooContext);
+    assertThat(cache.getHitCount()).isEqualTo(4);
+  }
+
+  @Test
+  void differentKeysLoadInParallel() throws Exception {
+    ConcurrentContextCache cache = new ConcurrentContextCache(8, Long.MAX_VALUE, context -> 1);
+    CountDownLatch bothLoading = new CountDownLatch(2);
+
+    Future<ApplicationContext> foo = executor.submit(() -> cache.get(fooConfig, key -> {
+      bothLoading.countDown();
+      await(bothLoading);
+      return fooContext;
+    }));
+    Future<ApplicationContext> bar = executor.submit(() -> cache.get(barConfig, key -> {
+      bothLoading.countDown();
+      await(bothLoading);
+      return barContext;
+    }));
+
+    assertThat(foo.get(5, TimeUnit.SECONDS)).isSameAs(fooContext);
+    assertThat(bar.get(5, TimeUnit.SECONDS)).isSameAs(barContext);
+    assertThat(bothLoading.getCount()).isZero();
+    assertThat(cache.getLoadCount()).isEqualTo(2);
+  }
+
+  @Test
+  void loadFailurePropagatesToWaiters() throws Exception {
+    ConcurrentContextCache cache = new ConcurrentContextCache(8, Long.MAX_VALUE, context -> 1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<ApplicationContext>> results = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      results.add(executor.submit(() -> cache.get(fooConfig, key -> {
+        await(release);
+        throw new IllegalStateException("broken");
+      })));
+    }
+    Thread.sleep(100);
+    release.countDown();
+
+    for (Future<ApplicationContext> result : results) {
+      try {
+        result.get(5, TimeUnit.SECONDS);
+      }
+      catch (ExecutionException ex) {
+        assertThat(ex.getCause()).isInstanceOf(IllegalStateException.class).hasMessage("broken");
+        continue;
+      }
+      throw new AssertionError("Expected failure");
+    }
+    assertThat(cache.size()).isZero();
+    assertThat(cache.getLoadCount()).isZero();
+
+    // next attempt loads again
+    assertThat(cache.get(fooConfig, key -> fooContext)).isSameAs(fooContext);
+    assertThatIllegalStateException().isThrownBy(() -> cache.get(barConfig, key -> null));
+  }
+
+  @Test
+  void evictsHeaviestContextWhenWeightExceeded() {
+    Map<ApplicationContext, Long> weights = Map.of(fooContext, 60L, barContext, 30L, bazContext, 30L);
+    ConcurrentContextCache cache = new ConcurrentContextCache(8, 100, weights::get);
+
+    cache.put(fooConfig, fooContext);
+    cache.put(barConfig, barContext);
+    assertThat(cache.getTotalWeight()).isEqualTo(90);
+
+    cache.put(bazConfig, bazContext);
+    assertThat(cache.contains(fooConfig)).isFalse();
+    assertThat(cache.contains(barConfig)).isTrue();
+    assertThat(cache.contains(bazConfig)).isTrue();
+    assertThat(cache.getTotalWeight()).isEqualTo(60);
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    verify(fooContext).close();
+    verify(barContext, never()).close();
+  }
+
+  @Test
+  void keepsRecentlyUsedContextsWhenSizeExceeded() {
+    ConcurrentContextCache cache = new ConcurrentContextCache(2, Long.MAX_VALUE, context -> 1);
+
+    cache.put(fooConfig, fooContext);
+    cache.put(barConfig, barContext);
+    cache.put(bazConfig, bazContext);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.contains(bazConfig)).isTrue();
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+
+    MergedContextConfiguration remaining = cache.contains(fooConfig) ? fooConfig : barConfig;
+    cache.get(bazConfig);
+    cache.put(abcConfig, abcContext);
+
+    assertThat(cache.contains(remaining)).isFalse();
+    assertThat(cache.contains(bazConfig)).isTrue();
+    assertThat(cache.contains(abcConfig)).isTrue();
+    verify(bazContext, never()).close();
+  }
+
+  @Test
+  void inUseContextNotEvictedUntilReleased() {
+    ConcurrentContextCache cache = new ConcurrentContextCache(1, Long.MAX_VALUE, context -> 1);
+
+    cache.get(fooConfig, key -> fooContext);
+    cache.put(barConfig, barContext);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getEvictionCount()).isZero();
+    verify(fooContext, never()).close();
+
+    cache.release(fooConfig, fooConfig.getTestClass());
+    assertThat(cache.contains(fooConfig)).isFalse();
+    assertThat(cache.contains(barConfig)).isTrue();
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    verify(fooContext).close();
+  }
+
+  @Test
+  void parentOfLoadingContextNotEvicted() throws Exception {
+    ConcurrentContextCache cache = new ConcurrentContextCache(1, Long.MAX_VALUE, context -> 1);
+    MergedContextConfiguration childConfig = new MergedContextConfiguration(
+            null, null, new Class<?>[] { Bar.class }, null, null, null, null, fooConfig);
+    cache.put(fooConfig, fooContext);
+
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch proceed = new CountDownLatch(1);
+    Future<ApplicationContext> child = executor.submit(() -> cache.get(childConfig, key -> {
+      loading.countDown();
+      await(proceed);
+      return barContext;
+    }));
+
+    await(loading);
+    cache.put(bazConfig, bazContext);
+    assertThat(cache.contains(fooConfig)).isTrue();
+    verify(fooContext, never()).close();
+
+    proceed.countDown();
+    assertThat(child.get(5, TimeUnit.SECONDS)).isSameAs(barContext);
+    assertThat(cache.contains(fooConfig)).isTrue();
+    assertThat(cache.contains(bazConfig)).isFalse();
+    verify(bazContext).close();
+    verify(fooContext, never()).close();
+  }
+
+  @Test
+  void removeClosesContextAndReleasesWeight() {
+    ConcurrentContextCache cache = new ConcurrentContextCache(8, Long.MAX_VALUE, context -> 10);
+    cache.put(fooConfig, fooContext);
+    cache.put(barConfig, barContext);
+
+    cache.remove(fooConfig, HierarchyMode.CURRENT_LEVEL);
+    assertThat(cache.contains(fooConfig)).isFalse();
+    assertThat(cache.getTotalWeight()).isEqualTo(10);
+    verify(fooContext).close();
+
+    cache.reset();
+    assertThat(cache.size()).isZero();
+    assertThat(cache.getTotalWeight()).isZero();
+  }
+
+  @Test
+  void statistics() {
+    ConcurrentContextCache cache = new ConcurrentContextCache(8, Long.MAX_VALUE, context -> 1);
+    assertThat(cache.get(fooConfig)).isNull();
+    cache.get(fooConfig, key -> fooContext);
+    cache.get(fooConfig, key -> fooContext);
+    cache.incrementFailureCount(barConfig);
+
+    assertThat(cache.getMissCount()).isEqualTo(2);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getLoadCount()).isEqualTo(1);
+    assertThat(cache.getFailureCount(barConfig)).isEqualTo(1);
+    assertThat(cache.toString()).contains("loadCount = 1", "failureCount = 1");
+
+    cache.clearStatistics();
+    assertThat(cache.getMissCount()).isZero();
+    assertThat(cache.getLoadCount()).isZero();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static MergedContextConfiguration config(Class<?> clazz) {
+    return new MergedContextConfiguration(null, null, new Class<?>[] { clazz }, null, null);
+  }
+
+  private static class Abc { }
+
+  private static class Foo { }
+
+  private static class Bar { }
+
+  private static class Baz { }
+
+}
@@ -18,6 +18,7 @@
 package cn.taketoday.transaction.annotation;
 
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.lang.reflect.Method;
 import java.util.Arrays;
@@ -144,6 +145,28 @@ public class AnnotationTransactionAttributeSource
     return false;
   }
 
+  /**
+   * Return the transaction annotation types understood by the
+   * configured {@link TransactionAnnotationParser parsers}.
+   *
+   * @return the annotation types, or {@code null} if any parser
+   * does not expose its annotation types
+   * @see TransactionAnnotationParser#getAnnotationTypes()
+   * @since 5.0
+   */
+  @Nullable
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    LinkedHashSet<Class<? extends Annotation>> annotationTypes = new LinkedHashSet<>();
+    for (TransactionAnnotationParser parser : this.annotationParsers) {
+      Set<Class<? extends Annotation>> types = parser.getAnnotationTypes();
+      if (types == null) {
+        return null;
+      }
+      annotationTypes.addAll(types);
+    }
+    return annotationTypes;
+  }
+
   @Override
   @Nullable
   protected TransactionAttribute findTransactionAttribute(Class<?> clazz) {
@@ -19,7 +19,9 @@ package cn.taketoday.transaction.annotation;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.util.Set;
 
 import cn.taketoday.core.annotation.AnnotationUtils;
 import cn.taketoday.lang.Nullable;
@@ -46,6 +48,11 @@ public class Ejb3TransactionAnnotationParser implements TransactionAnnotationPar
     return AnnotationUtils.isCandidateClass(targetClass, jakarta.ejb.TransactionAttribute.class);
   }
 
+  @Override
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    return Set.of(jakarta.ejb.TransactionAttribute.class);
+  }
+
   @Override
   @Nullable
   public TransactionAttribute parseTransactionAnnotation(AnnotatedElement element) {
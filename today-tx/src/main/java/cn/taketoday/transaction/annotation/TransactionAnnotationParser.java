@@ -20,7 +20,9 @@
 
 package cn.taketoday.transaction.annotation;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
+import java.util.Set;
 
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.transaction.interceptor.TransactionAttribute;
@@ -59,6 +61,21 @@ public interface TransactionAnnotationParser {
     return true;
   }
 
+  /**
+   * Return the annotation types understood by this parser, if known.
+   * <p>Allows transaction pointcuts to be pre-filtered through an
+   * {@link cn.taketoday.aop.support.annotation.AnnotationIndex}.
+   *
+   * @return the annotation types, or {@code null} if this parser may
+   * derive transaction attributes from other sources. The default
+   * implementation returns {@code null}.
+   * @since 5.0
+   */
+  @Nullable
+  default Set<Class<? extends Annotation>> getAnnotationTypes() {
+    return null;
+  }
+
   /**
    * Parse the transaction attribute for the given method or class,
    * based on an annotation type understood by this parser.
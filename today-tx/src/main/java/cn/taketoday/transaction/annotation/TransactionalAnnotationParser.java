@@ -18,10 +18,12 @@
 package cn.taketoday.transaction.annotation;
 
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedElement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import cn.taketoday.core.annotation.AnnotationUtils;
 import cn.taketoday.core.annotation.MergedAnnotation;
@@ -51,6 +53,11 @@ public class TransactionalAnnotationParser implements TransactionAnnotationParse
     return AnnotationUtils.isCandidateClass(targetClass, Transactional.class);
   }
 
+  @Override
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    return Set.of(Transactional.class);
+  }
+
   @Override
   @Nullable
   public TransactionAttribute parseTransactionAnnotation(AnnotatedElement element) {
@@ -19,13 +19,17 @@ package cn.taketoday.transaction.interceptor;
 
 import java.io.Serial;
 import java.io.Serializable;
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Set;
 
 import cn.taketoday.aop.ClassFilter;
 import cn.taketoday.aop.support.StaticMethodMatcherPointcut;
+import cn.taketoday.aop.support.annotation.AnnotationIndexedPointcut;
 import cn.taketoday.dao.support.PersistenceExceptionTranslator;
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.transaction.TransactionManager;
+import cn.taketoday.transaction.annotation.AnnotationTransactionAttributeSource;
 import cn.taketoday.util.ObjectUtils;
 
 /**
@@ -36,7 +40,8 @@ import cn.taketoday.util.ObjectUtils;
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
  * @since 4.0
  */
-final class TransactionAttributeSourcePointcut extends StaticMethodMatcherPointcut implements Serializable {
+final class TransactionAttributeSourcePointcut extends StaticMethodMatcherPointcut
+        implements AnnotationIndexedPointcut, Serializable {
 
   @Serial
   private static final long serialVersionUID = 1L;
@@ -58,6 +63,17 @@ final class TransactionAttributeSourcePointcut extends StaticMethodMatcherPointc
             this.transactionAttributeSource.hasTransactionAttribute(method, targetClass));
   }
 
+  @Nullable
+  @Override
+  public Set<Class<? extends Annotation>> getAnnotationTypes() {
+    // subclasses may find attributes beyond the annotations of the parsers
+    if (this.transactionAttributeSource instanceof AnnotationTransactionAttributeSource source
+            && source.getClass() == AnnotationTransactionAttributeSource.class) {
+      return source.getAnnotationTypes();
+    }
+    return null;
+  }
+
   @Override
   public boolean equals(@Nullable Object other) {
     return (this == other || (other instanceof TransactionAttributeSourcePointcut that &&
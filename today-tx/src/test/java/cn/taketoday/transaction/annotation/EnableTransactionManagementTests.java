@@ -317,6 +317,21 @@ class EnableTransactionManagementTests {
     ctx.close();
   }
 
+  @Test
+  void annotationOnInterfaceMethodOnlyWithAnnotationIndex() {
+    // the auto-proxy creator pre-filters advisors through its annotation index by default
+    AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(InterfaceMethodOnlyConfig.class);
+    InterfaceMethodTransactional bean = ctx.getBean(InterfaceMethodTransactional.class);
+    CallCountingTransactionManager txManager = ctx.getBean(CallCountingTransactionManager.class);
+    assertThat(AopUtils.isAopProxy(bean)).isTrue();
+
+    bean.save();
+    assertThat(txManager.begun).isEqualTo(1);
+    assertThat(txManager.commits).isEqualTo(1);
+
+    ctx.close();
+  }
+
   @Test
   void gh24502AppliesTransactionFromAnnotatedInterface() {
     AnnotationConfigApplicationContext ctx = new AnnotationConfigApplicationContext(Gh24502Config.class);
@@ -658,6 +673,34 @@ class EnableTransactionManagementTests {
     }
   }
 
+  interface InterfaceMethodTransactional {
+
+    @Transactional
+    void save();
+  }
+
+  static class InterfaceMethodTransactionalService implements InterfaceMethodTransactional {
+
+    @Override
+    public void save() {
+    }
+  }
+
+  @Configuration
+  @EnableTransactionManagement(proxyTargetClass = true)
+  static class InterfaceMethodOnlyConfig {
+
+    @Bean
+    public InterfaceMethodTransactionalService testBean() {
+      return new InterfaceMethodTransactionalService();
+    }
+
+    @Bean
+    public PlatformTransactionManager txManager() {
+      return new CallCountingTransactionManager();
+    }
+  }
+
   static class TestServiceWithRollback {
 
     @Transactional
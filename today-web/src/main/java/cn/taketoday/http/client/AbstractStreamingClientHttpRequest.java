@@ -64,10 +64,19 @@ abstract class AbstractStreamingClientHttpRequest extends AbstractClientHttpRequ
 
   @Override
   protected final ClientHttpResponse executeInternal(HttpHeaders headers) throws IOException {
+    return executeInternal(headers, getBodyToWrite());
+  }
+
+  /**
+   * Return the body that was either {@linkplain #setBody(Body) set} or
+   * written to the {@linkplain #getBody() body stream}, if any.
+   */
+  @Nullable
+  final Body getBodyToWrite() {
     if (this.body == null && this.bodyStream != null) {
       this.body = outputStream -> this.bodyStream.writeTo(outputStream);
     }
-    return executeInternal(headers, this.body);
+    return this.body;
   }
 
   /**
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.StreamUtils;
+import cn.taketoday.util.concurrent.Future;
+import cn.taketoday.util.concurrent.SettableFuture;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.ThreadExecutorMap;
+
+/**
+ * {@link ClientHttpRequest} implementation based on Netty, created
+ * via the {@link NettyClientHttpRequestFactory}.
+ *
+ * <p>The request body is written into a single buffer obtained from the
+ * configured {@link ByteBufAllocator} and sent as one full HTTP message.
+ *
+ * <p>{@link #execute()} blocks the calling thread and is rejected on event
+ * loop threads, {@link #executeAsync()} never blocks and can be used from
+ * any thread, including the handlers of the Netty web server.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public final class NettyClientHttpRequest extends AbstractStreamingClientHttpRequest {
+
+  private final NettyClientHttpRequestFactory factory;
+
+  private final ByteBufAllocator allocator;
+
+  private final URI uri;
+
+  private final HttpMethod method;
+
+  private final Duration readTimeout;
+
+  private boolean executedAsync;
+
+  NettyClientHttpRequest(NettyClientHttpRequestFactory factory, ByteBufAllocator allocator,
+          URI uri, HttpMethod method, Duration readTimeout) {
+    this.factory = factory;
+    this.allocator = allocator;
+    this.uri = uri;
+    this.method = method;
+    this.readTimeout = readTimeout;
+  }
+
+  /**
+   * Whether the current thread is an event loop, of the client's own
+   * group or of any other, for instance the worker group of the Netty
+   * web server. Blocking there stalls every channel of that event loop
+   * and dead-locks when the response is read by the same loop.
+   */
+  static boolean isEventLoopThread(EventLoopGroup group) {
+    if (ThreadExecutorMap.currentExecutor() instanceof EventLoop) {
+      return true;
+    }
+    for (EventExecutor executor : group) {
+      if (executor.inEventLoop()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public HttpMethod getMethod() {
+    return this.method;
+  }
+
+  @Override
+  public URI getURI() {
+    return this.uri;
+  }
+
+  /**
+   * Execute this request without blocking the calling thread.
+   * <p>The returned future completes on an event loop thread once the
+   * response has been fully received, listeners must not block. Cancelling
+   * the future gives up on the response.
+   *
+   * @return the future response
+   */
+  public Future<ClientHttpResponse> executeAsync() {
+    assertNotExecuted();
+    this.executedAsync = true;
+    return exchange(getHeaders(), getBodyToWrite());
+  }
+
+  @Override
+  protected void assertNotExecuted() {
+    Assert.state(!this.executedAsync, "ClientHttpRequest already executed");
+    super.assertNotExecuted();
+  }
+
+  @Override
+  protected ClientHttpResponse executeInternal(HttpHeaders headers, @Nullable Body body) throws IOException {
+    if (isEventLoopThread(factory.getEventLoopGroup())) {
+      throw new IllegalStateException("Blocking HTTP exchange on a Netty event loop thread, " +
+              "use executeAsync() or offload the call to another thread");
+    }
+
+    Future<ClientHttpResponse> future = exchange(headers, body);
+    try {
+      return future.get();
+    }
+    catch (InterruptedException e) {
+      future.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for response");
+    }
+    catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException ioe) {
+        throw ioe;
+      }
+      throw new IOException("HTTP exchange failed: " + cause.getMessage(), cause);
+    }
+  }
+
+  private Future<ClientHttpResponse> exchange(HttpHeaders headers, @Nullable Body body) {
+    FullHttpRequest request;
+    try {
+      request = createRequest(headers, body);
+    }
+    catch (IOException | RuntimeException e) {
+      return Future.failed(e);
+    }
+
+    SettableFuture<ClientHttpResponse> result = Future.forSettable();
+    factory.acquire(uri, !isIdempotent(method)).whenComplete((connection, acquireFailure) -> {
+      if (acquireFailure != null) {
+        request.release();
+        result.tryFailure(unwrap(acquireFailure));
+      }
+      else if (result.isDone()) {
+        // cancelled while waiting for a connection
+        request.release();
+        connection.release(true);
+      }
+      else {
+        connection.exchange(request, readTimeout).whenComplete((response, failure) -> {
+          if (failure != null) {
+            connection.release(false);
+            result.tryFailure(unwrap(failure));
+          }
+          else {
+            // the response is fully aggregated, the connection can serve the next exchange
+            connection.release(HttpUtil.isKeepAlive(response));
+            if (!result.trySuccess(new NettyClientHttpResponse(response))) {
+              response.release();
+            }
+          }
+        });
+      }
+    });
+    return result;
+  }
+
+  private FullHttpRequest createRequest(HttpHeaders headers, @Nullable Body body) throws IOException {
+    ByteBuf content = writeContent(body);
+    DefaultFullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1,
+            io.netty.handler.codec.http.HttpMethod.valueOf(method.name()), pathAndQuery(), content);
+
+    var nettyHeaders = request.headers();
+    for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+      nettyHeaders.add(entry.getKey(), entry.getValue());
+    }
+    if (!nettyHeaders.contains(HttpHeaderNames.HOST)) {
+      nettyHeaders.set(HttpHeaderNames.HOST, hostHeader());
+    }
+    if (content.isReadable() || method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH) {
+      nettyHeaders.set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+    }
+    HttpUtil.setKeepAlive(request, true);
+    return request;
+  }
+
+  private ByteBuf writeContent(@Nullable Body body) throws IOException {
+    if (body == null) {
+      return Unpooled.EMPTY_BUFFER;
+    }
+    ByteBuf buffer = allocator.buffer();
+    try (var outputStream = new ByteBufOutputStream(buffer)) {
+      body.writeTo(StreamUtils.nonClosing(outputStream));
+    }
+    catch (IOException | RuntimeException e) {
+      buffer.release();
+      throw e;
+    }
+    return buffer;
+  }
+
+  private String pathAndQuery() {
+    String path = uri.getRawPath();
+    if (path == null || path.isEmpty()) {
+      path = "/";
+    }
+    String query = uri.getRawQuery();
+    return query != null ? path + '?' + query : path;
+  }
+
+  private String hostHeader() {
+    int port = uri.getPort();
+    return port == -1 ? uri.getHost() : uri.getHost() + ':' + port;
+  }
+
+  /**
+   * Only idempotent requests may share a connection with HTTP/1.1
+   * pipelining, a failed connection would leave others undecided.
+   */
+  static boolean isIdempotent(HttpMethod method) {
+    return method == HttpMethod.GET || method == HttpMethod.HEAD || method == HttpMethod.PUT
+            || method == HttpMethod.DELETE || method == HttpMethod.OPTIONS || method == HttpMethod.TRACE;
+  }
+
+  private static Throwable unwrap(Throwable failure) {
+    if (failure instanceof CompletionException && failure.getCause() != null) {
+      return failure.getCause();
+    }
+    return failure;
+  }
+
+  /**
+   * Completes the exchanges in flight on a pooled connection, in the
+   * order the requests were written.
+   */
+  static final class ExchangeHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+
+    /**
+     * Exchanges awaiting a response, only accessed on the event loop
+     */
+    private final ArrayDeque<CompletableFuture<FullHttpResponse>> exchanges = new ArrayDeque<>();
+
+    @Nullable
+    private ChannelHandlerContext context;
+
+    ExchangeHandler() {
+      super(false);
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+      this.context = ctx;
+    }
+
+    CompletableFuture<FullHttpResponse> exchange(FullHttpRequest request, Duration readTimeout) {
+      CompletableFuture<FullHttpResponse> exchange = new CompletableFuture<>();
+      ChannelHandlerContext ctx = this.context;
+      Assert.state(ctx != null, "Not added to a pipeline");
+      if (ctx.executor().inEventLoop()) {
+        write(ctx, request, exchange, readTimeout);
+      }
+      else {
+        try {
+          ctx.executor().execute(() -> write(ctx, request, exchange, readTimeout));
+        }
+        catch (RejectedExecutionException e) {
+          request.release();
+          exchange.completeExceptionally(new IOException("Connection event loop has been shut down", e));
+        }
+      }
+      return exchange;
+    }
+
+    private void write(ChannelHandlerContext ctx, FullHttpRequest request,
+            CompletableFuture<FullHttpResponse> exchange, Duration readTimeout) {
+      if (!ctx.channel().isActive()) {
+        request.release();
+        exchange.completeExceptionally(new IOException("Connection closed prematurely"));
+        return;
+      }
+      exchanges.add(exchange);
+      if (readTimeout.toMillis() > 0) {
+        ScheduledFuture<?> timeout = ctx.executor().schedule(() -> {
+          // responses arrive in order, the connection cannot be used anymore
+          if (exchange.completeExceptionally(
+                  new SocketTimeoutException("Read timed out after " + readTimeout.toMillis() + "ms"))) {
+            ctx.close();
+          }
+        }, readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        exchange.whenComplete((response, failure) -> timeout.cancel(false));
+      }
+      ctx.writeAndFlush(request).addListener(f -> {
+        if (!f.isSuccess()) {
+          exchange.completeExceptionally(f.cause());
+          ctx.close();
+        }
+      });
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+      CompletableFuture<FullHttpResponse> exchange = exchanges.poll();
+      if (exchange == null || !exchange.complete(msg)) {
+        // unsolicited or late response
+        msg.release();
+      }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+      fail(new IOException("Connection closed prematurely"));
+      super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+      fail(cause);
+      ctx.close();
+    }
+
+    private void fail(Throwable cause) {
+      CompletableFuture<FullHttpResponse> exchange;
+      while ((exchange = exchanges.poll()) != null) {
+        exchange.completeExceptionally(cause);
+      }
+    }
+
+  }
+
+}
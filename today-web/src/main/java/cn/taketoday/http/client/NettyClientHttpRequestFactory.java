@@ -0,0 +1,433 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLException;
+
+import cn.taketoday.beans.factory.DisposableBean;
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.ClassUtils;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.channel.kqueue.KQueueSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * {@link ClientHttpRequestFactory} implementation that uses plain Netty
+ * to execute requests.
+ *
+ * <p>Connections are kept alive in a pool per remote host. By default
+ * each pooled connection carries one exchange at a time, exchanges beyond
+ * {@link #setMaxConnectionsPerHost(int) maxConnectionsPerHost} wait in
+ * a bounded queue, see {@link #setMaxPendingAcquires(int)}. Idempotent
+ * requests may be pipelined on busy connections instead, see
+ * {@link #setMaxPipelinedRequests(int)}. Connections idle for longer than
+ * {@link #setMaxIdleTime(Duration) maxIdleTime} are closed, and the pool
+ * of a host is dropped once it has no connection left. Pool usage can be
+ * inspected through {@link #getPoolMetrics()}.
+ *
+ * <p>Requests are sent with HTTP/1.1, HTTP/2 is not supported.
+ *
+ * <p>When the application already runs on Netty, the server's worker
+ * {@link EventLoopGroup} and {@link ByteBufAllocator} can be shared so that
+ * outbound calls do not start another set of I/O threads and buffers:
+ * <pre>{@code
+ * NettyClientHttpRequestFactory factory =
+ *         new NettyClientHttpRequestFactory(nettyWebServerFactory.getWorkerGroup());
+ * factory.setAllocator(PooledByteBufAllocator.DEFAULT);
+ * }</pre>
+ * A shared {@code EventLoopGroup} is never shut down by this factory.
+ * {@link ClientHttpRequest#execute()} blocks and therefore must not be
+ * called on an event loop thread, such as in a handler of the server,
+ * use {@link NettyClientHttpRequest#executeAsync()} there instead:
+ * <pre>{@code
+ * factory.createRequest(uri, HttpMethod.GET).executeAsync()
+ *         .onSuccess(response -> ...);
+ * }</pre>
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see cn.taketoday.web.server.support.NettyWebServerFactory#getWorkerGroup()
+ * @since 5.0
+ */
+public class NettyClientHttpRequestFactory implements ClientHttpRequestFactory, DisposableBean {
+
+  private final EventLoopGroup eventLoopGroup;
+
+  private final boolean sharedEventLoopGroup;
+
+  @Nullable
+  private Class<? extends SocketChannel> channelClass;
+
+  private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  @Nullable
+  private SslContext sslContext;
+
+  private Duration connectTimeout = Duration.ofSeconds(30);
+
+  private Duration readTimeout = Duration.ofSeconds(10);
+
+  private Duration acquireTimeout = Duration.ofSeconds(45);
+
+  private int maxConnectionsPerHost = 64;
+
+  private int maxPendingAcquires = 1024;
+
+  private int maxResponseSize = 10 * 1024 * 1024;
+
+  private int maxPipelinedRequests = 1;
+
+  private Duration maxIdleTime = Duration.ofSeconds(30);
+
+  private final ConcurrentHashMap<String, NettyConnectionPool> pools = new ConcurrentHashMap<>();
+
+  /**
+   * Create a new instance of the {@code NettyClientHttpRequestFactory}
+   * with a dedicated {@link NioEventLoopGroup}, which is shut down on
+   * {@link #destroy()}.
+   */
+  public NettyClientHttpRequestFactory() {
+    this.eventLoopGroup = new NioEventLoopGroup(0, new DefaultThreadFactory("http-client"));
+    this.sharedEventLoopGroup = false;
+  }
+
+  /**
+   * Create a new instance of the {@code NettyClientHttpRequestFactory}
+   * based on the given, externally managed {@link EventLoopGroup}, for
+   * instance the worker group of the Netty web server.
+   *
+   * @param eventLoopGroup the event loops to run the client connections on
+   */
+  public NettyClientHttpRequestFactory(EventLoopGroup eventLoopGroup) {
+    Assert.notNull(eventLoopGroup, "EventLoopGroup is required");
+    this.eventLoopGroup = eventLoopGroup;
+    this.sharedEventLoopGroup = true;
+  }
+
+  /**
+   * Set the {@link SocketChannel} type, must be compatible with the
+   * {@link EventLoopGroup}. By default, it is inferred from the group.
+   */
+  public void setChannelClass(@Nullable Class<? extends SocketChannel> channelClass) {
+    this.channelClass = channelClass;
+  }
+
+  /**
+   * Set the {@link ByteBufAllocator} used for connections and request
+   * bodies, typically the pooled allocator of the server.
+   * <p>Default is {@link ByteBufAllocator#DEFAULT}.
+   */
+  public void setAllocator(ByteBufAllocator allocator) {
+    Assert.notNull(allocator, "ByteBufAllocator is required");
+    this.allocator = allocator;
+  }
+
+  /**
+   * Set the {@link SslContext} used for {@code https} requests.
+   * <p>By default, a client context with the JDK default trust store is used.
+   */
+  public void setSslContext(@Nullable SslContext sslContext) {
+    this.sslContext = sslContext;
+  }
+
+  /**
+   * Set the connect timeout.
+   * <p>Default is 30 seconds.
+   */
+  public void setConnectTimeout(Duration connectTimeout) {
+    Assert.notNull(connectTimeout, "ConnectTimeout is required");
+    Assert.isTrue(!connectTimeout.isNegative(), "Timeout must be a non-negative value");
+    this.connectTimeout = connectTimeout;
+  }
+
+  /**
+   * Set the time to wait for the complete response once the request
+   * has been sent.
+   * <p>Default is 10 seconds.
+   */
+  public void setReadTimeout(Duration readTimeout) {
+    Assert.notNull(readTimeout, "ReadTimeout is required");
+    Assert.isTrue(!readTimeout.isNegative(), "Timeout must be a non-negative value");
+    this.readTimeout = readTimeout;
+  }
+
+  /**
+   * Set the time to wait for a pooled connection when all connections
+   * to the target host are leased.
+   * <p>Default is 45 seconds.
+   */
+  public void setAcquireTimeout(Duration acquireTimeout) {
+    Assert.notNull(acquireTimeout, "AcquireTimeout is required");
+    Assert.isTrue(!acquireTimeout.isNegative(), "Timeout must be a non-negative value");
+    this.acquireTimeout = acquireTimeout;
+  }
+
+  /**
+   * Set the maximum number of connections per remote host.
+   * <p>Default is 64.
+   */
+  public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+    Assert.isTrue(maxConnectionsPerHost > 0, "maxConnectionsPerHost must be a positive value");
+    this.maxConnectionsPerHost = maxConnectionsPerHost;
+  }
+
+  /**
+   * Set the maximum number of callers waiting for a connection per
+   * remote host, further requests fail immediately.
+   * <p>Default is 1024.
+   */
+  public void setMaxPendingAcquires(int maxPendingAcquires) {
+    Assert.isTrue(maxPendingAcquires >= 0, "maxPendingAcquires must be a non-negative value");
+    this.maxPendingAcquires = maxPendingAcquires;
+  }
+
+  /**
+   * Set the maximum number of requests in flight on a single connection
+   * using HTTP/1.1 pipelining. Only idempotent requests are pipelined,
+   * and only once all {@link #setMaxConnectionsPerHost(int) connections}
+   * to the host are open, since a slow response delays the ones behind it.
+   * <p>Default is 1, no pipelining.
+   */
+  public void setMaxPipelinedRequests(int maxPipelinedRequests) {
+    Assert.isTrue(maxPipelinedRequests > 0, "maxPipelinedRequests must be a positive value");
+    this.maxPipelinedRequests = maxPipelinedRequests;
+  }
+
+  /**
+   * Set the time after which an idle pooled connection is closed,
+   * {@link Duration#ZERO} keeps idle connections open until the server
+   * closes them.
+   * <p>Default is 30 seconds.
+   */
+  public void setMaxIdleTime(Duration maxIdleTime) {
+    Assert.notNull(maxIdleTime, "MaxIdleTime is required");
+    Assert.isTrue(!maxIdleTime.isNegative(), "MaxIdleTime must be a non-negative value");
+    this.maxIdleTime = maxIdleTime;
+  }
+
+  /**
+   * Set the maximum size in bytes of an aggregated response.
+   * <p>Default is 10 MB.
+   */
+  public void setMaxResponseSize(int maxResponseSize) {
+    Assert.isTrue(maxResponseSize > 0, "maxResponseSize must be a positive value");
+    this.maxResponseSize = maxResponseSize;
+  }
+
+  /**
+   * Return the {@link EventLoopGroup} connections are running on.
+   */
+  public EventLoopGroup getEventLoopGroup() {
+    return this.eventLoopGroup;
+  }
+
+  @Override
+  public NettyClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+    poolKey(uri); // fail early without a host
+    return new NettyClientHttpRequest(this, allocator, uri, httpMethod, readTimeout);
+  }
+
+  /**
+   * Acquire a connection to the host of the given URI, from a new pool
+   * if the current one has been retired meanwhile.
+   */
+  CompletableFuture<NettyConnectionPool.Connection> acquire(URI uri, boolean exclusive) {
+    String key = poolKey(uri);
+    while (true) {
+      NettyConnectionPool pool = pools.computeIfAbsent(key, k -> createPool(uri, k));
+      CompletableFuture<NettyConnectionPool.Connection> connection = pool.acquire(exclusive, acquireTimeout);
+      if (connection != null) {
+        return connection;
+      }
+      pools.remove(key, pool);
+    }
+  }
+
+  /**
+   * Return a snapshot of the connection pool metrics, keyed by
+   * {@code scheme://host:port}.
+   */
+  public Map<String, PoolMetrics> getPoolMetrics() {
+    LinkedHashMap<String, PoolMetrics> metrics = new LinkedHashMap<>();
+    for (Map.Entry<String, NettyConnectionPool> entry : pools.entrySet()) {
+      metrics.put(entry.getKey(), entry.getValue().metrics());
+    }
+    return metrics;
+  }
+
+  /**
+   * Return a snapshot of the connection pool metrics for the host of
+   * the given URI, or {@code null} if no request has been made to it yet.
+   */
+  @Nullable
+  public PoolMetrics getPoolMetrics(URI uri) {
+    NettyConnectionPool pool = pools.get(poolKey(uri));
+    return pool != null ? pool.metrics() : null;
+  }
+
+  private NettyConnectionPool createPool(URI uri, String key) {
+    boolean secure = isSecure(uri);
+    String host = uri.getHost();
+    int port = port(uri, secure);
+
+    SslContext sslContext = secure ? obtainSslContext() : null;
+    Bootstrap bootstrap = new Bootstrap()
+            .group(eventLoopGroup)
+            .channel(obtainChannelClass())
+            .remoteAddress(InetSocketAddress.createUnresolved(host, port))
+            .option(ChannelOption.ALLOCATOR, allocator)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .option(ChannelOption.TCP_NODELAY, true)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .handler(new ChannelInitializer<>() {
+
+              @Override
+              protected void initChannel(Channel ch) {
+                ChannelPipeline pipeline = ch.pipeline();
+                if (sslContext != null) {
+                  pipeline.addLast(sslContext.newHandler(ch.alloc(), host, port));
+                }
+                pipeline.addLast(new HttpClientCodec());
+                pipeline.addLast(new HttpObjectAggregator(maxResponseSize));
+                pipeline.addLast(new NettyClientHttpRequest.ExchangeHandler());
+              }
+            });
+
+    return new NettyConnectionPool(bootstrap, maxConnectionsPerHost, maxPendingAcquires,
+            maxPipelinedRequests, maxIdleTime, retired -> pools.remove(key, retired));
+  }
+
+  private SslContext obtainSslContext() {
+    SslContext sslContext = this.sslContext;
+    if (sslContext == null) {
+      try {
+        sslContext = SslContextBuilder.forClient().build();
+      }
+      catch (SSLException e) {
+        throw new IllegalStateException("Could not create default SslContext", e);
+      }
+      this.sslContext = sslContext;
+    }
+    return sslContext;
+  }
+
+  private Class<? extends SocketChannel> obtainChannelClass() {
+    Class<? extends SocketChannel> channelClass = this.channelClass;
+    if (channelClass == null) {
+      if (ClassUtils.isPresent("io.netty.channel.epoll.EpollSocketChannel", getClass().getClassLoader())
+              && EpollDelegate.isEpoll(eventLoopGroup)) {
+        channelClass = EpollSocketChannel.class;
+      }
+      else if (ClassUtils.isPresent("io.netty.channel.kqueue.KQueueSocketChannel", getClass().getClassLoader())
+              && KQueueDelegate.isKQueue(eventLoopGroup)) {
+        channelClass = KQueueSocketChannel.class;
+      }
+      else {
+        channelClass = NioSocketChannel.class;
+      }
+      this.channelClass = channelClass;
+    }
+    return channelClass;
+  }
+
+  private static String poolKey(URI uri) {
+    Assert.state(uri.getHost() != null, () -> "No host in URI: " + uri);
+    boolean secure = isSecure(uri);
+    return (secure ? "https://" : "http://") + uri.getHost().toLowerCase(Locale.ROOT) + ':' + port(uri, secure);
+  }
+
+  private static boolean isSecure(URI uri) {
+    return "https".equalsIgnoreCase(uri.getScheme());
+  }
+
+  private static int port(URI uri, boolean secure) {
+    int port = uri.getPort();
+    if (port == -1) {
+      return secure ? 443 : 80;
+    }
+    return port;
+  }
+
+  /**
+   * Close all pooled connections, and shut down the {@link EventLoopGroup}
+   * unless it was provided externally.
+   */
+  @Override
+  public void destroy() {
+    for (NettyConnectionPool pool : pools.values()) {
+      pool.close();
+    }
+    pools.clear();
+    if (!sharedEventLoopGroup) {
+      eventLoopGroup.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Snapshot of the state of the connection pool of one remote host.
+   *
+   * @param leased connections currently carrying an exchange
+   * @param idle connections kept alive, ready for the next exchange
+   * @param pendingAcquires callers waiting for a connection
+   * @param total open connections, including the ones being connected
+   */
+  public record PoolMetrics(int leased, int idle, int pendingAcquires, int total) {
+
+  }
+
+  static class EpollDelegate {
+    static boolean isEpoll(EventLoopGroup group) {
+      return group instanceof EpollEventLoopGroup;
+    }
+  }
+
+  static class KQueueDelegate {
+    static boolean isKQueue(EventLoopGroup group) {
+      return group instanceof KQueueEventLoopGroup;
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client;
+
+import java.io.InputStream;
+
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.http.HttpStatusCode;
+import cn.taketoday.http.support.Netty4HttpHeaders;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.handler.codec.http.FullHttpResponse;
+
+/**
+ * {@link ClientHttpResponse} implementation based on Netty, the body
+ * is read from the aggregated response buffer which is released on
+ * {@link #close()}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+final class NettyClientHttpResponse implements ClientHttpResponse {
+
+  private final FullHttpResponse response;
+
+  private final HttpHeaders headers;
+
+  private final InputStream body;
+
+  NettyClientHttpResponse(FullHttpResponse response) {
+    this.response = response;
+    this.headers = new Netty4HttpHeaders(response.headers()).asReadOnly();
+    this.body = new ByteBufInputStream(response.content());
+  }
+
+  @Override
+  public HttpStatusCode getStatusCode() {
+    return HttpStatusCode.valueOf(response.status().code());
+  }
+
+  @Override
+  public String getStatusText() {
+    return response.status().reasonPhrase();
+  }
+
+  @Override
+  public HttpHeaders getHeaders() {
+    return this.headers;
+  }
+
+  @Override
+  public InputStream getBody() {
+    return this.body;
+  }
+
+  @Override
+  public void close() {
+    if (response.refCnt() > 0) {
+      response.release();
+    }
+  }
+
+}
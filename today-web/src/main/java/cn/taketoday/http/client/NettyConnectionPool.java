@@ -0,0 +1,509 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import cn.taketoday.lang.Nullable;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.EventLoopGroup;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.util.concurrent.ScheduledFuture;
+
+/**
+ * Keep-alive connection pool for a single remote host, used by
+ * {@link NettyClientHttpRequestFactory}.
+ *
+ * <p>Acquiring never blocks: idle connections are preferred, then new
+ * connections up to the limit. Once all connections are open, requests
+ * that may be pipelined share a connection up to the pipelining limit,
+ * otherwise the caller waits in a bounded queue of pending acquires,
+ * released connections are handed straight to the oldest waiter.
+ *
+ * <p>Connections idle for longer than the max idle time are closed, and
+ * the pool is retired once its last connection closed, so that pools of
+ * hosts no longer called do not accumulate.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+final class NettyConnectionPool {
+
+  private final Bootstrap bootstrap;
+
+  private final int maxConnections;
+
+  private final int maxPendingAcquires;
+
+  private final int maxPipelinedRequests;
+
+  private final Duration maxIdleTime;
+
+  private final Consumer<NettyConnectionPool> retiredCallback;
+
+  /**
+   * Connections that can take another exchange, most recently used last
+   */
+  private final ArrayDeque<Connection> available = new ArrayDeque<>();
+
+  private final ArrayDeque<Waiter> pending = new ArrayDeque<>();
+
+  private int leased;
+
+  private int total;
+
+  private boolean closed;
+
+  private boolean retired;
+
+  NettyConnectionPool(Bootstrap bootstrap, int maxConnections, int maxPendingAcquires,
+          int maxPipelinedRequests, Duration maxIdleTime, Consumer<NettyConnectionPool> retiredCallback) {
+    this.bootstrap = bootstrap;
+    this.maxConnections = maxConnections;
+    this.maxPendingAcquires = maxPendingAcquires;
+    this.maxPipelinedRequests = maxPipelinedRequests;
+    this.maxIdleTime = maxIdleTime;
+    this.retiredCallback = retiredCallback;
+  }
+
+  /**
+   * Return the event loops the pooled connections run on.
+   */
+  public EventLoopGroup group() {
+    return bootstrap.config().group();
+  }
+
+  /**
+   * Acquire a connection, re-using an idle one if possible.
+   *
+   * @param exclusive whether the exchange must not share the connection,
+   * for requests that are not idempotent
+   * @param acquireTimeout max time to wait for a connection when the pool is exhausted
+   * @return the future connection, or {@code null} if this pool has been
+   * retired and a new one must be used
+   */
+  @Nullable
+  public CompletableFuture<Connection> acquire(boolean exclusive, Duration acquireTimeout) {
+    CompletableFuture<Connection> future = new CompletableFuture<>();
+    synchronized(this) {
+      if (retired) {
+        return null;
+      }
+      if (closed) {
+        future.completeExceptionally(new IOException("Connection pool has been closed"));
+        return future;
+      }
+      Connection connection = pollAvailable(true);
+      if (connection == null && !exclusive && total >= maxConnections) {
+        connection = pollAvailable(false);
+      }
+      if (connection != null) {
+        lease(connection, exclusive);
+        future.complete(connection);
+        return future;
+      }
+      if (total < maxConnections) {
+        total++;
+      }
+      else if (pending.size() < maxPendingAcquires) {
+        Waiter waiter = new Waiter(future, exclusive);
+        pending.add(waiter);
+        waiter.timeout = group().next().schedule(() -> onAcquireTimeout(waiter),
+                acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        return future;
+      }
+      else {
+        future.completeExceptionally(new IOException(
+                "Too many outstanding acquire operations, max pending acquires: " + maxPendingAcquires));
+        return future;
+      }
+    }
+    connect(future, exclusive);
+    return future;
+  }
+
+  @Nullable
+  private Connection pollAvailable(boolean idleOnly) {
+    Iterator<Connection> iterator = available.descendingIterator();
+    while (iterator.hasNext()) {
+      Connection connection = iterator.next();
+      if (connection.channel.isActive() && (!idleOnly || connection.inFlight == 0)) {
+        iterator.remove();
+        connection.available = false;
+        return connection;
+      }
+    }
+    return null;
+  }
+
+  private void lease(Connection connection, boolean exclusive) {
+    if (connection.inFlight++ == 0) {
+      leased++;
+      connection.exclusive = exclusive;
+    }
+    connection.idleGeneration++;
+    if (!connection.exclusive && connection.inFlight < maxPipelinedRequests) {
+      makeAvailable(connection);
+    }
+    else if (connection.available) {
+      connection.available = false;
+      available.remove(connection);
+    }
+  }
+
+  private void makeAvailable(Connection connection) {
+    if (!connection.available) {
+      connection.available = true;
+      available.addLast(connection);
+    }
+  }
+
+  private void connect(CompletableFuture<Connection> future, boolean exclusive) {
+    ChannelFuture connectFuture = bootstrap.connect();
+    connectFuture.addListener(f -> {
+      if (f.isSuccess()) {
+        connected(connectFuture.channel(), future, exclusive);
+      }
+      else {
+        connectFailed();
+        future.completeExceptionally(connectException(f.cause()));
+      }
+    });
+  }
+
+  private void connected(Channel channel, CompletableFuture<Connection> future, boolean exclusive) {
+    Connection connection = new Connection(channel);
+    boolean closed;
+    synchronized(this) {
+      closed = this.closed;
+      if (closed) {
+        total--;
+      }
+      else {
+        lease(connection, exclusive);
+      }
+    }
+    if (closed) {
+      channel.close();
+      future.completeExceptionally(new IOException("Connection pool has been closed"));
+      return;
+    }
+    channel.closeFuture().addListener(f -> onClosed(connection));
+    if (!future.complete(connection)) {
+      // the caller gave up meanwhile
+      release(connection, true);
+    }
+  }
+
+  private void connectFailed() {
+    Waiter permitted;
+    boolean retire;
+    synchronized(this) {
+      total--;
+      permitted = grantPermit();
+      retire = retireIfUnused();
+    }
+    afterDiscard(permitted, retire);
+  }
+
+  private IOException connectException(Throwable cause) {
+    if (cause instanceof IOException ioe) {
+      return ioe;
+    }
+    ConnectException ce = new ConnectException("Connect to " + bootstrap.config().remoteAddress() + " failed");
+    ce.initCause(cause);
+    return ce;
+  }
+
+  /**
+   * Return a leased connection to this pool, once its exchange completed.
+   *
+   * @param connection the connection
+   * @param reusable whether the connection can carry another exchange
+   */
+  public void release(Connection connection, boolean reusable) {
+    Waiter served = null;
+    Waiter permitted = null;
+    boolean retire = false;
+    boolean close = false;
+    synchronized(this) {
+      connection.inFlight--;
+      if (connection.discarded) {
+        // accounted for when it was discarded
+        return;
+      }
+      if (!reusable || closed || !connection.channel.isActive()) {
+        discard(connection, true);
+        close = true;
+        permitted = grantPermit();
+        retire = retireIfUnused();
+      }
+      else if (connection.inFlight == 0) {
+        leased--;
+        served = pending.poll();
+        if (served != null) {
+          lease(connection, served.exclusive);
+        }
+        else {
+          makeAvailable(connection);
+          scheduleIdleTimeout(connection);
+        }
+      }
+      else if (!connection.exclusive) {
+        served = pollPipelinableWaiter();
+        if (served != null) {
+          lease(connection, false);
+        }
+        else {
+          makeAvailable(connection);
+        }
+      }
+    }
+    if (close) {
+      connection.channel.close();
+    }
+    if (served != null) {
+      served.cancelTimeout();
+      if (!served.future.complete(connection)) {
+        release(connection, true);
+      }
+    }
+    afterDiscard(permitted, retire);
+  }
+
+  @Nullable
+  private Waiter pollPipelinableWaiter() {
+    Iterator<Waiter> iterator = pending.iterator();
+    while (iterator.hasNext()) {
+      Waiter waiter = iterator.next();
+      if (!waiter.exclusive) {
+        iterator.remove();
+        return waiter;
+      }
+    }
+    return null;
+  }
+
+  private void discard(Connection connection, boolean wasLeased) {
+    connection.discarded = true;
+    total--;
+    if (wasLeased) {
+      leased--;
+    }
+    if (connection.available) {
+      connection.available = false;
+      available.remove(connection);
+    }
+  }
+
+  /**
+   * Hand the permit to open a connection to the oldest waiter
+   */
+  @Nullable
+  private Waiter grantPermit() {
+    if (!closed && total < maxConnections) {
+      Waiter waiter = pending.poll();
+      if (waiter != null) {
+        total++;
+        return waiter;
+      }
+    }
+    return null;
+  }
+
+  private boolean retireIfUnused() {
+    if (!closed && total == 0 && pending.isEmpty()) {
+      closed = true;
+      retired = true;
+      return true;
+    }
+    return false;
+  }
+
+  private void afterDiscard(@Nullable Waiter permitted, boolean retire) {
+    if (permitted != null) {
+      permitted.cancelTimeout();
+      connect(permitted.future, permitted.exclusive);
+    }
+    if (retire) {
+      retiredCallback.accept(this);
+    }
+  }
+
+  private void scheduleIdleTimeout(Connection connection) {
+    if (!maxIdleTime.isZero()) {
+      long generation = connection.idleGeneration;
+      try {
+        connection.channel.eventLoop().schedule(() -> expireIdle(connection, generation),
+                maxIdleTime.toNanos(), TimeUnit.NANOSECONDS);
+      }
+      catch (RejectedExecutionException ignored) {
+        // event loop shutting down, the connection is closed with it
+      }
+    }
+  }
+
+  private void expireIdle(Connection connection, long generation) {
+    boolean retire;
+    synchronized(this) {
+      if (connection.discarded || connection.inFlight > 0 || connection.idleGeneration != generation) {
+        return;
+      }
+      discard(connection, false);
+      retire = retireIfUnused();
+    }
+    connection.channel.close();
+    afterDiscard(null, retire);
+  }
+
+  private void onClosed(Connection connection) {
+    Waiter permitted;
+    boolean retire;
+    synchronized(this) {
+      if (connection.discarded) {
+        return;
+      }
+      discard(connection, connection.inFlight > 0);
+      permitted = grantPermit();
+      retire = retireIfUnused();
+    }
+    afterDiscard(permitted, retire);
+  }
+
+  private void onAcquireTimeout(Waiter waiter) {
+    synchronized(this) {
+      if (!pending.remove(waiter)) {
+        return;
+      }
+    }
+    waiter.future.completeExceptionally(new IOException("Timeout while waiting for a pooled connection"));
+  }
+
+  /**
+   * Close all idle connections and fail pending acquires, leased
+   * connections are closed when they are released.
+   */
+  public void close() {
+    ArrayList<Connection> connections = new ArrayList<>();
+    ArrayList<Waiter> waiters;
+    synchronized(this) {
+      closed = true;
+      for (Connection connection : new ArrayList<>(available)) {
+        if (connection.inFlight == 0) {
+          discard(connection, false);
+          connections.add(connection);
+        }
+      }
+      waiters = new ArrayList<>(pending);
+      pending.clear();
+    }
+    for (Waiter waiter : waiters) {
+      waiter.cancelTimeout();
+      waiter.future.completeExceptionally(new IOException("Connection pool has been closed"));
+    }
+    for (Connection connection : connections) {
+      connection.channel.close();
+    }
+  }
+
+  public synchronized NettyClientHttpRequestFactory.PoolMetrics metrics() {
+    int idle = 0;
+    for (Connection connection : available) {
+      if (connection.inFlight == 0) {
+        idle++;
+      }
+    }
+    return new NettyClientHttpRequestFactory.PoolMetrics(leased, idle, pending.size(), total);
+  }
+
+  /**
+   * A pooled connection, its state is guarded by the pool.
+   */
+  final class Connection {
+
+    final Channel channel;
+
+    private final NettyClientHttpRequest.ExchangeHandler handler;
+
+    /**
+     * Exchanges in flight, more than one when pipelined
+     */
+    int inFlight;
+
+    boolean exclusive;
+
+    boolean available;
+
+    boolean discarded;
+
+    long idleGeneration;
+
+    Connection(Channel channel) {
+      this.channel = channel;
+      this.handler = channel.pipeline().get(NettyClientHttpRequest.ExchangeHandler.class);
+    }
+
+    /**
+     * Send the request, the returned future completes on the event loop
+     * of the connection with the aggregated response.
+     */
+    CompletableFuture<FullHttpResponse> exchange(FullHttpRequest request, Duration readTimeout) {
+      return handler.exchange(request, readTimeout);
+    }
+
+    void release(boolean reusable) {
+      NettyConnectionPool.this.release(this, reusable);
+    }
+
+  }
+
+  private static final class Waiter {
+
+    final CompletableFuture<Connection> future;
+
+    final boolean exclusive;
+
+    @Nullable
+    ScheduledFuture<?> timeout;
+
+    Waiter(CompletableFuture<Connection> future, boolean exclusive) {
+      this.future = future;
+      this.exclusive = exclusive;
+    }
+
+    void cancelTimeout() {
+      if (timeout != null) {
+        timeout.cancel(false);
+      }
+    }
+
+  }
+
+}
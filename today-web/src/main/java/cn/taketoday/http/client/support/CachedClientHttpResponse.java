@@ -0,0 +1,446 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.http.HttpStatusCode;
+import cn.taketoday.http.client.ClientHttpResponse;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.StringUtils;
+
+/**
+ * A response stored by the {@link CachingClientHttpRequestInterceptor},
+ * together with the timing information needed to calculate its age and
+ * freshness as defined in
+ * <a href="https://www.rfc-editor.org/rfc/rfc9111#section-4.2">RFC 9111, section 4.2</a>.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public final class CachedClientHttpResponse implements Serializable {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private final int statusCode;
+
+  private final String statusText;
+
+  private final HttpHeaders headers;
+
+  private final byte[] body;
+
+  /**
+   * Request header values selected by the {@code Vary} response header,
+   * keyed by lower-case header name.
+   */
+  private final Map<String, List<String>> varyValues;
+
+  private final long requestTime;
+
+  private final long responseTime;
+
+  /**
+   * Other stored responses for the same URI, selected by different
+   * values of the request headers nominated by {@code Vary}.
+   */
+  private final List<CachedClientHttpResponse> variants;
+
+  @Nullable
+  private transient Directives directives;
+
+  CachedClientHttpResponse(int statusCode, String statusText, HttpHeaders headers,
+          byte[] body, Map<String, List<String>> varyValues, long requestTime, long responseTime) {
+    this(statusCode, statusText, headers, body, varyValues, requestTime, responseTime, Collections.emptyList());
+  }
+
+  private CachedClientHttpResponse(int statusCode, String statusText, HttpHeaders headers, byte[] body,
+          Map<String, List<String>> varyValues, long requestTime, long responseTime, List<CachedClientHttpResponse> variants) {
+    this.statusCode = statusCode;
+    this.statusText = statusText;
+    this.headers = headers;
+    this.body = body;
+    this.varyValues = varyValues;
+    this.requestTime = requestTime;
+    this.responseTime = responseTime;
+    this.variants = variants;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+  public HttpHeaders getHeaders() {
+    return headers.asReadOnly();
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  /**
+   * Return the sum of the body sizes of this response and all
+   * stored variants, in bytes.
+   */
+  public long getTotalBodySize() {
+    long size = body.length;
+    for (CachedClientHttpResponse variant : variants) {
+      size += variant.body.length;
+    }
+    return size;
+  }
+
+  /**
+   * Return the number of variants stored with this response, including
+   * this response.
+   */
+  public int getVariantCount() {
+    return variants.size() + 1;
+  }
+
+  /**
+   * The time the request which produced this response was sent, in milliseconds.
+   */
+  public long getRequestTime() {
+    return requestTime;
+  }
+
+  /**
+   * The time this response was received, in milliseconds.
+   */
+  public long getResponseTime() {
+    return responseTime;
+  }
+
+  @Nullable
+  String getETag() {
+    return headers.getFirst(HttpHeaders.ETAG);
+  }
+
+  @Nullable
+  String getLastModified() {
+    return headers.getFirst(HttpHeaders.LAST_MODIFIED);
+  }
+
+  /**
+   * Whether the request headers select this stored response, see
+   * <a href="https://www.rfc-editor.org/rfc/rfc9111#section-4.1">RFC 9111, section 4.1</a>.
+   */
+  boolean matchesVariant(HttpHeaders requestHeaders) {
+    for (Map.Entry<String, List<String>> entry : varyValues.entrySet()) {
+      if (!Objects.equals(entry.getValue(), selectValues(requestHeaders, entry.getKey()))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Select the stored variant matching the given request headers.
+   *
+   * @return the matching variant, or {@code null} if none
+   */
+  @Nullable
+  CachedClientHttpResponse selectVariant(HttpHeaders requestHeaders) {
+    if (matchesVariant(requestHeaders)) {
+      return this;
+    }
+    for (CachedClientHttpResponse variant : variants) {
+      if (variant.matchesVariant(requestHeaders)) {
+        return variant;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Create a copy of this response that also keeps the variants of the given
+   * previously stored response, as long as they vary on the same request
+   * headers and were selected by different values.
+   *
+   * @param previous the response previously stored for the same URI
+   * @param maxVariants the maximum number of variants to keep, including this one
+   */
+  CachedClientHttpResponse withVariants(@Nullable CachedClientHttpResponse previous, int maxVariants) {
+    if (previous == null || varyValues.isEmpty() || maxVariants < 2) {
+      return this;
+    }
+    ArrayList<CachedClientHttpResponse> variants = new ArrayList<>();
+    addVariant(variants, previous, maxVariants);
+    for (CachedClientHttpResponse variant : previous.variants) {
+      addVariant(variants, variant, maxVariants);
+    }
+    if (variants.isEmpty()) {
+      return this;
+    }
+    return new CachedClientHttpResponse(statusCode, statusText, headers,
+            body, varyValues, requestTime, responseTime, List.copyOf(variants));
+  }
+
+  private void addVariant(List<CachedClientHttpResponse> variants, CachedClientHttpResponse candidate, int maxVariants) {
+    if (variants.size() < maxVariants - 1
+            && candidate.varyValues.keySet().equals(varyValues.keySet())
+            && !candidate.varyValues.equals(varyValues)) {
+      variants.add(candidate.variants.isEmpty() ? candidate : new CachedClientHttpResponse(candidate.statusCode,
+              candidate.statusText, candidate.headers, candidate.body, candidate.varyValues,
+              candidate.requestTime, candidate.responseTime, Collections.emptyList()));
+    }
+  }
+
+  /**
+   * Whether this response can be served without revalidation.
+   *
+   * @param now the current time in milliseconds
+   * @param requestDirectives {@code Cache-Control} directives of the request
+   */
+  boolean isFresh(long now, Directives requestDirectives) {
+    Directives directives = directives();
+    if (directives.noCache) {
+      return false;
+    }
+    long age = currentAge(now);
+    if (requestDirectives.maxAge >= 0 && age > requestDirectives.maxAge * 1000) {
+      return false;
+    }
+    long freshnessLifetime = freshnessLifetime();
+    if (requestDirectives.minFresh >= 0 && freshnessLifetime - age < requestDirectives.minFresh * 1000) {
+      return false;
+    }
+    return freshnessLifetime > age;
+  }
+
+  /**
+   * Calculate the freshness lifetime in milliseconds, from {@code max-age},
+   * {@code Expires}, or heuristically from {@code Last-Modified}.
+   */
+  long freshnessLifetime() {
+    Directives directives = directives();
+    if (directives.maxAge >= 0) {
+      return directives.maxAge * 1000;
+    }
+    if (headers.containsKey(HttpHeaders.EXPIRES)) {
+      long expires = headers.getFirstDate(HttpHeaders.EXPIRES, false);
+      // an invalid date represents a time in the past
+      return expires == -1 ? 0 : Math.max(0, expires - dateValue());
+    }
+    if (CachingClientHttpRequestInterceptor.isHeuristicallyCacheable(statusCode)) {
+      long lastModified = headers.getFirstDate(HttpHeaders.LAST_MODIFIED, false);
+      if (lastModified != -1) {
+        return Math.max(0, (dateValue() - lastModified) / 10);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Calculate the current age in milliseconds, see
+   * <a href="https://www.rfc-editor.org/rfc/rfc9111#section-4.2.3">RFC 9111, section 4.2.3</a>.
+   */
+  long currentAge(long now) {
+    long apparentAge = Math.max(0, responseTime - dateValue());
+    long responseDelay = responseTime - requestTime;
+    long correctedAgeValue = ageValue() * 1000 + responseDelay;
+    long correctedInitialAge = Math.max(apparentAge, correctedAgeValue);
+    long residentTime = now - responseTime;
+    return correctedInitialAge + residentTime;
+  }
+
+  private long dateValue() {
+    long date = headers.getFirstDate(HttpHeaders.DATE, false);
+    return date != -1 ? date : responseTime;
+  }
+
+  private long ageValue() {
+    String age = headers.getFirst(HttpHeaders.AGE);
+    if (age != null) {
+      try {
+        return Math.max(0, Long.parseLong(age.trim()));
+      }
+      catch (NumberFormatException ignored) {
+      }
+    }
+    return 0;
+  }
+
+  private Directives directives() {
+    Directives directives = this.directives;
+    if (directives == null) {
+      directives = Directives.parse(headers.get(HttpHeaders.CACHE_CONTROL));
+      this.directives = directives;
+    }
+    return directives;
+  }
+
+  /**
+   * Create a stored response updated with the header fields of a
+   * {@code 304 Not Modified} response, see
+   * <a href="https://www.rfc-editor.org/rfc/rfc9111#section-3.2">RFC 9111, section 3.2</a>.
+   */
+  CachedClientHttpResponse revalidated(HttpHeaders notModifiedHeaders, long requestTime, long responseTime) {
+    HttpHeaders merged = HttpHeaders.forWritable();
+    merged.putAll(headers);
+    for (Map.Entry<String, List<String>> entry : notModifiedHeaders.entrySet()) {
+      if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(entry.getKey())) {
+        merged.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return new CachedClientHttpResponse(statusCode, statusText, merged, body, varyValues, requestTime, responseTime);
+  }
+
+  /**
+   * Create a {@link ClientHttpResponse} serving this stored response.
+   *
+   * @param now the current time in milliseconds, used for the {@code Age} header
+   */
+  ClientHttpResponse toResponse(long now) {
+    HttpHeaders headers = HttpHeaders.forWritable();
+    headers.putAll(this.headers);
+    headers.set(HttpHeaders.AGE, Long.toString(Math.max(0, currentAge(now) / 1000)));
+    return new Response(headers.asReadOnly());
+  }
+
+  static Map<String, List<String>> varyValues(List<String> vary, HttpHeaders requestHeaders) {
+    if (vary.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    LinkedHashMap<String, List<String>> values = new LinkedHashMap<>();
+    for (String name : vary) {
+      for (String token : StringUtils.tokenizeToStringArray(name, ",")) {
+        String key = token.toLowerCase(Locale.ROOT);
+        values.put(key, selectValues(requestHeaders, key));
+      }
+    }
+    return values;
+  }
+
+  private static List<String> selectValues(HttpHeaders requestHeaders, String name) {
+    List<String> values = requestHeaders.get(name);
+    return values != null ? List.copyOf(values) : Collections.emptyList();
+  }
+
+  private final class Response implements ClientHttpResponse {
+
+    private final HttpHeaders headers;
+
+    Response(HttpHeaders headers) {
+      this.headers = headers;
+    }
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+      return HttpStatusCode.valueOf(statusCode);
+    }
+
+    @Override
+    public int getRawStatusCode() {
+      return statusCode;
+    }
+
+    @Override
+    public String getStatusText() {
+      return statusText;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+      return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public void close() { }
+
+  }
+
+  /**
+   * Parsed {@code Cache-Control} directives relevant to a private cache.
+   */
+  static final class Directives {
+
+    static final Directives NONE = new Directives();
+
+    boolean noStore;
+
+    boolean noCache;
+
+    boolean isPublic;
+
+    boolean mustRevalidate;
+
+    long maxAge = -1;
+
+    long sMaxAge = -1;
+
+    long minFresh = -1;
+
+    static Directives parse(@Nullable List<String> cacheControl) {
+      if (cacheControl == null || cacheControl.isEmpty()) {
+        return NONE;
+      }
+      Directives directives = new Directives();
+      for (String value : cacheControl) {
+        for (String directive : StringUtils.tokenizeToStringArray(value, ",")) {
+          int idx = directive.indexOf('=');
+          String name = (idx == -1 ? directive : directive.substring(0, idx)).trim().toLowerCase(Locale.ROOT);
+          String argument = idx == -1 ? null : StringUtils.trimAllWhitespace(directive.substring(idx + 1)).replace("\"", "");
+          switch (name) {
+            case "no-store" -> directives.noStore = true;
+            case "no-cache" -> directives.noCache = true;
+            case "max-age" -> directives.maxAge = parseSeconds(argument);
+            case "s-maxage" -> directives.sMaxAge = parseSeconds(argument);
+            case "public" -> directives.isPublic = true;
+            case "must-revalidate" -> directives.mustRevalidate = true;
+            case "min-fresh" -> directives.minFresh = parseSeconds(argument);
+            default -> { }
+          }
+        }
+      }
+      return directives;
+    }
+
+    private static long parseSeconds(@Nullable String argument) {
+      if (argument != null) {
+        try {
+          return Math.max(0, Long.parseLong(argument));
+        }
+        catch (NumberFormatException ignored) {
+        }
+      }
+      // an invalid value is treated as stale, RFC 9111, section 1.2.2
+      return 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Clock;
+import java.util.List;
+
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.http.HttpRequest;
+import cn.taketoday.http.client.ClientHttpRequestExecution;
+import cn.taketoday.http.client.ClientHttpRequestInterceptor;
+import cn.taketoday.http.client.ClientHttpResponse;
+import cn.taketoday.http.client.ClientHttpResponseDecorator;
+import cn.taketoday.http.client.support.CachedClientHttpResponse.Directives;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+
+/**
+ * {@link ClientHttpRequestInterceptor} implementing a private HTTP cache
+ * following <a href="https://www.rfc-editor.org/rfc/rfc9111">RFC 9111</a>.
+ *
+ * <p>Responses to {@code GET} requests are stored in a pluggable
+ * {@link ClientHttpResponseCache} and served while fresh, according to
+ * {@code Cache-Control: max-age}, {@code Expires} or a heuristic based
+ * on {@code Last-Modified}. Stale responses are revalidated with
+ * {@code If-None-Match} or {@code If-Modified-Since}, and the stored
+ * response is served again on {@code 304 Not Modified}. Responses
+ * carrying a {@code Vary} header are only served to requests with the
+ * same values for the nominated request headers, up to
+ * {@link #setMaxVariants(int) maxVariants} variants are kept per URI;
+ * {@code Vary: *} is never stored. Responses to requests carrying
+ * {@code Authorization} are only stored if they are explicitly marked
+ * {@code public}, {@code must-revalidate} or {@code s-maxage}, see
+ * <a href="https://www.rfc-editor.org/rfc/rfc9111#section-3.5">RFC 9111, section 3.5</a>.
+ * Responses to unsafe methods invalidate the stored responses for the
+ * target URI.
+ *
+ * <p>Bodies larger than {@link #setMaxBodySize(int) maxBodySize} are
+ * passed through without being stored. Requests with own conditional
+ * or {@code Range} headers bypass the cache.
+ *
+ * <p>Can be registered with {@code RestClient.Builder#requestInterceptor},
+ * which also applies to {@code @HttpExchange} interfaces created through
+ * {@code HttpServiceProxyFactory} with a {@code RestClientAdapter}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+
+  private static final Logger log = LoggerFactory.getLogger(CachingClientHttpRequestInterceptor.class);
+
+  private final ClientHttpResponseCache cache;
+
+  private int maxBodySize = 1024 * 1024;
+
+  private int maxVariants = 8;
+
+  private Clock clock = Clock.systemUTC();
+
+  /**
+   * Create an interceptor backed by an {@link InMemoryClientHttpResponseCache}
+   * with default bounds.
+   */
+  public CachingClientHttpRequestInterceptor() {
+    this(new InMemoryClientHttpResponseCache());
+  }
+
+  /**
+   * Create an interceptor backed by the given storage.
+   *
+   * @param cache the response storage
+   * @see ClientHttpResponseCache#forCache(cn.taketoday.cache.Cache)
+   */
+  public CachingClientHttpRequestInterceptor(ClientHttpResponseCache cache) {
+    Assert.notNull(cache, "ClientHttpResponseCache is required");
+    this.cache = cache;
+  }
+
+  /**
+   * Set the maximum body size in bytes of a response to be stored.
+   * <p>Default is 1 MB.
+   */
+  public void setMaxBodySize(int maxBodySize) {
+    Assert.isTrue(maxBodySize >= 0, "maxBodySize must be a non-negative value");
+    this.maxBodySize = maxBodySize;
+  }
+
+  /**
+   * Set the maximum number of variants selected by {@code Vary} to keep
+   * for a single URI.
+   * <p>Default is 8.
+   */
+  public void setMaxVariants(int maxVariants) {
+    Assert.isTrue(maxVariants > 0, "maxVariants must be a positive value");
+    this.maxVariants = maxVariants;
+  }
+
+  /**
+   * Set the {@link Clock} used to calculate the age of stored responses.
+   */
+  public void setClock(Clock clock) {
+    Assert.notNull(clock, "Clock is required");
+    this.clock = clock;
+  }
+
+  public ClientHttpResponseCache getCache() {
+    return cache;
+  }
+
+  @Override
+  public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+    HttpMethod method = request.getMethod();
+    if (method != HttpMethod.GET) {
+      ClientHttpResponse response = execution.execute(request, body);
+      if (isUnsafe(method) && response.getRawStatusCode() < 400) {
+        cache.evict(cacheKey(request));
+      }
+      return response;
+    }
+
+    HttpHeaders requestHeaders = request.getHeaders();
+    Directives requestDirectives = Directives.parse(requestHeaders.get(HttpHeaders.CACHE_CONTROL));
+    if (requestDirectives.noStore || hasPreconditions(requestHeaders)) {
+      return execution.execute(request, body);
+    }
+
+    String key = cacheKey(request);
+    CachedClientHttpResponse stored = cache.get(key);
+    if (stored != null) {
+      stored = stored.selectVariant(requestHeaders);
+    }
+
+    if (stored != null) {
+      if (!requestDirectives.noCache && stored.isFresh(clock.millis(), requestDirectives)) {
+        if (log.isTraceEnabled()) {
+          log.trace("Serving fresh response from cache for '{}'", key);
+        }
+        return stored.toResponse(clock.millis());
+      }
+      String etag = stored.getETag();
+      String lastModified = stored.getLastModified();
+      if (etag != null || lastModified != null) {
+        // never modify the headers of the caller's request
+        HttpHeaders conditionalHeaders = HttpHeaders.forWritable();
+        conditionalHeaders.putAll(requestHeaders);
+        if (etag != null) {
+          conditionalHeaders.set(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        else {
+          conditionalHeaders.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+        }
+        request = new HttpRequestDecorator(request) {
+
+          @Override
+          public HttpHeaders getHeaders() {
+            return conditionalHeaders;
+          }
+        };
+      }
+      else {
+        stored = null;
+      }
+    }
+
+    long requestTime = clock.millis();
+    ClientHttpResponse response = execution.execute(request, body);
+    long responseTime = clock.millis();
+
+    if (stored != null) {
+      if (response.getRawStatusCode() == 304) {
+        if (log.isTraceEnabled()) {
+          log.trace("Revalidated cached response for '{}'", key);
+        }
+        CachedClientHttpResponse revalidated = stored.revalidated(response.getHeaders(), requestTime, responseTime);
+        response.close();
+        cache.put(key, revalidated.withVariants(cache.get(key), maxVariants));
+        return revalidated.toResponse(responseTime);
+      }
+    }
+    return storeIfCacheable(key, requestHeaders, response, requestTime, responseTime);
+  }
+
+  private ClientHttpResponse storeIfCacheable(String key, HttpHeaders requestHeaders,
+          ClientHttpResponse response, long requestTime, long responseTime) throws IOException {
+
+    int statusCode = response.getRawStatusCode();
+    HttpHeaders headers = response.getHeaders();
+    Directives directives = Directives.parse(headers.get(HttpHeaders.CACHE_CONTROL));
+    List<String> vary = headers.getVary();
+
+    if (requestHeaders.containsKey(HttpHeaders.AUTHORIZATION)
+            && !directives.isPublic && !directives.mustRevalidate && directives.sMaxAge < 0) {
+      // a response to an authenticated request must not be reused for other callers
+      return response;
+    }
+
+    if (directives.noStore || vary.contains("*") || !isStorable(statusCode, headers, directives)) {
+      if (statusCode < 500) {
+        // keep a stored response across server errors
+        cache.evict(key);
+      }
+      return response;
+    }
+
+    InputStream bodyStream = response.getBody();
+    byte[] content = bodyStream.readNBytes(maxBodySize + 1);
+    if (content.length > maxBodySize) {
+      cache.evict(key);
+      return new ClientHttpResponseDecorator(response) {
+
+        private final InputStream body = new SequenceInputStream(new ByteArrayInputStream(content), bodyStream);
+
+        @Override
+        public InputStream getBody() {
+          return this.body;
+        }
+      };
+    }
+
+    HttpHeaders storedHeaders = HttpHeaders.forWritable();
+    storedHeaders.putAll(headers);
+    var cached = new CachedClientHttpResponse(statusCode, response.getStatusText(), storedHeaders, content,
+            CachedClientHttpResponse.varyValues(vary, requestHeaders), requestTime, responseTime);
+    response.close();
+    cache.put(key, cached.withVariants(cache.get(key), maxVariants));
+    return cached.toResponse(responseTime);
+  }
+
+  /**
+   * Whether a response can be stored, see
+   * <a href="https://www.rfc-editor.org/rfc/rfc9111#section-3">RFC 9111, section 3</a>.
+   */
+  private static boolean isStorable(int statusCode, HttpHeaders headers, Directives directives) {
+    if (statusCode < 200 || statusCode == 206 || statusCode == 304) {
+      return false;
+    }
+    boolean explicitFreshness = directives.maxAge >= 0 || headers.containsKey(HttpHeaders.EXPIRES);
+    if (explicitFreshness) {
+      return true;
+    }
+    // without explicit freshness, only worth storing if it can be reused or revalidated
+    return isHeuristicallyCacheable(statusCode)
+            && (headers.containsKey(HttpHeaders.LAST_MODIFIED) || headers.containsKey(HttpHeaders.ETAG));
+  }
+
+  /**
+   * Status codes that are heuristically cacheable, see
+   * <a href="https://www.rfc-editor.org/rfc/rfc9110#section-15.1">RFC 9110, section 15.1</a>.
+   */
+  static boolean isHeuristicallyCacheable(int statusCode) {
+    return switch (statusCode) {
+      case 200, 203, 204, 206, 300, 301, 308, 404, 405, 410, 414, 501 -> true;
+      default -> false;
+    };
+  }
+
+  private static boolean hasPreconditions(HttpHeaders requestHeaders) {
+    return requestHeaders.containsKey(HttpHeaders.IF_NONE_MATCH)
+            || requestHeaders.containsKey(HttpHeaders.IF_MODIFIED_SINCE)
+            || requestHeaders.containsKey(HttpHeaders.IF_MATCH)
+            || requestHeaders.containsKey(HttpHeaders.IF_UNMODIFIED_SINCE)
+            || requestHeaders.containsKey(HttpHeaders.IF_RANGE)
+            || requestHeaders.containsKey(HttpHeaders.RANGE);
+  }
+
+  private static boolean isUnsafe(HttpMethod method) {
+    return method == HttpMethod.POST || method == HttpMethod.PUT
+            || method == HttpMethod.DELETE || method == HttpMethod.PATCH;
+  }
+
+  /**
+   * Derive the cache key of the given request, the primary cache key
+   * is the target URI. Variants selected by {@code Vary} are stored
+   * together under this key.
+   */
+  protected String cacheKey(HttpRequest request) {
+    return request.getURI().toASCIIString();
+  }
+
+}
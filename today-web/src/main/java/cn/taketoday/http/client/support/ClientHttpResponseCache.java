@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client.support;
+
+import cn.taketoday.cache.Cache;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Storage for responses of the {@link CachingClientHttpRequestInterceptor}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see InMemoryClientHttpResponseCache
+ * @see #forCache(Cache)
+ * @since 5.0
+ */
+public interface ClientHttpResponseCache {
+
+  /**
+   * Return the response stored under the given key.
+   *
+   * @param key the cache key, derived from the request URI
+   * @return the stored response, or {@code null} if none
+   */
+  @Nullable
+  CachedClientHttpResponse get(String key);
+
+  /**
+   * Store the given response, replacing any previous one.
+   *
+   * @param key the cache key, derived from the request URI
+   * @param response the response to store
+   */
+  void put(String key, CachedClientHttpResponse response);
+
+  /**
+   * Remove the response stored under the given key, if any.
+   *
+   * @param key the cache key, derived from the request URI
+   */
+  void evict(String key);
+
+  /**
+   * Create a {@code ClientHttpResponseCache} that stores responses in
+   * the given {@link Cache}.
+   *
+   * @param cache the target cache
+   */
+  static ClientHttpResponseCache forCache(Cache cache) {
+    Assert.notNull(cache, "Cache is required");
+    return new ClientHttpResponseCache() {
+
+      @Nullable
+      @Override
+      public CachedClientHttpResponse get(String key) {
+        Cache.ValueWrapper wrapper = cache.get(key);
+        if (wrapper != null && wrapper.get() instanceof CachedClientHttpResponse response) {
+          return response;
+        }
+        return null;
+      }
+
+      @Override
+      public void put(String key, CachedClientHttpResponse response) {
+        cache.put(key, response);
+      }
+
+      @Override
+      public void evict(String key) {
+        cache.evict(key);
+      }
+
+      @Override
+      public String toString() {
+        return "ClientHttpResponseCache for '" + cache.getName() + "'";
+      }
+    };
+  }
+
+}
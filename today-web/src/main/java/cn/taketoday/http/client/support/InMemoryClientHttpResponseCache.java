@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client.support;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * In-memory {@link ClientHttpResponseCache}, bounded by the number of
+ * entries and the total size of the stored bodies. The least recently
+ * used responses are evicted first.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class InMemoryClientHttpResponseCache implements ClientHttpResponseCache {
+
+  private final int maxEntries;
+
+  private final long maxTotalBodySize;
+
+  private final LinkedHashMap<String, CachedClientHttpResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long totalBodySize;
+
+  /**
+   * Create a cache holding up to 1024 responses with a total body size of 64 MB.
+   */
+  public InMemoryClientHttpResponseCache() {
+    this(1024, 64 * 1024 * 1024);
+  }
+
+  /**
+   * Create a cache with the given bounds.
+   *
+   * @param maxEntries the maximum number of responses
+   * @param maxTotalBodySize the maximum sum of the body sizes in bytes
+   */
+  public InMemoryClientHttpResponseCache(int maxEntries, long maxTotalBodySize) {
+    Assert.isTrue(maxEntries > 0, "maxEntries must be a positive value");
+    Assert.isTrue(maxTotalBodySize > 0, "maxTotalBodySize must be a positive value");
+    this.maxEntries = maxEntries;
+    this.maxTotalBodySize = maxTotalBodySize;
+  }
+
+  @Nullable
+  @Override
+  public synchronized CachedClientHttpResponse get(String key) {
+    return entries.get(key);
+  }
+
+  @Override
+  public synchronized void put(String key, CachedClientHttpResponse response) {
+    long bodySize = response.getTotalBodySize();
+    if (bodySize > maxTotalBodySize) {
+      evict(key);
+      return;
+    }
+    CachedClientHttpResponse previous = entries.put(key, response);
+    if (previous != null) {
+      totalBodySize -= previous.getTotalBodySize();
+    }
+    totalBodySize += bodySize;
+
+    Iterator<Map.Entry<String, CachedClientHttpResponse>> iterator = entries.entrySet().iterator();
+    while ((entries.size() > maxEntries || totalBodySize > maxTotalBodySize) && iterator.hasNext()) {
+      Map.Entry<String, CachedClientHttpResponse> eldest = iterator.next();
+      totalBodySize -= eldest.getValue().getTotalBodySize();
+      iterator.remove();
+    }
+  }
+
+  @Override
+  public synchronized void evict(String key) {
+    CachedClientHttpResponse removed = entries.remove(key);
+    if (removed != null) {
+      totalBodySize -= removed.getTotalBodySize();
+    }
+  }
+
+  /**
+   * Return the number of stored responses.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Return the sum of the stored body sizes in bytes.
+   */
+  public synchronized long getTotalBodySize() {
+    return totalBodySize;
+  }
+
+}
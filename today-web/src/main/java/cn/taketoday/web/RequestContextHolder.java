@@ -30,6 +30,8 @@ public abstract class RequestContextHolder {
 
   private static final RequestThreadLocal contextHolder = RequestThreadLocal.lookup();
 
+  private static final boolean scopedValueActive = contextHolder instanceof ScopedValueRequestThreadLocal;
+
   /**
    * cleanup request context
    */
@@ -41,6 +43,30 @@ public abstract class RequestContextHolder {
     contextHolder.set(requestContext);
   }
 
+  /**
+   * Run the given action with the given request context as current context
+   *
+   * @param requestContext the request context to bind
+   * @param action the action to run
+   * @see RequestThreadLocal#bind(RequestContext, Runnable)
+   * @since 5.0
+   */
+  public static void bind(RequestContext requestContext, Runnable action) {
+    contextHolder.bind(requestContext, action);
+  }
+
+  /**
+   * Whether the request context is held by a {@code java.lang.ScopedValue},
+   * a request has to be handled within {@link #bind} then. Otherwise
+   * {@link #set} and {@link #cleanup()} are the cheaper path.
+   *
+   * @see ScopedValueRequestThreadLocal
+   * @since 5.0
+   */
+  public static boolean isScopedValueActive() {
+    return scopedValueActive;
+  }
+
   /**
    * current context
    */
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web;
+
+import cn.taketoday.core.task.TaskDecorator;
+
+/**
+ * {@link TaskDecorator} that propagates the current {@link RequestContext}
+ * of the submitting thread to the executing thread.
+ *
+ * <p>The captured context is bound through {@link RequestContextHolder#bind},
+ * so it is scoped to the task and cleaned up afterwards, independent of the
+ * {@link RequestThreadLocal} strategy in use. Tasks submitted outside of a
+ * request run unchanged.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see cn.taketoday.scheduling.concurrent.ThreadPoolTaskExecutor#setTaskDecorator
+ * @see cn.taketoday.core.task.SimpleAsyncTaskExecutor#setTaskDecorator
+ * @since 5.0
+ */
+public class RequestContextTaskDecorator implements TaskDecorator {
+
+  @Override
+  public Runnable decorate(Runnable runnable) {
+    RequestContext context = RequestContextHolder.get();
+    if (context == null) {
+      return runnable;
+    }
+    return () -> RequestContextHolder.bind(context, runnable);
+  }
+
+}
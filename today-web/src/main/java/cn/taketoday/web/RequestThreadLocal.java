@@ -30,6 +30,15 @@ import io.netty.util.concurrent.FastThreadLocal;
  */
 public abstract class RequestThreadLocal {
 
+  /**
+   * System property that instructs framework to bind the current request
+   * with a {@code java.lang.ScopedValue} if the JDK supports it.
+   *
+   * @see ScopedValueRequestThreadLocal
+   * @since 5.0
+   */
+  public static final String SCOPED_VALUE_ENABLED = "today.web.request-scoped-value";
+
   public abstract void remove();
 
   @Nullable
@@ -37,16 +46,42 @@ public abstract class RequestThreadLocal {
 
   public abstract void set(@Nullable RequestContext context);
 
+  /**
+   * Run the given action with the given context as current request context,
+   * restoring the previous one afterwards.
+   *
+   * @param context the request context to bind
+   * @param action the action to run
+   * @since 5.0
+   */
+  public void bind(RequestContext context, Runnable action) {
+    RequestContext previous = get();
+    set(context);
+    try {
+      action.run();
+    }
+    finally {
+      if (previous != null) {
+        set(previous);
+      }
+      else {
+        remove();
+      }
+    }
+  }
+
   /**
    * Static factory method
    */
   public static RequestThreadLocal lookup() {
     RequestThreadLocal ret = TodayStrategies.findFirst(RequestThreadLocal.class, null);
     if (ret == null) {
-      if (ClassUtils.isPresent("io.netty.util.concurrent.FastThreadLocal")) {
-        return new Netty();
+      RequestThreadLocal threadLocal = ClassUtils.isPresent("io.netty.util.concurrent.FastThreadLocal")
+              ? new Netty() : new Default();
+      if (TodayStrategies.getFlag(SCOPED_VALUE_ENABLED) && ScopedValueRequestThreadLocal.isSupported()) {
+        return new ScopedValueRequestThreadLocal(threadLocal);
       }
-      return new Default();
+      return threadLocal;
     }
     return ret;
   }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * {@link RequestThreadLocal} backed by a {@code java.lang.ScopedValue}.
+ *
+ * <p>{@link #bind(RequestContext, Runnable)} binds the request context for the
+ * duration of the action without touching the {@code ThreadLocal} map of the
+ * current thread, which keeps short-lived virtual threads cheap. The binding is
+ * inherited by subtasks forked in a {@code StructuredTaskScope}; plain executors
+ * can propagate it with a {@link RequestContextTaskDecorator}.
+ *
+ * <p>{@link #set} and {@link #remove} inside a binding replace the context of
+ * that binding. Outside of any binding, all operations delegate to the given
+ * fallback {@link RequestThreadLocal}.
+ *
+ * <p>{@code ScopedValue} is only used on JDK 25 or later, where it is no longer
+ * a preview API. It is accessed through method handles as the framework is
+ * compiled against an older language level.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see RequestThreadLocal#SCOPED_VALUE_ENABLED
+ * @since 5.0
+ */
+public final class ScopedValueRequestThreadLocal extends RequestThreadLocal {
+
+  private static final Binding UNBOUND = new Binding(null);
+
+  @Nullable
+  private static final MethodHandle newInstance;
+
+  @Nullable
+  private static final MethodHandle where;
+
+  @Nullable
+  private static final MethodHandle run;
+
+  @Nullable
+  private static final MethodHandle orElse;
+
+  static {
+    MethodHandle newInstanceHandle = null;
+    MethodHandle whereHandle = null;
+    MethodHandle runHandle = null;
+    MethodHandle orElseHandle = null;
+    if (Runtime.version().feature() >= 25) {
+      try {
+        Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+        Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        newInstanceHandle = lookup.findStatic(scopedValue, "newInstance", MethodType.methodType(scopedValue))
+                .asType(MethodType.methodType(Object.class));
+        whereHandle = lookup.findStatic(scopedValue, "where", MethodType.methodType(carrier, scopedValue, Object.class))
+                .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+        runHandle = lookup.findVirtual(carrier, "run", MethodType.methodType(void.class, Runnable.class))
+                .asType(MethodType.methodType(void.class, Object.class, Runnable.class));
+        orElseHandle = lookup.findVirtual(scopedValue, "orElse", MethodType.methodType(Object.class, Object.class))
+                .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+      }
+      catch (ReflectiveOperationException | RuntimeException ex) {
+        newInstanceHandle = null;
+        whereHandle = null;
+        runHandle = null;
+        orElseHandle = null;
+      }
+    }
+    newInstance = newInstanceHandle;
+    where = whereHandle;
+    run = runHandle;
+    orElse = orElseHandle;
+  }
+
+  private final RequestThreadLocal fallback;
+
+  private final Object scopedValue;
+
+  /**
+   * Create a new instance falling back to a plain {@code ThreadLocal}
+   * outside of any binding.
+   */
+  public ScopedValueRequestThreadLocal() {
+    this(new Default());
+  }
+
+  /**
+   * Create a new instance with the given fallback.
+   *
+   * @param fallback the RequestThreadLocal to use outside of any binding
+   * @throws IllegalStateException if {@code ScopedValue} is not supported
+   */
+  public ScopedValueRequestThreadLocal(RequestThreadLocal fallback) {
+    Assert.notNull(fallback, "fallback RequestThreadLocal is required");
+    Assert.state(isSupported(), "ScopedValue is not supported on this JDK");
+    this.fallback = fallback;
+    try {
+      this.scopedValue = newInstance.invokeExact();
+    }
+    catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  @Override
+  public void remove() {
+    Binding binding = binding();
+    if (binding != UNBOUND) {
+      binding.context = null;
+    }
+    else {
+      fallback.remove();
+    }
+  }
+
+  @Nullable
+  @Override
+  public RequestContext get() {
+    Binding binding = binding();
+    if (binding != UNBOUND) {
+      return binding.context;
+    }
+    return fallback.get();
+  }
+
+  @Override
+  public void set(@Nullable RequestContext context) {
+    Binding binding = binding();
+    if (binding != UNBOUND) {
+      binding.context = context;
+    }
+    else {
+      fallback.set(context);
+    }
+  }
+
+  @Override
+  public void bind(RequestContext context, Runnable action) {
+    try {
+      run.invokeExact(where.invokeExact(scopedValue, (Object) new Binding(context)), action);
+    }
+    catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  private Binding binding() {
+    try {
+      return (Binding) orElse.invokeExact(scopedValue, (Object) UNBOUND);
+    }
+    catch (Throwable ex) {
+      throw rethrow(ex);
+    }
+  }
+
+  /**
+   * Determine whether {@code java.lang.ScopedValue} can be used on this JDK.
+   */
+  public static boolean isSupported() {
+    return newInstance != null;
+  }
+
+  private static RuntimeException rethrow(Throwable ex) {
+    if (ex instanceof RuntimeException runtimeException) {
+      return runtimeException;
+    }
+    if (ex instanceof Error error) {
+      throw error;
+    }
+    return new IllegalStateException(ex);
+  }
+
+  private static final class Binding {
+
+    @Nullable
+    RequestContext context;
+
+    Binding(@Nullable RequestContext context) {
+      this.context = context;
+    }
+  }
+
+}
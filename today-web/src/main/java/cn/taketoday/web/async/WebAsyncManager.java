@@ -365,9 +365,8 @@ public final class WebAsyncManager {
     interceptorChain.applyBeforeConcurrentHandling(requestContext, callable);
     startAsyncProcessing(asyncRequest, processingContext);
     try {
-      Future<?> future = taskExecutor.submit(() -> {
-        // context aware
-        RequestContextHolder.set(requestContext);
+      // context aware
+      Future<?> future = taskExecutor.submit(() -> RequestContextHolder.bind(requestContext, () -> {
         Object result = null;
         try {
           interceptorChain.applyPreProcess(requestContext, callable);
@@ -380,8 +379,7 @@ public final class WebAsyncManager {
           result = interceptorChain.applyPostProcess(requestContext, callable, result);
         }
         setConcurrentResultAndDispatch(result);
-        RequestContextHolder.cleanup();
-      });
+      }));
       interceptorChain.setTaskFuture(future);
     }
     catch (Throwable ex) {
@@ -70,15 +70,17 @@ public class NettyChannelHandler extends DispatcherHandler implements ChannelInb
   public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
     if (msg instanceof FullHttpRequest request) {
       var nettyContext = createContext(ctx, request);
-      RequestContextHolder.set(nettyContext);
-      try {
-        handleRequest(nettyContext); // handling HTTP request
+      if (RequestContextHolder.isScopedValueActive()) {
+        RequestContextHolder.bind(nettyContext, () -> handleHttpRequest(ctx, nettyContext));
       }
-      catch (Throwable e) {
-        exceptionCaught(ctx, e);
-      }
-      finally {
-        RequestContextHolder.cleanup();
+      else {
+        RequestContextHolder.set(nettyContext);
+        try {
+          handleHttpRequest(ctx, nettyContext);
+        }
+        finally {
+          RequestContextHolder.cleanup();
+        }
       }
     }
     else if (msg instanceof WebSocketFrame) {
@@ -90,6 +92,15 @@ public class NettyChannelHandler extends DispatcherHandler implements ChannelInb
     }
   }
 
+  private void handleHttpRequest(ChannelHandlerContext ctx, NettyRequestContext nettyContext) {
+    try {
+      handleRequest(nettyContext); // handling HTTP request
+    }
+    catch (Throwable e) {
+      exceptionCaught(ctx, e);
+    }
+  }
+
   protected void handleWebSocketFrame(ChannelHandlerContext ctx, WebSocketFrame frame) {
     ctx.fireChannelRead(frame);
   }
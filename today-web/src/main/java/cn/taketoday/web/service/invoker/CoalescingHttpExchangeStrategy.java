@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.service.invoker;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.MultiValueMap;
+import cn.taketoday.web.util.UriBuilderFactory;
+
+/**
+ * {@link HttpExchangeStrategy} that lets concurrent identical requests
+ * share a single in-flight exchange ("single-flight").
+ *
+ * <p>Requests are identical when they are made through the same HTTP
+ * service method with equal HTTP method, URI, URI variables, headers,
+ * cookies and attributes. Only requests without a body and with one of the
+ * {@link #setCoalescedMethods coalesced methods} ({@code GET} and
+ * {@code HEAD} by default) are coalesced. Once the exchange completes, the
+ * next call performs a new exchange; results are not cached.
+ *
+ * <p><b>Note:</b> all callers sharing an exchange receive the same
+ * result instance, which should therefore be treated as immutable.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class CoalescingHttpExchangeStrategy implements HttpExchangeStrategy {
+
+  private final ConcurrentHashMap<RequestKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+  private Set<HttpMethod> coalescedMethods = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+
+  /**
+   * Set the HTTP methods eligible for coalescing, which must be idempotent.
+   * <p>Default is {@code GET} and {@code HEAD}.
+   */
+  public void setCoalescedMethods(HttpMethod... methods) {
+    Assert.notNull(methods, "HTTP methods is required");
+    this.coalescedMethods = Set.of(methods);
+  }
+
+  /**
+   * Return the number of exchanges currently shared.
+   */
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  @Nullable
+  @Override
+  public Object execute(Method method, HttpRequestValues requestValues, Function<HttpRequestValues, Object> exchange) {
+    HttpMethod httpMethod = requestValues.getHttpMethod();
+    if (httpMethod == null || requestValues.getBodyValue() != null || !coalescedMethods.contains(httpMethod)) {
+      return exchange.apply(requestValues);
+    }
+
+    RequestKey key = new RequestKey(method, httpMethod, requestValues.getUri(), requestValues.getUriTemplate(),
+            requestValues.getUriBuilderFactory(), requestValues.getUriVariables(), requestValues.getHeaders(),
+            requestValues.getCookies(), requestValues.getAttributes());
+
+    CompletableFuture<Object> leader = new CompletableFuture<>();
+    CompletableFuture<Object> existing = inFlight.putIfAbsent(key, leader);
+    if (existing != null) {
+      return join(existing);
+    }
+
+    try {
+      Object result = exchange.apply(requestValues);
+      leader.complete(result);
+      return result;
+    }
+    catch (Throwable ex) {
+      leader.completeExceptionally(ex);
+      throw ex;
+    }
+    finally {
+      inFlight.remove(key, leader);
+    }
+  }
+
+  @Nullable
+  private static Object join(CompletableFuture<Object> future) {
+    try {
+      return future.join();
+    }
+    catch (CompletionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw ex;
+    }
+  }
+
+  private record RequestKey(Method method, HttpMethod httpMethod, @Nullable URI uri,
+          @Nullable String uriTemplate, @Nullable UriBuilderFactory uriBuilderFactory,
+          Map<String, String> uriVariables, HttpHeaders headers,
+          MultiValueMap<String, String> cookies, Map<String, Object> attributes) {
+
+  }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.service.invoker;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * {@link HttpExchangeStrategy} that sends a duplicate ("hedged") request
+ * when the first one has not completed within a delay derived from the
+ * recent latency of the HTTP service method, and returns whichever
+ * response arrives first. The other exchange is cancelled by interrupting
+ * the thread performing it.
+ *
+ * <p>Latencies are recorded per method in a {@link LatencyHistogram}, one
+ * per call, from the submission of the first request to the first
+ * successful response, so that a winning hedge does not hide the latency
+ * of the request it replaced. A call given up while exchanges were still
+ * running records the time elapsed until then. The hedging delay is the configured {@link #setPercentile percentile} of
+ * those latencies, but at least {@link #setMinDelay minDelay}; no hedge is
+ * sent until {@link #setMinSamples minSamples} latencies were recorded.
+ * Only {@link #setHedgedMethods idempotent methods} without a request body
+ * are hedged. If the first completed exchange fails, the result of the
+ * other one is used.
+ *
+ * <p>Exchanges are performed on the given {@link Executor}, which must not
+ * run tasks in the calling thread.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class HedgingHttpExchangeStrategy implements HttpExchangeStrategy {
+
+  private final Executor executor;
+
+  private final ConcurrentHashMap<Method, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  private final LongAdder hedgeCount = new LongAdder();
+
+  private double percentile = 0.95;
+
+  private Duration minDelay = Duration.ofMillis(5);
+
+  private int minSamples = 20;
+
+  private int windowSize = 1000;
+
+  private Set<HttpMethod> hedgedMethods = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+  public HedgingHttpExchangeStrategy(Executor executor) {
+    Assert.notNull(executor, "Executor is required");
+    this.executor = executor;
+  }
+
+  /**
+   * Set the latency percentile after which a hedged request is sent.
+   * <p>Default is 0.95.
+   */
+  public void setPercentile(double percentile) {
+    Assert.isTrue(percentile > 0 && percentile <= 1, "percentile must be in range (0, 1]");
+    this.percentile = percentile;
+  }
+
+  /**
+   * Set the minimum delay before a hedged request is sent.
+   * <p>Default is 5 milliseconds.
+   */
+  public void setMinDelay(Duration minDelay) {
+    Assert.notNull(minDelay, "minDelay is required");
+    this.minDelay = minDelay;
+  }
+
+  /**
+   * Set the number of recorded latencies required before hedging.
+   * <p>Default is 20.
+   */
+  public void setMinSamples(int minSamples) {
+    this.minSamples = minSamples;
+  }
+
+  /**
+   * Set the number of samples per histogram window.
+   * <p>Default is 1000.
+   *
+   * @see LatencyHistogram
+   */
+  public void setWindowSize(int windowSize) {
+    Assert.isTrue(windowSize > 0, "windowSize must be a positive value");
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Set the HTTP methods eligible for hedging, which must be idempotent.
+   * <p>Default is {@code GET}, {@code HEAD} and {@code OPTIONS}.
+   */
+  public void setHedgedMethods(HttpMethod... methods) {
+    Assert.notNull(methods, "HTTP methods is required");
+    this.hedgedMethods = Set.of(methods);
+  }
+
+  /**
+   * Return the latency histogram of the given HTTP service method, or
+   * {@code null} if it has not been invoked yet.
+   */
+  @Nullable
+  public LatencyHistogram getLatencyHistogram(Method method) {
+    return histograms.get(method);
+  }
+
+  /**
+   * Return the number of hedged requests sent so far.
+   */
+  public long getHedgeCount() {
+    return hedgeCount.sum();
+  }
+
+  @Nullable
+  @Override
+  public Object execute(Method method, HttpRequestValues requestValues, Function<HttpRequestValues, Object> exchange) {
+    HttpMethod httpMethod = requestValues.getHttpMethod();
+    if (httpMethod == null || requestValues.getBodyValue() != null || !hedgedMethods.contains(httpMethod)) {
+      return exchange.apply(requestValues);
+    }
+
+    LatencyHistogram histogram = histograms.computeIfAbsent(method, m -> new LatencyHistogram(windowSize));
+    Duration delay = hedgeDelay(histogram);
+    if (delay == null) {
+      long start = System.nanoTime();
+      Object result = exchange.apply(requestValues);
+      histogram.record(System.nanoTime() - start);
+      return result;
+    }
+
+    Callable<Object> task = () -> exchange.apply(requestValues);
+    var completionService = new ExecutorCompletionService<>(executor);
+    long start = System.nanoTime();
+    Future<Object> primary = completionService.submit(task);
+    Future<Object> hedge = null;
+    boolean recorded = false;
+    try {
+      Future<Object> completed = completionService.poll(delay.toNanos(), TimeUnit.NANOSECONDS);
+      if (completed == null) {
+        hedge = completionService.submit(task);
+        hedgeCount.increment();
+        completed = completionService.take();
+      }
+      Object result;
+      try {
+        result = completed.get();
+      }
+      catch (ExecutionException ex) {
+        if (hedge == null) {
+          throw ex;
+        }
+        // the first response failed, wait for the other one
+        result = completionService.take().get();
+      }
+      histogram.record(System.nanoTime() - start);
+      recorded = true;
+      return result;
+    }
+    catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException("HTTP exchange failed", cause);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for HTTP exchange", ex);
+    }
+    finally {
+      boolean cancelled = primary.cancel(true);
+      if (hedge != null) {
+        cancelled |= hedge.cancel(true);
+      }
+      if (cancelled && !recorded) {
+        // the latency is at least the time waited so far
+        histogram.record(System.nanoTime() - start);
+      }
+    }
+  }
+
+  @Nullable
+  private Duration hedgeDelay(LatencyHistogram histogram) {
+    if (histogram.getCount() < minSamples) {
+      return null;
+    }
+    Duration delay = histogram.percentile(percentile);
+    if (delay == null || delay.compareTo(minDelay) < 0) {
+      return minDelay;
+    }
+    return delay;
+  }
+
+}
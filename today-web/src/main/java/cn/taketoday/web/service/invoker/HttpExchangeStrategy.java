@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.service.invoker;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Strategy to control how an HTTP service method invokes the
+ * {@link HttpExchangeAdapter}, for example to share one exchange between
+ * concurrent identical calls, or to send a hedged duplicate request.
+ *
+ * <p>Strategies are registered through
+ * {@link HttpServiceProxyFactory.Builder#exchangeStrategy(HttpExchangeStrategy)},
+ * and apply to HTTP service methods with a synchronous (blocking) method
+ * signature; reactive return types are composed by the Reactor adapter.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see CoalescingHttpExchangeStrategy
+ * @see HedgingHttpExchangeStrategy
+ * @since 5.0
+ */
+@FunctionalInterface
+public interface HttpExchangeStrategy {
+
+  /**
+   * Perform the exchange for the given request.
+   *
+   * @param method the HTTP service method being invoked
+   * @param requestValues the request to perform
+   * @param exchange performs the actual exchange and adapts the response
+   * to the method return type
+   * @return the value to return from the HTTP service method
+   */
+  @Nullable
+  Object execute(Method method, HttpRequestValues requestValues, Function<HttpRequestValues, Object> exchange);
+
+  /**
+   * Return a strategy that applies this strategy around the given one.
+   *
+   * @param next the strategy to invoke within this strategy
+   */
+  default HttpExchangeStrategy andThen(HttpExchangeStrategy next) {
+    return (method, requestValues, exchange) ->
+            execute(method, requestValues, values -> next.execute(method, values, exchange));
+  }
+
+  /**
+   * Create a strategy that lets concurrent identical idempotent
+   * requests share a single in-flight exchange.
+   */
+  static CoalescingHttpExchangeStrategy coalescing() {
+    return new CoalescingHttpExchangeStrategy();
+  }
+
+  /**
+   * Create a strategy that sends a duplicate request when the first
+   * one is slower than the recent latency percentile of the method.
+   *
+   * @param executor the executor to perform the exchanges on
+   */
+  static HedgingHttpExchangeStrategy hedging(Executor executor) {
+    return new HedgingHttpExchangeStrategy(executor);
+  }
+
+}
@@ -72,7 +72,8 @@ final class HttpServiceMethod {
   private final ResponseFunction responseFunction;
 
   HttpServiceMethod(Method method, Class<?> containingClass, List<HttpServiceArgumentResolver> argumentResolvers,
-          HttpExchangeAdapter adapter, @Nullable StringValueResolver embeddedValueResolver) {
+          HttpExchangeAdapter adapter, @Nullable StringValueResolver embeddedValueResolver,
+          @Nullable HttpExchangeStrategy exchangeStrategy) {
 
     this.method = method;
     this.parameters = initMethodParameters(method);
@@ -88,7 +89,7 @@ final class HttpServiceMethod {
     this.responseFunction =
             isReactorAdapter
                     ? ReactorExchangeResponseFunction.create((ReactorHttpExchangeAdapter) adapter, method)
-                    : ExchangeResponseFunction.create(adapter, method);
+                    : ExchangeResponseFunction.create(adapter, method, exchangeStrategy);
   }
 
   private static MethodParameter[] initMethodParameters(Method method) {
@@ -284,7 +285,8 @@ final class HttpServiceMethod {
     /**
      * Create the {@code ResponseFunction} that matches the method return type.
      */
-    public static ResponseFunction create(HttpExchangeAdapter client, Method method) {
+    public static ResponseFunction create(HttpExchangeAdapter client,
+            Method method, @Nullable HttpExchangeStrategy exchangeStrategy) {
       MethodParameter param = new MethodParameter(method, -1).nestedIfOptional();
       Class<?> paramType = param.getNestedParameterType();
 
@@ -318,6 +320,10 @@ final class HttpServiceMethod {
                 asOptionalIfNecessary(client.exchangeForBody(request, bodyTypeRef), param);
       }
 
+      if (exchangeStrategy != null) {
+        Function<HttpRequestValues, Object> exchange = responseFunction;
+        responseFunction = request -> exchangeStrategy.execute(method, request, exchange);
+      }
       return new ExchangeResponseFunction(responseFunction);
     }
 
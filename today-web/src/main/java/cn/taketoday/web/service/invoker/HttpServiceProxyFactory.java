@@ -63,13 +63,18 @@ public final class HttpServiceProxyFactory {
   @Nullable
   private final StringValueResolver embeddedValueResolver;
 
+  @Nullable
+  private final HttpExchangeStrategy exchangeStrategy;
+
   private HttpServiceProxyFactory(HttpExchangeAdapter exchangeAdapter,
           List<HttpServiceArgumentResolver> argumentResolvers,
-          @Nullable StringValueResolver embeddedValueResolver) {
+          @Nullable StringValueResolver embeddedValueResolver,
+          @Nullable HttpExchangeStrategy exchangeStrategy) {
 
     this.exchangeAdapter = exchangeAdapter;
     this.argumentResolvers = argumentResolvers;
     this.embeddedValueResolver = embeddedValueResolver;
+    this.exchangeStrategy = exchangeStrategy;
   }
 
   /**
@@ -97,8 +102,8 @@ public final class HttpServiceProxyFactory {
     Assert.notNull(this.argumentResolvers,
             "No argument resolvers: afterPropertiesSet was not called");
 
-    return new HttpServiceMethod(
-            method, serviceType, this.argumentResolvers, this.exchangeAdapter, this.embeddedValueResolver);
+    return new HttpServiceMethod(method, serviceType, this.argumentResolvers,
+            this.exchangeAdapter, this.embeddedValueResolver, this.exchangeStrategy);
   }
 
   /**
@@ -131,6 +136,9 @@ public final class HttpServiceProxyFactory {
     @Nullable
     private StringValueResolver embeddedValueResolver;
 
+    @Nullable
+    private HttpExchangeStrategy exchangeStrategy;
+
     /**
      * Provide the HTTP client to perform requests through.
      *
@@ -177,6 +185,24 @@ public final class HttpServiceProxyFactory {
       return this;
     }
 
+    /**
+     * Add an {@link HttpExchangeStrategy} to control how HTTP service methods
+     * with a synchronous method signature perform their exchanges. Strategies
+     * are applied in registration order, the first one being the outermost.
+     *
+     * @param exchangeStrategy the strategy to add
+     * @return this same builder instance
+     * @see HttpExchangeStrategy#coalescing()
+     * @see HttpExchangeStrategy#hedging(java.util.concurrent.Executor)
+     * @since 5.0
+     */
+    public Builder exchangeStrategy(HttpExchangeStrategy exchangeStrategy) {
+      Assert.notNull(exchangeStrategy, "HttpExchangeStrategy is required");
+      this.exchangeStrategy = this.exchangeStrategy != null
+              ? this.exchangeStrategy.andThen(exchangeStrategy) : exchangeStrategy;
+      return this;
+    }
+
     /**
      * Set the {@link ReactiveAdapterRegistry} to use to support different
      * asynchronous types for HTTP service method return values.
@@ -216,7 +242,7 @@ public final class HttpServiceProxyFactory {
       Assert.notNull(exchangeAdapter, "HttpClientAdapter is required");
 
       return new HttpServiceProxyFactory(
-              exchangeAdapter, initArgumentResolvers(), embeddedValueResolver);
+              exchangeAdapter, initArgumentResolvers(), embeddedValueResolver, exchangeStrategy);
     }
 
     /**
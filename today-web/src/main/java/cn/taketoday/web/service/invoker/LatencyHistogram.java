@@ -0,0 +1,141 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.service.invoker;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+
+/**
+ * Lock-free latency histogram with log-linear buckets of about 12%
+ * precision, covering microseconds up to several hours.
+ *
+ * <p>Samples are recorded into a window of {@code windowSize} samples;
+ * once full, it replaces the previous window, so percentiles follow the
+ * recent latency of the last one to two windows.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see HedgingHttpExchangeStrategy
+ * @since 5.0
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKETS = 8;
+
+  private static final int MAX_EXPONENT = 36;
+
+  private static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - 2) * SUB_BUCKETS;
+
+  private final int windowSize;
+
+  private volatile Window current = new Window();
+
+  private volatile Window previous = new Window();
+
+  /**
+   * Create a histogram with the given window size.
+   *
+   * @param windowSize the number of samples per window
+   */
+  public LatencyHistogram(int windowSize) {
+    Assert.isTrue(windowSize > 0, "windowSize must be a positive value");
+    this.windowSize = windowSize;
+  }
+
+  /**
+   * Record a latency sample.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public void record(long nanos) {
+    Window window = this.current;
+    window.counts.incrementAndGet(bucketIndex(TimeUnit.NANOSECONDS.toMicros(nanos)));
+    if (window.total.incrementAndGet() == windowSize) {
+      synchronized(this) {
+        this.previous = window;
+        this.current = new Window();
+      }
+    }
+  }
+
+  /**
+   * Return the number of samples in the current and previous window.
+   */
+  public long getCount() {
+    return current.total.get() + previous.total.get();
+  }
+
+  /**
+   * Return the latency at the given percentile.
+   *
+   * @param percentile the percentile, between 0 and 1
+   * @return the latency upper bound, or {@code null} if no samples were recorded
+   */
+  @Nullable
+  public Duration percentile(double percentile) {
+    Assert.isTrue(percentile > 0 && percentile <= 1, "percentile must be in range (0, 1]");
+    Window current = this.current;
+    Window previous = this.previous;
+    long total = current.total.get() + previous.total.get();
+    if (total == 0) {
+      return null;
+    }
+    long rank = (long) Math.ceil(percentile * total);
+    long cumulative = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      cumulative += current.counts.get(i) + previous.counts.get(i);
+      if (cumulative >= rank) {
+        return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(bucketUpperBound(i)));
+      }
+    }
+    return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(bucketUpperBound(BUCKETS - 1)));
+  }
+
+  static int bucketIndex(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) Math.max(0, micros);
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int subBucket = (int) ((micros >>> (exponent - 3)) & (SUB_BUCKETS - 1));
+    return SUB_BUCKETS + (exponent - 3) * SUB_BUCKETS + subBucket;
+  }
+
+  static long bucketUpperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int exponent = (index - SUB_BUCKETS) / SUB_BUCKETS + 3;
+    int subBucket = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    return ((SUB_BUCKETS + subBucket + 1L) << (exponent - 3)) - 1;
+  }
+
+  private static final class Window {
+
+    final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    final AtomicLong total = new AtomicLong();
+  }
+
+}
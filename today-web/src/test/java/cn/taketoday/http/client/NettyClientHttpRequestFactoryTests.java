@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.http.HttpStatus;
+import cn.taketoday.util.concurrent.Future;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class NettyClientHttpRequestFactoryTests extends AbstractHttpRequestFactoryTests {
+
+  @Override
+  protected ClientHttpRequestFactory createRequestFactory() {
+    return new NettyClientHttpRequestFactory();
+  }
+
+  @Override
+  @Test
+  public void httpMethods() throws Exception {
+    super.httpMethods();
+    assertHttpMethod("patch", HttpMethod.PATCH);
+  }
+
+  @Test
+  void connectionReused() throws Exception {
+    URI uri = URI.create(baseUrl + "/methods/get");
+    for (int i = 0; i < 3; i++) {
+      ClientHttpRequest request = factory.createRequest(uri, HttpMethod.GET);
+      try (ClientHttpResponse response = request.execute()) {
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+      }
+    }
+
+    var metrics = ((NettyClientHttpRequestFactory) factory).getPoolMetrics(uri);
+    assertThat(metrics).isNotNull();
+    assertThat(metrics.leased()).isZero();
+    assertThat(metrics.idle()).isEqualTo(1);
+    assertThat(metrics.pendingAcquires()).isZero();
+    assertThat(metrics.total()).isEqualTo(1);
+  }
+
+  @Test
+  void blockingOnAnyEventLoopRejected() throws Exception {
+    NioEventLoopGroup otherGroup = new NioEventLoopGroup(1);
+    try {
+      ClientHttpRequest request = factory.createRequest(URI.create(baseUrl + "/methods/get"), HttpMethod.GET);
+      Throwable failure = otherGroup.submit(() -> {
+        try (ClientHttpResponse ignored = request.execute()) {
+          return null;
+        }
+        catch (Throwable e) {
+          return e;
+        }
+      }).get(5, TimeUnit.SECONDS);
+      assertThat(failure).isInstanceOf(IllegalStateException.class)
+              .hasMessageContaining("event loop");
+
+      var clientGroup = ((NettyClientHttpRequestFactory) factory).getEventLoopGroup();
+      assertThat(clientGroup.submit(() -> NettyClientHttpRequest.isEventLoopThread(clientGroup))
+              .get(5, TimeUnit.SECONDS)).isTrue();
+      assertThat(NettyClientHttpRequest.isEventLoopThread(clientGroup)).isFalse();
+    }
+    finally {
+      otherGroup.shutdownGracefully();
+    }
+  }
+
+  @Test
+  void executeAsyncOnEventLoop() throws Exception {
+    NioEventLoopGroup otherGroup = new NioEventLoopGroup(1);
+    try {
+      NettyClientHttpRequest request = ((NettyClientHttpRequestFactory) factory)
+              .createRequest(URI.create(baseUrl + "/methods/get"), HttpMethod.GET);
+      Future<ClientHttpResponse> future = otherGroup.submit(request::executeAsync).get(5, TimeUnit.SECONDS);
+      try (ClientHttpResponse response = future.get(5, TimeUnit.SECONDS)) {
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+      }
+    }
+    finally {
+      otherGroup.shutdownGracefully();
+    }
+  }
+
+  @Test
+  void pipelinedOnSingleConnection() throws Exception {
+    var requestFactory = (NettyClientHttpRequestFactory) factory;
+    requestFactory.setMaxConnectionsPerHost(1);
+    requestFactory.setMaxPipelinedRequests(4);
+    URI uri = URI.create(baseUrl + "/methods/get");
+
+    List<Future<ClientHttpResponse>> futures = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      futures.add(requestFactory.createRequest(uri, HttpMethod.GET).executeAsync());
+    }
+    for (Future<ClientHttpResponse> future : futures) {
+      try (ClientHttpResponse response = future.get(5, TimeUnit.SECONDS)) {
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+      }
+    }
+
+    var metrics = requestFactory.getPoolMetrics(uri);
+    assertThat(metrics).isNotNull();
+    assertThat(metrics.total()).isEqualTo(1);
+    assertThat(metrics.pendingAcquires()).isZero();
+  }
+
+  @Test
+  void idleConnectionClosedAndPoolRetired() throws Exception {
+    var requestFactory = (NettyClientHttpRequestFactory) factory;
+    requestFactory.setMaxIdleTime(Duration.ofMillis(100));
+    URI uri = URI.create(baseUrl + "/methods/get");
+    try (ClientHttpResponse response = requestFactory.createRequest(uri, HttpMethod.GET).execute()) {
+      assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+    assertThat(requestFactory.getPoolMetrics(uri)).isNotNull();
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (requestFactory.getPoolMetrics(uri) != null && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(requestFactory.getPoolMetrics(uri)).isNull();
+
+    try (ClientHttpResponse response = requestFactory.createRequest(uri, HttpMethod.GET).execute()) {
+      assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+  }
+
+  @Test
+  void sharedEventLoopGroupNotShutdown() throws Exception {
+    NioEventLoopGroup group = new NioEventLoopGroup(1);
+    try {
+      NettyClientHttpRequestFactory requestFactory = new NettyClientHttpRequestFactory(group);
+      ClientHttpRequest request = requestFactory.createRequest(URI.create(baseUrl + "/methods/get"), HttpMethod.GET);
+      try (ClientHttpResponse response = request.execute()) {
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+      }
+      requestFactory.destroy();
+      assertThat(group.isShuttingDown()).isFalse();
+      assertThat(requestFactory.getPoolMetrics()).isEmpty();
+    }
+    finally {
+      group.shutdownGracefully();
+    }
+  }
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.http.client.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import cn.taketoday.cache.concurrent.ConcurrentMapCache;
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.http.HttpRequest;
+import cn.taketoday.http.HttpStatusCode;
+import cn.taketoday.http.client.ClientHttpRequestExecution;
+import cn.taketoday.http.client.ClientHttpResponse;
+import cn.taketoday.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class CachingClientHttpRequestInterceptorTests {
+
+  private final MutableClock clock = new MutableClock();
+
+  private final InMemoryClientHttpResponseCache cache = new InMemoryClientHttpResponseCache();
+
+  private final CachingClientHttpRequestInterceptor interceptor = new CachingClientHttpRequestInterceptor(cache);
+
+  private final TestExecution execution = new TestExecution();
+
+  {
+    interceptor.setClock(clock);
+  }
+
+  @Test
+  void freshResponseServedFromCache() throws IOException {
+    execution.next(200, "body", headers -> headers.setCacheControl("max-age=60"));
+
+    assertThat(body(execute(HttpMethod.GET))).isEqualTo("body");
+    clock.advance(Duration.ofSeconds(30));
+    ClientHttpResponse response = execute(HttpMethod.GET);
+
+    assertThat(body(response)).isEqualTo("body");
+    assertThat(response.getHeaders().getFirst(HttpHeaders.AGE)).isEqualTo("30");
+    assertThat(execution.requests).hasSize(1);
+  }
+
+  @Test
+  void staleResponseRevalidatedWithETag() throws IOException {
+    execution.next(200, "body", headers -> {
+      headers.setCacheControl("max-age=10");
+      headers.setETag("\"v1\"");
+    });
+    execute(HttpMethod.GET);
+    clock.advance(Duration.ofSeconds(11));
+
+    execution.next(304, "", headers -> headers.setCacheControl("max-age=20"));
+    ClientHttpResponse response = execute(HttpMethod.GET);
+
+    assertThat(execution.requests).hasSize(2);
+    assertThat(execution.requests.get(1).getFirst(HttpHeaders.IF_NONE_MATCH)).isEqualTo("\"v1\"");
+    assertThat(response.getRawStatusCode()).isEqualTo(200);
+    assertThat(body(response)).isEqualTo("body");
+    assertThat(response.getHeaders().getCacheControl()).isEqualTo("max-age=20");
+
+    clock.advance(Duration.ofSeconds(15));
+    execute(HttpMethod.GET);
+    assertThat(execution.requests).hasSize(2);
+  }
+
+  @Test
+  void noCacheAlwaysRevalidatedWithLastModified() throws IOException {
+    execution.next(200, "body", headers -> {
+      headers.setCacheControl("no-cache");
+      headers.set(HttpHeaders.LAST_MODIFIED, "Wed, 21 Oct 2015 07:28:00 GMT");
+    });
+    execute(HttpMethod.GET);
+
+    execution.next(304, "", headers -> { });
+    execute(HttpMethod.GET);
+
+    assertThat(execution.requests).hasSize(2);
+    assertThat(execution.requests.get(1).getFirst(HttpHeaders.IF_MODIFIED_SINCE))
+            .isEqualTo("Wed, 21 Oct 2015 07:28:00 GMT");
+  }
+
+  @Test
+  void varySelectsStoredResponse() throws IOException {
+    execution.next(200, "json", headers -> {
+      headers.setCacheControl("max-age=60");
+      headers.setVary("Accept");
+    });
+    execute(HttpMethod.GET, headers -> headers.set(HttpHeaders.ACCEPT, "application/json"));
+    execute(HttpMethod.GET, headers -> headers.set(HttpHeaders.ACCEPT, "application/json"));
+    assertThat(execution.requests).hasSize(1);
+
+    execution.next(200, "xml", headers -> headers.setCacheControl("max-age=60"));
+    assertThat(body(execute(HttpMethod.GET, headers -> headers.set(HttpHeaders.ACCEPT, "application/xml"))))
+            .isEqualTo("xml");
+    assertThat(execution.requests).hasSize(2);
+  }
+
+  @Test
+  void varyKeepsVariantsPerUri() throws IOException {
+    execution.next(200, "json", headers -> {
+      headers.setCacheControl("max-age=60");
+      headers.setVary("Accept");
+    });
+    execute(HttpMethod.GET, headers -> headers.set(HttpHeaders.ACCEPT, "application/json"));
+    execution.next(200, "xml", headers -> {
+      headers.setCacheControl("max-age=60");
+      headers.setVary("Accept");
+    });
+    execute(HttpMethod.GET, headers -> headers.set(HttpHeaders.ACCEPT, "application/xml"));
+
+    assertThat(body(execute(HttpMethod.GET, headers -> headers.set(HttpHeaders.ACCEPT, "application/json"))))
+            .isEqualTo("json");
+    assertThat(body(execute(HttpMethod.GET, headers -> headers.set(HttpHeaders.ACCEPT, "application/xml"))))
+            .isEqualTo("xml");
+    assertThat(execution.requests).hasSize(2);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.getTotalBodySize()).isEqualTo(7);
+  }
+
+  @Test
+  void authorizedResponseNotStoredUnlessExplicitlyAllowed() throws IOException {
+    execution.next(200, "secret", headers -> headers.setCacheControl("max-age=60"));
+    execute(HttpMethod.GET, headers -> headers.setBearerAuth("alice"));
+    assertThat(cache.size()).isZero();
+
+    execution.next(200, "shared", headers -> headers.setCacheControl("public, max-age=60"));
+    execute(HttpMethod.GET, headers -> headers.setBearerAuth("alice"));
+    assertThat(body(execute(HttpMethod.GET))).isEqualTo("shared");
+    assertThat(execution.requests).hasSize(2);
+  }
+
+  @Test
+  void revalidationDoesNotModifyCallerRequest() throws IOException {
+    execution.next(200, "body", headers -> {
+      headers.setCacheControl("max-age=10");
+      headers.setETag("\"v1\"");
+    });
+    execute(HttpMethod.GET);
+    clock.advance(Duration.ofSeconds(11));
+
+    execution.next(304, "", headers -> { });
+    TestRequest request = new TestRequest(HttpMethod.GET);
+    interceptor.intercept(request, new byte[0], execution);
+
+    assertThat(execution.requests.get(1).getFirst(HttpHeaders.IF_NONE_MATCH)).isEqualTo("\"v1\"");
+    assertThat(request.headers.containsKey(HttpHeaders.IF_NONE_MATCH)).isFalse();
+  }
+
+  @Test
+  void noStoreAndVaryStarNotStored() throws IOException {
+    execution.next(200, "body", headers -> headers.setCacheControl("no-store, max-age=60"));
+    execute(HttpMethod.GET);
+    execution.next(200, "body", headers -> {
+      headers.setCacheControl("max-age=60");
+      headers.setVary("*");
+    });
+    execute(HttpMethod.GET);
+
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void bodyLargerThanLimitPassedThrough() throws IOException {
+    interceptor.setMaxBodySize(4);
+    execution.next(200, "too large", headers -> headers.setCacheControl("max-age=60"));
+
+    assertThat(body(execute(HttpMethod.GET))).isEqualTo("too large");
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void unsafeMethodInvalidates() throws IOException {
+    execution.next(200, "body", headers -> headers.setCacheControl("max-age=60"));
+    execute(HttpMethod.GET);
+    assertThat(cache.size()).isEqualTo(1);
+
+    execution.next(204, "", headers -> { });
+    execute(HttpMethod.POST);
+    assertThat(cache.size()).isZero();
+  }
+
+  @Test
+  void requestNoCacheForcesRevalidation() throws IOException {
+    execution.next(200, "body", headers -> {
+      headers.setCacheControl("max-age=60");
+      headers.setETag("\"v1\"");
+    });
+    execute(HttpMethod.GET);
+    execution.next(304, "", headers -> { });
+    execute(HttpMethod.GET, headers -> headers.setCacheControl("no-cache"));
+
+    assertThat(execution.requests).hasSize(2);
+  }
+
+  @Test
+  void backedByCache() throws IOException {
+    ConcurrentMapCache target = new ConcurrentMapCache("http");
+    CachingClientHttpRequestInterceptor interceptor =
+            new CachingClientHttpRequestInterceptor(ClientHttpResponseCache.forCache(target));
+    execution.next(200, "body", headers -> headers.setCacheControl("max-age=60"));
+
+    interceptor.intercept(new TestRequest(HttpMethod.GET), new byte[0], execution);
+    ClientHttpResponse response = interceptor.intercept(new TestRequest(HttpMethod.GET), new byte[0], execution);
+
+    assertThat(body(response)).isEqualTo("body");
+    assertThat(execution.requests).hasSize(1);
+    assertThat(target.get(URI.create("https://example.com/data").toASCIIString())).isNotNull();
+  }
+
+  @Test
+  void inMemoryCacheBounded() {
+    InMemoryClientHttpResponseCache cache = new InMemoryClientHttpResponseCache(2, 10);
+    cache.put("a", entry(4));
+    cache.put("b", entry(4));
+    cache.put("c", entry(4));
+
+    assertThat(cache.get("a")).isNull();
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getTotalBodySize()).isEqualTo(8);
+
+    cache.put("d", entry(8));
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.getTotalBodySize()).isEqualTo(8);
+  }
+
+  private static CachedClientHttpResponse entry(int size) {
+    return new CachedClientHttpResponse(200, "OK", HttpHeaders.forWritable(), new byte[size], Map.of(), 0, 0);
+  }
+
+  private ClientHttpResponse execute(HttpMethod method) throws IOException {
+    return execute(method, headers -> { });
+  }
+
+  private ClientHttpResponse execute(HttpMethod method, HeadersCustomizer customizer) throws IOException {
+    TestRequest request = new TestRequest(method);
+    customizer.customize(request.headers);
+    return interceptor.intercept(request, new byte[0], execution);
+  }
+
+  private static String body(ClientHttpResponse response) throws IOException {
+    return StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+  }
+
+  interface HeadersCustomizer {
+
+    void customize(HttpHeaders headers);
+  }
+
+  static class TestRequest implements HttpRequest {
+
+    final HttpMethod method;
+
+    final HttpHeaders headers = HttpHeaders.forWritable();
+
+    TestRequest(HttpMethod method) {
+      this.method = method;
+    }
+
+    @Override
+    public HttpMethod getMethod() {
+      return method;
+    }
+
+    @Override
+    public URI getURI() {
+      return URI.create("https://example.com/data");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+
+  static class TestExecution implements ClientHttpRequestExecution {
+
+    final List<HttpHeaders> requests = new ArrayList<>();
+
+    int status;
+
+    String body;
+
+    HttpHeaders headers;
+
+    void next(int status, String body, HeadersCustomizer customizer) {
+      this.status = status;
+      this.body = body;
+      this.headers = HttpHeaders.forWritable();
+      customizer.customize(headers);
+    }
+
+    @Override
+    public ClientHttpResponse execute(HttpRequest request, byte[] body) {
+      HttpHeaders copy = HttpHeaders.forWritable();
+      copy.putAll(request.getHeaders());
+      requests.add(copy);
+      return new TestResponse(status, headers, this.body.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  record TestResponse(int status, HttpHeaders headers, byte[] body) implements ClientHttpResponse {
+
+    @Override
+    public HttpStatusCode getStatusCode() {
+      return HttpStatusCode.valueOf(status);
+    }
+
+    @Override
+    public String getStatusText() {
+      return "";
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    @Override
+    public InputStream getBody() {
+      return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+  static class MutableClock extends Clock {
+
+    private Instant instant = Instant.parse("2024-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      instant = instant.plus(duration);
+    }
+
+    @Override
+    public ZoneOffset getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+
+}
@@ -19,9 +19,13 @@ package cn.taketoday.web;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import cn.taketoday.test.classpath.ClassPathExclusions;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
 
 /**
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
@@ -42,4 +46,60 @@ class RequestThreadLocalTests {
     assertThat(requestThreadLocal).isInstanceOf(RequestThreadLocal.Default.class);
   }
 
+  @Test
+  void bindRestoresPrevious() {
+    RequestThreadLocal threadLocal = new RequestThreadLocal.Default();
+    RequestContext outer = mock();
+    RequestContext inner = mock();
+
+    threadLocal.bind(outer, () -> {
+      assertThat(threadLocal.get()).isSameAs(outer);
+      threadLocal.bind(inner, () -> assertThat(threadLocal.get()).isSameAs(inner));
+      assertThat(threadLocal.get()).isSameAs(outer);
+    });
+    assertThat(threadLocal.get()).isNull();
+  }
+
+  @Test
+  void scopedValue() {
+    assumeTrue(ScopedValueRequestThreadLocal.isSupported());
+    RequestThreadLocal fallback = new RequestThreadLocal.Default();
+    ScopedValueRequestThreadLocal threadLocal = new ScopedValueRequestThreadLocal(fallback);
+    RequestContext context = mock();
+    RequestContext replaced = mock();
+    RequestContext unbound = mock();
+
+    threadLocal.set(unbound);
+    threadLocal.bind(context, () -> {
+      assertThat(threadLocal.get()).isSameAs(context);
+      threadLocal.set(replaced);
+      assertThat(threadLocal.get()).isSameAs(replaced);
+      threadLocal.remove();
+      assertThat(threadLocal.get()).isNull();
+      assertThat(fallback.get()).isSameAs(unbound);
+    });
+    assertThat(threadLocal.get()).isSameAs(unbound);
+    threadLocal.remove();
+    assertThat(fallback.get()).isNull();
+  }
+
+  @Test
+  void taskDecoratorPropagatesContext() throws Exception {
+    RequestContext context = mock();
+    AtomicReference<RequestContext> captured = new AtomicReference<>();
+    RequestContextTaskDecorator decorator = new RequestContextTaskDecorator();
+
+    Runnable task = () -> captured.set(RequestContextHolder.get());
+    assertThat(decorator.decorate(task)).isSameAs(task);
+
+    AtomicReference<Runnable> decorated = new AtomicReference<>();
+    RequestContextHolder.bind(context, () -> decorated.set(decorator.decorate(task)));
+    Thread thread = new Thread(decorated.get());
+    thread.start();
+    thread.join();
+
+    assertThat(captured.get()).isSameAs(context);
+    assertThat(RequestContextHolder.get()).isNull();
+  }
+
 }
\ No newline at end of file
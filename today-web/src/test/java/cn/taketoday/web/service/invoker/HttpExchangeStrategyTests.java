@@ -0,0 +1,278 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.service.invoker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import cn.taketoday.http.HttpMethod;
+import cn.taketoday.util.ReflectionUtils;
+import cn.taketoday.web.service.annotation.GetExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * Tests for {@link CoalescingHttpExchangeStrategy}, {@link HedgingHttpExchangeStrategy}
+ * and {@link LatencyHistogram}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class HttpExchangeStrategyTests {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  private final Method method = ReflectionUtils.findMethod(Service.class, "getBody");
+
+  @AfterEach
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void coalescingSharesInFlightExchange() throws Exception {
+    CoalescingHttpExchangeStrategy strategy = HttpExchangeStrategy.coalescing();
+    AtomicInteger exchanges = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    List<Future<Object>> results = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      results.add(executor.submit(() -> strategy.execute(method, get("/data"), values -> {
+        exchanges.incrementAndGet();
+        await(release);
+        return "body";
+      })));
+    }
+    while (strategy.getInFlightCount() == 0) {
+      Thread.sleep(1);
+    }
+    Thread.sleep(50);
+    release.countDown();
+
+    for (Future<Object> result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("body");
+    }
+    assertThat(exchanges.get()).isEqualTo(1);
+    assertThat(strategy.getInFlightCount()).isZero();
+  }
+
+  @Test
+  void coalescingIgnoresDifferentRequestsAndUnsafeMethods() {
+    CoalescingHttpExchangeStrategy strategy = HttpExchangeStrategy.coalescing();
+    AtomicInteger exchanges = new AtomicInteger();
+
+    strategy.execute(method, get("/a"), values -> exchanges.incrementAndGet());
+    strategy.execute(method, get("/b"), values -> exchanges.incrementAndGet());
+    HttpRequestValues post = HttpRequestValues.builder()
+            .setHttpMethod(HttpMethod.POST).setUriTemplate("/a").build();
+    strategy.execute(method, post, values -> exchanges.incrementAndGet());
+
+    assertThat(exchanges.get()).isEqualTo(3);
+  }
+
+  @Test
+  void coalescingPropagatesFailure() {
+    CoalescingHttpExchangeStrategy strategy = HttpExchangeStrategy.coalescing();
+    assertThatIllegalArgumentException().isThrownBy(() ->
+            strategy.execute(method, get("/data"), values -> {
+              throw new IllegalArgumentException("failed");
+            }));
+    assertThat(strategy.getInFlightCount()).isZero();
+  }
+
+  @Test
+  void hedgingRecordsLatencyBeforeHedging() {
+    HedgingHttpExchangeStrategy strategy = HttpExchangeStrategy.hedging(executor);
+    strategy.setMinSamples(5);
+    for (int i = 0; i < 5; i++) {
+      assertThat(strategy.execute(method, get("/data"), values -> "body")).isEqualTo("body");
+    }
+
+    LatencyHistogram histogram = strategy.getLatencyHistogram(method);
+    assertThat(histogram).isNotNull();
+    assertThat(histogram.getCount()).isEqualTo(5);
+    assertThat(strategy.getHedgeCount()).isZero();
+  }
+
+  @Test
+  void hedgingTakesFirstResponseAndCancelsOther() {
+    HedgingHttpExchangeStrategy strategy = HttpExchangeStrategy.hedging(executor);
+    strategy.setMinSamples(1);
+    strategy.setMinDelay(Duration.ofMillis(10));
+    strategy.execute(method, get("/data"), values -> "warmup");
+
+    AtomicInteger attempts = new AtomicInteger();
+    AtomicInteger interrupted = new AtomicInteger();
+    Object result = strategy.execute(method, get("/data"), values -> {
+      if (attempts.incrementAndGet() == 1) {
+        try {
+          Thread.sleep(5000);
+        }
+        catch (InterruptedException e) {
+          interrupted.incrementAndGet();
+        }
+        return "slow";
+      }
+      return "fast";
+    });
+
+    assertThat(result).isEqualTo("fast");
+    assertThat(attempts.get()).isEqualTo(2);
+    assertThat(strategy.getHedgeCount()).isEqualTo(1);
+    await(() -> interrupted.get() == 1);
+  }
+
+  @Test
+  void hedgingRecordsEndToEndLatencyOncePerCall() {
+    HedgingHttpExchangeStrategy strategy = HttpExchangeStrategy.hedging(executor);
+    strategy.setMinSamples(1);
+    strategy.setMinDelay(Duration.ofMillis(50));
+    strategy.execute(method, get("/data"), values -> "warmup");
+
+    AtomicInteger attempts = new AtomicInteger();
+    Object result = strategy.execute(method, get("/data"), values -> {
+      if (attempts.incrementAndGet() == 1) {
+        try {
+          Thread.sleep(5000);
+        }
+        catch (InterruptedException ignored) {
+        }
+        return "slow";
+      }
+      return "fast";
+    });
+
+    assertThat(result).isEqualTo("fast");
+    LatencyHistogram histogram = strategy.getLatencyHistogram(method);
+    assertThat(histogram).isNotNull();
+    // the winning hedge is measured from the first request, the slow one is not recorded again
+    assertThat(histogram.getCount()).isEqualTo(2);
+    assertThat(histogram.percentile(1.0)).isGreaterThanOrEqualTo(Duration.ofMillis(50));
+  }
+
+  @Test
+  void hedgingFallsBackWhenFirstResponseFails() {
+    HedgingHttpExchangeStrategy strategy = HttpExchangeStrategy.hedging(executor);
+    strategy.setMinSamples(1);
+    strategy.setMinDelay(Duration.ofMillis(10));
+    strategy.execute(method, get("/data"), values -> "warmup");
+
+    AtomicInteger attempts = new AtomicInteger();
+    Object result = strategy.execute(method, get("/data"), values -> {
+      if (attempts.incrementAndGet() == 1) {
+        try {
+          Thread.sleep(200);
+        }
+        catch (InterruptedException ignored) {
+        }
+        return "slow";
+      }
+      throw new IllegalStateException("replica down");
+    });
+
+    assertThat(result).isEqualTo("slow");
+  }
+
+  @Test
+  void strategiesApplyToServiceProxy() {
+    TestExchangeAdapter adapter = new TestExchangeAdapter();
+    List<String> applied = new ArrayList<>();
+    Service service = HttpServiceProxyFactory.forAdapter(adapter)
+            .exchangeStrategy((method, values, exchange) -> {
+              applied.add("first");
+              return exchange.apply(values);
+            })
+            .exchangeStrategy((method, values, exchange) -> {
+              applied.add("second");
+              return exchange.apply(values);
+            })
+            .createClient(Service.class);
+
+    assertThat(service.getBody()).isEqualTo("exchangeForBody");
+    assertThat(applied).containsExactly("first", "second");
+  }
+
+  @Test
+  void histogramPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram(1000);
+    assertThat(histogram.percentile(0.5)).isNull();
+
+    for (int i = 1; i <= 100; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+    }
+    Duration p50 = histogram.percentile(0.5);
+    Duration p99 = histogram.percentile(0.99);
+    assertThat(p50.toMillis()).isBetween(50L, 57L);
+    assertThat(p99.toMillis()).isBetween(99L, 112L);
+
+    for (int i = 0; i < 200; i++) {
+      assertThat(LatencyHistogram.bucketIndex(LatencyHistogram.bucketUpperBound(i))).isEqualTo(i);
+    }
+  }
+
+  @Test
+  void histogramWindowRotation() {
+    LatencyHistogram histogram = new LatencyHistogram(10);
+    for (int i = 0; i < 25; i++) {
+      histogram.record(1000);
+    }
+    assertThat(histogram.getCount()).isEqualTo(15);
+  }
+
+  private static HttpRequestValues get(String uri) {
+    return HttpRequestValues.builder().setHttpMethod(HttpMethod.GET).setUriTemplate(uri).build();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(BooleanSupplier condition) {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertThat(System.currentTimeMillis()).isLessThan(deadline);
+      Thread.onSpinWait();
+    }
+  }
+
+  private interface Service {
+
+    @GetExchange("/body")
+    String getBody();
+
+  }
+
+}
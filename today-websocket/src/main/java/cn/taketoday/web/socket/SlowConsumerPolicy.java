@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.socket;
+
+/**
+ * Policy for a session that can't keep up with broadcast messages, that is,
+ * its outbound buffer exceeded the high water mark and the connection is no
+ * longer writable.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see WebSocketSessionGroup
+ * @since 5.0
+ */
+public enum SlowConsumerPolicy {
+
+  /**
+   * Skip the messages until the connection is writable again.
+   */
+  SKIP,
+
+  /**
+   * Keep a bounded number of pending messages, dropping the oldest
+   * when full, and send them once the connection is writable again.
+   */
+  DROP_OLDEST,
+
+  /**
+   * Close the session with {@link CloseStatus#SESSION_NOT_RELIABLE}.
+   */
+  DISCONNECT
+
+}
@@ -159,6 +159,21 @@ public abstract class WebSocketHandler {
     }
   }
 
+  /**
+   * Called when the {@link WebSocketSession#isWritable() writability}
+   * of the session changed, a handler that paused sending because the
+   * session was not writable can resume once it turns writable again.
+   *
+   * @param session the session whose writability changed
+   * @param writable the current writability
+   * @since 5.0
+   */
+  public void onWritabilityChanged(WebSocketSession session, boolean writable) throws Exception {
+    if (delegate != null) {
+      delegate.onWritabilityChanged(session, writable);
+    }
+  }
+
   protected void throwNotSupportMessage(Message<?> message) {
     throw new IllegalArgumentException("Not support message: " + message);
   }
@@ -26,6 +26,7 @@ import cn.taketoday.core.AttributeAccessorSupport;
 import cn.taketoday.http.HttpHeaders;
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.util.AlternativeJdkIdGenerator;
+import cn.taketoday.util.concurrent.Future;
 
 /**
  * A WebSocket session abstraction. Allows sending messages over a WebSocket
@@ -110,6 +111,56 @@ public abstract class WebSocketSession extends AttributeAccessorSupport implemen
     }
   }
 
+  /**
+   * Send a message without blocking, a partial message is sent as a
+   * fragment according to its {@link Message#isLast() isLast} flag.
+   * <p>
+   * The returned future completes when the message has been written to
+   * the underlying connection, producers may use it together with
+   * {@link #isWritable()} to pace themselves instead of buffering
+   * messages without bound.
+   * <p>
+   * The default implementation sends the message synchronously.
+   *
+   * @param message the message to be sent
+   * @return the future of the write operation
+   * @since 5.0
+   */
+  public Future<Void> send(Message<?> message) {
+    try {
+      sendPartialMessage(message);
+      return Future.ok();
+    }
+    catch (IOException | RuntimeException e) {
+      return Future.failed(e);
+    }
+  }
+
+  /**
+   * Send a text message without blocking.
+   *
+   * @param text the message to be sent
+   * @return the future of the write operation
+   * @see #send(Message)
+   * @since 5.0
+   */
+  public Future<Void> sendAsync(String text) {
+    return send(new TextMessage(text));
+  }
+
+  /**
+   * Returns {@code true} if a message can be sent immediately without
+   * being queued, when it turns {@code false} producers should wait for
+   * {@link WebSocketHandler#onWritabilityChanged} before sending more.
+   * <p>
+   * The default implementation returns {@link #isOpen()}.
+   *
+   * @since 5.0
+   */
+  public boolean isWritable() {
+    return isOpen();
+  }
+
   /**
    * Send a text message, blocking until all of the message has been transmitted.
    *
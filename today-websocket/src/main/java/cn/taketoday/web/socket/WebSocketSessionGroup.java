@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.socket;
+
+import java.util.Collection;
+
+/**
+ * A named group (topic) of {@link WebSocketSession sessions} that
+ * messages can be broadcast to.
+ * <p>
+ * Sessions are removed automatically once closed.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see SlowConsumerPolicy
+ * @see cn.taketoday.web.socket.server.support.NettyWebSocketSessionGroup
+ * @since 5.0
+ */
+public interface WebSocketSessionGroup {
+
+  /**
+   * Return the name of this group
+   */
+  String getName();
+
+  /**
+   * Add a session to this group
+   *
+   * @param session the session to add
+   * @return {@code true} if the session was not a member of this group
+   */
+  boolean add(WebSocketSession session);
+
+  /**
+   * Remove a session from this group
+   *
+   * @param session the session to remove
+   * @return {@code true} if the session was a member of this group
+   */
+  boolean remove(WebSocketSession session);
+
+  /**
+   * Whether the given session is a member of this group
+   */
+  boolean contains(WebSocketSession session);
+
+  /**
+   * Return the number of sessions in this group
+   */
+  int size();
+
+  /**
+   * Return a snapshot of sessions in this group
+   */
+  Collection<WebSocketSession> getSessions();
+
+  /**
+   * Send a message to all sessions in this group.
+   * <p>
+   * Sending is asynchronous, a session that can't keep up with
+   * the messages is handled by the {@link SlowConsumerPolicy}.
+   *
+   * @param message the message to send, partial messages are not supported
+   */
+  void broadcast(Message<?> message);
+
+  /**
+   * Send a text message to all sessions in this group.
+   *
+   * @param text the text to send
+   * @see #broadcast(Message)
+   */
+  default void broadcast(String text) {
+    broadcast(new TextMessage(text));
+  }
+
+  /**
+   * Close all sessions in this group
+   *
+   * @param status the close status
+   */
+  void close(CloseStatus status);
+
+}
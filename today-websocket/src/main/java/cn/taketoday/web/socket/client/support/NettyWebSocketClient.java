@@ -33,12 +33,15 @@ import cn.taketoday.web.socket.WebSocketExtension;
 import cn.taketoday.web.socket.WebSocketHandler;
 import cn.taketoday.web.socket.WebSocketSession;
 import cn.taketoday.web.socket.client.AbstractWebSocketClient;
+import cn.taketoday.web.socket.server.support.NettyWebSocketSession;
+import cn.taketoday.web.socket.server.support.WebSocketCompression;
 import cn.taketoday.web.socket.server.support.WsNettyChannelHandler;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
@@ -52,7 +55,9 @@ import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakerFactory;
 import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
 import io.netty.handler.codec.http.websocketx.WebSocketVersion;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtensionHandler;
 
 import static cn.taketoday.web.socket.handler.ExceptionWebSocketHandlerDecorator.tryCloseWithError;
 
@@ -105,6 +110,22 @@ public class NettyWebSocketClient extends AbstractWebSocketClient {
    */
   private boolean failOnMissingResponse = HttpClientCodec.DEFAULT_FAIL_ON_MISSING_RESPONSE;
 
+  /**
+   * Maximum length of a frame's payload
+   */
+  private int maxFramePayloadLength = DataSize.ofKilobytes(64).toBytesInt();
+
+  /**
+   * the maximum length of a message reassembled from fragments,
+   * 0 means fragments are handled as partial messages
+   */
+  private int maxMessageSize = 0;
+
+  @Nullable
+  private WebSocketCompression compression;
+
+  private boolean flushCoalescing;
+
   public void setFailOnMissingResponse(boolean failOnMissingResponse) {
     this.failOnMissingResponse = failOnMissingResponse;
   }
@@ -137,6 +158,48 @@ public class NettyWebSocketClient extends AbstractWebSocketClient {
     this.closeOnExpectationFailed = closeOnExpectationFailed;
   }
 
+  /**
+   * Set the maximum length of a frame's payload
+   *
+   * @since 5.0
+   */
+  public void setMaxFramePayloadLength(int maxFramePayloadLength) {
+    this.maxFramePayloadLength = maxFramePayloadLength;
+  }
+
+  /**
+   * Set the maximum length of a message reassembled from fragments.
+   * <p>
+   * With a positive value fragmented messages are aggregated into one
+   * message and the connection is closed if the aggregated content
+   * exceeds this value, 0 means fragments are handled as partial messages.
+   *
+   * @see WebSocketFrameAggregator
+   * @since 5.0
+   */
+  public void setMaxMessageSize(int maxMessageSize) {
+    this.maxMessageSize = maxMessageSize;
+  }
+
+  /**
+   * Set {@code permessage-deflate} options, {@code null} to disable compression.
+   *
+   * @since 5.0
+   */
+  public void setCompression(@Nullable WebSocketCompression compression) {
+    this.compression = compression;
+  }
+
+  /**
+   * Set whether writes issued within the same event loop tick are flushed together
+   *
+   * @see NettyWebSocketSession#setFlushCoalescing(boolean)
+   * @since 5.0
+   */
+  public void setFlushCoalescing(boolean flushCoalescing) {
+    this.flushCoalescing = flushCoalescing;
+  }
+
   public void setSessionDecorator(@Nullable Decorator<WebSocketSession> sessionDecorator) {
     this.sessionDecorator = sessionDecorator;
   }
@@ -168,10 +231,17 @@ public class NettyWebSocketClient extends AbstractWebSocketClient {
 
               @Override
               protected void initChannel(SocketChannel ch) {
-                ch.pipeline()
+                ChannelPipeline pipeline = ch.pipeline()
                         .addLast("httpClientCodec", new HttpClientCodec(httpDecoderConfig, parseHttpAfterConnectRequest, failOnMissingResponse))
-                        .addLast("httpObjectAggregator", new HttpObjectAggregator(maxContentLength, closeOnExpectationFailed))
-                        .addLast("message-handler", handler);
+                        .addLast("httpObjectAggregator", new HttpObjectAggregator(maxContentLength, closeOnExpectationFailed));
+                if (compression != null) {
+                  // installs the negotiated encoder and decoder after itself
+                  pipeline.addLast("wsExtensionHandler", new WebSocketClientExtensionHandler(compression.createClientHandshaker(maxFramePayloadLength)));
+                }
+                if (maxMessageSize > 0) {
+                  pipeline.addLast("wsFrameAggregator", new WebSocketFrameAggregator(maxMessageSize));
+                }
+                pipeline.addLast("message-handler", handler);
                 NettyWebSocketClient.this.initChannel(ch);
               }
             });
@@ -189,12 +259,15 @@ public class NettyWebSocketClient extends AbstractWebSocketClient {
   protected WebSocketClientHandshaker createHandshaker(URI uri, List<String> subProtocols,
           List<WebSocketExtension> extensions, io.netty.handler.codec.http.HttpHeaders customHeaders) {
     return WebSocketClientHandshakerFactory.newHandshaker(uri, WebSocketVersion.V13,
-            StringUtils.collectionToCommaDelimitedString(subProtocols), true, customHeaders);
+            StringUtils.collectionToCommaDelimitedString(subProtocols), true, customHeaders, maxFramePayloadLength);
   }
 
   protected WebSocketSession createSession(HttpHeaders headers, Channel channel, boolean secure,
           @Nullable Decorator<WebSocketSession> sessionDecorator, WebSocketClientHandshaker handshaker) {
-    WebSocketSession session = new NettyClientWebSocketSession(headers, secure, channel, handshaker);
+    NettyClientWebSocketSession nettySession = new NettyClientWebSocketSession(headers, secure, channel, handshaker);
+    nettySession.setFlushCoalescing(flushCoalescing);
+
+    WebSocketSession session = nettySession;
 
     if (sessionDecorator != null) {
       session = sessionDecorator.decorate(session);
@@ -280,6 +353,19 @@ public class NettyWebSocketClient extends AbstractWebSocketClient {
       }
     }
 
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+      if (session != null) {
+        try {
+          handler.onWritabilityChanged(session, ctx.channel().isWritable());
+        }
+        catch (Exception e) {
+          tryCloseWithError(session, e, logger);
+        }
+      }
+      super.channelWritabilityChanged(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
       if (!future.isDone()) {
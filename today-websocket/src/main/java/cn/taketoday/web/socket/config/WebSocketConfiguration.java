@@ -31,6 +31,7 @@ import cn.taketoday.web.socket.WebSocketSession;
 import cn.taketoday.web.socket.server.RequestUpgradeStrategy;
 import cn.taketoday.web.socket.server.support.DefaultHandshakeHandler;
 import cn.taketoday.web.socket.server.support.NettyRequestUpgradeStrategy;
+import cn.taketoday.web.socket.server.support.WebSocketCompression;
 import cn.taketoday.web.socket.server.support.WebSocketHandlerMapping;
 
 /**
@@ -68,8 +69,11 @@ class WebSocketConfiguration {
   @Component
   @ConditionalOnClass(io.netty.handler.codec.http.HttpMethod.class)
   @ConditionalOnMissingBean
-  static RequestUpgradeStrategy nettyRequestUpgradeStrategy(@Nullable Decorator<WebSocketSession> sessionDecorator) {
-    return new NettyRequestUpgradeStrategy(sessionDecorator);
+  static RequestUpgradeStrategy nettyRequestUpgradeStrategy(@Nullable Decorator<WebSocketSession> sessionDecorator,
+          @Nullable WebSocketCompression compression) {
+    NettyRequestUpgradeStrategy strategy = new NettyRequestUpgradeStrategy(sessionDecorator);
+    strategy.setCompression(compression);
+    return strategy;
   }
 
 }
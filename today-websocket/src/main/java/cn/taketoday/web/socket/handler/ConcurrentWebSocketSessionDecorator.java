@@ -26,6 +26,7 @@ import java.util.function.Consumer;
 import cn.taketoday.lang.Nullable;
 import cn.taketoday.logging.Logger;
 import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.util.concurrent.Future;
 import cn.taketoday.web.socket.CloseStatus;
 import cn.taketoday.web.socket.Message;
 import cn.taketoday.web.socket.WebSocketSession;
@@ -166,6 +167,21 @@ public class ConcurrentWebSocketSessionDecorator extends WebSocketSessionDecorat
     while (!this.buffer.isEmpty() && !shouldNotSend());
   }
 
+  /**
+   * Goes through the send buffer, the returned future completes
+   * once the message is sent or buffered.
+   */
+  @Override
+  public Future<Void> send(Message<?> message) {
+    try {
+      sendMessage(message);
+      return Future.ok();
+    }
+    catch (IOException | RuntimeException e) {
+      return Future.failed(e);
+    }
+  }
+
   private boolean shouldNotSend() {
     return (this.limitExceeded || this.closeInProgress);
   }
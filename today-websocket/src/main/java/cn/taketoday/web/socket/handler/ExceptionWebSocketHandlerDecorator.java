@@ -70,6 +70,16 @@ public class ExceptionWebSocketHandlerDecorator extends WebSocketHandler {
     }
   }
 
+  @Override
+  public void onWritabilityChanged(WebSocketSession session, boolean writable) {
+    try {
+      super.onWritabilityChanged(session, writable);
+    }
+    catch (Exception ex) {
+      tryCloseWithError(session, ex, logger);
+    }
+  }
+
   @Override
   public void onClose(WebSocketSession session, CloseStatus closeStatus) {
     try {
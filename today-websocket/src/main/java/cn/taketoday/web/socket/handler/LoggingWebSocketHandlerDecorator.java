@@ -62,6 +62,14 @@ public class LoggingWebSocketHandlerDecorator extends WebSocketHandler {
     super.onError(session, throwable);
   }
 
+  @Override
+  public void onWritabilityChanged(WebSocketSession session, boolean writable) throws Exception {
+    if (logger.isTraceEnabled()) {
+      logger.trace("{} writable: {}", session, writable);
+    }
+    super.onWritabilityChanged(session, writable);
+  }
+
   @Override
   public void onClose(WebSocketSession session, CloseStatus status) throws Exception {
     if (logger.isDebugEnabled()) {
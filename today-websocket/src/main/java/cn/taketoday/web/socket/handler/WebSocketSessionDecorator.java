@@ -28,6 +28,7 @@ import java.util.function.Function;
 import cn.taketoday.core.AttributeAccessor;
 import cn.taketoday.http.HttpHeaders;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.concurrent.Future;
 import cn.taketoday.web.socket.BinaryMessage;
 import cn.taketoday.web.socket.CloseStatus;
 import cn.taketoday.web.socket.Message;
@@ -105,6 +106,16 @@ public class WebSocketSessionDecorator extends WebSocketSession {
     delegate.sendPartialMessage(message);
   }
 
+  @Override
+  public Future<Void> send(Message<?> message) {
+    return delegate.send(message);
+  }
+
+  @Override
+  public boolean isWritable() {
+    return delegate.isWritable();
+  }
+
   @Override
   public void sendText(String text) throws IOException {
     delegate.sendText(text);
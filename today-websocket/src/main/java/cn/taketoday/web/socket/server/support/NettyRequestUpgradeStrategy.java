@@ -18,11 +18,13 @@
 package cn.taketoday.web.socket.server.support;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import cn.taketoday.core.Decorator;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.StringUtils;
 import cn.taketoday.web.RequestContext;
 import cn.taketoday.web.server.support.NettyRequestContext;
 import cn.taketoday.web.socket.WebSocketExtension;
@@ -31,10 +33,16 @@ import cn.taketoday.web.socket.WebSocketSession;
 import cn.taketoday.web.socket.server.HandshakeFailureException;
 import cn.taketoday.web.socket.server.RequestUpgradeStrategy;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.websocketx.WebSocketDecoderConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
 import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
 
 /**
  * Netty RequestUpgradeStrategy
@@ -58,6 +66,17 @@ public class NettyRequestUpgradeStrategy implements RequestUpgradeStrategy {
           .withUTF8Validator(true)
           .build();
 
+  @Nullable
+  private WebSocketCompression compression;
+
+  /**
+   * the maximum length of a message reassembled from fragments,
+   * 0 means fragments are handled as partial messages
+   */
+  private int maxMessageSize = 0;
+
+  private boolean flushCoalescing;
+
   public NettyRequestUpgradeStrategy(@Nullable Decorator<WebSocketSession> sessionDecorator) {
     this.sessionDecorator = sessionDecorator;
   }
@@ -71,9 +90,49 @@ public class NettyRequestUpgradeStrategy implements RequestUpgradeStrategy {
     this.decoderConfig = decoderConfig;
   }
 
+  /**
+   * Set {@code permessage-deflate} options, {@code null} to disable compression.
+   *
+   * @param compression compression options
+   * @since 5.0
+   */
+  public void setCompression(@Nullable WebSocketCompression compression) {
+    this.compression = compression;
+  }
+
+  /**
+   * Set the maximum length of a message reassembled from fragments.
+   * <p>
+   * With a positive value fragmented messages are aggregated into one
+   * message and the connection is closed if the aggregated content
+   * exceeds this value, 0 means fragments are handled as partial messages.
+   * A single frame is still limited by the {@code maxFramePayloadLength}
+   * of the {@link #setDecoderConfig decoder config}.
+   *
+   * @param maxMessageSize the maximum length of the aggregated message
+   * @see WebSocketFrameAggregator
+   * @since 5.0
+   */
+  public void setMaxMessageSize(int maxMessageSize) {
+    this.maxMessageSize = maxMessageSize;
+  }
+
+  /**
+   * Set whether writes issued within the same event loop tick are flushed together
+   *
+   * @see NettyWebSocketSession#setFlushCoalescing(boolean)
+   * @since 5.0
+   */
+  public void setFlushCoalescing(boolean flushCoalescing) {
+    this.flushCoalescing = flushCoalescing;
+  }
+
   protected WebSocketSession createSession(NettyRequestContext context, @Nullable Decorator<WebSocketSession> sessionDecorator) {
-    WebSocketSession session = new NettyWebSocketSession(context.getHeaders(), context.config.secure,
+    NettyWebSocketSession nettySession = new NettyWebSocketSession(context.getHeaders(), context.config.secure,
             context.channelContext.channel());
+    nettySession.setFlushCoalescing(flushCoalescing);
+
+    WebSocketSession session = nettySession;
 
     if (sessionDecorator != null) {
       session = sessionDecorator.decorate(session);
@@ -88,6 +147,9 @@ public class NettyRequestUpgradeStrategy implements RequestUpgradeStrategy {
 
   @Override
   public List<WebSocketExtension> getSupportedExtensions(RequestContext request) {
+    if (compression != null) {
+      return List.of(new WebSocketExtension(WebSocketCompression.PERMESSAGE_DEFLATE));
+    }
     return Collections.emptyList();
   }
 
@@ -106,13 +168,28 @@ public class NettyRequestUpgradeStrategy implements RequestUpgradeStrategy {
     }
 
     FullHttpRequest request = nettyContext.nativeRequest();
-    WebSocketServerHandshaker handShaker = createHandshakeFactory(request, selectedProtocol, selectedExtensions).newHandshaker(request);
+    WebSocketServerExtension extension = negotiateCompression(request);
+    WebSocketServerHandshaker handShaker = createHandshakeFactory(request, selectedProtocol,
+            selectedExtensions, extension != null).newHandshaker(request);
     Channel channel = nettyContext.channelContext.channel();
     if (handShaker == null) {
       WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(channel);
       return null;
     }
     else {
+      // frame handlers don't touch the HTTP upgrade messages, so they can be
+      // installed before the handshake, no frame can slip through in between
+      ChannelPipeline pipeline = channel.pipeline();
+      String handlerName = nettyContext.channelContext.name();
+      if (extension != null) {
+        nettyContext.nettyResponseHeaders.add(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS,
+                toHeaderValue(extension.newReponseData()));
+        pipeline.addBefore(handlerName, "wsExtensionDecoder", extension.newExtensionDecoder());
+        pipeline.addBefore(handlerName, "wsExtensionEncoder", extension.newExtensionEncoder());
+      }
+      if (maxMessageSize > 0) {
+        pipeline.addBefore(handlerName, "wsFrameAggregator", new WebSocketFrameAggregator(maxMessageSize));
+      }
       WebSocketHolder.bind(channel, wsHandler, session);
       handShaker.handshake(channel, request, nettyContext.nettyResponseHeaders, channel.newPromise())
               .addListener(future -> wsHandler.onOpen(session));
@@ -125,4 +202,89 @@ public class NettyRequestUpgradeStrategy implements RequestUpgradeStrategy {
     return new WebSocketServerHandshakerFactory(request.uri(), selectedProtocol, decoderConfig);
   }
 
+  /**
+   * Create the handshaker factory of a connection that may have negotiated
+   * {@code permessage-deflate}, uncompressed connections use
+   * {@link #createHandshakeFactory(FullHttpRequest, String, List)}.
+   *
+   * @param compressed whether {@code permessage-deflate} was negotiated
+   * @since 5.0
+   */
+  protected WebSocketServerHandshakerFactory createHandshakeFactory(FullHttpRequest request,
+          @Nullable String selectedProtocol, List<WebSocketExtension> selectedExtensions, boolean compressed) {
+    WebSocketDecoderConfig decoderConfig = this.decoderConfig;
+    if (!compressed || decoderConfig.allowExtensions()) {
+      return createHandshakeFactory(request, selectedProtocol, selectedExtensions);
+    }
+    // compressed frames have the RSV1 bit set
+    decoderConfig = decoderConfig.toBuilder().allowExtensions(true).build();
+    return new WebSocketServerHandshakerFactory(request.uri(), selectedProtocol, decoderConfig);
+  }
+
+  /**
+   * Negotiate {@code permessage-deflate} with the offers in the request,
+   * the first acceptable offer wins.
+   *
+   * @return the accepted extension or {@code null} if compression is disabled
+   * or the client didn't offer acceptable parameters
+   */
+  @Nullable
+  protected WebSocketServerExtension negotiateCompression(FullHttpRequest request) {
+    WebSocketCompression compression = this.compression;
+    if (compression != null) {
+      PerMessageDeflateServerExtensionHandshaker handshaker = null;
+      for (String header : request.headers().getAll(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS)) {
+        for (String offer : StringUtils.tokenizeToStringArray(header, ",")) {
+          WebSocketExtensionData data = parseExtension(offer);
+          if (WebSocketCompression.PERMESSAGE_DEFLATE.equals(data.name())) {
+            if (handshaker == null) {
+              handshaker = compression.createServerHandshaker(
+                      maxMessageSize > 0 ? maxMessageSize : decoderConfig.maxFramePayloadLength());
+            }
+            WebSocketServerExtension extension = handshaker.handshakeExtension(data);
+            if (extension != null) {
+              return extension;
+            }
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Unlike {@link WebSocketExtension#parseExtensions}, keeps
+   * parameters without value like {@code server_no_context_takeover}
+   */
+  private static WebSocketExtensionData parseExtension(String extension) {
+    String[] parts = StringUtils.tokenizeToStringArray(extension, ";");
+    var parameters = new LinkedHashMap<String, String>(parts.length);
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i];
+      int eqIndex = parameter.indexOf('=');
+      if (eqIndex != -1) {
+        String value = parameter.substring(eqIndex + 1).trim();
+        if (value.length() > 1 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+          value = value.substring(1, value.length() - 1);
+        }
+        parameters.put(parameter.substring(0, eqIndex).trim(), value);
+      }
+      else {
+        parameters.put(parameter, null);
+      }
+    }
+    return new WebSocketExtensionData(parts.length > 0 ? parts[0] : "", parameters);
+  }
+
+  private static String toHeaderValue(WebSocketExtensionData data) {
+    StringBuilder value = new StringBuilder(data.name());
+    for (Map.Entry<String, String> entry : data.parameters().entrySet()) {
+      value.append("; ").append(entry.getKey());
+      if (entry.getValue() != null) {
+        value.append('=').append(entry.getValue());
+      }
+    }
+    return value.toString();
+  }
+
 }
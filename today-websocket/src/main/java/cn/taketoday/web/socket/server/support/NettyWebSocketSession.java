@@ -21,22 +21,30 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 
 import cn.taketoday.http.HttpHeaders;
 import cn.taketoday.lang.Nullable;
+import cn.taketoday.util.concurrent.Future;
+import cn.taketoday.util.concurrent.SettableFuture;
 import cn.taketoday.web.socket.BinaryMessage;
 import cn.taketoday.web.socket.CloseStatus;
+import cn.taketoday.web.socket.Message;
 import cn.taketoday.web.socket.PingMessage;
 import cn.taketoday.web.socket.PongMessage;
+import cn.taketoday.web.socket.TextMessage;
 import cn.taketoday.web.socket.WebSocketSession;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 
 /**
  * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
@@ -48,41 +56,151 @@ public class NettyWebSocketSession extends WebSocketSession {
 
   private final Channel channel;
 
+  private final Runnable flushTask = this::doFlush;
+
+  private boolean flushCoalescing;
+
+  /**
+   * a flush is scheduled, only accessed in the event loop
+   */
+  private boolean flushPending;
+
   protected NettyWebSocketSession(HttpHeaders handshakeHeaders, boolean secure, Channel channel) {
     super(handshakeHeaders);
     this.secure = secure;
     this.channel = channel;
   }
 
+  /**
+   * Set whether writes issued within the same event loop tick are flushed
+   * together, by default every message is flushed immediately.
+   * <p>
+   * Coalescing saves syscalls when a handler sends many small messages
+   * in a row, writes from other threads are handed over to the event loop.
+   *
+   * @param flushCoalescing flush coalescing enabled
+   * @since 5.0
+   */
+  public void setFlushCoalescing(boolean flushCoalescing) {
+    this.flushCoalescing = flushCoalescing;
+  }
+
   @Override
   public void sendText(String text) {
-    channel.writeAndFlush(new TextWebSocketFrame(text));
+    write(new TextWebSocketFrame(text), channel.newPromise());
   }
 
   @Override
   public void sendPartialText(String partialMessage, boolean isLast) {
-    channel.writeAndFlush(new TextWebSocketFrame(isLast, 0, partialMessage));
+    write(new TextWebSocketFrame(isLast, 0, partialMessage), channel.newPromise());
   }
 
   @Override
   public void sendBinary(BinaryMessage data) {
     final ByteBuffer payload = data.getPayload();
-    channel.writeAndFlush(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(payload)));
+    write(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(payload)), channel.newPromise());
   }
 
   @Override
   public void sendPartialBinary(ByteBuffer partialByte, boolean isLast) {
-    channel.writeAndFlush(new BinaryWebSocketFrame(isLast, 0, Unpooled.wrappedBuffer(partialByte)));
+    write(new BinaryWebSocketFrame(isLast, 0, Unpooled.wrappedBuffer(partialByte)), channel.newPromise());
   }
 
   @Override
   public void sendPing(PingMessage message) {
-    channel.writeAndFlush(new PingWebSocketFrame(Unpooled.wrappedBuffer(message.getPayload())));
+    write(new PingWebSocketFrame(Unpooled.wrappedBuffer(message.getPayload())), channel.newPromise());
   }
 
   @Override
   public void sendPong(PongMessage message) {
-    channel.writeAndFlush(new PongWebSocketFrame(Unpooled.wrappedBuffer(message.getPayload())));
+    write(new PongWebSocketFrame(Unpooled.wrappedBuffer(message.getPayload())), channel.newPromise());
+  }
+
+  @Override
+  public Future<Void> send(Message<?> message) {
+    WebSocketFrame frame = createFrame(message);
+    SettableFuture<Void> future = Future.forSettable();
+    ChannelPromise promise = channel.newPromise();
+    promise.addListener(written -> {
+      if (written.isSuccess()) {
+        future.trySuccess(null);
+      }
+      else {
+        future.tryFailure(written.cause());
+      }
+    });
+    write(frame, promise);
+    return future;
+  }
+
+  @Override
+  public boolean isWritable() {
+    return channel.isWritable();
+  }
+
+  /**
+   * Create a frame for the given message, a partial message is
+   * created as a fragment
+   */
+  protected WebSocketFrame createFrame(Message<?> message) {
+    if (message instanceof TextMessage text) {
+      return new TextWebSocketFrame(text.isLast(), 0, text.getPayload());
+    }
+    else if (message instanceof BinaryMessage binary) {
+      return new BinaryWebSocketFrame(binary.isLast(), 0, Unpooled.wrappedBuffer(binary.getPayload()));
+    }
+    else if (message instanceof PingMessage ping) {
+      return new PingWebSocketFrame(Unpooled.wrappedBuffer(ping.getPayload()));
+    }
+    else if (message instanceof PongMessage pong) {
+      return new PongWebSocketFrame(Unpooled.wrappedBuffer(pong.getPayload()));
+    }
+    throw new IllegalStateException("Unexpected WebSocketMessage type: " + message);
+  }
+
+  private void write(WebSocketFrame frame, ChannelPromise promise) {
+    if (!flushCoalescing) {
+      channel.writeAndFlush(frame, promise);
+      return;
+    }
+
+    // writes are issued in the event loop, so that a pending
+    // flush always covers all writes queued before it
+    EventLoop eventLoop = channel.eventLoop();
+    if (eventLoop.inEventLoop()) {
+      writeAndScheduleFlush(frame, promise);
+    }
+    else {
+      try {
+        eventLoop.execute(() -> writeAndScheduleFlush(frame, promise));
+      }
+      catch (RejectedExecutionException e) {
+        frame.release();
+        promise.tryFailure(e);
+      }
+    }
+  }
+
+  private void writeAndScheduleFlush(WebSocketFrame frame, ChannelPromise promise) {
+    channel.write(frame, promise);
+    if (!flushPending) {
+      flushPending = true;
+      channel.eventLoop().execute(flushTask);
+    }
+  }
+
+  private void doFlush() {
+    flushPending = false;
+    channel.flush();
+  }
+
+  /**
+   * Returns the underlying channel
+   *
+   * @since 5.0
+   */
+  Channel channel() {
+    return channel;
   }
 
   @Override
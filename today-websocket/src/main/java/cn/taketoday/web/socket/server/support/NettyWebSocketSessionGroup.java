@@ -0,0 +1,440 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.socket.server.support;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.lang.Nullable;
+import cn.taketoday.logging.Logger;
+import cn.taketoday.logging.LoggerFactory;
+import cn.taketoday.web.socket.BinaryMessage;
+import cn.taketoday.web.socket.CloseStatus;
+import cn.taketoday.web.socket.Message;
+import cn.taketoday.web.socket.PingMessage;
+import cn.taketoday.web.socket.PongMessage;
+import cn.taketoday.web.socket.SlowConsumerPolicy;
+import cn.taketoday.web.socket.TextMessage;
+import cn.taketoday.web.socket.WebSocketSession;
+import cn.taketoday.web.socket.WebSocketSessionGroup;
+import cn.taketoday.web.socket.handler.WebSocketSessionDecorator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoop;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+
+/**
+ * Netty based {@link WebSocketSessionGroup}.
+ * <p>
+ * A broadcast message is encoded once into a pooled {@link ByteBuf}, each
+ * member channel writes a {@link WebSocketFrame#retainedDuplicate() retained duplicate}
+ * of the shared frame. Writes are batched per event loop: one task per event
+ * loop writes to all of its member channels and flushes them afterwards.
+ * <p>
+ * A member channel that is not {@link Channel#isWritable() writable} is
+ * handled by the {@link #setSlowConsumerPolicy SlowConsumerPolicy}, the
+ * high water mark can be set by {@link #setWriteBufferWaterMark}.
+ * <p>
+ * Sessions that are not backed by a Netty channel (possibly decorated) are
+ * sent to one by one through {@link WebSocketSession#sendMessage}.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+public class NettyWebSocketSessionGroup implements WebSocketSessionGroup {
+
+  private static final Logger logger = LoggerFactory.getLogger(NettyWebSocketSessionGroup.class);
+
+  private final String name;
+
+  private final ConcurrentHashMap<String, Member> sessions = new ConcurrentHashMap<>();
+
+  private final ConcurrentHashMap<EventLoop, Set<Member>> eventLoopMembers = new ConcurrentHashMap<>();
+
+  private final Set<Member> otherMembers = ConcurrentHashMap.newKeySet();
+
+  private final LongAdder droppedCount = new LongAdder();
+
+  private ByteBufAllocator allocator = ByteBufAllocator.DEFAULT;
+
+  private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.SKIP;
+
+  private int maxPendingFrames = 16;
+
+  @Nullable
+  private WriteBufferWaterMark writeBufferWaterMark;
+
+  public NettyWebSocketSessionGroup(String name) {
+    Assert.notNull(name, "name is required");
+    this.name = name;
+  }
+
+  /**
+   * Set the allocator of the shared frame content,
+   * default is {@link ByteBufAllocator#DEFAULT}
+   */
+  public void setAllocator(ByteBufAllocator allocator) {
+    Assert.notNull(allocator, "ByteBufAllocator is required");
+    this.allocator = allocator;
+  }
+
+  /**
+   * Set the policy for member channels that are not writable,
+   * default is {@link SlowConsumerPolicy#SKIP}
+   */
+  public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+    Assert.notNull(slowConsumerPolicy, "SlowConsumerPolicy is required");
+    this.slowConsumerPolicy = slowConsumerPolicy;
+  }
+
+  /**
+   * Set the max number of pending frames per session
+   * for {@link SlowConsumerPolicy#DROP_OLDEST}, default is 16
+   */
+  public void setMaxPendingFrames(int maxPendingFrames) {
+    Assert.isTrue(maxPendingFrames > 0, "maxPendingFrames must be a positive value");
+    this.maxPendingFrames = maxPendingFrames;
+  }
+
+  /**
+   * Set the write buffer water mark applied to channels added
+   * afterwards, the channel is not writable once the outbound
+   * buffer exceeds the high water mark.
+   *
+   * @param low low water mark in bytes
+   * @param high high water mark in bytes
+   */
+  public void setWriteBufferWaterMark(int low, int high) {
+    this.writeBufferWaterMark = new WriteBufferWaterMark(low, high);
+  }
+
+  /**
+   * Return the number of frames not sent to slow consumers
+   */
+  public long getDroppedCount() {
+    return droppedCount.sum();
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean add(WebSocketSession session) {
+    Assert.notNull(session, "WebSocketSession is required");
+    NettyWebSocketSession nettySession = WebSocketSessionDecorator.unwrap(session, NettyWebSocketSession.class);
+    Member member = new Member(session, nettySession != null ? nettySession.channel() : null);
+    if (sessions.putIfAbsent(session.getId(), member) != null) {
+      return false;
+    }
+
+    Channel channel = member.channel;
+    if (channel != null) {
+      if (writeBufferWaterMark != null) {
+        channel.config().setWriteBufferWaterMark(writeBufferWaterMark);
+      }
+      eventLoopMembers.computeIfAbsent(channel.eventLoop(), loop -> ConcurrentHashMap.newKeySet()).add(member);
+      channel.pipeline().addLast(member);
+      channel.closeFuture().addListener(future -> remove(session));
+    }
+    else {
+      otherMembers.add(member);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean remove(WebSocketSession session) {
+    Member member = sessions.get(session.getId());
+    if (member == null || !sessions.remove(session.getId(), member)) {
+      return false;
+    }
+
+    Channel channel = member.channel;
+    if (channel != null) {
+      Set<Member> members = eventLoopMembers.get(channel.eventLoop());
+      if (members != null) {
+        members.remove(member);
+      }
+      EventLoop eventLoop = channel.eventLoop();
+      if (eventLoop.inEventLoop()) {
+        member.dispose();
+      }
+      else {
+        try {
+          eventLoop.execute(member::dispose);
+        }
+        catch (RejectedExecutionException e) {
+          member.dispose();
+        }
+      }
+    }
+    else {
+      otherMembers.remove(member);
+    }
+    return true;
+  }
+
+  @Override
+  public boolean contains(WebSocketSession session) {
+    return sessions.containsKey(session.getId());
+  }
+
+  @Override
+  public int size() {
+    return sessions.size();
+  }
+
+  @Override
+  public Collection<WebSocketSession> getSessions() {
+    var result = new ArrayList<WebSocketSession>(sessions.size());
+    for (Member member : sessions.values()) {
+      result.add(member.session);
+    }
+    return result;
+  }
+
+  @Override
+  public void broadcast(Message<?> message) {
+    Assert.notNull(message, "Message is required");
+    if (!eventLoopMembers.isEmpty()) {
+      WebSocketFrame frame = encode(message);
+      try {
+        for (var entry : eventLoopMembers.entrySet()) {
+          Set<Member> members = entry.getValue();
+          if (!members.isEmpty()) {
+            // released by the event loop task
+            frame.retain();
+            try {
+              entry.getKey().execute(() -> write(members, frame));
+            }
+            catch (RejectedExecutionException e) {
+              frame.release();
+            }
+          }
+        }
+      }
+      finally {
+        frame.release();
+      }
+    }
+
+    for (Member member : otherMembers) {
+      try {
+        member.session.sendMessage(message);
+      }
+      catch (IOException e) {
+        logger.debug("Failed to send message to session: {}", member.session, e);
+      }
+    }
+  }
+
+  @Override
+  public void close(CloseStatus status) {
+    for (Member member : sessions.values()) {
+      try {
+        member.session.close(status);
+      }
+      catch (IOException e) {
+        logger.debug("Failed to close session: {}", member.session, e);
+      }
+    }
+  }
+
+  /**
+   * Encode the message into a frame, its content is shared by all channels.
+   *
+   * @param message the message to encode
+   * @return the shared frame
+   */
+  protected WebSocketFrame encode(Message<?> message) {
+    if (message instanceof TextMessage text) {
+      return new TextWebSocketFrame(ByteBufUtil.writeUtf8(allocator, text.getPayload()));
+    }
+    else if (message instanceof BinaryMessage binary) {
+      return new BinaryWebSocketFrame(copy(binary.getPayload()));
+    }
+    else if (message instanceof PingMessage ping) {
+      return new PingWebSocketFrame(copy(ping.getPayload()));
+    }
+    else if (message instanceof PongMessage pong) {
+      return new PongWebSocketFrame(copy(pong.getPayload()));
+    }
+    throw new IllegalStateException("Unexpected WebSocketMessage type: " + message);
+  }
+
+  private ByteBuf copy(ByteBuffer payload) {
+    ByteBuf buffer = allocator.buffer(payload.remaining());
+    buffer.writeBytes(payload.duplicate());
+    return buffer;
+  }
+
+  /**
+   * write the frame to members of one event loop, then flush them
+   */
+  private void write(Set<Member> members, WebSocketFrame frame) {
+    try {
+      for (Member member : members) {
+        member.write(frame);
+      }
+      for (Member member : members) {
+        member.flush();
+      }
+    }
+    finally {
+      frame.release();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "NettyWebSocketSessionGroup{name='%s', size=%d}".formatted(name, sessions.size());
+  }
+
+  /**
+   * Member state is only accessed in the channel's event loop
+   */
+  private final class Member extends ChannelInboundHandlerAdapter {
+
+    public final WebSocketSession session;
+
+    @Nullable
+    public final Channel channel;
+
+    @Nullable
+    private ArrayDeque<WebSocketFrame> pending;
+
+    private boolean needsFlush;
+
+    private boolean disposed;
+
+    Member(WebSocketSession session, @Nullable Channel channel) {
+      this.session = session;
+      this.channel = channel;
+    }
+
+    void write(WebSocketFrame frame) {
+      Channel channel = this.channel;
+      if (disposed || channel == null || !channel.isActive()) {
+        return;
+      }
+
+      if (channel.isWritable() && (pending == null || pending.isEmpty())) {
+        channel.write(frame.retainedDuplicate(), channel.voidPromise());
+        needsFlush = true;
+        return;
+      }
+
+      switch (slowConsumerPolicy) {
+        case SKIP -> droppedCount.increment();
+        case DROP_OLDEST -> {
+          ArrayDeque<WebSocketFrame> pending = this.pending;
+          if (pending == null) {
+            pending = new ArrayDeque<>(maxPendingFrames);
+            this.pending = pending;
+          }
+          pending.add(frame.retainedDuplicate());
+          if (pending.size() > maxPendingFrames) {
+            pending.poll().release();
+            droppedCount.increment();
+          }
+        }
+        case DISCONNECT -> {
+          droppedCount.increment();
+          disposed = true;
+          try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+          }
+          catch (IOException e) {
+            logger.debug("Failed to close slow session: {}", session, e);
+          }
+          // don't wait for the outbound buffer
+          channel.close();
+        }
+      }
+    }
+
+    void flush() {
+      if (needsFlush) {
+        needsFlush = false;
+        if (channel != null) {
+          channel.flush();
+        }
+      }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+      ArrayDeque<WebSocketFrame> pending = this.pending;
+      if (pending != null && !disposed) {
+        Channel channel = ctx.channel();
+        WebSocketFrame frame;
+        while (channel.isWritable() && (frame = pending.poll()) != null) {
+          channel.write(frame, channel.voidPromise());
+          needsFlush = true;
+        }
+        flush();
+      }
+      ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+      releasePending();
+    }
+
+    void dispose() {
+      disposed = true;
+      Channel channel = this.channel;
+      if (channel != null && channel.pipeline().context(this) != null) {
+        channel.pipeline().remove(this);
+      }
+      releasePending();
+    }
+
+    private void releasePending() {
+      ArrayDeque<WebSocketFrame> pending = this.pending;
+      if (pending != null) {
+        WebSocketFrame frame;
+        while ((frame = pending.poll()) != null) {
+          frame.release();
+        }
+      }
+    }
+
+  }
+
+}
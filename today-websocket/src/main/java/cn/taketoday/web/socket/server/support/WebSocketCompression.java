@@ -0,0 +1,222 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.socket.server.support;
+
+import cn.taketoday.lang.Assert;
+import cn.taketoday.util.DataSize;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateClientExtensionHandshaker;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+
+/**
+ * {@code permessage-deflate} (RFC 7692) options, shared by
+ * the server and the client side.
+ * <p>
+ * Messages smaller than {@link #setMinCompressionSize minCompressionSize}
+ * are sent uncompressed, deflating them usually costs more than it saves.
+ * <p>
+ * Window size negotiation is not supported, the JDK zlib always uses
+ * a 15 bits window.
+ * <p>
+ * The size of an inflated message is limited by
+ * {@link #setMaxAllocation maxAllocation}, so a small compressed frame
+ * cannot expand into an unbounded buffer.
+ *
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @see PerMessageDeflateServerExtensionHandshaker
+ * @see PerMessageDeflateClientExtensionHandshaker
+ * @since 5.0
+ */
+public class WebSocketCompression {
+
+  /**
+   * extension name
+   */
+  public static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+  private static final int MAX_WINDOW_SIZE = 15;
+
+  /**
+   * inflate limit used when neither an explicit limit nor a max message size is known
+   */
+  static final int DEFAULT_MAX_ALLOCATION = DataSize.ofMegabytes(1).toBytesInt();
+
+  private int compressionLevel = 6;
+
+  private boolean serverNoContextTakeover = false;
+
+  private boolean clientNoContextTakeover = false;
+
+  private int minCompressionSize = DataSize.ofBytes(256).toBytesInt();
+
+  private int maxAllocation = 0;
+
+  /**
+   * Set the deflate compression level, between 0 and 9, default is 6
+   */
+  public void setCompressionLevel(int compressionLevel) {
+    Assert.isTrue(compressionLevel >= 0 && compressionLevel <= 9,
+            () -> "compressionLevel must be between 0 and 9, but was " + compressionLevel);
+    this.compressionLevel = compressionLevel;
+  }
+
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  /**
+   * Set whether the server resets its compression context for each message.
+   * <p>
+   * On the server side this allows the client to request
+   * {@code server_no_context_takeover}, on the client side it is
+   * requested from the server. Without context takeover less memory
+   * is held per connection at the cost of compression ratio.
+   */
+  public void setServerNoContextTakeover(boolean serverNoContextTakeover) {
+    this.serverNoContextTakeover = serverNoContextTakeover;
+  }
+
+  public boolean isServerNoContextTakeover() {
+    return serverNoContextTakeover;
+  }
+
+  /**
+   * Set whether the client resets its compression context for each message.
+   * <p>
+   * On the server side {@code client_no_context_takeover} is requested
+   * from the client, on the client side the server is allowed to request it.
+   */
+  public void setClientNoContextTakeover(boolean clientNoContextTakeover) {
+    this.clientNoContextTakeover = clientNoContextTakeover;
+  }
+
+  public boolean isClientNoContextTakeover() {
+    return clientNoContextTakeover;
+  }
+
+  /**
+   * Set the minimum payload size in bytes of an outgoing message to compress,
+   * default is 256 bytes.
+   */
+  public void setMinCompressionSize(int minCompressionSize) {
+    Assert.isTrue(minCompressionSize >= 0, "minCompressionSize must not be negative");
+    this.minCompressionSize = minCompressionSize;
+  }
+
+  public int getMinCompressionSize() {
+    return minCompressionSize;
+  }
+
+  /**
+   * Set the maximum size in bytes of an inflated incoming message, the
+   * connection fails if a message inflates beyond it.
+   * <p>
+   * Default is 0: the max message size of the server or client is used,
+   * or 1 MB if it is not known.
+   */
+  public void setMaxAllocation(int maxAllocation) {
+    Assert.isTrue(maxAllocation >= 0, "maxAllocation must not be negative");
+    this.maxAllocation = maxAllocation;
+  }
+
+  public int getMaxAllocation() {
+    return maxAllocation;
+  }
+
+  /**
+   * Create the server side extension handshaker
+   */
+  public PerMessageDeflateServerExtensionHandshaker createServerHandshaker() {
+    return createServerHandshaker(0);
+  }
+
+  /**
+   * Create the server side extension handshaker
+   *
+   * @param maxMessageSize max size of an incoming message, used as
+   * inflate limit unless {@link #setMaxAllocation maxAllocation} is set,
+   * 0 if not known
+   */
+  public PerMessageDeflateServerExtensionHandshaker createServerHandshaker(int maxMessageSize) {
+    return new PerMessageDeflateServerExtensionHandshaker(compressionLevel, false, MAX_WINDOW_SIZE,
+            serverNoContextTakeover, clientNoContextTakeover, new FilterProvider(), maxAllocation(maxMessageSize));
+  }
+
+  /**
+   * Create the client side extension handshaker
+   */
+  public PerMessageDeflateClientExtensionHandshaker createClientHandshaker() {
+    return createClientHandshaker(0);
+  }
+
+  /**
+   * Create the client side extension handshaker
+   *
+   * @param maxMessageSize max size of an incoming message, used as
+   * inflate limit unless {@link #setMaxAllocation maxAllocation} is set,
+   * 0 if not known
+   */
+  public PerMessageDeflateClientExtensionHandshaker createClientHandshaker(int maxMessageSize) {
+    return new PerMessageDeflateClientExtensionHandshaker(compressionLevel, false, MAX_WINDOW_SIZE,
+            clientNoContextTakeover, serverNoContextTakeover, new FilterProvider(), maxAllocation(maxMessageSize));
+  }
+
+  int maxAllocation(int maxMessageSize) {
+    if (maxAllocation > 0) {
+      return maxAllocation;
+    }
+    return maxMessageSize > 0 ? maxMessageSize : DEFAULT_MAX_ALLOCATION;
+  }
+
+  /**
+   * Returns {@code true} if the frame is a complete message
+   * and smaller than the {@code minCompressionSize}.
+   * <p>
+   * Fragments of a message are never skipped, the compression
+   * state is decided by the first fragment.
+   */
+  boolean mustSkip(WebSocketFrame frame) {
+    return (frame instanceof TextWebSocketFrame || frame instanceof BinaryWebSocketFrame)
+            && frame.isFinalFragment()
+            && frame.content().readableBytes() < minCompressionSize;
+  }
+
+  @Override
+  public String toString() {
+    return "WebSocketCompression{compressionLevel=%d, serverNoContextTakeover=%s, clientNoContextTakeover=%s, minCompressionSize=%d, maxAllocation=%d}"
+            .formatted(compressionLevel, serverNoContextTakeover, clientNoContextTakeover, minCompressionSize, maxAllocation);
+  }
+
+  private final class FilterProvider implements WebSocketExtensionFilterProvider {
+
+    @Override
+    public WebSocketExtensionFilter encoderFilter() {
+      return WebSocketCompression.this::mustSkip;
+    }
+
+    @Override
+    public WebSocketExtensionFilter decoderFilter() {
+      return WebSocketExtensionFilter.NEVER_SKIP;
+    }
+  }
+
+}
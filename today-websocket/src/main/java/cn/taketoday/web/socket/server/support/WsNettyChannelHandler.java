@@ -92,6 +92,20 @@ public class WsNettyChannelHandler extends NettyChannelHandler {
     }
   }
 
+  @Override
+  public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+    var socketHolder = WebSocketHolder.find(ctx.channel());
+    if (socketHolder != null) {
+      try {
+        socketHolder.wsHandler.onWritabilityChanged(socketHolder.session, ctx.channel().isWritable());
+      }
+      catch (Exception e) {
+        tryCloseWithError(socketHolder.session, e, log);
+      }
+    }
+    ctx.fireChannelWritabilityChanged();
+  }
+
   @Override
   public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
     var socketHolder = WebSocketHolder.find(ctx.channel());
@@ -76,6 +76,16 @@ class ExceptionWebSocketHandlerDecoratorTests {
     assertThat(this.session.getCloseStatus()).isEqualTo(CloseStatus.SERVER_ERROR);
   }
 
+  @Test
+  void onWritabilityChanged() throws Exception {
+    willThrow(new IllegalStateException("error"))
+            .given(this.delegate).onWritabilityChanged(this.session, false);
+
+    this.decorator.onWritabilityChanged(this.session, false);
+
+    assertThat(this.session.getCloseStatus()).isEqualTo(CloseStatus.SERVER_ERROR);
+  }
+
   @Test
   void afterConnectionClosed() throws Exception {
     CloseStatus closeStatus = CloseStatus.NORMAL;
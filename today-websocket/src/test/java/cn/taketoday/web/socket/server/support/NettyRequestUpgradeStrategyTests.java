@@ -19,7 +19,14 @@ package cn.taketoday.web.socket.server.support;
 
 import org.junit.jupiter.api.Test;
 
+import cn.taketoday.web.socket.WebSocketExtension;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.websocketx.WebSocketDecoderConfig;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -46,4 +53,48 @@ class NettyRequestUpgradeStrategyTests {
     assertThat(new NettyRequestUpgradeStrategy(delegate -> delegate)).extracting("sessionDecorator").isNotNull();
   }
 
-}
\ No newline at end of file
+  @Test
+  void compressionDisabledByDefault() {
+    NettyRequestUpgradeStrategy strategy = new NettyRequestUpgradeStrategy(null);
+    assertThat(strategy.negotiateCompression(request("permessage-deflate"))).isNull();
+    assertThat(strategy.getSupportedExtensions(null)).isEmpty();
+  }
+
+  @Test
+  void negotiateCompression() {
+    NettyRequestUpgradeStrategy strategy = new NettyRequestUpgradeStrategy(null);
+    strategy.setCompression(new WebSocketCompression());
+
+    assertThat(strategy.getSupportedExtensions(null))
+            .containsExactly(new WebSocketExtension(WebSocketCompression.PERMESSAGE_DEFLATE));
+    assertThat(strategy.negotiateCompression(request("x-webkit-deflate-frame"))).isNull();
+
+    WebSocketServerExtension extension = strategy.negotiateCompression(
+            request("x-webkit-deflate-frame, permessage-deflate; client_max_window_bits"));
+    assertThat(extension).isNotNull();
+    assertThat(extension.newReponseData().name()).isEqualTo(WebSocketCompression.PERMESSAGE_DEFLATE);
+    assertThat(extension.newReponseData().parameters()).doesNotContainKey("server_no_context_takeover");
+  }
+
+  @Test
+  void negotiateNoContextTakeover() {
+    WebSocketCompression compression = new WebSocketCompression();
+    NettyRequestUpgradeStrategy strategy = new NettyRequestUpgradeStrategy(null);
+    strategy.setCompression(compression);
+
+    assertThat(strategy.negotiateCompression(request("permessage-deflate; server_no_context_takeover"))).isNull();
+
+    compression.setServerNoContextTakeover(true);
+    WebSocketServerExtension extension = strategy.negotiateCompression(
+            request("permessage-deflate; server_no_context_takeover"));
+    assertThat(extension).isNotNull();
+    assertThat(extension.newReponseData().parameters()).containsKey("server_no_context_takeover");
+  }
+
+  private static FullHttpRequest request(String extensions) {
+    var request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/ws");
+    request.headers().set(HttpHeaderNames.SEC_WEBSOCKET_EXTENSIONS, extensions);
+    return request;
+  }
+
+}
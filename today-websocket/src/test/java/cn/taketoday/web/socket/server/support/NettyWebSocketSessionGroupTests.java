@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.socket.server.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.web.socket.CloseStatus;
+import cn.taketoday.web.socket.Message;
+import cn.taketoday.web.socket.SlowConsumerPolicy;
+import cn.taketoday.web.socket.TextMessage;
+import cn.taketoday.web.socket.handler.TestWebSocketSession;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class NettyWebSocketSessionGroupTests {
+
+  private final NettyWebSocketSessionGroup group = new NettyWebSocketSessionGroup("test");
+
+  @Test
+  void broadcastSharesEncodedFrame() {
+    EmbeddedChannel channel1 = new EmbeddedChannel();
+    EmbeddedChannel channel2 = new EmbeddedChannel();
+    assertThat(group.add(createSession(channel1))).isTrue();
+    assertThat(group.add(createSession(channel2))).isTrue();
+    assertThat(group.size()).isEqualTo(2);
+
+    group.broadcast("hello");
+    channel1.runPendingTasks();
+    channel2.runPendingTasks();
+
+    TextWebSocketFrame frame1 = channel1.readOutbound();
+    TextWebSocketFrame frame2 = channel2.readOutbound();
+    assertThat(frame1.text()).isEqualTo("hello");
+    assertThat(frame2.text()).isEqualTo("hello");
+    assertThat(frame1.content().unwrap()).isSameAs(frame2.content().unwrap());
+
+    ByteBuf shared = frame1.content().unwrap();
+    frame1.release();
+    assertThat(shared.refCnt()).isEqualTo(1);
+    frame2.release();
+    assertThat(shared.refCnt()).isZero();
+  }
+
+  @Test
+  void addTwice() {
+    NettyWebSocketSession session = createSession(new EmbeddedChannel());
+    assertThat(group.add(session)).isTrue();
+    assertThat(group.add(session)).isFalse();
+    assertThat(group.contains(session)).isTrue();
+    assertThat(group.getSessions()).containsExactly(session);
+  }
+
+  @Test
+  void removedOnChannelClose() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    NettyWebSocketSession session = createSession(channel);
+    group.add(session);
+
+    channel.close();
+    assertThat(group.contains(session)).isFalse();
+    assertThat(group.size()).isZero();
+  }
+
+  @Test
+  void remove() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    NettyWebSocketSession session = createSession(channel);
+    group.add(session);
+
+    assertThat(group.remove(session)).isTrue();
+    assertThat(group.remove(session)).isFalse();
+
+    group.broadcast("hello");
+    channel.runPendingTasks();
+    assertThat((Object) channel.readOutbound()).isNull();
+  }
+
+  @Test
+  void skipSlowConsumer() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    group.setWriteBufferWaterMark(1, 2);
+    group.add(createSession(channel));
+    makeUnwritable(channel);
+
+    group.broadcast("1");
+    channel.runPendingTasks();
+    channel.flush();
+    channel.runPendingTasks();
+
+    channel.<ByteBuf>readOutbound().release();
+    assertThat((Object) channel.readOutbound()).isNull();
+    assertThat(group.getDroppedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void dropOldestFrames() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    group.setSlowConsumerPolicy(SlowConsumerPolicy.DROP_OLDEST);
+    group.setMaxPendingFrames(2);
+    group.setWriteBufferWaterMark(1, 2);
+    group.add(createSession(channel));
+    makeUnwritable(channel);
+
+    group.broadcast("1");
+    group.broadcast("2");
+    group.broadcast("3");
+    channel.runPendingTasks();
+    assertThat(group.getDroppedCount()).isEqualTo(1);
+
+    channel.flush();
+    channel.runPendingTasks();
+
+    channel.<ByteBuf>readOutbound().release();
+    assertText(channel.readOutbound(), "2");
+    assertText(channel.readOutbound(), "3");
+    assertThat((Object) channel.readOutbound()).isNull();
+  }
+
+  @Test
+  void disconnectSlowConsumer() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    group.setSlowConsumerPolicy(SlowConsumerPolicy.DISCONNECT);
+    group.setWriteBufferWaterMark(1, 2);
+    NettyWebSocketSession session = createSession(channel);
+    group.add(session);
+    makeUnwritable(channel);
+
+    group.broadcast("1");
+    channel.runPendingTasks();
+
+    assertThat(channel.isOpen()).isFalse();
+    assertThat(group.contains(session)).isFalse();
+    assertThat(group.getDroppedCount()).isEqualTo(1);
+  }
+
+  @Test
+  void nonNettySessionFallback() {
+    TestWebSocketSession session = new TestWebSocketSession("1");
+    group.add(session);
+
+    group.broadcast("hello");
+    assertThat(session.getSentMessages()).hasSize(1);
+    assertThat(session.getSentMessages().get(0)).isInstanceOf(TextMessage.class)
+            .extracting(Message::getPayload).isEqualTo("hello");
+
+    group.close(CloseStatus.GOING_AWAY);
+    assertThat(session.getCloseStatus()).isEqualTo(CloseStatus.GOING_AWAY);
+  }
+
+  private static NettyWebSocketSession createSession(EmbeddedChannel channel) {
+    return new NettyWebSocketSession(HttpHeaders.forWritable(), false, channel);
+  }
+
+  private static void makeUnwritable(EmbeddedChannel channel) {
+    channel.write(Unpooled.wrappedBuffer(new byte[16]));
+    assertThat(channel.isWritable()).isFalse();
+  }
+
+  private static void assertText(TextWebSocketFrame frame, String expected) {
+    try {
+      assertThat(frame.content().toString(StandardCharsets.UTF_8)).isEqualTo(expected);
+    }
+    finally {
+      frame.release();
+    }
+  }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.socket.server.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.taketoday.http.HttpHeaders;
+import cn.taketoday.util.concurrent.Future;
+import cn.taketoday.web.socket.BinaryMessage;
+import cn.taketoday.web.socket.TextMessage;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class NettyWebSocketSessionTests {
+
+  @Test
+  void sendCompletesFuture() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    NettyWebSocketSession session = createSession(channel);
+
+    Future<Void> future = session.send(new TextMessage("hello"));
+    assertThat(future.isSuccess()).isTrue();
+
+    TextWebSocketFrame frame = channel.readOutbound();
+    assertThat(frame.text()).isEqualTo("hello");
+    assertThat(frame.isFinalFragment()).isTrue();
+    frame.release();
+  }
+
+  @Test
+  void sendPartialMessage() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    NettyWebSocketSession session = createSession(channel);
+
+    session.send(new BinaryMessage(ByteBuffer.wrap(new byte[] { 1, 2 }), false));
+    BinaryWebSocketFrame frame = channel.readOutbound();
+    assertThat(frame.isFinalFragment()).isFalse();
+    assertThat(frame.content().readableBytes()).isEqualTo(2);
+    frame.release();
+  }
+
+  @Test
+  void sendFailsOnClosedChannel() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    NettyWebSocketSession session = createSession(channel);
+    channel.close();
+
+    Future<Void> future = session.sendAsync("hello");
+    assertThat(future.isFailed()).isTrue();
+    assertThat(future.getCause()).isNotNull();
+  }
+
+  @Test
+  void isWritable() {
+    EmbeddedChannel channel = new EmbeddedChannel();
+    channel.config().setWriteBufferHighWaterMark(2);
+    channel.config().setWriteBufferLowWaterMark(1);
+    NettyWebSocketSession session = createSession(channel);
+    assertThat(session.isWritable()).isTrue();
+
+    channel.write(Unpooled.wrappedBuffer(new byte[16]));
+    assertThat(session.isWritable()).isFalse();
+
+    channel.flush();
+    assertThat(session.isWritable()).isTrue();
+    assertThat(channel.finishAndReleaseAll()).isTrue();
+  }
+
+  @Test
+  void flushCoalescing() {
+    AtomicInteger flushes = new AtomicInteger();
+    EmbeddedChannel channel = new EmbeddedChannel(new ChannelOutboundHandlerAdapter() {
+
+      @Override
+      public void flush(ChannelHandlerContext ctx) throws Exception {
+        flushes.incrementAndGet();
+        super.flush(ctx);
+      }
+    });
+
+    NettyWebSocketSession session = createSession(channel);
+    session.setFlushCoalescing(true);
+
+    Future<Void> future = session.send(new TextMessage("1"));
+    session.sendText("2");
+    session.sendText("3");
+
+    assertThat(future.isDone()).isFalse();
+    assertThat((Object) channel.readOutbound()).isNull();
+
+    channel.runPendingTasks();
+    assertThat(flushes.get()).isEqualTo(1);
+    assertThat(future.isSuccess()).isTrue();
+
+    for (String expected : new String[] { "1", "2", "3" }) {
+      TextWebSocketFrame frame = channel.readOutbound();
+      assertThat(frame.text()).isEqualTo(expected);
+      frame.release();
+    }
+  }
+
+  private static NettyWebSocketSession createSession(EmbeddedChannel channel) {
+    return new NettyWebSocketSession(HttpHeaders.forWritable(), false, channel);
+  }
+
+}
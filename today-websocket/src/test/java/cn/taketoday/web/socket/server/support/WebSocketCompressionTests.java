@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017 - 2024 the original author or authors.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see [https://www.gnu.org/licenses/]
+ */
+
+package cn.taketoday.web.socket.server.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CodecException;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.ContinuationWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketClientExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtension;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionData;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+/**
+ * @author <a href="https://github.com/TAKETODAY">Harry Yang</a>
+ * @since 5.0
+ */
+class WebSocketCompressionTests {
+
+  private static final String JSON = "{\"symbol\":\"ABC\",\"price\":100.25,\"volume\":3000}".repeat(50);
+
+  @Test
+  void mustSkip() {
+    WebSocketCompression compression = new WebSocketCompression();
+    compression.setMinCompressionSize(10);
+
+    assertThat(compression.mustSkip(new TextWebSocketFrame("small"))).isTrue();
+    assertThat(compression.mustSkip(new TextWebSocketFrame("large message"))).isFalse();
+    assertThat(compression.mustSkip(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(new byte[9])))).isTrue();
+    assertThat(compression.mustSkip(new TextWebSocketFrame(false, 0, "small"))).isFalse();
+    assertThat(compression.mustSkip(new ContinuationWebSocketFrame(true, 0, "small"))).isFalse();
+  }
+
+  @Test
+  void invalidOptions() {
+    WebSocketCompression compression = new WebSocketCompression();
+    assertThatIllegalArgumentException().isThrownBy(() -> compression.setCompressionLevel(10));
+    assertThatIllegalArgumentException().isThrownBy(() -> compression.setMinCompressionSize(-1));
+    assertThatIllegalArgumentException().isThrownBy(() -> compression.setMaxAllocation(-1));
+  }
+
+  @Test
+  void maxAllocation() {
+    WebSocketCompression compression = new WebSocketCompression();
+    assertThat(compression.maxAllocation(0)).isEqualTo(WebSocketCompression.DEFAULT_MAX_ALLOCATION);
+    assertThat(compression.maxAllocation(65536)).isEqualTo(65536);
+
+    compression.setMaxAllocation(1024);
+    assertThat(compression.maxAllocation(65536)).isEqualTo(1024);
+  }
+
+  @Test
+  void inflateBeyondMaxAllocationRejected() {
+    WebSocketCompression compression = new WebSocketCompression();
+    WebSocketServerExtension server = compression.createServerHandshaker()
+            .handshakeExtension(new WebSocketExtensionData(WebSocketCompression.PERMESSAGE_DEFLATE, Map.of()));
+    WebSocketClientExtension client = compression.createClientHandshaker(1024)
+            .handshakeExtension(server.newReponseData());
+
+    EmbeddedChannel serverChannel = new EmbeddedChannel(server.newExtensionEncoder());
+    EmbeddedChannel clientChannel = new EmbeddedChannel(client.newExtensionDecoder());
+
+    serverChannel.writeOutbound(new BinaryWebSocketFrame(Unpooled.wrappedBuffer(new byte[1024 * 1024])));
+    WebSocketFrame compressed = serverChannel.readOutbound();
+    assertThat(compressed.content().readableBytes()).isLessThan(2048);
+
+    assertThatExceptionOfType(CodecException.class).isThrownBy(() -> clientChannel.writeInbound(compressed));
+
+    serverChannel.finishAndReleaseAll();
+    clientChannel.finishAndReleaseAll();
+  }
+
+  @Test
+  void compressRoundTrip() {
+    WebSocketCompression compression = new WebSocketCompression();
+    WebSocketServerExtension server = compression.createServerHandshaker()
+            .handshakeExtension(new WebSocketExtensionData(WebSocketCompression.PERMESSAGE_DEFLATE, Map.of()));
+    assertThat(server).isNotNull();
+
+    WebSocketClientExtension client = compression.createClientHandshaker()
+            .handshakeExtension(server.newReponseData());
+    assertThat(client).isNotNull();
+
+    EmbeddedChannel serverChannel = new EmbeddedChannel(server.newExtensionEncoder());
+    EmbeddedChannel clientChannel = new EmbeddedChannel(client.newExtensionDecoder());
+
+    serverChannel.writeOutbound(new TextWebSocketFrame(JSON));
+    WebSocketFrame compressed = serverChannel.readOutbound();
+    assertThat(compressed.rsv() & WebSocketExtension.RSV1).isNotZero();
+    assertThat(compressed.content().readableBytes()).isLessThan(JSON.length() / 10);
+
+    clientChannel.writeInbound(compressed);
+    TextWebSocketFrame decompressed = clientChannel.readInbound();
+    assertThat(decompressed.text()).isEqualTo(JSON);
+    decompressed.release();
+
+    serverChannel.writeOutbound(new TextWebSocketFrame("small"));
+    TextWebSocketFrame small = serverChannel.readOutbound();
+    assertThat(small.rsv()).isZero();
+    assertThat(small.text()).isEqualTo("small");
+    small.release();
+
+    assertThat(serverChannel.finishAndReleaseAll()).isFalse();
+    assertThat(clientChannel.finishAndReleaseAll()).isFalse();
+  }
+
+}